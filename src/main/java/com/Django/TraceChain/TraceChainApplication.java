@@ -3,10 +3,12 @@ package com.Django.TraceChain;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import com.Django.TraceChain.component.BlockstreamProperties;
 
 @SpringBootApplication
 @EnableConfigurationProperties(BlockstreamProperties.class)
+@EnableScheduling
 public class TraceChainApplication {
 
     public static void main(String[] args) {
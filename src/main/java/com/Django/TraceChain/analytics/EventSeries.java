@@ -0,0 +1,78 @@
+package com.Django.TraceChain.analytics;
+
+import java.util.Arrays;
+
+/*
+ * 한 주소의 시간순 이벤트 열 (병렬 원시 배열: 시각, 금액, 상대 주소)
+ * - Builder 에 시간순으로 넣으면 정렬 없이 그대로, 순서가 어긋난 경우에만 한 번 안정 정렬
+ * - 만든 뒤에는 불변 → 같은 실행의 여러 탐지기/설정이 공유 (DetectionSnapshot 이 캐시)
+ */
+public final class EventSeries {
+
+    private final long[] time;          // epoch 초
+    private final long[] amount;        // Amounts 내부 단위
+    private final String[] counterparty;
+
+    private EventSeries(long[] time, long[] amount, String[] counterparty) {
+        this.time = time;
+        this.amount = amount;
+        this.counterparty = counterparty;
+    }
+
+    public int size() { return time.length; }
+    public long time(int i) { return time[i]; }
+    public long amount(int i) { return amount[i]; }
+    public String counterparty(int i) { return counterparty[i]; }
+
+    /** time > t 인 첫 위치 */
+    public int firstAfter(long t) {
+        int lo = 0, hi = time.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (time[mid] <= t) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    public static final class Builder {
+        private long[] time = new long[8];
+        private long[] amount = new long[8];
+        private String[] counterparty = new String[8];
+        private int size;
+        private boolean sorted = true;
+
+        public Builder add(long t, long value, String other) {
+            if (size == time.length) {
+                time = Arrays.copyOf(time, size << 1);
+                amount = Arrays.copyOf(amount, size << 1);
+                counterparty = Arrays.copyOf(counterparty, size << 1);
+            }
+            if (size > 0 && t < time[size - 1]) sorted = false;
+            time[size] = t;
+            amount[size] = value;
+            counterparty[size] = other;
+            size++;
+            return this;
+        }
+
+        public EventSeries build() {
+            if (sorted) {
+                return new EventSeries(Arrays.copyOf(time, size), Arrays.copyOf(amount, size),
+                        Arrays.copyOf(counterparty, size));
+            }
+            // 시각 기준 안정 정렬 (같은 시각은 넣은 순서 유지)
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> Long.compare(time[a], time[b]));
+            long[] t = new long[size], v = new long[size];
+            String[] c = new String[size];
+            for (int i = 0; i < size; i++) {
+                t[i] = time[order[i]];
+                v[i] = amount[order[i]];
+                c[i] = counterparty[order[i]];
+            }
+            return new EventSeries(t, v, c);
+        }
+    }
+}
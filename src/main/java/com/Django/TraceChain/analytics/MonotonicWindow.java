@@ -0,0 +1,53 @@
+package com.Django.TraceChain.analytics;
+
+/*
+ * two-pointer 창의 최댓값(또는 최솟값)을 O(1) 분할상환으로 유지하는 단조 deque
+ * - push(index, value) 는 index 가 증가하는 순서로, evict(index) 는 창 왼쪽 끝이 빠질 때 호출
+ * - 인덱스/값을 고정 크기 배열에 보관 (박싱 없음), clear() 후 재사용
+ */
+public final class MonotonicWindow {
+
+    private final boolean max;
+    private int[] index;
+    private long[] value;
+    private int head;
+    private int tail;
+
+    public MonotonicWindow(int capacity, boolean max) {
+        this.max = max;
+        this.index = new int[Math.max(1, capacity)];
+        this.value = new long[index.length];
+    }
+
+    public static MonotonicWindow max(int capacity) { return new MonotonicWindow(capacity, true); }
+
+    public static MonotonicWindow min(int capacity) { return new MonotonicWindow(capacity, false); }
+
+    /** 창 오른쪽에 추가 (창 전체에서 push 는 capacity 번까지) */
+    public void push(int i, long v) {
+        while (tail > head && (max ? value[tail - 1] <= v : value[tail - 1] >= v)) tail--;
+        index[tail] = i;
+        value[tail] = v;
+        tail++;
+    }
+
+    /** 창 왼쪽 끝 i 가 빠짐 */
+    public void evict(int i) {
+        if (tail > head && index[head] == i) head++;
+    }
+
+    public boolean isEmpty() { return tail == head; }
+
+    /** 창 안의 최댓값(최솟값), 비어 있으면 호출하지 않음 */
+    public long peek() { return value[head]; }
+
+    /** 다른 크기의 시퀀스에 재사용 */
+    public void clear(int capacity) {
+        if (capacity > index.length) {
+            index = new int[capacity];
+            value = new long[capacity];
+        }
+        head = 0;
+        tail = 0;
+    }
+}
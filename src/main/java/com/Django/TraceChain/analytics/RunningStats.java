@@ -0,0 +1,48 @@
+package com.Django.TraceChain.analytics;
+
+/*
+ * 창에 값이 들어오고 나갈 때 O(1) 로 갱신되는 개수/합/제곱합
+ * - 평균/분산/CV 는 Stats.cv 와 같은 정의
+ * - 값이 정수(초, 내부 금액 단위)라서 합이 2^53 을 넘지 않는 범위에서는 add/remove 를 반복해도 오차가 쌓이지 않음
+ */
+public final class RunningStats {
+
+    private int count;
+    private double sum;
+    private double sumSq;
+
+    public void add(double x) {
+        count++;
+        sum += x;
+        sumSq += x * x;
+    }
+
+    public void remove(double x) {
+        count--;
+        sum -= x;
+        sumSq -= x * x;
+    }
+
+    public void clear() {
+        count = 0;
+        sum = 0.0;
+        sumSq = 0.0;
+    }
+
+    public int count() { return count; }
+    public double sum() { return sum; }
+    public double sumSq() { return sumSq; }
+
+    public double mean() {
+        return count == 0 ? 0.0 : sum / count;
+    }
+
+    public double variance() {
+        if (count <= 1) return 0.0;
+        return Math.max(0.0, (sumSq - sum * sum / count) / (count - 1));
+    }
+
+    public double cv() {
+        return Stats.cv(count, sum, sumSq);
+    }
+}
@@ -0,0 +1,40 @@
+package com.Django.TraceChain.analytics;
+
+/*
+ * 탐지기 공용 통계 함수 (표본 변동계수 등)
+ * - 합/제곱합으로 계산하는 판과 배열로 계산하는 판이 같은 정의를 쓰도록 한 곳에 모음
+ */
+public final class Stats {
+
+    private Stats() {}
+
+    /** 개수/합/제곱합으로 표본 CV (n <= 1 이면 0, 평균 0 이면 1) */
+    public static double cv(int n, double sum, double sumSq) {
+        if (n <= 1) return 0.0;
+        double mean = sum / n;
+        if (mean == 0.0) return 1.0;
+        double var = Math.max(0.0, (sumSq - sum * sum / n) / (n - 1));
+        return Math.sqrt(var) / mean;
+    }
+
+    /** values 앞 n 개의 표본 CV (두 단계 계산이라 값이 클 때도 상쇄 오차 없음) */
+    public static double cv(long[] values, int n) {
+        if (n <= 1) return 0.0;
+        double sum = 0.0;
+        for (int i = 0; i < n; i++) sum += values[i];
+        double mean = sum / n;
+        if (mean == 0.0) return 1.0;
+        double var = 0.0;
+        for (int i = 0; i < n; i++) {
+            double d = values[i] - mean;
+            var += d * d;
+        }
+        return Math.sqrt(var / (n - 1)) / mean;
+    }
+
+    public static double clamp01(double x) {
+        if (x < 0.0) return 0.0;
+        if (x > 1.0) return 1.0;
+        return x;
+    }
+}
@@ -0,0 +1,69 @@
+package com.Django.TraceChain.analytics;
+
+import java.util.Arrays;
+
+/*
+ * 시간창 two-pointer 용 정수 bin 히스토그램 (FixedAmountDetector)
+ * - add / remove 가 O(1): bin 별 개수 + count-of-counts(개수가 c 인 bin 수)로 최빈 개수(fmax) 유지
+ * - 엔트로피도 증분 유지: H = ln N - (Σ c ln c) / N
+ * - 한 번 만든 인스턴스를 clear() 로 재사용 (지갑마다 할당하지 않음)
+ */
+public final class WindowHistogram {
+
+    private final int[] counts;
+    private int[] countOfCounts = new int[16];
+    private int total;
+    private int distinct;
+    private int maxCount;
+    private double sumCLogC;
+
+    public WindowHistogram(int bins) {
+        this.counts = new int[bins];
+    }
+
+    public void add(int bin) {
+        int c = counts[bin]++;
+        if (c == 0) distinct++;
+        else countOfCounts[c]--;
+        if (c + 1 >= countOfCounts.length) countOfCounts = Arrays.copyOf(countOfCounts, countOfCounts.length << 1);
+        countOfCounts[c + 1]++;
+        if (c + 1 > maxCount) maxCount = c + 1;
+        sumCLogC += xLogX(c + 1) - xLogX(c);
+        total++;
+    }
+
+    public void remove(int bin) {
+        int c = counts[bin]--;
+        countOfCounts[c]--;
+        if (c == 1) distinct--;
+        else countOfCounts[c - 1]++;
+        if (c == maxCount && countOfCounts[c] == 0) maxCount--;
+        sumCLogC += xLogX(c - 1) - xLogX(c);
+        total--;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(countOfCounts, 0);
+        total = 0;
+        distinct = 0;
+        maxCount = 0;
+        sumCLogC = 0.0;
+    }
+
+    public int total() { return total; }
+    public int distinct() { return distinct; }
+    public int maxCount() { return maxCount; }
+
+    // 사용 중인 bin 수로 정규화한 엔트로피 (비어 있으면 1, bin 1개면 0)
+    public double normalizedEntropy() {
+        if (total == 0) return 1.0;
+        if (distinct <= 1) return 0.0;
+        double h = Math.log(total) - sumCLogC / total;
+        return Math.max(0.0, h) / Math.log(distinct);
+    }
+
+    private static double xLogX(int c) {
+        return c <= 1 ? 0.0 : c * Math.log(c);
+    }
+}
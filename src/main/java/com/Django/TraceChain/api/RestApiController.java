@@ -2,11 +2,23 @@ package com.Django.TraceChain.api;
 
 import com.Django.TraceChain.dto.*;
 import com.Django.TraceChain.model.Wallet;
+import com.Django.TraceChain.repository.WalletRepository;
 import com.Django.TraceChain.service.*;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -16,27 +28,64 @@ public class RestApiController {
 
     private final WalletService walletService;
     private final DetectService detectService;
+    private final GraphService graphService;
+    private final ObjectMapper objectMapper;
+    private final SearchLogRecorder searchLog;
+    private final DetectorSweepService sweepService;
+    private final TaintPropagationService taintService;
+    private final AddressClusterService clusterService;
+    private final DetectionJobService detectionJobService;
+    private final DetectionRunCoordinator runCoordinator;
+    private final WalletRepository walletRepository;
 
     @Autowired
-    public RestApiController(WalletService walletService, DetectService detectService) {
+    public RestApiController(WalletService walletService, DetectService detectService,
+                             GraphService graphService, ObjectMapper objectMapper,
+                             SearchLogRecorder searchLog, DetectorSweepService sweepService,
+                             TaintPropagationService taintService, WalletRepository walletRepository,
+                             AddressClusterService clusterService, DetectionJobService detectionJobService,
+                             DetectionRunCoordinator runCoordinator) {
         this.walletService = walletService;
         this.detectService = detectService;
+        this.graphService = graphService;
+        this.objectMapper = objectMapper;
+        this.searchLog = searchLog;
+        this.sweepService = sweepService;
+        this.taintService = taintService;
+        this.clusterService = clusterService;
+        this.detectionJobService = detectionJobService;
+        this.runCoordinator = runCoordinator;
+        this.walletRepository = walletRepository;
     }
 
+    // durable 응답 / DB 재조회 전 write-behind 반영이 실패하거나 시간 초과 → 반영되지 않은 데이터를 200 으로 돌려주지 않음
+    @ExceptionHandler(WriteBehindFlushException.class)
+    public ResponseEntity<Void> writeBehindFailed(WriteBehindFlushException e) {
+        System.out.printf("[WARN] Write-behind not persisted: %s%n", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    // durable=true 이면 write-behind 로 저장 중인 데이터가 DB에 반영된 뒤 응답
     @GetMapping("/search")
     public ResponseEntity<WalletDto> search(@RequestParam String address,
-                                            @RequestParam(defaultValue = "bitcoin") String chain) {
+                                            @RequestParam(defaultValue = "bitcoin") String chain,
+                                            @RequestParam(defaultValue = "false") boolean durable) {
+        searchLog.record(chain, "search", address);
         Wallet wallet = walletService.findAddress(chain, address);
         wallet.setTransactions(walletService.getTransactions(chain, address));
+        if (durable) walletService.awaitPersisted();
         return ResponseEntity.ok(DtoMapper.mapWallet(wallet));
     }
 
     @GetMapping("/search-limited")
     public ResponseEntity<WalletDto> searchLimited(@RequestParam String address,
                                                    @RequestParam(defaultValue = "bitcoin") String chain,
-                                                   @RequestParam(defaultValue = "10") int limit) {
+                                                   @RequestParam(defaultValue = "10") int limit,
+                                                   @RequestParam(defaultValue = "false") boolean durable) {
+        searchLog.record(chain, "search-limited", address);
         Wallet wallet = walletService.findAddress(chain, address);
         wallet.setTransactions(walletService.getTransactions(chain, address, limit));
+        if (durable) walletService.awaitPersisted();
         return ResponseEntity.ok(DtoMapper.mapWallet(wallet));
     }
 
@@ -44,9 +93,12 @@ public class RestApiController {
     public ResponseEntity<Set<String>> trace(@RequestParam String address,
                                              @RequestParam(defaultValue = "bitcoin") String chain,
                                              @RequestParam(defaultValue = "0") int depth,
-                                             @RequestParam(defaultValue = "2") int maxDepth) {
+                                             @RequestParam(defaultValue = "2") int maxDepth,
+                                             @RequestParam(defaultValue = "false") boolean durable) {
+        searchLog.record(chain, "trace", address);
         Set<String> visited = new HashSet<>();
         walletService.traceAllTransactionsRecursive(chain, address, depth, maxDepth, visited);
+        if (durable) walletService.awaitPersisted();
         return ResponseEntity.ok(visited);
     }
 
@@ -54,11 +106,14 @@ public class RestApiController {
     public ResponseEntity<Map<Integer, List<WalletDto>>> traceDetailed(@RequestParam String address,
                                                                        @RequestParam(defaultValue = "bitcoin") String chain,
                                                                        @RequestParam(defaultValue = "0") int depth,
-                                                                       @RequestParam(defaultValue = "2") int maxDepth) {
+                                                                       @RequestParam(defaultValue = "2") int maxDepth,
+                                                                       @RequestParam(defaultValue = "false") boolean durable) {
+        searchLog.record(chain, "trace-limited", address);
         Set<String> visited = new HashSet<>();
         Map<Integer, List<Wallet>> depthMap = new TreeMap<>();
 
         walletService.traceLimitedTransactionsRecursive(chain, address, depth, maxDepth, depthMap, visited);
+        if (durable) walletService.awaitPersisted();
 
         Map<Integer, List<WalletDto>> dtoMap = depthMap.entrySet().stream()
                 .collect(Collectors.toMap(
@@ -69,20 +124,59 @@ public class RestApiController {
         return ResponseEntity.ok(dtoMap);
     }
 
+    // 전체 그래프를 엔티티 로딩 없이 keyset 페이지 단위로 JSON 배열 스트리밍
+    // after: 이전 응답의 마지막 address (이어받기), limit: 최대 지갑 수 (0 = 끝까지)
     @GetMapping("/graph")
-    public ResponseEntity<List<WalletDto>> graph() {
-        List<Wallet> wallets = walletService.getAllWallets();
-        return ResponseEntity.ok(wallets.stream().map(DtoMapper::mapWallet).collect(Collectors.toList()));
+    public ResponseEntity<StreamingResponseBody> graph(@RequestParam(required = false) String chain,
+                                                       @RequestParam(required = false) List<String> patterns,
+                                                       @RequestParam(required = false) Long updatedSince,
+                                                       @RequestParam(required = false) String after,
+                                                       @RequestParam(defaultValue = "200") int pageSize,
+                                                       @RequestParam(defaultValue = "0") int limit) {
+        try {
+            GraphService.toChainType(chain);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        LocalDateTime since = (updatedSince == null) ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochSecond(updatedSince), ZoneOffset.UTC);
+
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                gen.writeStartArray();
+                graphService.streamGraph(chain, patterns, since, after, pageSize, limit, dto -> {
+                    try {
+                        gen.writeObject(dto);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                gen.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
+    // 기본은 증분 탐지 (트랜잭션이 바뀐 지갑과 반경 안 이웃만), full=true 이면 전체 재계산 (배치 작업, 실행 중이면 409)
+    // 응답은 실행 요약만 (지갑 전체를 싣지 않음), 결과는 /api/graph 나 /api/risk/top 으로 페이지 단위 조회
+    // 동시에 들어온 같은 요청은 한 번만 실행하고 결과 공유, 새 데이터가 들어오기 전까지는 결과 재사용
+    // 탐지기 실패나 전체 작업 FAILED 는 409 가 아니라 500 (예외를 그대로 올림, 실패한 실행은 재사용하지 않음)
     @GetMapping("/detect")
-    public ResponseEntity<List<WalletDto>> detectAllPatterns() {
-        List<Wallet> wallets = walletService.getAllWallets();
-        detectService.runAllDetectors(wallets);
-        List<WalletDto> results = wallets.stream()
-                .map(DtoMapper::mapWallet)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(results);
+    public ResponseEntity<DetectionSummaryDto> detectAllPatterns(@RequestParam(defaultValue = "false") boolean full) {
+        String scope = full ? DetectionRunCoordinator.ALL_FULL : DetectionRunCoordinator.ALL_CHANGED;
+        try {
+            return ResponseEntity.ok(runCoordinator.run(scope, () -> {
+                long started = System.currentTimeMillis();
+                if (full) {
+                    DetectionJobDto job = detectionJobService.runAndWait(); // 배치 단위 탐지 (힙은 배치 크기에 비례)
+                    return new DetectionSummaryDto("FULL", job.getEvaluated(), job.getElapsedMs(), job);
+                }
+                int evaluated = detectService.runChangedDetectors(); // 바뀌지 않은 지갑은 저장된 결과
+                return new DetectionSummaryDto("INCREMENTAL", evaluated, System.currentTimeMillis() - started, null);
+            }));
+        } catch (DetectionBusyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
     }
 
     @PostMapping("/detect-selected")
@@ -91,18 +185,55 @@ public class RestApiController {
             return ResponseEntity.badRequest().build();
         }
 
-        List<Wallet> wallets = addresses.stream()
-                .map(walletService::findByIdSafe)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        return ResponseEntity.ok(runCoordinator.run(DetectionRunCoordinator.selectedScope(addresses), () -> {
+            List<Wallet> wallets = addresses.stream()
+                    .map(walletService::findByIdSafe)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
 
-        detectService.runAllDetectors(wallets);
+            detectService.runAllDetectors(wallets);
 
-        List<WalletDto> results = wallets.stream()
-                .map(DtoMapper::mapWallet)
-                .collect(Collectors.toList());
+            return wallets.stream()
+                    .map(DtoMapper::mapWallet)
+                    .collect(Collectors.toList());
+        }));
+    }
+
+    // 전체 탐지를 백그라운드 배치 작업으로 시작 (이미 실행 중이면 409)
+    @PostMapping("/detect/jobs")
+    public ResponseEntity<DetectionJobDto> startDetectionJob() {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(detectionJobService.start());
+        } catch (DetectionBusyException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/detect/jobs/{id}")
+    public ResponseEntity<DetectionJobDto> detectionJobStatus(@PathVariable long id) {
+        return ResponseEntity.of(detectionJobService.status(id));
+    }
+
+    // 진행 중인 배치까지 반영하고 멈춤
+    @DeleteMapping("/detect/jobs/{id}")
+    public ResponseEntity<DetectionJobDto> cancelDetectionJob(@PathVariable long id) {
+        return ResponseEntity.of(detectionJobService.cancel(id));
+    }
 
-        return ResponseEntity.ok(results);
+    // 탐지 파라미터 sweep (DB 미반영): body = {"fixedAmount.maxEntropy": [0.3, 0.45], "relayer.threshold": [0.6, 0.7]}
+    // 모든 조합을 한 스냅샷으로 평가해 설정별 탐지 수 반환
+    // patterns=FixedAmount 처럼 탐지기를 고르면 그 탐지기가 읽는 데이터만 조회 (생략하면 전체)
+    @PostMapping("/detect/sweep")
+    public ResponseEntity<List<SweepResultDto>> sweep(@RequestParam(defaultValue = "bitcoin") String chain,
+                                                      @RequestParam(required = false) List<String> patterns,
+                                                      @RequestBody(required = false) Map<String, List<Object>> grid) {
+        try {
+            Integer type = GraphService.toChainType(chain);
+            if (type == null) return ResponseEntity.badRequest().build();
+            return ResponseEntity.ok(sweepService.sweep(type, grid, patterns));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @GetMapping("/search-by-time")
@@ -110,11 +241,14 @@ public class RestApiController {
                                                   @RequestParam long start,
                                                   @RequestParam long end,
                                                   @RequestParam(defaultValue = "50") int limit,
-                                                  @RequestParam(defaultValue = "bitcoin") String chain) {
+                                                  @RequestParam(defaultValue = "bitcoin") String chain,
+                                                  @RequestParam(defaultValue = "false") boolean durable) {
+        searchLog.record(chain, "search-by-time", address);
         Wallet wallet = walletService.findAddress(chain, address);
 
         // 공통 메서드로 대체
         wallet.setTransactions(walletService.getTransactionsByTimeRange(chain, address, start, end, limit));
+        if (durable) walletService.awaitPersisted();
 
         return ResponseEntity.ok(DtoMapper.mapWallet(wallet));
     }
@@ -126,10 +260,12 @@ public class RestApiController {
                                                        @RequestParam(defaultValue = "2") int maxDepth,
                                                        @RequestParam(defaultValue = "50") int limit,
                                                        @RequestParam(defaultValue = "bitcoin") String chain) {
+        searchLog.record(chain, "trace-by-time", address);
         Set<String> visited = new HashSet<>();
 
         // 공통 메서드로 대체
         walletService.traceTransactionsByTimeRange(chain, address, 0, maxDepth, start, end, limit, visited);
+        walletService.awaitPersisted(); // 아래에서 지갑별 트랜잭션을 DB에서 다시 읽음
 
         List<WalletDto> result = visited.stream()
                 .map(addr -> walletService.findAddress(chain, addr))
@@ -140,5 +276,51 @@ public class RestApiController {
         return ResponseEntity.ok(result);
     }
 
+    // 최근 조회가 몰리는 주소 top-K (Space-Saving 추정치, count - error 가 하한)
+    @GetMapping("/hot-addresses")
+    public ResponseEntity<List<HotAddressDto>> hotAddresses(@RequestParam(defaultValue = "20") int k) {
+        return ResponseEntity.ok(searchLog.hotAddresses(k));
+    }
+
+    // 탐지 결과에서 위험도 전파 → wallets.taint_score (이미 실행 중이면 409)
+    @PostMapping("/taint/propagate")
+    public ResponseEntity<TaintSummaryDto> propagateTaint() {
+        try {
+            return ResponseEntity.ok(taintService.propagate());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
 
+    // 위험도 상위 지갑
+    @GetMapping("/taint/top")
+    public ResponseEntity<List<TaintScoreDto>> topTainted(@RequestParam(defaultValue = "50") int limit) {
+        int size = Math.max(1, Math.min(limit, 1000));
+        return ResponseEntity.ok(walletRepository.findTopTainted(PageRequest.of(0, size)));
+    }
+
+    // 종합 위험도 상위 지갑, 다음 페이지는 직전 응답 마지막 항목의 riskScore / address 를 넘김
+    @GetMapping("/risk/top")
+    public ResponseEntity<List<RiskScoreDto>> topRisk(@RequestParam(defaultValue = "50") int limit,
+                                                      @RequestParam(required = false) Double afterScore,
+                                                      @RequestParam(required = false) String afterAddress) {
+        PageRequest page = PageRequest.of(0, Math.max(1, Math.min(limit, 1000)));
+        if (afterScore == null || afterAddress == null) {
+            return ResponseEntity.ok(walletRepository.findTopRisk(page));
+        }
+        return ResponseEntity.ok(walletRepository.findTopRiskAfter(afterScore, afterAddress, page));
+    }
+
+    // 주소가 속한 공통 입력 클러스터 (Bitcoin)
+    @GetMapping("/cluster")
+    public ResponseEntity<ClusterDto> cluster(@RequestParam String address,
+                                              @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(clusterService.clusterOf(address, limit));
+    }
+
+    // 저장된 transfers 로 클러스터 전체 재구성
+    @PostMapping("/cluster/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildClusters() {
+        return ResponseEntity.ok(Map.of("clusters", clusterService.rebuild()));
+    }
 }
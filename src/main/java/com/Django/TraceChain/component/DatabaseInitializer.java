@@ -1,18 +1,11 @@
 package com.Django.TraceChain.component;
 
-import com.Django.TraceChain.model.Wallet;
-import com.Django.TraceChain.model.Transaction;
-import com.Django.TraceChain.model.Transfer;
 import com.Django.TraceChain.repository.WalletRepository;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.time.ZoneOffset;
 
 @Component
 public class DatabaseInitializer implements CommandLineRunner {
@@ -25,11 +18,10 @@ public class DatabaseInitializer implements CommandLineRunner {
 
     @Override
     public void run(String... args) throws Exception {
-        List<Wallet> wallets = walletRepository.findAll();
-        for (Wallet wallet : wallets) {
-            wallet.resetPatterns(); // 패턴 필드 초기화
-        }
-        walletRepository.saveAll(wallets); // DB에 저장
-        System.out.println("All wallet patterns reset.");
+        // 전체 지갑을 메모리에 올리지 않고 bulk UPDATE 한 번으로 초기화
+        long started = System.currentTimeMillis();
+        int updated = walletRepository.resetAllPatterns(LocalDateTime.now(ZoneOffset.UTC));
+        System.out.printf("All wallet patterns reset. (%d rows, %d ms)%n",
+                updated, System.currentTimeMillis() - started);
     }
 }
@@ -0,0 +1,231 @@
+package com.Django.TraceChain.component;
+
+import com.Django.TraceChain.model.PatternType;
+import com.Django.TraceChain.model.Wallet;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * 탐지기 파라미터 (application.properties 의 detect.* 에서 로딩, 예: detect.fixed-amount.max-entropy=0.4)
+ * sweep 은 copy() 한 사본에 값을 덮어써서 사용 → 운영 설정은 바뀌지 않음
+ */
+@Component
+@ConfigurationProperties(prefix = "detect")
+public class DetectorProperties {
+
+    private FixedAmount fixedAmount = new FixedAmount();
+    private MultiIo multiIo = new MultiIo();
+    private Looping looping = new Looping();
+    private Relayer relayer = new Relayer();
+    private PeelChain peelChain = new PeelChain();
+    private Risk risk = new Risk();
+
+    public static class FixedAmount {
+        private long windowSec = 300;     // 5분
+        private double eps = 0.02;        // ±2%
+        private int minRepeat = 3;        // 최소 반복 (K)
+        private double maxEntropy = 0.45; // 정규화 엔트로피 임계 (TAU_H)
+        private List<Double> denominations = new ArrayList<>(List.of(0.1, 1.0, 10.0)); // 코인 단위
+
+        public long getWindowSec() { return windowSec; }
+        public void setWindowSec(long windowSec) { this.windowSec = windowSec; }
+        public double getEps() { return eps; }
+        public void setEps(double eps) { this.eps = eps; }
+        public int getMinRepeat() { return minRepeat; }
+        public void setMinRepeat(int minRepeat) { this.minRepeat = minRepeat; }
+        public double getMaxEntropy() { return maxEntropy; }
+        public void setMaxEntropy(double maxEntropy) { this.maxEntropy = maxEntropy; }
+        public List<Double> getDenominations() { return denominations; }
+        public void setDenominations(List<Double> denominations) { this.denominations = denominations; }
+
+        FixedAmount copy() {
+            FixedAmount c = new FixedAmount();
+            c.windowSec = windowSec;
+            c.eps = eps;
+            c.minRepeat = minRepeat;
+            c.maxEntropy = maxEntropy;
+            c.denominations = new ArrayList<>(denominations);
+            return c;
+        }
+    }
+
+    public static class MultiIo {
+        private int minInputs = 3;
+        private int minOutputs = 3;
+        private double maxOutputCv = 0.30; // 출력 금액 균질성
+
+        public int getMinInputs() { return minInputs; }
+        public void setMinInputs(int minInputs) { this.minInputs = minInputs; }
+        public int getMinOutputs() { return minOutputs; }
+        public void setMinOutputs(int minOutputs) { this.minOutputs = minOutputs; }
+        public double getMaxOutputCv() { return maxOutputCv; }
+        public void setMaxOutputCv(double maxOutputCv) { this.maxOutputCv = maxOutputCv; }
+
+        MultiIo copy() {
+            MultiIo c = new MultiIo();
+            c.minInputs = minInputs;
+            c.minOutputs = minOutputs;
+            c.maxOutputCv = maxOutputCv;
+            return c;
+        }
+    }
+
+    public static class Looping {
+        private int minCycle = 3; // 사이클 간선 수
+        private int maxCycle = 5;
+
+        public int getMinCycle() { return minCycle; }
+        public void setMinCycle(int minCycle) { this.minCycle = minCycle; }
+        public int getMaxCycle() { return maxCycle; }
+        public void setMaxCycle(int maxCycle) { this.maxCycle = maxCycle; }
+
+        Looping copy() {
+            Looping c = new Looping();
+            c.minCycle = minCycle;
+            c.maxCycle = maxCycle;
+            return c;
+        }
+    }
+
+    public static class Relayer {
+        private long windowSec = 300;    // 5분
+        private int minCount = 3;        // 최소 군집 크기
+        private double epsDenom = 0.02;  // ±2% 정액 허용
+        private double threshold = 0.70; // 최종 판정 임계
+
+        public long getWindowSec() { return windowSec; }
+        public void setWindowSec(long windowSec) { this.windowSec = windowSec; }
+        public int getMinCount() { return minCount; }
+        public void setMinCount(int minCount) { this.minCount = minCount; }
+        public double getEpsDenom() { return epsDenom; }
+        public void setEpsDenom(double epsDenom) { this.epsDenom = epsDenom; }
+        public double getThreshold() { return threshold; }
+        public void setThreshold(double threshold) { this.threshold = threshold; }
+
+        Relayer copy() {
+            Relayer c = new Relayer();
+            c.windowSec = windowSec;
+            c.minCount = minCount;
+            c.epsDenom = epsDenom;
+            c.threshold = threshold;
+            return c;
+        }
+    }
+
+    public static class PeelChain {
+        private int minLength = 4;          // 최소 연쇄 길이
+        private int maxLength = 8;          // 점수 정규화용 상한
+        private double smallRatio = 0.20;   // '소액' 비율 임계
+        private long maxGapSec = 24 * 3600; // 단계 간 최대 간격
+        private double threshold = 0.70;    // 최종 판정 임계
+
+        public int getMinLength() { return minLength; }
+        public void setMinLength(int minLength) { this.minLength = minLength; }
+        public int getMaxLength() { return maxLength; }
+        public void setMaxLength(int maxLength) { this.maxLength = maxLength; }
+        public double getSmallRatio() { return smallRatio; }
+        public void setSmallRatio(double smallRatio) { this.smallRatio = smallRatio; }
+        public long getMaxGapSec() { return maxGapSec; }
+        public void setMaxGapSec(long maxGapSec) { this.maxGapSec = maxGapSec; }
+        public double getThreshold() { return threshold; }
+        public void setThreshold(double threshold) { this.threshold = threshold; }
+
+        PeelChain copy() {
+            PeelChain c = new PeelChain();
+            c.minLength = minLength;
+            c.maxLength = maxLength;
+            c.smallRatio = smallRatio;
+            c.maxGapSec = maxGapSec;
+            c.threshold = threshold;
+            return c;
+        }
+    }
+
+    /*
+     * 종합 위험도 가중치 (detect.risk.*)
+     * riskScore = 1 - Π (1 - weight_p * score_p) → 0~1, 패턴이 겹칠수록 1 에 가까워짐
+     * 오탐이 잦은 패턴(FixedAmount, MultiIO)은 단독으로 높은 점수가 나오지 않게 낮게 둠
+     */
+    public static class Risk {
+        private double fixedAmount = 0.5;
+        private double multiIo = 0.4;
+        private double looping = 0.8;
+        private double relayer = 0.7;
+        private double peelChain = 0.7;
+
+        public double getFixedAmount() { return fixedAmount; }
+        public void setFixedAmount(double fixedAmount) { this.fixedAmount = fixedAmount; }
+        public double getMultiIo() { return multiIo; }
+        public void setMultiIo(double multiIo) { this.multiIo = multiIo; }
+        public double getLooping() { return looping; }
+        public void setLooping(double looping) { this.looping = looping; }
+        public double getRelayer() { return relayer; }
+        public void setRelayer(double relayer) { this.relayer = relayer; }
+        public double getPeelChain() { return peelChain; }
+        public void setPeelChain(double peelChain) { this.peelChain = peelChain; }
+
+        /** 패턴 가중치 (0~1 로 자름) */
+        public double weight(PatternType pattern) {
+            double w = switch (pattern) {
+                case FIXED_AMOUNT -> fixedAmount;
+                case MULTI_IO -> multiIo;
+                case LOOPING -> looping;
+                case RELAYER -> relayer;
+                case PEEL_CHAIN -> peelChain;
+            };
+            return Math.max(0.0, Math.min(1.0, w));
+        }
+
+        /** 엔티티에 들어 있는 패턴 점수로 계산 (PatternResultWriter 의 SQL 과 같은 식) */
+        public double score(Wallet wallet) {
+            double clean = 1.0;
+            for (PatternType p : PatternType.values()) {
+                Double s = p.getScore(wallet);
+                if (s != null) clean *= 1.0 - weight(p) * s;
+            }
+            return 1.0 - clean;
+        }
+
+        Risk copy() {
+            Risk c = new Risk();
+            c.fixedAmount = fixedAmount;
+            c.multiIo = multiIo;
+            c.looping = looping;
+            c.relayer = relayer;
+            c.peelChain = peelChain;
+            return c;
+        }
+    }
+
+    public FixedAmount getFixedAmount() { return fixedAmount; }
+    public void setFixedAmount(FixedAmount fixedAmount) { this.fixedAmount = fixedAmount; }
+
+    public MultiIo getMultiIo() { return multiIo; }
+    public void setMultiIo(MultiIo multiIo) { this.multiIo = multiIo; }
+
+    public Looping getLooping() { return looping; }
+    public void setLooping(Looping looping) { this.looping = looping; }
+
+    public Relayer getRelayer() { return relayer; }
+    public void setRelayer(Relayer relayer) { this.relayer = relayer; }
+
+    public PeelChain getPeelChain() { return peelChain; }
+    public void setPeelChain(PeelChain peelChain) { this.peelChain = peelChain; }
+
+    public Risk getRisk() { return risk; }
+    public void setRisk(Risk risk) { this.risk = risk; }
+
+    public DetectorProperties copy() {
+        DetectorProperties c = new DetectorProperties();
+        c.fixedAmount = fixedAmount.copy();
+        c.multiIo = multiIo.copy();
+        c.looping = looping.copy();
+        c.relayer = relayer.copy();
+        c.peelChain = peelChain.copy();
+        c.risk = risk.copy();
+        return c;
+    }
+}
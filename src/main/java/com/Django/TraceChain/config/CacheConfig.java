@@ -0,0 +1,50 @@
+package com.Django.TraceChain.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.List;
+
+@Configuration
+public class CacheConfig {
+
+    // 엔티티/컬렉션 @Cache(region = ...) 와 application.conf 의 영역 이름
+    public static final List<String> REGIONS = List.of(
+            "wallets", "wallet-transactions", "transactions", "transaction-transfers", "transfers");
+
+    // Hibernate 와 지표 수집이 같은 CacheManager 를 보도록 직접 생성
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager() {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    // hit/miss/put/eviction 지표 → /actuator/metrics/cache.gets, cache.evictions ...
+    // EntityManagerFactory 를 받아 Hibernate 가 영역을 만든 뒤에 바인딩
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager secondLevelCacheManager,
+                                               EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            for (String region : REGIONS) {
+                Cache<Object, Object> cache = secondLevelCacheManager.getCache(region);
+                if (cache != null) {
+                    JCacheMetrics.monitor(registry, cache, Tags.of("layer", "hibernate-l2"));
+                }
+            }
+        };
+    }
+}
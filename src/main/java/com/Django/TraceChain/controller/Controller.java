@@ -22,12 +22,15 @@ public class Controller {
     private final WalletService walletService;
     private final DetectService detectService;
     private final WalletRepository walletRepository;
+    private final SearchLogRecorder searchLog;
 
     @Autowired
-    public Controller(WalletService walletService, DetectService detectService, WalletRepository walletRepository) {
+    public Controller(WalletService walletService, DetectService detectService, WalletRepository walletRepository,
+                      SearchLogRecorder searchLog) {
         this.walletService = walletService;
         this.detectService = detectService;
         this.walletRepository = walletRepository;
+        this.searchLog = searchLog;
     }
 
     private String detectChain(String address) {
@@ -44,6 +47,7 @@ public class Controller {
         if (client instanceof EthereumClient ethClient) {
             ethClient.traceLimitedTransactionsRecursive(address, depth, maxDepth, depthMap, visited);
         }
+        walletService.awaitPersisted(); // 아래에서 DB를 다시 읽으므로 write-behind 반영 대기
         return walletRepository.findById(address).orElse(null);
     }
 
@@ -60,6 +64,7 @@ public class Controller {
                 return ResponseEntity.badRequest().body("<html><body><h3>Cannot detect chain type from address.</h3></body></html>");
             }
         }
+        searchLog.record(chain, "search", address);
 
         Wallet wallet;
         List<Transaction> txList;
@@ -109,6 +114,7 @@ public class Controller {
         if (address == null || address.isEmpty()) {
             return ResponseEntity.badRequest().body("<html><body><h3>Address is required.</h3></body></html>");
         }
+        searchLog.record(chain, "search-limited", address);
 
         Wallet wallet;
         List<Transaction> txList;
@@ -160,6 +166,7 @@ public class Controller {
             return ResponseEntity.badRequest().body("<html><body><h3>Address is required.</h3></body></html>");
         }
 
+        searchLog.record(chain, "trace", address);
         Set<String> visited = new HashSet<>();
 
         walletService.traceAllTransactionsRecursive(chain, address, depth, maxDepth, visited);
@@ -183,6 +190,7 @@ public class Controller {
                                                 @RequestParam(defaultValue = "bitcoin") String chain,
                                                 @RequestParam(defaultValue = "0") int depth,
                                                 @RequestParam(defaultValue = "2") int maxDepth) {
+        searchLog.record(chain, "trace-detailed", address);
         Set<String> visited = new HashSet<>();
         Map<Integer, List<Wallet>> depthMap = new TreeMap<>();
 
@@ -0,0 +1,19 @@
+package com.Django.TraceChain.dto;
+
+import java.util.List;
+
+public class ClusterDto {
+    private final String clusterId;      // 클러스터에서 가장 작은 주소 (묶인 적 없으면 주소 자신)
+    private final int size;
+    private final List<String> members;  // 최대 limit 개
+
+    public ClusterDto(String clusterId, int size, List<String> members) {
+        this.clusterId = clusterId;
+        this.size = size;
+        this.members = members;
+    }
+
+    public String getClusterId() { return clusterId; }
+    public int getSize() { return size; }
+    public List<String> getMembers() { return members; }
+}
@@ -0,0 +1,41 @@
+package com.Django.TraceChain.dto;
+
+import java.time.LocalDateTime;
+
+public class DetectionJobDto {
+    private final long id;
+    private final String state;           // PARTITIONING, RUNNING, COMPLETED, CANCELLED, FAILED
+    private final int totalWallets;
+    private final int processedWallets;
+    private final int totalBatches;
+    private final int completedBatches;
+    private final int evaluated;          // 판정 후 반영된 지갑 수 (배치 합)
+    private final LocalDateTime startedAt;
+    private final long elapsedMs;
+    private final String error;
+
+    public DetectionJobDto(long id, String state, int totalWallets, int processedWallets, int totalBatches,
+                           int completedBatches, int evaluated, LocalDateTime startedAt, long elapsedMs, String error) {
+        this.id = id;
+        this.state = state;
+        this.totalWallets = totalWallets;
+        this.processedWallets = processedWallets;
+        this.totalBatches = totalBatches;
+        this.completedBatches = completedBatches;
+        this.evaluated = evaluated;
+        this.startedAt = startedAt;
+        this.elapsedMs = elapsedMs;
+        this.error = error;
+    }
+
+    public long getId() { return id; }
+    public String getState() { return state; }
+    public int getTotalWallets() { return totalWallets; }
+    public int getProcessedWallets() { return processedWallets; }
+    public int getTotalBatches() { return totalBatches; }
+    public int getCompletedBatches() { return completedBatches; }
+    public int getEvaluated() { return evaluated; }
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public long getElapsedMs() { return elapsedMs; }
+    public String getError() { return error; }
+}
@@ -0,0 +1,21 @@
+package com.Django.TraceChain.dto;
+
+// /api/detect 응답: 탐지 결과 자체는 DB 에 반영되고 /api/graph (패턴 필터) 나 /api/risk/top 으로 페이지 단위 조회
+public class DetectionSummaryDto {
+    private final String mode;            // INCREMENTAL, FULL
+    private final int evaluated;          // 이번 실행에서 판정한 지갑 수
+    private final long elapsedMs;
+    private final DetectionJobDto job;    // FULL 일 때 배치 작업 결과 (INCREMENTAL 이면 null)
+
+    public DetectionSummaryDto(String mode, int evaluated, long elapsedMs, DetectionJobDto job) {
+        this.mode = mode;
+        this.evaluated = evaluated;
+        this.elapsedMs = elapsedMs;
+        this.job = job;
+    }
+
+    public String getMode() { return mode; }
+    public int getEvaluated() { return evaluated; }
+    public long getElapsedMs() { return elapsedMs; }
+    public DetectionJobDto getJob() { return job; }
+}
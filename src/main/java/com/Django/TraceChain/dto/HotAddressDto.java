@@ -0,0 +1,20 @@
+package com.Django.TraceChain.dto;
+
+public class HotAddressDto {
+    private final String chain;
+    private final String address;
+    private final long count;   // 추정 조회 수 (상한)
+    private final long error;   // 과대 추정 가능 폭 (count - error 가 하한)
+
+    public HotAddressDto(String chain, String address, long count, long error) {
+        this.chain = chain;
+        this.address = address;
+        this.count = count;
+        this.error = error;
+    }
+
+    public String getChain() { return chain; }
+    public String getAddress() { return address; }
+    public long getCount() { return count; }
+    public long getError() { return error; }
+}
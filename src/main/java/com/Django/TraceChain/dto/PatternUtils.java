@@ -7,12 +7,18 @@ import java.util.List;
 
 public class PatternUtils {
     public static List<String> extractPatterns(Wallet wallet) {
+        return extractPatterns(wallet.getFixedAmountPattern(), wallet.getMultiIOPattern(),
+                wallet.getLoopingPattern(), wallet.getRelayerPattern(), wallet.getPeelChainPattern());
+    }
+
+    public static List<String> extractPatterns(Boolean fixedAmount, Boolean multiIO, Boolean looping,
+                                               Boolean relayer, Boolean peelChain) {
         List<String> patterns = new ArrayList<>();
-        if (Boolean.TRUE.equals(wallet.getFixedAmountPattern())) patterns.add("FixedAmount");
-        if (Boolean.TRUE.equals(wallet.getMultiIOPattern())) patterns.add("MultiIO");
-        if (Boolean.TRUE.equals(wallet.getLoopingPattern())) patterns.add("Looping");
-        if (Boolean.TRUE.equals(wallet.getRelayerPattern())) patterns.add("Relayer");
-        if (Boolean.TRUE.equals(wallet.getPeelChainPattern())) patterns.add("PeelChain");
+        if (Boolean.TRUE.equals(fixedAmount)) patterns.add("FixedAmount");
+        if (Boolean.TRUE.equals(multiIO)) patterns.add("MultiIO");
+        if (Boolean.TRUE.equals(looping)) patterns.add("Looping");
+        if (Boolean.TRUE.equals(relayer)) patterns.add("Relayer");
+        if (Boolean.TRUE.equals(peelChain)) patterns.add("PeelChain");
         return patterns;
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.Django.TraceChain.dto;
+
+public class RiskScoreDto {
+    private final String address;
+    private final int type;           // 1 = Bitcoin, 2 = Ethereum
+    private final double riskScore;   // 0~1, 패턴 점수 가중 합성
+    private final int patternCnt;
+
+    public RiskScoreDto(String address, int type, double riskScore, int patternCnt) {
+        this.address = address;
+        this.type = type;
+        this.riskScore = riskScore;
+        this.patternCnt = patternCnt;
+    }
+
+    public String getAddress() { return address; }
+    public int getType() { return type; }
+    public double getRiskScore() { return riskScore; }
+    public int getPatternCnt() { return patternCnt; }
+}
@@ -0,0 +1,19 @@
+package com.Django.TraceChain.dto;
+
+import java.util.Map;
+
+public class SweepResultDto {
+    private final Map<String, Object> parameters; // 이 설정에서 덮어쓴 파라미터 (나머지는 운영 설정)
+    private final Map<String, Integer> flagged;   // 패턴 라벨 → 탐지 지갑 수
+    private final int walletsFlagged;             // 하나 이상의 패턴이 탐지된 지갑 수
+
+    public SweepResultDto(Map<String, Object> parameters, Map<String, Integer> flagged, int walletsFlagged) {
+        this.parameters = parameters;
+        this.flagged = flagged;
+        this.walletsFlagged = walletsFlagged;
+    }
+
+    public Map<String, Object> getParameters() { return parameters; }
+    public Map<String, Integer> getFlagged() { return flagged; }
+    public int getWalletsFlagged() { return walletsFlagged; }
+}
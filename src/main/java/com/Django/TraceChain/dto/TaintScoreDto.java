@@ -0,0 +1,20 @@
+package com.Django.TraceChain.dto;
+
+public class TaintScoreDto {
+    private final String address;
+    private final int type;           // 1 = Bitcoin, 2 = Ethereum
+    private final double taintScore;  // 0~1
+    private final int patternCnt;     // 0 이면 직접 탐지되지 않고 전파로만 오염된 지갑
+
+    public TaintScoreDto(String address, int type, double taintScore, int patternCnt) {
+        this.address = address;
+        this.type = type;
+        this.taintScore = taintScore;
+        this.patternCnt = patternCnt;
+    }
+
+    public String getAddress() { return address; }
+    public int getType() { return type; }
+    public double getTaintScore() { return taintScore; }
+    public int getPatternCnt() { return patternCnt; }
+}
@@ -0,0 +1,29 @@
+package com.Django.TraceChain.dto;
+
+public class TaintSummaryDto {
+    private final int nodes;
+    private final int edges;
+    private final int seeds;       // 탐지 패턴이 있는 출발 지갑 수
+    private final int iterations;
+    private final boolean converged;
+    private final int tainted;     // min-score 이상으로 오염된 주소 수
+    private final long elapsedMs;
+
+    public TaintSummaryDto(int nodes, int edges, int seeds, int iterations, boolean converged, int tainted, long elapsedMs) {
+        this.nodes = nodes;
+        this.edges = edges;
+        this.seeds = seeds;
+        this.iterations = iterations;
+        this.converged = converged;
+        this.tainted = tainted;
+        this.elapsedMs = elapsedMs;
+    }
+
+    public int getNodes() { return nodes; }
+    public int getEdges() { return edges; }
+    public int getSeeds() { return seeds; }
+    public int getIterations() { return iterations; }
+    public boolean isConverged() { return converged; }
+    public int getTainted() { return tainted; }
+    public long getElapsedMs() { return elapsedMs; }
+}
@@ -0,0 +1,34 @@
+package com.Django.TraceChain.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// 지갑-트랜잭션-transfer 평탄화 projection (transfer 없는 트랜잭션은 sender/receiver/amount = null)
+public class TransferRow {
+    private final String walletAddress;
+    private final String txID;
+    private final BigDecimal txAmount;
+    private final LocalDateTime timestamp;
+    private final String sender;
+    private final String receiver;
+    private final BigDecimal amount;
+
+    public TransferRow(String walletAddress, String txID, BigDecimal txAmount, LocalDateTime timestamp,
+                       String sender, String receiver, BigDecimal amount) {
+        this.walletAddress = walletAddress;
+        this.txID = txID;
+        this.txAmount = txAmount;
+        this.timestamp = timestamp;
+        this.sender = sender;
+        this.receiver = receiver;
+        this.amount = amount;
+    }
+
+    public String getWalletAddress() { return walletAddress; }
+    public String getTxID() { return txID; }
+    public BigDecimal getTxAmount() { return txAmount; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+    public String getSender() { return sender; }
+    public String getReceiver() { return receiver; }
+    public BigDecimal getAmount() { return amount; }
+}
@@ -0,0 +1,23 @@
+package com.Django.TraceChain.dto;
+
+import java.math.BigDecimal;
+
+// 탐지 스냅샷용 트랜잭션-transfer projection (지갑과 무관하게 transfer 당 한 행)
+public class TxTransferRow {
+    private final String txID;
+    private final String sender;
+    private final String receiver;
+    private final BigDecimal amount;
+
+    public TxTransferRow(String txID, String sender, String receiver, BigDecimal amount) {
+        this.txID = txID;
+        this.sender = sender;
+        this.receiver = receiver;
+        this.amount = amount;
+    }
+
+    public String getTxID() { return txID; }
+    public String getSender() { return sender; }
+    public String getReceiver() { return receiver; }
+    public BigDecimal getAmount() { return amount; }
+}
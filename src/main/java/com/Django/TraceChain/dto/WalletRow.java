@@ -0,0 +1,37 @@
+package com.Django.TraceChain.dto;
+
+import java.math.BigDecimal;
+
+// /api/graph 용 지갑 constructor projection (관리 엔티티 생성 없음)
+public class WalletRow {
+    private final String address;
+    private final int type;
+    private final BigDecimal balance;
+    private final Boolean fixedAmountPattern;
+    private final Boolean multiIOPattern;
+    private final Boolean loopingPattern;
+    private final Boolean relayerPattern;
+    private final Boolean peelChainPattern;
+
+    public WalletRow(String address, int type, BigDecimal balance,
+                     Boolean fixedAmountPattern, Boolean multiIOPattern, Boolean loopingPattern,
+                     Boolean relayerPattern, Boolean peelChainPattern) {
+        this.address = address;
+        this.type = type;
+        this.balance = balance;
+        this.fixedAmountPattern = fixedAmountPattern;
+        this.multiIOPattern = multiIOPattern;
+        this.loopingPattern = loopingPattern;
+        this.relayerPattern = relayerPattern;
+        this.peelChainPattern = peelChainPattern;
+    }
+
+    public String getAddress() { return address; }
+    public int getType() { return type; }
+    public BigDecimal getBalance() { return balance; }
+    public Boolean getFixedAmountPattern() { return fixedAmountPattern; }
+    public Boolean getMultiIOPattern() { return multiIOPattern; }
+    public Boolean getLoopingPattern() { return loopingPattern; }
+    public Boolean getRelayerPattern() { return relayerPattern; }
+    public Boolean getPeelChainPattern() { return peelChainPattern; }
+}
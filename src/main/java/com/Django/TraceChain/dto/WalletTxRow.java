@@ -0,0 +1,20 @@
+package com.Django.TraceChain.dto;
+
+import java.time.LocalDateTime;
+
+// 탐지 스냅샷용 (지갑, 트랜잭션) 쌍 projection, transfer 는 TxTransferRow 로 tx 마다 한 번만 조회
+public class WalletTxRow {
+    private final String walletAddress;
+    private final String txID;
+    private final LocalDateTime timestamp;
+
+    public WalletTxRow(String walletAddress, String txID, LocalDateTime timestamp) {
+        this.walletAddress = walletAddress;
+        this.txID = txID;
+        this.timestamp = timestamp;
+    }
+
+    public String getWalletAddress() { return walletAddress; }
+    public String getTxID() { return txID; }
+    public LocalDateTime getTimestamp() { return timestamp; }
+}
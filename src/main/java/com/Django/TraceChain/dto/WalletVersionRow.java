@@ -0,0 +1,18 @@
+package com.Django.TraceChain.dto;
+
+// 탐지 대상 지갑 projection (엔티티/컬렉션 로딩 없음)
+public class WalletVersionRow {
+    private final String address;
+    private final int type;
+    private final long txVersion;
+
+    public WalletVersionRow(String address, int type, long txVersion) {
+        this.address = address;
+        this.type = type;
+        this.txVersion = txVersion;
+    }
+
+    public String getAddress() { return address; }
+    public int getType() { return type; }
+    public long getTxVersion() { return txVersion; }
+}
@@ -0,0 +1,36 @@
+package com.Django.TraceChain.model;
+
+import jakarta.persistence.*;
+
+/*
+ * Bitcoin 공통 입력(common-input-ownership) 클러스터 소속 (AddressClusterService 가 관리)
+ * - 같은 트랜잭션의 입력으로 함께 쓰인 주소들은 한 소유자로 보고 같은 클러스터
+ * - clusterId = 클러스터에서 사전순으로 가장 작은 주소 (병합되면 작은 쪽으로 바뀜)
+ * - 다른 주소와 묶인 적 없는 주소는 행이 없음 (자기 자신이 클러스터)
+ * - wallets 에 없는 입력 주소도 저장 → 이 주소를 거쳐 이어지는 병합을 증분 갱신에서도 놓치지 않음
+ */
+@Entity
+@Table(name = "address_clusters",
+       indexes = @Index(name = "idx_address_clusters_cluster_id", columnList = "cluster_id"))
+public class AddressCluster {
+
+    @Id
+    @Column(nullable = false)
+    private String address;
+
+    @Column(name = "cluster_id", nullable = false)
+    private String clusterId;
+
+    public AddressCluster() {}
+
+    public AddressCluster(String address, String clusterId) {
+        this.address = address;
+        this.clusterId = clusterId;
+    }
+
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+
+    public String getClusterId() { return clusterId; }
+    public void setClusterId(String clusterId) { this.clusterId = clusterId; }
+}
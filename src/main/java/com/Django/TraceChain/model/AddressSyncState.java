@@ -0,0 +1,81 @@
+package com.Django.TraceChain.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/*
+ * 주소별 DB 동기화 상태 (chain, address 당 1행)
+ * - coveredFrom ~ coveredTo (epoch 초): 이 구간의 트랜잭션은 모두 DB에 연결되어 있음
+ * - coveredTo 가 fetchedAt 이상이면 "조회 시점의 최신(head)까지" 덮은 것
+ * - cursor: coveredFrom 쪽 경계의 txid (Bitcoin 페이지를 그 이후부터 이어받기용)
+ * - complete: 주소의 전체 이력을 가져옴
+ */
+@Entity
+@Table(name = "address_sync_state",
+       uniqueConstraints = @UniqueConstraint(name = "uk_sync_chain_address", columnNames = {"chain", "address"}))
+public class AddressSyncState {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 16)
+    private String chain;
+
+    @Column(nullable = false)
+    private String address;
+
+    @Column(nullable = false)
+    private boolean complete;
+
+    @Column(nullable = false)
+    private int fetchedCount; // head 부터 연속으로 가져온 개수
+
+    private Long coveredFrom;
+    private Long coveredTo;
+
+    private String cursor;
+
+    private LocalDateTime fetchedAt;
+
+    public AddressSyncState() {}
+
+    public AddressSyncState(String chain, String address) {
+        this.chain = chain;
+        this.address = address;
+    }
+
+    // head 까지 덮었는지 (이후 새 트랜잭션은 fetchedAt 이후에만 생길 수 있음)
+    public boolean reachesHead() {
+        return fetchedAt != null && coveredTo != null
+                && coveredTo >= fetchedAt.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getChain() { return chain; }
+    public void setChain(String chain) { this.chain = chain; }
+
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+
+    public boolean isComplete() { return complete; }
+    public void setComplete(boolean complete) { this.complete = complete; }
+
+    public int getFetchedCount() { return fetchedCount; }
+    public void setFetchedCount(int fetchedCount) { this.fetchedCount = fetchedCount; }
+
+    public Long getCoveredFrom() { return coveredFrom; }
+    public void setCoveredFrom(Long coveredFrom) { this.coveredFrom = coveredFrom; }
+
+    public Long getCoveredTo() { return coveredTo; }
+    public void setCoveredTo(Long coveredTo) { this.coveredTo = coveredTo; }
+
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+
+    public LocalDateTime getFetchedAt() { return fetchedAt; }
+    public void setFetchedAt(LocalDateTime fetchedAt) { this.fetchedAt = fetchedAt; }
+}
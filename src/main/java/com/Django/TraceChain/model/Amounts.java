@@ -0,0 +1,64 @@
+package com.Django.TraceChain.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * 금액 고정소수점(long) 변환 유틸
+ * - 파싱 단계: satoshi / wei 정수 그대로 받아 scale만 지정해서 BigDecimal 생성 (divide 없음)
+ * - 탐지 단계: 체인 공통 내부 단위(1e-8, satoshi 단위)의 long으로 비교/집계
+ * - BigDecimal 은 엔티티 컬럼과 DTO 경계에서만 사용
+ */
+public final class Amounts {
+
+    public static final int BTC_SCALE = 8;    // 1 BTC = 1e8 satoshi
+    public static final int ETH_SCALE = 18;   // 1 ETH = 1e18 wei
+
+    // 탐지용 내부 단위: 1e-8 (BTC는 satoshi 그대로, ETH는 10 gwei 단위로 절삭)
+    public static final int UNIT_SCALE = 8;
+    public static final long UNITS_PER_COIN = 100_000_000L;
+
+    private Amounts() {}
+
+    public static BigDecimal fromSatoshi(long satoshi) {
+        return BigDecimal.valueOf(satoshi, BTC_SCALE);
+    }
+
+    public static BigDecimal fromWei(BigInteger wei) {
+        return new BigDecimal(wei, ETH_SCALE);
+    }
+
+    /**
+     * 10진수 또는 0x 16진수 wei 문자열 → ETH
+     * 형식 오류(빈 값, API 오류 메시지, 음수)는 NumberFormatException → 잘못된 응답을 잔액/금액 0 으로 저장하지 않음
+     */
+    public static BigDecimal fromWei(String wei) {
+        if (wei == null || wei.isBlank()) throw new NumberFormatException("Empty wei value");
+        String s = wei.trim();
+        BigInteger value = s.startsWith("0x") || s.startsWith("0X")
+                ? new BigInteger(s.substring(2), 16)
+                : new BigInteger(s);
+        if (value.signum() < 0) throw new NumberFormatException("Negative wei value: " + wei);
+        return fromWei(value);
+    }
+
+    /** 코인 단위 BigDecimal → 내부 단위 long (1e-8 미만 절삭) */
+    public static long toUnits(BigDecimal amount) {
+        if (amount == null) return 0L;
+        if (amount.scale() == UNIT_SCALE) {
+            BigInteger unscaled = amount.unscaledValue();
+            if (unscaled.bitLength() < 64) return unscaled.longValue();
+        }
+        return amount.setScale(UNIT_SCALE, RoundingMode.DOWN).unscaledValue().longValue();
+    }
+
+    /** 코인 단위 double 상수(예: 정액 후보 0.1) → 내부 단위 long */
+    public static long toUnits(double coins) {
+        return Math.round(coins * UNITS_PER_COIN);
+    }
+
+    public static BigDecimal fromUnits(long units) {
+        return BigDecimal.valueOf(units, UNIT_SCALE);
+    }
+}
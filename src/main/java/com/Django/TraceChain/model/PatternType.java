@@ -0,0 +1,69 @@
+package com.Django.TraceChain.model;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 탐지 패턴 종류와 Wallet 플래그 컬럼 매핑
+ * - label: PatternUtils / API 응답에서 쓰는 이름
+ * - property: Wallet 엔티티 필드명 (JPQL)
+ * - scoreProperty / scoreColumn: 패턴 연속 점수 필드명 (JPQL) / 컬럼명 (JDBC), riskScore 합성 입력
+ */
+public enum PatternType {
+
+    FIXED_AMOUNT("FixedAmount", "fixedAmountPattern", Wallet::getFixedAmountPattern, Wallet::setFixedAmountPattern,
+            "fixedAmountScore", "fixed_amount_score", Wallet::getFixedAmountScore, Wallet::setFixedAmountScore),
+    MULTI_IO("MultiIO", "multiIOPattern", Wallet::getMultiIOPattern, Wallet::setMultiIOPattern,
+            "multiIOScore", "multi_io_score", Wallet::getMultiIOScore, Wallet::setMultiIOScore),
+    LOOPING("Looping", "loopingPattern", Wallet::getLoopingPattern, Wallet::setLoopingPattern,
+            "loopingScore", "looping_score", Wallet::getLoopingScore, Wallet::setLoopingScore),
+    RELAYER("Relayer", "relayerPattern", Wallet::getRelayerPattern, Wallet::setRelayerPattern,
+            "relayerScore", "relayer_score", Wallet::getRelayerScore, Wallet::setRelayerScore),
+    PEEL_CHAIN("PeelChain", "peelChainPattern", Wallet::getPeelChainPattern, Wallet::setPeelChainPattern,
+            "peelChainScore", "peel_chain_score", Wallet::getPeelChainScore, Wallet::setPeelChainScore);
+
+    private final String label;
+    private final String property;
+    private final Function<Wallet, Boolean> getter;
+    private final BiConsumer<Wallet, Boolean> setter;
+    private final String scoreProperty;
+    private final String scoreColumn;
+    private final Function<Wallet, Double> scoreGetter;
+    private final BiConsumer<Wallet, Double> scoreSetter;
+
+    PatternType(String label, String property,
+                Function<Wallet, Boolean> getter, BiConsumer<Wallet, Boolean> setter,
+                String scoreProperty, String scoreColumn,
+                Function<Wallet, Double> scoreGetter, BiConsumer<Wallet, Double> scoreSetter) {
+        this.label = label;
+        this.property = property;
+        this.getter = getter;
+        this.setter = setter;
+        this.scoreProperty = scoreProperty;
+        this.scoreColumn = scoreColumn;
+        this.scoreGetter = scoreGetter;
+        this.scoreSetter = scoreSetter;
+    }
+
+    public String getLabel() { return label; }
+    public String getProperty() { return property; }
+    public String getScoreProperty() { return scoreProperty; }
+    public String getScoreColumn() { return scoreColumn; }
+
+    public Boolean get(Wallet wallet) { return getter.apply(wallet); }
+
+    public void set(Wallet wallet, Boolean value) { setter.accept(wallet, value); }
+
+    public Double getScore(Wallet wallet) { return scoreGetter.apply(wallet); }
+
+    public void setScore(Wallet wallet, Double value) { scoreSetter.accept(wallet, value); }
+
+    /** true 인 패턴 수 (patternCnt) */
+    public static int count(Wallet wallet) {
+        int cnt = 0;
+        for (PatternType p : values()) {
+            if (Boolean.TRUE.equals(p.get(wallet))) cnt++;
+        }
+        return cnt;
+    }
+}
@@ -4,13 +4,18 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "search_logs")
+@Table(name = "search_logs",
+       indexes = @Index(name = "idx_search_logs_searched_at", columnList = "searched_at"))
 public class SearchLog {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;  // 기본키
 
+    private String chain;  // bitcoin / ethereum
+
+    private String operation;  // search, trace, search-by-time ...
+
     private String address;  // 검색한 지갑 주소
 
     private LocalDateTime searchedAt;  // 검색 시간
@@ -23,10 +28,23 @@ public class SearchLog {
         this.searchedAt = searchedAt;
     }
 
+    public SearchLog(String chain, String operation, String address, LocalDateTime searchedAt) {
+        this.chain = chain;
+        this.operation = operation;
+        this.address = address;
+        this.searchedAt = searchedAt;
+    }
+
     // Getter/Setter
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
+    public String getChain() { return chain; }
+    public void setChain(String chain) { this.chain = chain; }
+
+    public String getOperation() { return operation; }
+    public void setOperation(String operation) { this.operation = operation; }
+
     public String getAddress() { return address; }
     public void setAddress(String address) { this.address = address; }
 
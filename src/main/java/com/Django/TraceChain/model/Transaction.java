@@ -1,6 +1,9 @@
 package com.Django.TraceChain.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -9,6 +12,8 @@ import java.util.Objects;
 
 @Entity
 @Table(name = "transactions")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "transactions")
 public class Transaction {
 
     @Id
@@ -24,6 +29,7 @@ public class Transaction {
     @ManyToMany(mappedBy = "transactions", fetch = FetchType.LAZY)
     private List<Wallet> wallets = new ArrayList<>();
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "transaction-transfers")
     @OneToMany(mappedBy = "transaction",
             cascade = CascadeType.ALL,
             orphanRemoval = true,
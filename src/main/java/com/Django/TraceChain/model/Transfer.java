@@ -3,9 +3,13 @@ package com.Django.TraceChain.model;
 import java.math.BigDecimal;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "transfers")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "transfers")
 public class Transfer {
 
     @Id
@@ -26,6 +30,12 @@ public class Transfer {
     @Column(precision = 36, scale = 18, nullable = false)
     private BigDecimal amount = BigDecimal.ZERO; // 해당 입출력의 금액 (NOT NULL)
 
+    @Column(name = "is_input", nullable = false)
+    private boolean input; // Bitcoin vin 에서 만든 transfer (sender = 입력 주소, 공통 입력 클러스터링용)
+
+    @Transient
+    private long amountUnits = -1; // 탐지용 고정소수점 캐시 (Amounts.UNIT_SCALE)
+
     // 기본 생성자
     public Transfer() {}
 
@@ -40,6 +50,15 @@ public class Transfer {
         this.amount = amount;
     }
 
+    public Transfer(Transaction transaction,
+                    String sender,
+                    String receiver,
+                    BigDecimal amount,
+                    boolean input) {
+        this(transaction, sender, receiver, amount);
+        this.input = input;
+    }
+
     // Getter / Setter
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -54,5 +73,19 @@ public class Transfer {
     public void setReceiver(String receiver) { this.receiver = receiver; }
 
     public BigDecimal getAmount() { return amount; }
-    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+        this.amountUnits = -1;
+    }
+
+    public boolean isInput() { return input; }
+    public void setInput(boolean input) { this.input = input; }
+
+    // 탐지기용 long 금액 (BigDecimal 연산 없이 비교/집계)
+    public long getAmountUnits() {
+        if (amountUnits < 0) {
+            amountUnits = Amounts.toUnits(amount);
+        }
+        return amountUnits;
+    }
 }
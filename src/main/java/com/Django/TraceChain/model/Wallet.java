@@ -1,15 +1,25 @@
 package com.Django.TraceChain.model;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.data.annotation.Transient;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name = "wallets")
+@Table(name = "wallets",
+       indexes = {
+               @Index(name = "idx_wallets_updated_at", columnList = "updated_at"),
+               @Index(name = "idx_wallets_risk_score", columnList = "risk_score, address") // top-N keyset 스캔
+       })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "wallets")
 public class Wallet {
 
     @Id
@@ -40,9 +50,41 @@ public class Wallet {
     @Column(nullable = true)
     private int patternCnt;
 
+    // 패턴별 연속 점수 0~1 (점수형 탐지기는 최고 점수, 나머지는 탐지 여부 1/0, null = 판정 전)
+    @Column(name = "fixed_amount_score")
+    private Double fixedAmountScore;
+
+    @Column(name = "multi_io_score")
+    private Double multiIOScore;
+
+    @Column(name = "looping_score")
+    private Double loopingScore;
+
+    @Column(name = "relayer_score")
+    private Double relayerScore;
+
+    @Column(name = "peel_chain_score")
+    private Double peelChainScore;
+
+    @Column(name = "risk_score", nullable = false)
+    private double riskScore; // 패턴 점수 가중 합성 (PatternResultWriter 가 SQL 로 계산)
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt; // /api/graph updatedSince 필터용
+
+    @Column(name = "tx_version", nullable = false)
+    private long txVersion; // 연결된 트랜잭션 집합이 바뀔 때마다 +1 (write-behind 가 증가)
+
+    @Column(name = "detected_version")
+    private Long detectedVersion; // 마지막 탐지 때의 txVersion (null = 아직 탐지 안 함)
+
+    @Column(name = "taint_score", nullable = false)
+    private double taintScore; // 탐지된 지갑에서 전파된 위험도 0~1 (TaintPropagationService)
+
     @Transient
     private boolean newlyFetched = false;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "wallet-transactions")
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.LAZY)
     @JoinTable(
             name = "wallet_transaction",
@@ -121,6 +163,42 @@ public class Wallet {
         this.patternCnt = patternCnt;
     }
 
+    public Double getFixedAmountScore() { return fixedAmountScore; }
+    public void setFixedAmountScore(Double fixedAmountScore) { this.fixedAmountScore = fixedAmountScore; }
+
+    public Double getMultiIOScore() { return multiIOScore; }
+    public void setMultiIOScore(Double multiIOScore) { this.multiIOScore = multiIOScore; }
+
+    public Double getLoopingScore() { return loopingScore; }
+    public void setLoopingScore(Double loopingScore) { this.loopingScore = loopingScore; }
+
+    public Double getRelayerScore() { return relayerScore; }
+    public void setRelayerScore(Double relayerScore) { this.relayerScore = relayerScore; }
+
+    public Double getPeelChainScore() { return peelChainScore; }
+    public void setPeelChainScore(Double peelChainScore) { this.peelChainScore = peelChainScore; }
+
+    public double getRiskScore() { return riskScore; }
+    public void setRiskScore(double riskScore) { this.riskScore = riskScore; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public long getTxVersion() { return txVersion; }
+    public void setTxVersion(long txVersion) { this.txVersion = txVersion; }
+
+    public Long getDetectedVersion() { return detectedVersion; }
+    public void setDetectedVersion(Long detectedVersion) { this.detectedVersion = detectedVersion; }
+
+    public double getTaintScore() { return taintScore; }
+    public void setTaintScore(double taintScore) { this.taintScore = taintScore; }
+
+    @PrePersist
+    @PreUpdate
+    void touchUpdatedAt() {
+        this.updatedAt = LocalDateTime.now(ZoneOffset.UTC); // updatedSince 와 같은 UTC 기준
+    }
+
     public List<Transaction> getTransactions() { return transactions; }
     public void setTransactions(List<Transaction> transactions) {
         this.transactions = transactions;
@@ -152,6 +230,14 @@ public class Wallet {
         }
     }
     
+    // 영속성 컨텍스트와 분리된 조회용 사본 (트랜잭션 목록은 비어 있음)
+    public Wallet detachedCopy() {
+        Wallet copy = new Wallet(address, type, balance, fixedAmountPattern, multiIOPattern,
+                loopingPattern, relayerPattern, peelChainPattern, patternCnt);
+        copy.setUpdatedAt(updatedAt);
+        return copy;
+    }
+
     public void resetPatterns() {
         this.fixedAmountPattern = null;
         this.multiIOPattern = null;
@@ -0,0 +1,18 @@
+package com.Django.TraceChain.repository;
+
+import com.Django.TraceChain.model.AddressCluster;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AddressClusterRepository extends JpaRepository<AddressCluster, String> {
+
+    @Query("SELECT c.address FROM AddressCluster c WHERE c.clusterId = :clusterId ORDER BY c.address")
+    List<String> findMembers(@Param("clusterId") String clusterId);
+
+    // 주어진 클러스터들의 모든 소속 (증분 병합용)
+    List<AddressCluster> findByClusterIdIn(Collection<String> clusterIds);
+}
@@ -0,0 +1,11 @@
+package com.Django.TraceChain.repository;
+
+import com.Django.TraceChain.model.AddressSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface AddressSyncStateRepository extends JpaRepository<AddressSyncState, Long> {
+
+    Optional<AddressSyncState> findByChainAndAddress(String chain, String address);
+}
@@ -0,0 +1,20 @@
+package com.Django.TraceChain.repository;
+
+import com.Django.TraceChain.dto.HotAddressDto;
+import com.Django.TraceChain.model.SearchLog;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SearchLogRepository extends JpaRepository<SearchLog, Long> {
+
+    // since 이후 조회 수 기준 상위 주소 (warm-up 대상)
+    @Query("SELECT new com.Django.TraceChain.dto.HotAddressDto(s.chain, s.address, COUNT(s), 0L) " +
+           "FROM SearchLog s WHERE s.searchedAt >= :since AND s.chain IS NOT NULL " +
+           "GROUP BY s.chain, s.address ORDER BY COUNT(s) DESC")
+    List<HotAddressDto> findTopAddresses(@Param("since") LocalDateTime since, Pageable pageable);
+}
@@ -1,5 +1,6 @@
 package com.Django.TraceChain.repository;
 
+import com.Django.TraceChain.dto.TxTransferRow;
 import com.Django.TraceChain.model.Transaction;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -7,6 +8,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,4 +30,28 @@ public interface TransactionRepository extends JpaRepository<Transaction, String
     // 주소로 연결된 트랜잭션들을 최신순으로 페이징
     @Query("SELECT DISTINCT t FROM Transaction t JOIN t.wallets w WHERE w.address = :address ORDER BY t.timestamp DESC")
     Page<Transaction> findByWalletAddress(@Param("address") String address, Pageable pageable);
+
+    // 주소 + 시간 구간 (sync-state 가 구간을 덮을 때 API 대신 사용, 정렬은 pageable 의 Sort)
+    @Query("SELECT DISTINCT t FROM Transaction t JOIN t.wallets w " +
+           "WHERE w.address = :address AND t.timestamp BETWEEN :from AND :to")
+    List<Transaction> findByWalletAddressAndTimeRange(@Param("address") String address,
+                                                      @Param("from") LocalDateTime from,
+                                                      @Param("to") LocalDateTime to,
+                                                      Pageable pageable);
+
+    // 엔티티 로딩 없이 이미 저장된 txID만 조회 (write-behind 중복 삽입 방지)
+    @Query("SELECT t.txID FROM Transaction t WHERE t.txID IN :txIDs")
+    List<String> findExistingIds(@Param("txIDs") Collection<String> txIDs);
+
+    // 탐지 스냅샷용 transfer (트랜잭션을 공유하는 지갑 수와 무관하게 transfer 당 한 행, 같은 tx 안에서는 id 순)
+    @Query("SELECT new com.Django.TraceChain.dto.TxTransferRow(tr.transaction.txID, tr.sender, tr.receiver, tr.amount) " +
+           "FROM Transfer tr WHERE tr.transaction.txID IN :txIDs ORDER BY tr.transaction.txID, tr.id")
+    List<TxTransferRow> findDetectionTransferRows(@Param("txIDs") Collection<String> txIDs);
+
+    // 위와 같지만 주어진 지갑이 보낸 transfer 만 (SENDER_TRANSFERS 만 필요한 탐지기용)
+    @Query("SELECT new com.Django.TraceChain.dto.TxTransferRow(tr.transaction.txID, tr.sender, tr.receiver, tr.amount) " +
+           "FROM Transfer tr WHERE tr.transaction.txID IN :txIDs AND tr.sender IN :senders " +
+           "ORDER BY tr.transaction.txID, tr.id")
+    List<TxTransferRow> findDetectionSenderTransferRows(@Param("txIDs") Collection<String> txIDs,
+                                                        @Param("senders") Collection<String> senders);
 }
@@ -2,8 +2,11 @@ package com.Django.TraceChain.repository;
 
 import com.Django.TraceChain.model.Transfer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,4 +22,8 @@ public interface TransferRepository extends JpaRepository<Transfer, Long> {
     List<Transfer> findByReceiver(String receiver);
     
     List<Transfer> findAll();
+
+    // 트랜잭션별 입력 주소 (txID, sender) - 공통 입력 클러스터링용
+    @Query("SELECT t.transaction.txID, t.sender FROM Transfer t WHERE t.input = true AND t.transaction.txID IN :txIds")
+    List<Object[]> findInputSenders(@Param("txIds") Collection<String> txIds);
 }
@@ -1,9 +1,22 @@
 package com.Django.TraceChain.repository;
 
+import com.Django.TraceChain.dto.RiskScoreDto;
+import com.Django.TraceChain.dto.TaintScoreDto;
+import com.Django.TraceChain.dto.TransferRow;
+import com.Django.TraceChain.dto.WalletRow;
+import com.Django.TraceChain.dto.WalletTxRow;
+import com.Django.TraceChain.dto.WalletVersionRow;
 import com.Django.TraceChain.model.Wallet;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface WalletRepository extends JpaRepository<Wallet, String> {
@@ -11,4 +24,119 @@ public interface WalletRepository extends JpaRepository<Wallet, String> {
     // 지갑과 해당 지갑의 트랜잭션을 한 번에 가져오는 쿼리
     @Query("SELECT w FROM Wallet w LEFT JOIN FETCH w.transactions WHERE w.address = :address")
     Optional<Wallet> findWithTransactionsByAddress(@Param("address") String address);
-}
\ No newline at end of file
+
+    // 패턴 필드 일괄 초기화 (엔티티 로딩 없이 UPDATE 한 번, 이미 초기화된 행은 건드리지 않음)
+    // detectedVersion 도 비워서 다음 증분 탐지 때 다시 판정되게 함, 바뀐 행은 updated_at = now (UTC)
+    // taintScore 는 패턴 플래그에서 전파된 값이라 같이 0 (다음 전파가 다시 계산)
+    @Transactional
+    @Modifying
+    @Query("UPDATE Wallet w SET w.updatedAt = :now, w.fixedAmountPattern = null, w.multiIOPattern = null, w.loopingPattern = null, " +
+           "w.relayerPattern = null, w.peelChainPattern = null, w.patternCnt = 0, w.detectedVersion = null, " +
+           "w.fixedAmountScore = null, w.multiIOScore = null, w.loopingScore = null, w.relayerScore = null, " +
+           "w.peelChainScore = null, w.riskScore = 0, w.taintScore = 0 " +
+           "WHERE w.fixedAmountPattern IS NOT NULL OR w.multiIOPattern IS NOT NULL OR w.loopingPattern IS NOT NULL " +
+           "OR w.relayerPattern IS NOT NULL OR w.peelChainPattern IS NOT NULL OR w.patternCnt <> 0 " +
+           "OR w.detectedVersion IS NOT NULL OR w.riskScore <> 0 OR w.taintScore <> 0")
+    int resetAllPatterns(@Param("now") LocalDateTime now);
+
+    // 엔티티 로딩 없이 이미 저장된 주소만 조회 (write-behind 신규 지갑 판별)
+    @Query("SELECT w.address FROM Wallet w WHERE w.address IN :addresses")
+    List<String> findExistingAddresses(@Param("addresses") Collection<String> addresses);
+
+    // 위험도 상위 지갑 (taint_score 내림차순)
+    @Query("SELECT new com.Django.TraceChain.dto.TaintScoreDto(w.address, w.type, w.taintScore, w.patternCnt) " +
+           "FROM Wallet w WHERE w.taintScore > 0 ORDER BY w.taintScore DESC, w.address")
+    List<TaintScoreDto> findTopTainted(Pageable pageable);
+
+    // 종합 위험도 상위 지갑 (risk_score, address 내림차순 → idx_wallets_risk_score 역방향 스캔, filesort 없음)
+    // 다음 페이지는 OFFSET 대신 직전 페이지 마지막 (riskScore, address) 기준 keyset
+    @Query("SELECT new com.Django.TraceChain.dto.RiskScoreDto(w.address, w.type, w.riskScore, w.patternCnt) " +
+           "FROM Wallet w WHERE w.riskScore > 0 ORDER BY w.riskScore DESC, w.address DESC")
+    List<RiskScoreDto> findTopRisk(Pageable pageable);
+
+    // riskScore <= :afterScore 로 인덱스 범위를 먼저 좁히고 같은 점수 안에서 address 로 이어감
+    @Query("SELECT new com.Django.TraceChain.dto.RiskScoreDto(w.address, w.type, w.riskScore, w.patternCnt) " +
+           "FROM Wallet w WHERE w.riskScore > 0 AND w.riskScore <= :afterScore " +
+           "AND (w.riskScore < :afterScore OR w.address < :afterAddress) " +
+           "ORDER BY w.riskScore DESC, w.address DESC")
+    List<RiskScoreDto> findTopRiskAfter(@Param("afterScore") double afterScore,
+                                        @Param("afterAddress") String afterAddress,
+                                        Pageable pageable);
+
+    // 같은 트랜잭션에 연결된 다른 지갑 주소 (증분 탐지 반경 확장용 1-hop)
+    @Query("SELECT DISTINCT w2.address FROM Wallet w1 JOIN w1.transactions t JOIN t.wallets w2 " +
+           "WHERE w1.address IN :addresses")
+    List<String> findNeighborAddresses(@Param("addresses") Collection<String> addresses);
+
+    // 지갑들의 트랜잭션 연결 수 (배치 halo 크기 상한 확인용, 스냅샷 크기에 비례)
+    @Query("SELECT COUNT(t) FROM Wallet w JOIN w.transactions t WHERE w.address IN :addresses")
+    long countLinks(@Param("addresses") Collection<String> addresses);
+
+    // 탐지 시점의 txVersion 을 기록 (그 사이 새 트랜잭션이 연결됐으면 건드리지 않아 다음에 다시 판정)
+    @Modifying
+    @Query("UPDATE Wallet w SET w.detectedVersion = :version WHERE w.address IN :addresses AND w.txVersion = :version")
+    int markDetected(@Param("addresses") Collection<String> addresses, @Param("version") long version);
+
+    // 일부 지갑만 보고 계산한 결과 → 다음 증분 탐지 때 주변 지갑과 함께 다시 판정되게 표시 해제
+    @Modifying
+    @Query("UPDATE Wallet w SET w.detectedVersion = null WHERE w.address IN :addresses AND w.detectedVersion IS NOT NULL")
+    int clearDetected(@Param("addresses") Collection<String> addresses);
+
+    // /api/graph keyset 페이지: address > :after 순서로 pageable.size 만큼 (count 쿼리 없음)
+    // anyPattern = true 이면 요청된 패턴 중 하나라도 true 인 지갑만
+    @Query("SELECT new com.Django.TraceChain.dto.WalletRow(w.address, w.type, w.balance, " +
+           "w.fixedAmountPattern, w.multiIOPattern, w.loopingPattern, w.relayerPattern, w.peelChainPattern) " +
+           "FROM Wallet w WHERE w.address > :after " +
+           "AND (:type IS NULL OR w.type = :type) " +
+           "AND (:updatedSince IS NULL OR w.updatedAt >= :updatedSince) " +
+           "AND (:anyPattern = false " +
+           "  OR (:fixedAmount = true AND w.fixedAmountPattern = true) " +
+           "  OR (:multiIO = true AND w.multiIOPattern = true) " +
+           "  OR (:looping = true AND w.loopingPattern = true) " +
+           "  OR (:relayer = true AND w.relayerPattern = true) " +
+           "  OR (:peelChain = true AND w.peelChainPattern = true)) " +
+           "ORDER BY w.address")
+    List<WalletRow> findGraphPage(@Param("after") String after,
+                                  @Param("type") Integer type,
+                                  @Param("updatedSince") LocalDateTime updatedSince,
+                                  @Param("anyPattern") boolean anyPattern,
+                                  @Param("fixedAmount") boolean fixedAmount,
+                                  @Param("multiIO") boolean multiIO,
+                                  @Param("looping") boolean looping,
+                                  @Param("relayer") boolean relayer,
+                                  @Param("peelChain") boolean peelChain,
+                                  Pageable pageable);
+
+    // 페이지에 속한 지갑들의 트랜잭션/transfer 를 한 번에 평탄화해서 조회
+    @Query("SELECT new com.Django.TraceChain.dto.TransferRow(w.address, t.txID, t.amount, t.timestamp, " +
+           "tr.sender, tr.receiver, tr.amount) " +
+           "FROM Wallet w JOIN w.transactions t LEFT JOIN t.transfers tr " +
+           "WHERE w.address IN :addresses ORDER BY w.address, t.timestamp, t.txID, tr.id")
+    List<TransferRow> findGraphTransfers(@Param("addresses") Collection<String> addresses);
+
+    // ===== 탐지 스냅샷 projection (DetectionSnapshotLoader) =====
+
+    @Query("SELECT new com.Django.TraceChain.dto.WalletVersionRow(w.address, w.type, w.txVersion) " +
+           "FROM Wallet w WHERE w.address IN :addresses")
+    List<WalletVersionRow> findVersionRows(@Param("addresses") Collection<String> addresses);
+
+    // 마지막 탐지 이후 트랜잭션 집합이 바뀐(또는 한 번도 탐지되지 않은) 지갑
+    @Query("SELECT new com.Django.TraceChain.dto.WalletVersionRow(w.address, w.type, w.txVersion) " +
+           "FROM Wallet w WHERE w.detectedVersion IS NULL OR w.detectedVersion <> w.txVersion")
+    List<WalletVersionRow> findChangedVersionRows();
+
+    // 위와 같은 조건을 주어진 지갑 안에서만 (스트리밍 탐지의 시작점)
+    @Query("SELECT new com.Django.TraceChain.dto.WalletVersionRow(w.address, w.type, w.txVersion) " +
+           "FROM Wallet w WHERE w.address IN :addresses " +
+           "AND (w.detectedVersion IS NULL OR w.detectedVersion <> w.txVersion)")
+    List<WalletVersionRow> findChangedVersionRows(@Param("addresses") Collection<String> addresses);
+
+    @Query("SELECT new com.Django.TraceChain.dto.WalletVersionRow(w.address, w.type, w.txVersion) " +
+           "FROM Wallet w WHERE w.type = :type")
+    List<WalletVersionRow> findVersionRowsByType(@Param("type") int type);
+
+    // 지갑별 트랜잭션 (transfer 는 TransactionRepository.findDetectionTransferRows 로 tx 마다 한 번만)
+    @Query("SELECT new com.Django.TraceChain.dto.WalletTxRow(w.address, t.txID, t.timestamp) " +
+           "FROM Wallet w JOIN w.transactions t WHERE w.address IN :addresses")
+    List<WalletTxRow> findDetectionTxRows(@Param("addresses") Collection<String> addresses);
+}
@@ -0,0 +1,57 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.component.DetectorProperties;
+import com.Django.TraceChain.model.PatternType;
+
+import java.util.*;
+
+/*
+ * 시간 순서 사이클 탐지 공통 (간선 수: detect.looping.min-cycle ~ max-cycle, 기본 3~5)
+ * - 탐색은 TemporalCycleEngine, 체인별 하위 클래스는 supports 만 정함
+ */
+public abstract class AbstractLoopingDetector implements TunableDetector<Set<String>> {
+
+    private final DetectorProperties properties;
+
+    protected AbstractLoopingDetector(DetectorProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public PatternType pattern() {
+        return PatternType.LOOPING;
+    }
+
+    // 사이클 위의 다른 지갑은 최대 maxCycle - 1 hop 떨어져 있음
+    @Override
+    public int neighborhoodHops() {
+        return Math.max(0, properties.getLooping().getMaxCycle() - 1);
+    }
+
+    @Override
+    public PatternResult detect(DetectionSnapshot snapshot) {
+        return evaluate(snapshot, prepare(snapshot, properties), properties);
+    }
+
+    @Override
+    public Object featureKey(DetectorProperties props) {
+        return List.of(props.getLooping().getMinCycle(), props.getLooping().getMaxCycle());
+    }
+
+    // 한 번의 탐색으로 사이클에 참여한 모든 주소
+    @Override
+    public Set<String> prepare(DetectionSnapshot snapshot, DetectorProperties props) {
+        return TemporalCycleEngine.build(snapshot, props.getLooping().getMinCycle(), props.getLooping().getMaxCycle())
+                .findCycleParticipants();
+    }
+
+    // 그중 스냅샷 지갑만 표시
+    @Override
+    public PatternResult evaluate(DetectionSnapshot snapshot, Set<String> participants, DetectorProperties props) {
+        Set<String> flagged = new HashSet<>();
+        for (String address : snapshot.getAddresses()) {
+            if (participants.contains(address)) flagged.add(address);
+        }
+        return new PatternResult(pattern(), snapshot.getAddresses(), flagged);
+    }
+}
@@ -0,0 +1,230 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.dto.ClusterDto;
+import com.Django.TraceChain.model.AddressCluster;
+import com.Django.TraceChain.repository.AddressClusterRepository;
+import com.Django.TraceChain.repository.TransferRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Bitcoin 공통 입력 휴리스틱 주소 클러스터링 → address_clusters
+ * - rebuild(): transfers 의 입력 행(is_input)을 txID 순으로 스트리밍하며 같은 tx 입력끼리 union → 전체 재작성
+ * - 증분: write-behind 가 새 트랜잭션을 커밋하면(TransactionsPersistedEvent) 그 tx 들의 입력 주소와
+ *   기존 소속 클러스터 전체를 작은 union-find 로 합쳐서 바뀐 행만 upsert
+ * - rebuild 와 증분은 같은 락으로 직렬화 (증분은 단일 스레드에서 실행, writer 스레드는 넘기기만 함)
+ */
+@Service
+public class AddressClusterService {
+
+    private static final String INPUT_SQL =
+            "SELECT transaction_id, sender FROM transfers WHERE is_input = 1 ORDER BY transaction_id";
+    private static final String INSERT_SQL = "INSERT INTO address_clusters (address, cluster_id) VALUES (?, ?)";
+    private static final String UPSERT_SQL =
+            "INSERT INTO address_clusters (address, cluster_id) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE cluster_id = VALUES(cluster_id)";
+
+    private final AddressClusterRepository clusterRepository;
+    private final TransferRepository transferRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "address-cluster");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${cluster.incremental.enabled:true}")
+    private boolean incremental;
+
+    @Value("${cluster.batch-size:1000}")
+    private int batchSize;
+
+    public AddressClusterService(AddressClusterRepository clusterRepository,
+                                 TransferRepository transferRepository,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager) {
+        this.clusterRepository = clusterRepository;
+        this.transferRepository = transferRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // MySQL 드라이버는 fetchSize = Integer.MIN_VALUE 일 때 행 단위 스트리밍
+        this.streamingJdbcTemplate = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public ClusterDto clusterOf(String address, int limit) {
+        String clusterId = clusterRepository.findById(address).map(AddressCluster::getClusterId).orElse(address);
+        List<String> members = clusterRepository.findMembers(clusterId);
+        if (members.isEmpty()) members = List.of(address);
+        return new ClusterDto(clusterId, members.size(), members.subList(0, Math.min(members.size(), Math.max(1, limit))));
+    }
+
+    /** 전체 재구성, 2개 이상 묶인 클러스터 수 반환 */
+    public int rebuild() {
+        lock.lock();
+        try {
+            long t0 = System.nanoTime();
+            InputUnion union = new InputUnion();
+            streamingJdbcTemplate.query(INPUT_SQL, rs -> {
+                union.accept(rs.getString(1), rs.getString(2));
+            });
+            List<String[]> rows = assignments(union.uf, union.names, Map.of());
+            int clusters = (int) rows.stream().map(row -> row[1]).distinct().count();
+
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM address_clusters");
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows, batchSize, (ps, row) -> {
+                    ps.setString(1, row[0]);
+                    ps.setString(2, row[1]);
+                });
+            });
+            System.out.printf("[CLUSTER] Rebuilt %d clusters over %d input addresses (%d clustered) in %d ms%n",
+                    clusters, union.uf.count(), rows.size(), (System.nanoTime() - t0) / 1_000_000);
+            return clusters;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // writer 스레드에서 호출되므로 넘기기만 함
+    @EventListener
+    public void onTransactionsPersisted(TransactionsPersistedEvent event) {
+        if (!incremental || event.getTransactionIds().isEmpty()) return;
+        List<String> txIds = new ArrayList<>(event.getTransactionIds());
+        executor.execute(() -> {
+            try {
+                apply(txIds);
+            } catch (Exception e) {
+                System.out.printf("[WARN] Incremental clustering failed for %d transactions: %s%n", txIds.size(), e.getMessage());
+            }
+        });
+    }
+
+    private void apply(List<String> txIds) {
+        lock.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // 1) 새 tx 별 입력 주소 (입력이 2개 이상인 tx 만 의미 있음)
+                Map<String, List<String>> inputs = new HashMap<>();
+                for (int from = 0; from < txIds.size(); from += batchSize) {
+                    for (Object[] row : transferRepository.findInputSenders(
+                            txIds.subList(from, Math.min(txIds.size(), from + batchSize)))) {
+                        inputs.computeIfAbsent((String) row[0], k -> new ArrayList<>()).add((String) row[1]);
+                    }
+                }
+                inputs.values().removeIf(list -> new HashSet<>(list).size() < 2);
+                if (inputs.isEmpty()) return;
+
+                // 2) 관련 주소의 현재 클러스터와 그 클러스터 전체 소속
+                Set<String> addresses = new HashSet<>();
+                inputs.values().forEach(addresses::addAll);
+                Map<String, String> current = new HashMap<>();
+                Set<String> clusterIds = new HashSet<>();
+                for (AddressCluster c : clusterRepository.findAllById(addresses)) clusterIds.add(c.getClusterId());
+                List<String> clusterList = new ArrayList<>(clusterIds);
+                for (int from = 0; from < clusterList.size(); from += batchSize) {
+                    for (AddressCluster c : clusterRepository.findByClusterIdIn(
+                            clusterList.subList(from, Math.min(clusterList.size(), from + batchSize)))) {
+                        current.put(c.getAddress(), c.getClusterId());
+                    }
+                }
+
+                // 3) 기존 클러스터 + 새 입력 집합으로 union, clusterId 가 바뀐 행만 upsert
+                List<String[]> rows = merge(current, inputs.values());
+                jdbcTemplate.batchUpdate(UPSERT_SQL, rows, batchSize, (ps, row) -> {
+                    ps.setString(1, row[0]);
+                    ps.setString(2, row[1]);
+                });
+                if (!rows.isEmpty()) {
+                    System.out.printf("[CLUSTER] %d transactions → %d addresses re-assigned%n", inputs.size(), rows.size());
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 입력 행(txID 순) 스트림 → union-find. 같은 tx 의 입력은 연속이라 직전 tx 의 첫 입력과만 union
+    static final class InputUnion {
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> names = new ArrayList<>();
+        final IntUnionFind uf = new IntUnionFind(1 << 16);
+        private String currentTx;
+        private int firstInput = -1;
+
+        void accept(String txId, String sender) {
+            if (sender == null) return;
+            Integer id = ids.get(sender);
+            if (id == null) {
+                id = uf.add();
+                ids.put(sender, id);
+                names.add(sender);
+            }
+            if (!txId.equals(currentTx)) {
+                currentTx = txId;
+                firstInput = id;
+            } else {
+                uf.union(firstInput, id);
+            }
+        }
+    }
+
+    /*
+     * 증분 한 번: current = 관련 클러스터의 현재 소속 전체 (address → clusterId), inputs = 새 tx 별 입력 주소
+     * 반환 = clusterId 가 새로 생기거나 바뀐 (address, clusterId)
+     */
+    static List<String[]> merge(Map<String, String> current, Collection<List<String>> inputs) {
+        Set<String> addresses = new LinkedHashSet<>(current.keySet());
+        inputs.forEach(addresses::addAll);
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> names = new ArrayList<>(addresses);
+        IntUnionFind uf = new IntUnionFind(names.size());
+        for (String name : names) ids.put(name, uf.add());
+        Map<String, Integer> clusterFirst = new HashMap<>();
+        current.forEach((address, clusterId) -> {
+            int id = ids.get(address);
+            Integer first = clusterFirst.putIfAbsent(clusterId, id);
+            if (first != null) uf.union(first, id);
+        });
+        for (List<String> list : inputs) {
+            int first = ids.get(list.get(0));
+            for (int i = 1; i < list.size(); i++) uf.union(first, ids.get(list.get(i)));
+        }
+        return assignments(uf, names, current);
+    }
+
+    // 2개 이상 묶인 원소의 (address, 루트별 가장 작은 주소 = clusterId) 중 current 와 다른 것
+    static List<String[]> assignments(IntUnionFind uf, List<String> names, Map<String, String> current) {
+        String[] minName = new String[names.size()];
+        for (int v = 0; v < names.size(); v++) {
+            int root = uf.find(v);
+            if (minName[root] == null || names.get(v).compareTo(minName[root]) < 0) minName[root] = names.get(v);
+        }
+        List<String[]> rows = new ArrayList<>();
+        for (int v = 0; v < names.size(); v++) {
+            int root = uf.find(v);
+            if (uf.sizeOf(root) < 2) continue;
+            if (!minName[root].equals(current.get(names.get(v)))) rows.add(new String[]{names.get(v), minName[root]});
+        }
+        return rows;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,8 +1,9 @@
 package com.Django.TraceChain.service;
 
+import com.Django.TraceChain.model.AddressSyncState;
+import com.Django.TraceChain.model.Amounts;
 import com.Django.TraceChain.model.Transaction;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.ZoneId;
 import com.Django.TraceChain.model.Transfer;
 import com.Django.TraceChain.model.Wallet;
@@ -11,16 +12,13 @@ import com.Django.TraceChain.repository.WalletRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.*;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
 
@@ -35,20 +33,26 @@ public class BitcoinClient implements ChainClient {
     private final AccessToken accessToken;
     private final WalletRepository walletRepository;
     private final TransactionRepository transactionRepository;
+    private final WriteBehindQueue writeBehind;
+    private final FrontierTracer frontierTracer;
+    private final SyncStateService syncState;
 
     @Value("${blockstream.api-url}")
     private String apiUrl;
 
-    @PersistenceContext
-    private EntityManager entityManager;
-
     @Autowired
     public BitcoinClient(AccessToken accessToken,
                          WalletRepository walletRepository,
-                         TransactionRepository transactionRepository) {
+                         TransactionRepository transactionRepository,
+                         WriteBehindQueue writeBehind,
+                         FrontierTracer frontierTracer,
+                         SyncStateService syncState) {
         this.accessToken = accessToken;
         this.walletRepository = walletRepository;
         this.transactionRepository = transactionRepository;
+        this.writeBehind = writeBehind;
+        this.frontierTracer = frontierTracer;
+        this.syncState = syncState;
     }
 
     @Override
@@ -68,6 +72,8 @@ public class BitcoinClient implements ChainClient {
     public Wallet findAddress(String address) {
         Optional<Wallet> optionalWallet = walletRepository.findById(address);
         if (optionalWallet.isPresent()) return optionalWallet.get();
+        Wallet pending = writeBehind.pendingWallet(address);
+        if (pending != null) return pending;
 
         String token = accessToken.getAccessToken();
         if (token == null || token.isEmpty()) {
@@ -87,13 +93,14 @@ public class BitcoinClient implements ChainClient {
             JsonNode root = new ObjectMapper().readTree(response.getBody());
 
             String addr = root.path("address").asText();
-            BigDecimal funded = new BigDecimal(root.path("chain_stats").path("funded_txo_sum").asLong());
-            BigDecimal spent = new BigDecimal(root.path("chain_stats").path("spent_txo_sum").asLong());
-            BigDecimal balance = funded.subtract(spent).divide(BigDecimal.valueOf(1e8));
+            long funded = root.path("chain_stats").path("funded_txo_sum").asLong();
+            long spent = root.path("chain_stats").path("spent_txo_sum").asLong();
+            BigDecimal balance = Amounts.fromSatoshi(funded - spent);
 
             Wallet wallet = new Wallet(addr, 1, balance);
             wallet.setNewlyFetched(true);
-            return saveWallet(wallet);
+            writeBehind.enqueueWallet(addr, 1, balance);
+            return wallet;
 
         } catch (Exception e) {
             System.out.printf("[WARN] Failed to fetch wallet from API: %s%n", e.getMessage());
@@ -101,17 +108,10 @@ public class BitcoinClient implements ChainClient {
         }
     }
 
-    @Transactional(propagation = Propagation.REQUIRED)
-    public Wallet saveWallet(Wallet wallet) {
-        return entityManager.merge(wallet);
-    }
-
-    @Transactional(propagation = Propagation.REQUIRED)
-    public Transaction saveTransaction(Transaction tx) {
-        for (Transfer t : tx.getTransfers()) {
-            t.setTransaction(tx);
-        }
-        return entityManager.merge(tx);
+    // 새로 파싱한 트랜잭션은 write-behind 큐로 넘기고 메모리 객체를 그대로 사용
+    private Transaction enqueueNew(Transaction tx) {
+        writeBehind.enqueueTransaction(tx);
+        return tx;
     }
 
     private Transaction parseTransaction(JsonNode txNode, String ownerAddress) {
@@ -119,15 +119,13 @@ public class BitcoinClient implements ChainClient {
         LocalDateTime txTime = LocalDateTime.ofInstant(
                 Instant.ofEpochSecond(txNode.path("status").path("block_time").asLong(0)), ZoneOffset.UTC);
 
-        BigDecimal total = BigDecimal.ZERO;
+        // satoshi(long)로 합산 후 경계에서만 BigDecimal 변환
+        long totalSatoshi = 0L;
         for (JsonNode vout : txNode.path("vout")) {
-            long valueSatoshi = vout.path("value").asLong(0);
-            BigDecimal valueBTC = BigDecimal.valueOf(valueSatoshi)
-                    .divide(BigDecimal.valueOf(100_000_000), 8, RoundingMode.DOWN);
-            total = total.add(valueBTC);
+            totalSatoshi += vout.path("value").asLong(0);
         }
 
-        Transaction tx = new Transaction(txid, total, txTime);
+        Transaction tx = new Transaction(txid, Amounts.fromSatoshi(totalSatoshi), txTime);
         int transferCount = 0, transferLimit = 30;
 
         // vin: prevout의 주소가 없으면 스킵 (가짜 간선 생성 금지)
@@ -135,9 +133,8 @@ public class BitcoinClient implements ChainClient {
             if (transferCount >= transferLimit) break;
             String sender = vin.path("prevout").path("scriptpubkey_address").asText(null);
             if (sender == null || sender.isEmpty()) continue; // ★ 변경: 스킵
-            BigDecimal valueBTC = BigDecimal.valueOf(vin.path("prevout").path("value").asLong(0))
-                    .divide(BigDecimal.valueOf(100_000_000), 8, RoundingMode.DOWN);
-            tx.addTransfer(new Transfer(tx, sender, ownerAddress, valueBTC));
+            BigDecimal valueBTC = Amounts.fromSatoshi(vin.path("prevout").path("value").asLong(0));
+            tx.addTransfer(new Transfer(tx, sender, ownerAddress, valueBTC, true));
             transferCount++;
         }
 
@@ -146,8 +143,7 @@ public class BitcoinClient implements ChainClient {
             if (transferCount >= transferLimit) break;
             String receiver = vout.path("scriptpubkey_address").asText(null);
             if (receiver == null || receiver.isEmpty()) continue; // ★ 변경: 스킵
-            BigDecimal valueBTC = BigDecimal.valueOf(vout.path("value").asLong(0))
-                    .divide(BigDecimal.valueOf(100_000_000), 8, RoundingMode.DOWN);
+            BigDecimal valueBTC = Amounts.fromSatoshi(vout.path("value").asLong(0));
             tx.addTransfer(new Transfer(tx, ownerAddress, receiver, valueBTC));
             transferCount++;
         }
@@ -164,211 +160,252 @@ public class BitcoinClient implements ChainClient {
     @Transactional
     @Override
     public List<Transaction> getTransactions(String address, int limit) {
-        // 1) DB 캐시
-        List<Transaction> cached = transactionRepository
-                .findByWalletAddress(address, PageRequest.of(0, limit))
-                .getContent();
-        if (!cached.isEmpty()) {
-            return cached;
+        // 1) sync-state 가 최신 limit 개를 덮으면 DB만으로 응답
+        AddressSyncState state = syncState.find(SyncStateService.BITCOIN, address);
+        if (syncState.coversLatest(state, limit)) {
+            return transactionRepository.findByWalletAddress(address, PageRequest.of(0, limit)).getContent();
         }
 
         // 2) API
         String token = accessToken.getAccessToken();
         if (token == null || token.isEmpty()) {
             System.out.printf("[WARN] No access token while getting transactions for: %s%n", address);
-            return Collections.emptyList();
+            return transactionRepository.findByWalletAddress(address, PageRequest.of(0, limit)).getContent();
         }
 
-        Wallet wallet = findAddress(address);  // DB에 있으면 가져옴
+        findAddress(address);  // DB에 없으면 API 조회 후 write-behind 저장
 
         List<Transaction> result = new ArrayList<>();
         Set<String> seen = new HashSet<>();
 
-        RestTemplate restTemplate = new RestTemplate();
+        // 이전에 head 부터 가져온 부분(덮인 구간)은 DB에서 읽고, 나머지만 cursor 다음 페이지부터 이어받음
+        // cursor 는 덮인 구간 바로 아래 초의 첫 트랜잭션 → 그 자신은 DB에서, 같은 초의 나머지는 이어받는 페이지에서 옴
+        boolean resumed = syncState.canResume(state);
+        String cursor = null;
+        if (resumed) {
+            for (Transaction tx : syncState.loadRange(address, state.getCoveredFrom(), Long.MAX_VALUE,
+                    Sort.Direction.DESC, limit)) {
+                if (seen.add(tx.getTxID())) result.add(tx);
+            }
+            cursor = state.getCursor();
+            if (result.size() < limit) {
+                transactionRepository.findById(cursor).ifPresent(tx -> {
+                    if (seen.add(tx.getTxID())) result.add(tx);
+                });
+            }
+        }
+
+        LocalDateTime fetchedAt = LocalDateTime.now(ZoneOffset.UTC);
+        Scan scan = scan(token, address, cursor, 0L, Long.MAX_VALUE, true, limit - result.size(), result, seen);
+
+        if (!scan.failed && (scan.exhausted || scan.oldestKept != Long.MAX_VALUE)) {
+            long from = scan.exhausted ? 0L : scan.oldestKept + 1;
+            long to = resumed ? state.getCoveredFrom() - 1 : SyncStateService.epochSecond(fetchedAt);
+            syncState.record(SyncStateService.BITCOIN, address, state, from, to,
+                    scan.oldestKeptTxid, result.size(), fetchedAt);
+        }
+        return result;
+    }
+
+    // blockstream 페이지 스캔 결과
+    private static final class Scan {
+        String boundaryTxid;                 // lo 이상에서 마지막으로 본 txid
+        String oldestKeptTxid;
+        long oldestKept = Long.MAX_VALUE;    // 담은 확정 트랜잭션 중 가장 오래된 block_time
+        boolean truncated;                   // limit 에서 멈춤
+        boolean exhausted;                   // 더 이상 페이지 없음
+        boolean failed;
+    }
+
+    /**
+     * cursor 다음(없으면 head)부터 과거 방향으로 페이지를 넘기며 [lo, hi] 트랜잭션을 out 에 추가
+     * - blockstream 은 최신순이므로 lo 보다 오래된 확정 트랜잭션을 만나면 중단
+     * - 새 트랜잭션과 지갑 연결은 write-behind 로 저장
+     */
+    private Scan scan(String token, String address, String cursor, long lo, long hi, boolean includeUnconfirmed,
+                      int limit, List<Transaction> out, Set<String> seen) {
+        Scan scan = new Scan();
+        RestTemplate restTemplate = createRestTemplateWithTimeout();
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(token);
         HttpEntity<Void> entity = new HttpEntity<>(headers);
 
         String url = apiUrl + "/address/" + address + "/txs";
-        String lastTxid = null;
+        Set<String> scanned = new HashSet<>();
+        String lastTxid = cursor;
+        int kept = 0;
 
         try {
-            while (result.size() < limit) {
+            pages:
+            while (kept < limit) {
                 String reqUrl = (lastTxid == null) ? url : url + "/chain/" + lastTxid;
                 ResponseEntity<String> response = restTemplate.exchange(reqUrl, HttpMethod.GET, entity, String.class);
                 JsonNode txs = new ObjectMapper().readTree(response.getBody());
-
-                if (txs.isEmpty()) break;
+                if (!txs.isArray() || txs.isEmpty()) {
+                    scan.exhausted = true;
+                    break;
+                }
 
                 for (JsonNode txNode : txs) {
                     String txid = txNode.path("txid").asText();
-                    if (seen.contains(txid)) continue;
-                    seen.add(txid);
+                    if (!scanned.add(txid)) continue;
                     lastTxid = txid;
 
-                    Transaction tx = transactionRepository.findById(txid)
-                            .orElseGet(() -> saveTransaction(parseTransaction(txNode, address)));
-
-                    if (!tx.getWallets().contains(wallet)) {
-                        tx.getWallets().add(wallet);
-                        wallet.getTransactions().add(tx);
+                    long blockTime = txNode.path("status").path("block_time").asLong(0);
+                    if (blockTime == 0) {
+                        if (!includeUnconfirmed) continue;
+                    } else if (blockTime < lo) {
+                        break pages;
+                    } else {
+                        scan.boundaryTxid = txid;
+                        if (blockTime > hi) continue;
                     }
 
-                    result.add(tx);
-                    if (result.size() >= limit) break;
+                    Transaction tx = transactionRepository.findById(txid)
+                            .orElseGet(() -> enqueueNew(parseTransaction(txNode, address)));
+                    writeBehind.enqueueLink(address, 1, txid);
+                    if (seen.add(txid)) {
+                        out.add(tx);
+                        kept++; // DB에서 이미 담은 것은 limit 에 세지 않음
+                    }
+                    if (blockTime > 0 && blockTime < scan.oldestKept) {
+                        scan.oldestKept = blockTime;
+                        scan.oldestKeptTxid = txid;
+                    }
+                    if (kept >= limit) {
+                        scan.truncated = true;
+                        break pages;
+                    }
                 }
 
-                if (txs.size() < 25) break; // blockstream paging
+                if (txs.size() < 25) { // blockstream paging
+                    scan.exhausted = true;
+                    break;
+                }
             }
-
-            saveWallet(wallet);
         } catch (Exception e) {
+            scan.failed = true;
             System.out.printf("[ERROR] Failed to get transactions for %s: %s%n", address, e.getMessage());
         }
-
-        return result;
+        return scan;
     }
 
     @Override
-    @Transactional
     public void traceAllTransactionsRecursive(String address, int depth, int maxDepth, Set<String> visited) {
         if (visited == null) visited = new HashSet<>();
-        traceTransactionsRecursiveInternal(address, depth, maxDepth, visited, null, null, false);
+        frontierTracer.trace(address, depth, maxDepth, visited,
+                (addr, d) -> expandAddress(addr, d, null, null, false));
     }
 
     @Override
-    @Transactional
     public void traceLimitedTransactionsRecursive(String address, int depth, int maxDepth,
                                                   Map<Integer, List<Wallet>> depthMap, Set<String> visited) {
         if (visited == null) visited = new HashSet<>();
-        if (depthMap == null) depthMap = new TreeMap<>();
-        traceTransactionsRecursiveInternal(address, depth, maxDepth, visited, depthMap, 5, true);
+        Map<Integer, List<Wallet>> map = (depthMap == null) ? new TreeMap<>() : depthMap;
+        frontierTracer.trace(address, depth, maxDepth, visited,
+                (addr, d) -> expandAddress(addr, d, map, 5, true));
     }
 
-    @Transactional
-    private void traceTransactionsRecursiveInternal(String address, int depth, int maxDepth, Set<String> visited,
-                                                    Map<Integer, List<Wallet>> depthMap,
-                                                    Integer limit, boolean limited) {
-        if (depth > maxDepth || visited.contains(address)) return;
-        visited.add(address);
-
+    // 주소 하나 처리 (FrontierTracer 의 단위 트랜잭션 안에서 호출) → 다음 깊이 주소 반환
+    private Collection<String> expandAddress(String address, int depth,
+                                             Map<Integer, List<Wallet>> depthMap,
+                                             Integer limit, boolean limited) {
         System.out.printf("[TRACE] Depth %d - Processing address: %s%n", depth, address);
 
-        Wallet wallet = walletRepository.findById(address)
-                .orElseGet(() -> walletRepository.save(new Wallet(address, 1, BigDecimal.ZERO)));
-
+        // 저장은 getTransactions 에서 write-behind 로 처리, 여기서는 메모리 결과로만 진행
         List<Transaction> transactions = limited ? getTransactions(address, limit) : getTransactions(address);
-        if (transactions == null || transactions.isEmpty()) return;
+        if (transactions == null || transactions.isEmpty()) return Collections.emptyList();
 
         Map<String, Transaction> txMap = new LinkedHashMap<>();
         for (Transaction tx : transactions) {
             txMap.put(tx.getTxID(), tx);
-            tx.getWallets().add(wallet);
-            wallet.getTransactions().add(tx);
-        }
-
-        transactionRepository.saveAll(new ArrayList<>(txMap.values()));
-        walletRepository.save(wallet);
-
-        if (depthMap != null) {
-            depthMap.computeIfAbsent(depth, d -> new ArrayList<>()).add(wallet);
         }
 
+        // transfers 를 여기서 읽어 두므로 단위가 끝나고 clear 된 뒤에도 응답 DTO 변환 가능
         Set<String> nextAddresses = new HashSet<>();
         for (Transaction tx : txMap.values()) {
             for (Transfer t : tx.getTransfers()) {
-                if (!visited.contains(t.getSender())) nextAddresses.add(t.getSender());
-                if (!visited.contains(t.getReceiver())) nextAddresses.add(t.getReceiver());
+                nextAddresses.add(t.getSender());
+                nextAddresses.add(t.getReceiver());
             }
         }
 
-        for (String next : nextAddresses) {
-            traceTransactionsRecursiveInternal(next, depth + 1, maxDepth, visited, depthMap, limit, limited);
+        if (depthMap != null) {
+            Wallet view = walletRepository.findById(address)
+                    .map(Wallet::detachedCopy)
+                    .orElseGet(() -> new Wallet(address, 1, BigDecimal.ZERO));
+            view.getTransactions().addAll(txMap.values());
+            depthMap.computeIfAbsent(depth, d -> new ArrayList<>()).add(view);
         }
+        return nextAddresses;
     }
 
     @Transactional
     public List<Transaction> getTransactionsByTimeRange(String address, long start, long end, int limit) {
+        // 1) sync-state 가 구간 전체를 덮으면 DB만으로 응답
+        AddressSyncState state = syncState.find(SyncStateService.BITCOIN, address);
+        long[] missing = syncState.missingRange(state, start, end);
+        if (missing == null) {
+            return syncState.loadRange(address, start, end, Sort.Direction.DESC, limit);
+        }
+
         String token = accessToken.getAccessToken();
         if (token == null || token.isEmpty()) {
             System.out.printf("[WARN] No token while fetching time-ranged transactions for: %s%n", address);
             return Collections.emptyList();
         }
 
-        RestTemplate restTemplate = createRestTemplateWithTimeout();
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(token);
-        HttpEntity<Void> entity = new HttpEntity<>(headers);
-
+        // 2) 일부만 비어 있으면 덮인 부분은 DB, 빈 구간만 API
+        boolean partial = missing[0] != start || missing[1] != end;
+        String cursor = null;
         List<Transaction> transactions = new ArrayList<>();
         Set<String> seen = new HashSet<>();
-        String lastTxid = null;
-
-        try {
-            while (transactions.size() < limit) {
-                String requestUrl = (lastTxid != null)
-                        ? apiUrl + "/address/" + address + "/txs/chain/" + lastTxid
-                        : apiUrl + "/address/" + address + "/txs";
-
-                ResponseEntity<String> response = restTemplate.exchange(requestUrl, HttpMethod.GET, entity, String.class);
-                JsonNode root = new ObjectMapper().readTree(response.getBody());
-                if (!root.isArray() || root.size() == 0) break;
-
-                for (JsonNode txNode : root) {
-                    if (transactions.size() >= limit) break;
-
-                    String txid = txNode.path("txid").asText();
-                    if (seen.contains(txid)) continue;
-                    seen.add(txid);
-                    lastTxid = txid;
-
-                    long blockTime = txNode.path("status").path("block_time").asLong(0);
-                    if (blockTime == 0 || blockTime < start || blockTime > end) continue;
-
-                    Transaction tx = transactionRepository.findById(txid)
-                            .orElseGet(() -> parseTransaction(txNode, address));
-                    if (!transactionRepository.existsById(tx.getTxID())) {
-                        tx = saveTransaction(tx);
-                    }
+        if (partial) {
+            for (Transaction tx : syncState.loadRange(address, start, end, Sort.Direction.DESC, limit)) {
+                if (seen.add(tx.getTxID())) transactions.add(tx);
+            }
+            if (missing[1] < end) {
+                // 과거 쪽만 빔: 최신순 결과라 이미 limit 개면 더 볼 필요 없음, 아니면 경계 cursor 부터 이어받음
+                if (transactions.size() >= limit) return transactions;
+                cursor = state.getCursor();
+                if (cursor == null) missing = new long[]{missing[0], end};
+            }
+        }
 
-                    transactions.add(tx);
-                }
+        LocalDateTime fetchedAt = LocalDateTime.now(ZoneOffset.UTC);
+        Scan scan = scan(token, address, cursor, missing[0], missing[1], false, limit, transactions, seen);
 
-                if (root.size() < 25) break;
+        if (!scan.failed && !(scan.truncated && scan.oldestKept == Long.MAX_VALUE)) {
+            long from = scan.exhausted ? 0L : scan.truncated ? scan.oldestKept + 1 : missing[0];
+            long to = (cursor != null) ? missing[1] : Math.min(missing[1], SyncStateService.epochSecond(fetchedAt));
+            if (from <= to) {
+                syncState.record(SyncStateService.BITCOIN, address, state, from, to,
+                        scan.truncated ? scan.oldestKeptTxid : scan.boundaryTxid, 0, fetchedAt);
             }
-        } catch (Exception e) {
-            System.out.printf("[ERROR] Time-range transaction fetch failed: %s%n", e.getMessage());
         }
 
+        if (partial) {
+            transactions.sort(Comparator.comparing(Transaction::getTimestamp).reversed());
+            if (transactions.size() > limit) transactions = new ArrayList<>(transactions.subList(0, limit));
+        }
         return transactions;
     }
 
-    @Transactional
     public void traceTransactionsByTimeRange(String address, int depth, int maxDepth,
                                              long start, long end, int limit, Set<String> visited) {
-        if (depth > maxDepth || visited.contains(address)) return;
-        visited.add(address);
-
-        System.out.printf("[TRACE] Depth %d - Time range tracing for address: %s%n", depth, address);
-
-        Wallet wallet = walletRepository.findById(address).orElseGet(() -> findAddress(address));
-        wallet = saveWallet(wallet);
+        frontierTracer.trace(address, depth, maxDepth, visited, (addr, d) -> {
+            System.out.printf("[TRACE] Depth %d - Time range tracing for address: %s%n", d, addr);
 
-        List<Transaction> transactions = getTransactionsByTimeRange(address, start, end, limit);
-        for (Transaction tx : transactions) {
-            tx.getWallets().add(wallet);
-            wallet.getTransactions().add(tx);
-            saveTransaction(tx);
-        }
+            findAddress(addr);
 
-        wallet = saveWallet(wallet);
-
-        for (Transaction tx : transactions) {
-            for (Transfer t : tx.getTransfers()) {
-                if (!visited.contains(t.getSender())) {
-                    traceTransactionsByTimeRange(t.getSender(), depth + 1, maxDepth, start, end, limit, visited);
+            List<Transaction> transactions = getTransactionsByTimeRange(addr, start, end, limit);
+            Set<String> senders = new HashSet<>();
+            for (Transaction tx : transactions) {
+                for (Transfer t : tx.getTransfers()) {
+                    senders.add(t.getSender()); // 시간 범위 추적은 송신자 방향만
                 }
             }
-        }
+            return senders;
+        });
     }
 }
@@ -1,49 +1,369 @@
 package com.Django.TraceChain.service;
 
+import com.Django.TraceChain.component.DetectorProperties;
+import com.Django.TraceChain.dto.WalletVersionRow;
+import com.Django.TraceChain.model.PatternType;
 import com.Django.TraceChain.model.Wallet;
+import com.Django.TraceChain.repository.WalletRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+/*
+ * 탐지 실행 3단계
+ * 1) snapshot: 요청 스레드에서 엔티티를 읽어 체인별 불변 스냅샷 생성
+ * 2) compute : (체인 × 탐지기) 작업을 전용 ForkJoinPool 에서 병렬 실행, 탐지기 내부도 지갑 단위로 병렬
+ * 3) apply   : 패턴 컬럼별 bulk UPDATE (PatternResultWriter), 응답용 엔티티는 분리 후 메모리 값만 맞춤
+ * 증분/배치 탐지는 엔티티 없이 projection 으로 스냅샷 생성 (DetectionSnapshotLoader)
+ * 로그의 rows / heap 으로 실행마다 읽은 행 수와 스냅샷 단계의 힙 증가량(대략)을 비교 가능
+ * detect.parallelism 을 1 과 코어 수로 바꿔가며 로그의 compute 시간을 비교하면 확장성 확인 가능
+ *
+ * 증분 탐지 (runChangedDetectors)
+ * - txVersion != detectedVersion 인 지갑만 변경분으로 보고, 탐지기별 반경(neighborhoodHops) 안의 지갑만 다시 판정
+ * - 스냅샷은 판정 대상이 보는 그래프까지 한 반경 더 넓혀서 구성, 나머지 지갑은 저장된 결과 그대로
+ * - 반경은 체인별로 그 체인을 지원하는 탐지기 중 최대 (Ethereum 변경분이 Bitcoin 전용 탐지기 반경까지 넓어지지 않음)
+ * - 시작점을 주면(runChangedDetectors(seeds), 스트리밍) 그 지갑 중 바뀐 것만 변경분으로 봄
+ *
+ * 배치 탐지 (runBatch, DetectionJobService 가 전체 지갑을 나눠서 호출)
+ * - 연결 요소가 통째로 들어온 배치는 그 지갑만으로 스냅샷, 큰 요소를 자른 배치는 최대 반경만큼 주변 지갑(halo)을 붙여서 구성
+ * - halo 는 트랜잭션 연결 수 상한(maxHaloLinks) 안에서 hop 단위로만 넓힘 → 반경을 다 못 채우면 경고 후
+ *   채운 만큼으로 판정하고 탐지 완료로 표시하지 않음 (다음 증분 탐지가 다시 판정)
+ * - 어느 쪽이든 결과는 배치 지갑에만 반영, 트랜잭션이 끝나면 엔티티는 모두 해제
+ */
 @Service
 public class DetectService {
 
+    private static final int[] CHAIN_TYPES = {1, 2}; // Bitcoin, Ethereum
+
     private final List<MixingDetector> detectors;
+    private final PatternResultWriter resultWriter;
+    private final WalletRepository walletRepository;
+    private final DetectionSnapshotLoader snapshotLoader;
+    private final DetectorProperties props;
+    private final ForkJoinPool pool;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${detect.update-chunk-size:1000}")
+    private int chunkSize;
+
+    // 한 (스냅샷, 탐지기) 계산 단위
+    private static final class Job {
+        final DetectionSnapshot snapshot;
+        final MixingDetector detector;
+        Job(DetectionSnapshot snapshot, MixingDetector detector) {
+            this.snapshot = snapshot;
+            this.detector = detector;
+        }
+    }
 
     @Autowired
-    public DetectService(List<MixingDetector> detectors) {
+    public DetectService(List<MixingDetector> detectors,
+                         PatternResultWriter resultWriter,
+                         WalletRepository walletRepository,
+                         DetectionSnapshotLoader snapshotLoader,
+                         DetectorProperties props,
+                         @Value("${detect.parallelism:0}") int parallelism) {
         this.detectors = detectors;
+        this.resultWriter = resultWriter;
+        this.walletRepository = walletRepository;
+        this.snapshotLoader = snapshotLoader;
+        this.props = props;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
     }
 
+    /**
+     * 호출 측이 가진 엔티티로 탐지 (응답용 엔티티의 패턴 값도 맞춰 줌)
+     * 주변 지갑 없이 이 지갑들만 본 결과이므로 탐지 완료로 표시하지 않고 detectedVersion 을 비움
+     * → 다음 증분 탐지가 반경 안 이웃과 함께 다시 판정해서 덮어씀
+     */
+    @Transactional
     public void runAllDetectors(List<Wallet> wallets) {
         if (wallets == null || wallets.isEmpty()) return;
+        List<PatternResult> results = execute(() -> {
+            List<DetectionSnapshot> snapshots = new ArrayList<>();
+            for (int type : CHAIN_TYPES) {
+                List<Wallet> chainWallets = wallets.stream().filter(w -> w.getType() == type).toList();
+                if (!chainWallets.isEmpty()) snapshots.add(DetectionSnapshot.of(type, chainWallets));
+            }
+            return snapshots;
+        }, null, Map.of(), false);
+        List<String> addresses = wallets.stream().map(Wallet::getAddress).toList();
+        for (int from = 0; from < addresses.size(); from += chunkSize) {
+            walletRepository.clearDetected(addresses.subList(from, Math.min(addresses.size(), from + chunkSize)));
+        }
+        applyToEntities(wallets, results);
+    }
 
-        // 체인별 분리
-        List<Wallet> bitcoinWallets = wallets.stream()
-                .filter(w -> w.getType() == 1)
-                .toList();
+    /**
+     * 지정한 지갑들만 탐지해서 반영
+     * @param closed       true 면 addresses 가 트랜잭션을 공유하는 지갑을 모두 포함 (주변 지갑 불필요)
+     * @param maxHaloLinks closed = false 일 때 붙이는 주변 지갑의 트랜잭션 연결 수 상한
+     * @return 판정한 지갑 수
+     */
+    @Transactional
+    public int runBatch(List<String> addresses, boolean closed, long maxHaloLinks) {
+        List<WalletVersionRow> core = loadRows(addresses);
+        if (core.isEmpty()) return 0;
+        if (closed) return evaluatedCount(execute(() -> snapshots(core), null, versions(core), false));
 
-        List<Wallet> ethereumWallets = wallets.stream()
-                .filter(w -> w.getType() == 2)
-                .toList();
+        int radius = maxNeighborhoodHops();
+        Neighborhood halo = expand(addresses, radius, maxHaloLinks);
+        boolean complete = halo.depth() >= radius;
+        System.out.printf("[DETECT] Batch of %d wallets: halo %d wallets, %d links, %d/%d hops%n",
+                core.size(), halo.hops().size() - core.size(), halo.links(), halo.depth(), radius);
+        if (!complete) {
+            System.out.printf("[WARN] Halo capped at %d links before reaching %d hops, %d wallets evaluated " +
+                    "with a partial neighborhood and left for incremental detection%n", maxHaloLinks, radius, core.size());
+        }
 
-        // 비트코인용: Relayer/EthereumLooping 제외
-        if (!bitcoinWallets.isEmpty()) {
-            for (MixingDetector detector : detectors) {
-                if (detector instanceof RelayerDetector) continue;
-                if (detector instanceof EthereumLoopingDetector) continue;
-                detector.analyze(bitcoinWallets);
+        Map<String, WalletVersionRow> context = new LinkedHashMap<>();
+        for (WalletVersionRow w : core) context.put(w.getAddress(), w);
+        List<String> missing = halo.hops().keySet().stream().filter(a -> !context.containsKey(a)).toList();
+        for (WalletVersionRow w : loadRows(missing)) context.put(w.getAddress(), w);
+        List<WalletVersionRow> all = new ArrayList<>(context.values());
+        return evaluatedCount(execute(() -> snapshots(all), halo.hops(), complete ? versions(core) : Map.of(), true));
+    }
+
+    /**
+     * 마지막 탐지 이후 트랜잭션이 바뀐 지갑과 그 반경 안 이웃만 다시 탐지
+     * @return 다시 판정한 지갑 수 (0 이면 저장된 결과가 최신)
+     */
+    @Transactional
+    public int runChangedDetectors() {
+        return detectChanged(walletRepository.findChangedVersionRows());
+    }
+
+    /**
+     * seeds 중 마지막 탐지 이후 트랜잭션이 바뀐 지갑과 그 반경 안 이웃만 다시 탐지 (스트리밍: 방금 커밋된 지갑)
+     * seeds 밖에서 바뀐 지갑은 다음 runChangedDetectors 가 처리
+     */
+    @Transactional
+    public int runChangedDetectors(Collection<String> seeds) {
+        List<String> list = new ArrayList<>(seeds);
+        List<WalletVersionRow> changed = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += chunkSize) {
+            changed.addAll(walletRepository.findChangedVersionRows(list.subList(from, Math.min(list.size(), from + chunkSize))));
+        }
+        return detectChanged(changed);
+    }
+
+    private int detectChanged(List<WalletVersionRow> changed) {
+        if (changed.isEmpty()) {
+            System.out.println("[DETECT] No wallet changed since last detection, stored results are current");
+            return 0;
+        }
+
+        // 체인별로 그 체인 탐지기의 반경 2배까지 (트랜잭션 공유 이웃은 같은 체인)
+        Map<String, Integer> hops = new HashMap<>();
+        for (int type : CHAIN_TYPES) {
+            List<String> seeds = changed.stream().filter(w -> w.getType() == type).map(WalletVersionRow::getAddress).toList();
+            if (!seeds.isEmpty()) hops.putAll(expand(seeds, 2 * neighborhoodHops(type), Long.MAX_VALUE).hops());
+        }
+
+        Map<String, WalletVersionRow> context = new LinkedHashMap<>();
+        for (WalletVersionRow w : changed) context.put(w.getAddress(), w);
+        List<String> missing = hops.keySet().stream().filter(a -> !context.containsKey(a)).toList();
+        for (WalletVersionRow w : loadRows(missing)) context.put(w.getAddress(), w);
+
+        System.out.printf("[DETECT] %d changed wallets, %d in detection context%n", changed.size(), context.size());
+        List<WalletVersionRow> all = new ArrayList<>(context.values());
+        return evaluatedCount(execute(() -> snapshots(all), hops, versions(changed), false));
+    }
+
+    public int maxNeighborhoodHops() {
+        return detectors.stream().mapToInt(MixingDetector::neighborhoodHops).max().orElse(0);
+    }
+
+    /** chainType 을 지원하는 탐지기 중 가장 큰 반경 */
+    public int neighborhoodHops(int chainType) {
+        return detectors.stream().filter(d -> d.supports(chainType))
+                .mapToInt(MixingDetector::neighborhoodHops).max().orElse(0);
+    }
+
+    private List<WalletVersionRow> loadRows(List<String> addresses) {
+        List<WalletVersionRow> rows = new ArrayList<>(addresses.size());
+        for (int from = 0; from < addresses.size(); from += chunkSize) {
+            rows.addAll(walletRepository.findVersionRows(addresses.subList(from, Math.min(addresses.size(), from + chunkSize))));
+        }
+        return rows;
+    }
+
+    private List<DetectionSnapshot> snapshots(List<WalletVersionRow> wallets) {
+        List<DetectionSnapshot> snapshots = new ArrayList<>();
+        for (int type : CHAIN_TYPES) {
+            List<String> addresses = wallets.stream().filter(w -> w.getType() == type).map(WalletVersionRow::getAddress).toList();
+            if (!addresses.isEmpty()) {
+                snapshots.add(snapshotLoader.load(type, addresses, DetectionSnapshotLoader.requiredFeatures(detectors, type)));
             }
         }
+        return snapshots;
+    }
+
+    private static Map<Long, List<String>> versions(List<WalletVersionRow> wallets) {
+        return wallets.stream().collect(Collectors.groupingBy(
+                WalletVersionRow::getTxVersion, Collectors.mapping(WalletVersionRow::getAddress, Collectors.toList())));
+    }
+
+    private static int evaluatedCount(List<PatternResult> results) {
+        return (int) results.stream().flatMap(r -> r.getEvaluated().stream()).distinct().count();
+    }
 
-        // 이더리움용: PeelChain/Looping 제외
-        if (!ethereumWallets.isEmpty()) {
+    /*
+     * hops == null 이면 모든 지갑을 판정, 아니면 탐지기별로 hops <= neighborhoodHops 인 지갑만 반영
+     * (coreOnly 면 탐지기와 상관없이 hops == 0 인 지갑만)
+     * byVersion: 이번 실행으로 최신이 된 지갑의 txVersion 별 주소 (스냅샷 전에 읽은 값, detectedVersion 기록 대상)
+     */
+    private List<PatternResult> execute(Supplier<List<DetectionSnapshot>> source, Map<String, Integer> hops,
+                                        Map<Long, List<String>> byVersion, boolean coreOnly) {
+        // 1) 체인별 스냅샷
+        Runtime rt = Runtime.getRuntime();
+        long heapBefore = rt.totalMemory() - rt.freeMemory();
+        long t0 = System.nanoTime();
+        List<DetectionSnapshot> snapshots = source.get();
+        long heapDelta = (rt.totalMemory() - rt.freeMemory()) - heapBefore;
+        List<Job> jobs = new ArrayList<>();
+        int wallets = 0, rows = 0;
+        for (DetectionSnapshot snapshot : snapshots) {
+            wallets += snapshot.getWallets().size();
+            rows += snapshot.getSourceRows();
             for (MixingDetector detector : detectors) {
-                if (detector instanceof PeelChainDetector) continue;
-                if (detector instanceof LoopingDetector) continue;
-                detector.analyze(ethereumWallets);
+                if (detector.supports(snapshot.getChainType())) jobs.add(new Job(snapshot, detector));
+            }
+        }
+
+        // 2) 병렬 계산
+        long t1 = System.nanoTime();
+        List<PatternResult> results = compute(jobs);
+        if (hops != null) {
+            List<PatternResult> scoped = new ArrayList<>(results.size());
+            for (int i = 0; i < results.size(); i++) {
+                scoped.add(restrict(results.get(i), hops, coreOnly ? 0 : jobs.get(i).detector.neighborhoodHops()));
+            }
+            results = scoped;
+        }
+
+        // 3) 반영
+        long t2 = System.nanoTime();
+        int changed = resultWriter.write(results);
+        byVersion.forEach((version, addresses) -> {
+            for (int from = 0; from < addresses.size(); from += chunkSize) {
+                walletRepository.markDetected(addresses.subList(from, Math.min(addresses.size(), from + chunkSize)), version);
+            }
+        });
+        long t3 = System.nanoTime();
+
+        System.out.printf("[DETECT] %d wallets, %d rows (heap ~%d KB), %d jobs, parallelism %d: snapshot %d ms, " +
+                        "compute %d ms, apply %d ms (%d evaluated, %d flag rows changed)%n",
+                wallets, rows, Math.max(0, heapDelta) / 1024, jobs.size(), pool.getParallelism(),
+                (t1 - t0) / 1_000_000, (t2 - t1) / 1_000_000, (t3 - t2) / 1_000_000, evaluatedCount(results), changed);
+        return results;
+    }
+
+    // hops: 주소별 거리, depth: 빠짐없이 채운 hop 수, links: 시작 지갑을 뺀 주변 지갑의 트랜잭션 연결 수
+    private record Neighborhood(Map<String, Integer> hops, int depth, long links) {}
+
+    /*
+     * 변경 지점으로부터 maxHops 안의 지갑 주소와 거리 (트랜잭션 공유 기준 BFS)
+     * maxLinks 가 유한하면 다음 hop 을 더했을 때 주변 지갑의 연결 수가 넘으면 그 hop 은 통째로 빼고 멈춤
+     */
+    private Neighborhood expand(Collection<String> seeds, int maxHops, long maxLinks) {
+        Map<String, Integer> hops = new HashMap<>();
+        List<String> frontier = new ArrayList<>();
+        for (String s : seeds) {
+            if (hops.putIfAbsent(s, 0) == null) frontier.add(s);
+        }
+        long links = 0;
+        int depth = 0;
+        for (int h = 1; h <= maxHops && !frontier.isEmpty(); h++) {
+            Set<String> next = new LinkedHashSet<>();
+            for (int from = 0; from < frontier.size(); from += chunkSize) {
+                List<String> chunk = frontier.subList(from, Math.min(frontier.size(), from + chunkSize));
+                for (String a : walletRepository.findNeighborAddresses(chunk)) {
+                    if (!hops.containsKey(a)) next.add(a);
+                }
+            }
+            if (maxLinks != Long.MAX_VALUE && !next.isEmpty()) {
+                List<String> list = new ArrayList<>(next);
+                long added = 0;
+                for (int from = 0; from < list.size(); from += chunkSize) {
+                    added += walletRepository.countLinks(list.subList(from, Math.min(list.size(), from + chunkSize)));
+                }
+                if (links + added > maxLinks) break;
+                links += added;
+            }
+            for (String a : next) hops.put(a, h);
+            frontier = new ArrayList<>(next);
+            depth = h;
+        }
+        // 더 넓힐 지갑이 없어서 끝났으면 반경을 다 채운 것
+        if (frontier.isEmpty()) depth = maxHops;
+        return new Neighborhood(hops, depth, links);
+    }
+
+    // 반경 밖 지갑은 판정/점수에서 제외 (저장된 값 유지)
+    private PatternResult restrict(PatternResult r, Map<String, Integer> hops, int radius) {
+        Set<String> evaluated = new HashSet<>();
+        for (String a : r.getEvaluated()) {
+            Integer h = hops.get(a);
+            if (h != null && h <= radius) evaluated.add(a);
+        }
+        Set<String> flagged = new HashSet<>(r.getFlagged());
+        flagged.retainAll(evaluated);
+        Map<String, Double> scores = new HashMap<>(r.getScores());
+        scores.keySet().retainAll(evaluated);
+        return new PatternResult(r.getPattern(), evaluated, flagged, scores);
+    }
+
+    private List<PatternResult> compute(List<Job> jobs) {
+        try {
+            // 풀 안에서 시작한 parallelStream 은 같은 풀을 사용 (탐지기 내부 병렬 포함)
+            return pool.submit(() -> jobs.parallelStream()
+                    .map(job -> job.detector.detect(job.snapshot))
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Detection interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Detector failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void applyToEntities(List<Wallet> wallets, List<PatternResult> results) {
+        // 응답용 엔티티는 분리 → 아래 메모리 반영이 dirty checking 으로 다시 UPDATE 되지 않음
+        // (transactions/transfers 는 스냅샷 생성 시 이미 초기화됨, DB 는 execute 에서 bulk UPDATE 로 반영됨)
+        Map<String, Wallet> byAddress = new HashMap<>();
+        for (Wallet w : wallets) {
+            entityManager.detach(w);
+            byAddress.put(w.getAddress(), w);
+        }
+        for (PatternResult result : results) {
+            for (String address : result.getEvaluated()) {
+                Wallet w = byAddress.get(address);
+                if (w == null) continue;
+                result.getPattern().set(w, result.isFlagged(address));
+                result.getPattern().setScore(w, result.score(address));
             }
         }
+        for (Wallet w : wallets) {
+            w.setPatternCnt(PatternType.count(w));
+            w.setRiskScore(props.getRisk().score(w));
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
     }
 }
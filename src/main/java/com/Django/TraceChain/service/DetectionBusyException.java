@@ -0,0 +1,12 @@
+package com.Django.TraceChain.service;
+
+/*
+ * 전체 탐지 작업이 이미 실행 중이라 새 작업을 시작하지 못함 (API 는 409)
+ * 탐지기 실패 등 다른 IllegalStateException 과 구분하기 위한 전용 타입
+ */
+public class DetectionBusyException extends RuntimeException {
+
+    public DetectionBusyException(String message) {
+        super(message);
+    }
+}
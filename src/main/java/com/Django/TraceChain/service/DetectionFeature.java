@@ -0,0 +1,14 @@
+package com.Django.TraceChain.service;
+
+/*
+ * 탐지기가 스냅샷에서 읽는 데이터 (MixingDetector.requiredFeatures)
+ * DetectionSnapshotLoader 는 실행할 탐지기들의 합집합만 조회
+ */
+public enum DetectionFeature {
+
+	/** 지갑 트랜잭션의 시각 + 그 지갑이 보낸 transfer 만 */
+	SENDER_TRANSFERS,
+
+	/** 지갑 트랜잭션의 시각 + 모든 입출력 transfer (상대 주소 포함) */
+	ALL_TRANSFERS
+}
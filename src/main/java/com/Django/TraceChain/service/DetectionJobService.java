@@ -0,0 +1,271 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.dto.DetectionJobDto;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * 전체 지갑 탐지를 배치로 나눠 실행하는 백그라운드 작업 (한 번에 하나)
+ * 1) 분할: wallet_transaction 을 txID 순으로 스트리밍하며 같은 tx 의 지갑끼리 union → 연결 요소
+ *    (엔티티 없이 주소와 지갑별 연결 수만 메모리에 둠)
+ * 2) 연결 요소를 통째로 배치에 채움. 배치 상한은 지갑 수(max-batch-wallets)와 트랜잭션 연결 수(max-batch-links)
+ *    연결 수가 스냅샷 크기를 결정하므로 사실상 배치당 메모리 상한
+ *    상한보다 큰 요소는 잘라서 DetectService.runBatch 가 주변 지갑을 붙여 판정 (주변 지갑도 max-batch-links 로 제한)
+ * 3) 배치마다 별도 트랜잭션으로 탐지/반영 후 엔티티 해제 → 힙은 전체 DB 가 아니라 배치 크기에 비례
+ *    배치 하나는 DetectionRunCoordinator.exclusive 로 실행 → 다른 탐지 실행과 겹쳐 쓰지 않음
+ * - 진행 상황은 status(), 취소는 cancel() (진행 중인 배치는 끝까지 반영하고 멈춤)
+ */
+@Service
+public class DetectionJobService {
+
+    private static final String LINK_SQL =
+            "SELECT transaction_id, wallet_address FROM wallet_transaction ORDER BY transaction_id";
+    private static final String WALLET_SQL = "SELECT address FROM wallets";
+
+    private final DetectService detectService;
+    private final DetectionRunCoordinator runCoordinator;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final AtomicLong ids = new AtomicLong();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "detect-job");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${detect.job.max-batch-wallets:2000}")
+    private int maxBatchWallets;
+
+    @Value("${detect.job.max-batch-links:100000}")
+    private int maxBatchLinks;
+
+    private volatile Job current;
+
+    // 진행 상황 (작업 스레드가 쓰고 요청 스레드가 읽음)
+    private static final class Job {
+        final long id;
+        final LocalDateTime startedAt = LocalDateTime.now(ZoneOffset.UTC);
+        final long startedNanos = System.nanoTime();
+        volatile String state = "PARTITIONING";
+        volatile boolean cancelRequested;
+        volatile int totalWallets;
+        volatile int processedWallets;
+        volatile int totalBatches;
+        volatile int completedBatches;
+        volatile int evaluated;
+        volatile long finishedNanos;
+        volatile String error;
+        volatile Throwable failure;
+
+        Job(long id) { this.id = id; }
+
+        boolean isActive() { return finishedNanos == 0; }
+
+        DetectionJobDto toDto() {
+            long end = isActive() ? System.nanoTime() : finishedNanos;
+            return new DetectionJobDto(id, state, totalWallets, processedWallets, totalBatches, completedBatches,
+                    evaluated, startedAt, (end - startedNanos) / 1_000_000, error);
+        }
+    }
+
+    // closed = 연결 요소를 통째로 담은 배치
+    record Batch(List<String> addresses, boolean closed) {}
+
+    public DetectionJobService(DetectService detectService, DetectionRunCoordinator runCoordinator,
+                               JdbcTemplate jdbcTemplate) {
+        this.detectService = detectService;
+        this.runCoordinator = runCoordinator;
+        // MySQL 드라이버는 fetchSize = Integer.MIN_VALUE 일 때 행 단위 스트리밍
+        this.streamingJdbcTemplate = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /** 새 작업 시작 (이미 실행 중이면 DetectionBusyException) */
+    public DetectionJobDto start() {
+        Job job = launch();
+        executor.execute(() -> run(job));
+        return job.toDto();
+    }
+
+    /**
+     * 작업을 호출 스레드에서 끝까지 실행 (이미 실행 중이면 DetectionBusyException)
+     * 작업이 실패하면 IllegalStateException → 실패한 결과를 성공으로 돌려주거나 재사용하지 않음
+     * DetectionRunCoordinator.run 안에서 불려도 같은 스레드라 배치마다 잡는 락이 재진입됨
+     */
+    public DetectionJobDto runAndWait() {
+        Job job = launch();
+        run(job);
+        if ("FAILED".equals(job.state)) {
+            throw new IllegalStateException("Detection job " + job.id + " failed: " + job.error, job.failure);
+        }
+        return job.toDto();
+    }
+
+    private synchronized Job launch() {
+        Job running = current;
+        if (running != null && running.isActive()) {
+            throw new DetectionBusyException("Detection job " + running.id + " is already running");
+        }
+        Job job = new Job(ids.incrementAndGet());
+        current = job;
+        return job;
+    }
+
+    public Optional<DetectionJobDto> status(long id) {
+        Job job = current;
+        return job != null && job.id == id ? Optional.of(job.toDto()) : Optional.empty();
+    }
+
+    public Optional<DetectionJobDto> cancel(long id) {
+        Job job = current;
+        if (job == null || job.id != id) return Optional.empty();
+        job.cancelRequested = true;
+        return Optional.of(job.toDto());
+    }
+
+    private void run(Job job) {
+        try {
+            List<Batch> batches = partition(job);
+            job.totalBatches = batches.size();
+            job.state = "RUNNING";
+            System.out.printf("[JOB] Detection job %d: %d wallets in %d batches%n",
+                    job.id, job.totalWallets, batches.size());
+
+            boolean cancelled = false;
+            for (Batch batch : batches) {
+                if (job.cancelRequested) {
+                    cancelled = true;
+                    break;
+                }
+                job.evaluated += runCoordinator.exclusive(
+                        () -> detectService.runBatch(batch.addresses(), batch.closed(), maxBatchLinks));
+                job.processedWallets += batch.addresses().size();
+                job.completedBatches++;
+            }
+            job.state = cancelled ? "CANCELLED" : "COMPLETED";
+        } catch (Exception e) {
+            job.state = "FAILED";
+            job.error = e.getMessage();
+            job.failure = e;
+            System.out.printf("[ERROR] Detection job %d failed: %s%n", job.id, e.getMessage());
+        } finally {
+            job.finishedNanos = System.nanoTime();
+            System.out.printf("[JOB] Detection job %d %s: %d/%d batches, %d wallets evaluated in %d ms%n",
+                    job.id, job.state, job.completedBatches, job.totalBatches, job.evaluated,
+                    (job.finishedNanos - job.startedNanos) / 1_000_000);
+        }
+    }
+
+    private List<Batch> partition(Job job) {
+        LinkUnion union = new LinkUnion();
+        streamingJdbcTemplate.query(LINK_SQL, rs -> {
+            union.accept(rs.getString(1), rs.getString(2));
+        });
+        // 트랜잭션이 없는 지갑도 판정 대상 (패턴 초기화)
+        streamingJdbcTemplate.query(WALLET_SQL, rs -> {
+            union.intern(rs.getString(1));
+        });
+        union.ids.clear();
+
+        job.totalWallets = union.uf.count();
+        return pack(union, maxBatchWallets, maxBatchLinks);
+    }
+
+    // (txID 순) wallet_transaction 행을 받아 같은 tx 의 지갑끼리 union, 지갑별 연결 수 집계
+    static final class LinkUnion {
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> names = new ArrayList<>();
+        final IntUnionFind uf = new IntUnionFind(1 << 16);
+        int[] links = new int[1 << 16];
+        private String currentTx;
+        private int first = -1;
+
+        void accept(String txId, String address) {
+            int v = intern(address);
+            links[v]++;
+            if (!txId.equals(currentTx)) {
+                currentTx = txId;
+                first = v;
+            } else {
+                uf.union(first, v);
+            }
+        }
+
+        int intern(String address) {
+            Integer id = ids.get(address);
+            if (id == null) {
+                id = uf.add();
+                ids.put(address, id);
+                names.add(address);
+                if (id == links.length) links = Arrays.copyOf(links, id << 1);
+            }
+            return id;
+        }
+    }
+
+    // 연결 요소를 통째로 배치에 채움, 상한보다 큰 요소는 잘라서 열린 배치로
+    static List<Batch> pack(LinkUnion union, int maxBatchWallets, int maxBatchLinks) {
+        IntUnionFind uf = union.uf;
+        int[] links = union.links;
+
+        // 루트별 구성원 (CSR)
+        int n = uf.count();
+        int[] start = new int[n + 1];
+        for (int v = 0; v < n; v++) start[uf.find(v) + 1]++;
+        for (int v = 0; v < n; v++) start[v + 1] += start[v];
+        int[] pos = Arrays.copyOf(start, n);
+        int[] members = new int[n];
+        for (int v = 0; v < n; v++) members[pos[uf.find(v)]++] = v;
+
+        List<Batch> batches = new ArrayList<>();
+        List<String> pending = new ArrayList<>();
+        long pendingLinks = 0;
+        for (int root = 0; root < n; root++) {
+            int size = start[root + 1] - start[root];
+            if (size == 0) continue;
+            long compLinks = 0;
+            for (int i = start[root]; i < start[root + 1]; i++) compLinks += links[members[i]];
+
+            if (size > maxBatchWallets || compLinks > maxBatchLinks) {
+                List<String> piece = new ArrayList<>();
+                long pieceLinks = 0;
+                for (int i = start[root]; i < start[root + 1]; i++) {
+                    int v = members[i];
+                    if (!piece.isEmpty() && (piece.size() >= maxBatchWallets || pieceLinks + links[v] > maxBatchLinks)) {
+                        batches.add(new Batch(piece, false));
+                        piece = new ArrayList<>();
+                        pieceLinks = 0;
+                    }
+                    piece.add(union.names.get(v));
+                    pieceLinks += links[v];
+                }
+                batches.add(new Batch(piece, false));
+                continue;
+            }
+
+            if (!pending.isEmpty() && (pending.size() + size > maxBatchWallets || pendingLinks + compLinks > maxBatchLinks)) {
+                batches.add(new Batch(pending, true));
+                pending = new ArrayList<>();
+                pendingLinks = 0;
+            }
+            for (int i = start[root]; i < start[root + 1]; i++) pending.add(union.names.get(members[i]));
+            pendingLinks += compLinks;
+        }
+        if (!pending.isEmpty()) batches.add(new Batch(pending, true));
+        return batches;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,164 @@
+package com.Django.TraceChain.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/*
+ * 같은 입력의 탐지 요청을 한 번만 실행하고, 탐지 결과를 쓰는 작업끼리 직렬화
+ * - 키 = (범위, 데이터 버전, 결과 버전). 범위는 전체 지갑(증분/전체 재계산 구분) 또는 선택 주소 집합의 SHA-256
+ * - 데이터 버전은 write-behind 커밋(TransactionsPersistedEvent)마다 +1 → 새 데이터가 들어오면 키가 바뀜
+ * - 결과 버전은 PatternResultWriter 가 행을 바꿀 때마다(PatternResultsWrittenEvent) +1
+ *   → 배치 작업, 스트리밍, 다른 범위의 실행이 플래그를 다시 쓰면 그 전 결과는 재사용하지 않음
+ *   실행 자신이 쓴 결과는 예외: 끝난 뒤 (데이터 버전이 그대로면) 끝난 시점의 결과 버전 키로도 등록
+ * - 실행 중인 키(같은 범위, 같은 데이터 버전)로 들어온 요청은 그 실행에 붙어서 같은 결과를 받고, 끝난 결과는 버전이 바뀔 때까지 재사용
+ * - 실패한 실행은 남기지 않음 (다음 요청이 다시 실행), 지난 버전의 결과와 오래된 결과(max-cached-runs 초과)는 제거
+ * - run() 의 실행과 exclusive() 작업은 같은 재진입 락 아래에서 하나씩 → 결과 버전 변화가 누구 것인지 구분 가능
+ * 결과 객체는 요청끼리 공유하므로 호출 측에서 수정하지 않아야 함
+ */
+@Service
+public class DetectionRunCoordinator {
+
+    public static final String ALL_CHANGED = "all";
+    public static final String ALL_FULL = "all:full";
+
+    private record RunKey(String scope, long dataVersion, long resultVersion) {}
+
+    private final AtomicLong dataVersion = new AtomicLong();
+    private final AtomicLong resultVersion = new AtomicLong();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    @Value("${detect.run.max-cached-runs:32}")
+    private int maxCachedRuns;
+
+    // 접근 순서 LinkedHashMap → 가장 오래 안 쓴 완료 결과부터 제거 (this 로 동기화)
+    private final LinkedHashMap<RunKey, CompletableFuture<Object>> runs = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** 선택 주소 집합의 범위 키 (순서/중복 무관) */
+    public static String selectedScope(Collection<String> addresses) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String address : new TreeSet<>(addresses)) {
+                digest.update(address.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return "selected:" + HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // writer 스레드에서 호출되므로 버전만 올림
+    @EventListener
+    public void onTransactionsPersisted(TransactionsPersistedEvent event) {
+        dataVersion.incrementAndGet();
+    }
+
+    // 결과를 쓰는 스레드에서 호출 (쓰기 트랜잭션 안)
+    @EventListener
+    public void onPatternResultsWritten(PatternResultsWrittenEvent event) {
+        resultVersion.incrementAndGet();
+    }
+
+    /** 결과 재사용 없이 task 를 다른 탐지 실행과 겹치지 않게 실행 (배치 작업의 배치 하나, 스트리밍 한 번) */
+    public <T> T exclusive(Supplier<T> task) {
+        writeLock.lock();
+        try {
+            return task.get();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * scope 의 현재 버전 결과를 반환 (실행 중이면 기다려서 공유, 끝난 결과가 있으면 재사용, 없으면 task 실행)
+     * task 의 예외는 붙어 있던 요청 모두에게 그대로 전달
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T run(String scope, Supplier<T> task) {
+        RunKey key = new RunKey(scope, dataVersion.get(), resultVersion.get());
+        CompletableFuture<Object> future;
+        boolean owner = false;
+        synchronized (this) {
+            runs.entrySet().removeIf(e -> isStale(e.getKey(), key) && e.getValue().isDone());
+            future = runs.get(key);
+            if (future == null) future = inFlight(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                runs.put(key, future);
+                owner = true;
+                evictCompleted();
+            }
+        }
+
+        if (owner) {
+            writeLock.lock();
+            try {
+                T result = task.get();
+                // 락을 잡은 동안 바뀐 결과 버전은 이 실행이 쓴 것 → 새 데이터가 없었다면 다음 요청도 재사용
+                RunKey after = new RunKey(scope, dataVersion.get(), resultVersion.get());
+                synchronized (this) {
+                    if (after.dataVersion() == key.dataVersion() && !after.equals(key)) {
+                        runs.remove(key, future);
+                        runs.put(after, future);
+                    }
+                }
+                future.complete(result);
+                return result;
+            } catch (RuntimeException | Error e) {
+                synchronized (this) {
+                    runs.remove(key, future);
+                }
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        System.out.printf("[DETECT] Reusing %s run for %s (data version %d, result version %d)%n",
+                future.isDone() ? "finished" : "in-flight", scope, key.dataVersion(), key.resultVersion());
+        try {
+            return (T) future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    // 같은 범위, 같은 데이터로 실행 중인 run → 그 실행이 쓰는 중인 결과 버전과 무관하게 붙음
+    private CompletableFuture<Object> inFlight(RunKey key) {
+        for (Map.Entry<RunKey, CompletableFuture<Object>> e : runs.entrySet()) {
+            RunKey k = e.getKey();
+            if (!e.getValue().isDone() && k.scope().equals(key.scope()) && k.dataVersion() == key.dataVersion()) {
+                return e.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isStale(RunKey key, RunKey current) {
+        return key.dataVersion() < current.dataVersion() || key.resultVersion() < current.resultVersion();
+    }
+
+    private void evictCompleted() {
+        Iterator<CompletableFuture<Object>> it = runs.values().iterator();
+        int excess = runs.size() - Math.max(1, maxCachedRuns);
+        while (excess > 0 && it.hasNext()) {
+            if (it.next().isDone()) {
+                it.remove();
+                excess--;
+            }
+        }
+    }
+}
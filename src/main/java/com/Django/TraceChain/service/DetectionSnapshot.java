@@ -0,0 +1,221 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.analytics.EventSeries;
+import com.Django.TraceChain.dto.TxTransferRow;
+import com.Django.TraceChain.dto.WalletTxRow;
+import com.Django.TraceChain.model.Amounts;
+import com.Django.TraceChain.model.Transaction;
+import com.Django.TraceChain.model.Transfer;
+import com.Django.TraceChain.model.Wallet;
+
+import java.time.ZoneOffset;
+import java.util.*;
+
+/*
+ * 탐지 입력 스냅샷 (불변)
+ * - 엔티티는 스냅샷을 만드는 스레드에서만 읽고, 탐지기는 이 값 객체만 사용 → 병렬 계산에 안전
+ * - 트랜잭션은 txid 기준으로 한 번만 만들어 지갑 간 공유, 지갑별 목록은 시간순 정렬된 사본
+ *   (엔티티 컬렉션을 제자리 정렬하지 않음)
+ * - of(): 엔티티에서, fromRows(): projection 행에서 생성 (DetectionSnapshotLoader, 엔티티 로딩 없음)
+ * - 여러 탐지기가 쓰는 파생 색인(송신자별 이벤트 열, 주소별 최초 등장 시각)은 처음 요청될 때 한 번만 만들어 공유
+ */
+public final class DetectionSnapshot {
+
+    public static final class TransferSnapshot {
+        private final String sender;
+        private final String receiver;
+        private final long amountUnits;   // Amounts 내부 단위
+
+        TransferSnapshot(String sender, String receiver, long amountUnits) {
+            this.sender = sender;
+            this.receiver = receiver;
+            this.amountUnits = amountUnits;
+        }
+
+        public String getSender() { return sender; }
+        public String getReceiver() { return receiver; }
+        public long getAmountUnits() { return amountUnits; }
+    }
+
+    public static final class TxSnapshot {
+        private final String txID;
+        private final long timestamp;     // epoch 초 (UTC)
+        private final List<TransferSnapshot> transfers;
+
+        TxSnapshot(String txID, long timestamp, List<TransferSnapshot> transfers) {
+            this.txID = txID;
+            this.timestamp = timestamp;
+            this.transfers = transfers;
+        }
+
+        public String getTxID() { return txID; }
+        public long getTimestamp() { return timestamp; }
+        public List<TransferSnapshot> getTransfers() { return transfers; }
+    }
+
+    public static final class WalletSnapshot {
+        private final String address;
+        private final int type;
+        private final List<TxSnapshot> transactions; // 시간순
+
+        WalletSnapshot(String address, int type, List<TxSnapshot> transactions) {
+            this.address = address;
+            this.type = type;
+            this.transactions = transactions;
+        }
+
+        public String getAddress() { return address; }
+        public int getType() { return type; }
+        public List<TxSnapshot> getTransactions() { return transactions; }
+    }
+
+    private static final Comparator<TxSnapshot> BY_TIME =
+            Comparator.comparingLong(TxSnapshot::getTimestamp).thenComparing(TxSnapshot::getTxID);
+
+    private final int chainType;
+    private final List<WalletSnapshot> wallets;
+    private final List<TxSnapshot> transactions;   // 중복 없는 전체, 시간순
+    private final Set<String> addresses;
+    private final int sourceRows;                  // 만드는 데 읽은 행 수 (측정용, of() 는 transfer 수)
+
+    private Map<String, EventSeries> outgoing;     // 지연 생성 (synchronized)
+    private Map<String, Long> firstSeen;
+
+    private DetectionSnapshot(int chainType, List<WalletSnapshot> wallets, List<TxSnapshot> transactions, int sourceRows) {
+        this.chainType = chainType;
+        this.wallets = wallets;
+        this.transactions = transactions;
+        this.sourceRows = sourceRows;
+        Set<String> addrs = new LinkedHashSet<>();
+        for (WalletSnapshot w : wallets) addrs.add(w.getAddress());
+        this.addresses = Collections.unmodifiableSet(addrs);
+    }
+
+    /** 엔티티 → 스냅샷 (영속성 컨텍스트가 열린 스레드에서 호출) */
+    public static DetectionSnapshot of(int chainType, Collection<Wallet> source) {
+        Map<String, TxSnapshot> byId = new HashMap<>();
+        List<WalletSnapshot> wallets = new ArrayList<>(source.size());
+
+        for (Wallet w : source) {
+            List<Transaction> txs = w.getTransactions();
+            List<TxSnapshot> list = new ArrayList<>(txs == null ? 0 : txs.size());
+            if (txs != null) {
+                Set<String> seen = new HashSet<>();
+                for (Transaction tx : txs) {
+                    if (!seen.add(tx.getTxID())) continue;
+                    list.add(byId.computeIfAbsent(tx.getTxID(), id -> toSnapshot(tx)));
+                }
+            }
+            list.sort(BY_TIME);
+            wallets.add(new WalletSnapshot(w.getAddress(), w.getType(), Collections.unmodifiableList(list)));
+        }
+
+        List<TxSnapshot> all = new ArrayList<>(byId.values());
+        all.sort(BY_TIME);
+        int rows = 0;
+        for (TxSnapshot tx : all) rows += tx.getTransfers().size();
+        return new DetectionSnapshot(chainType, Collections.unmodifiableList(wallets),
+                Collections.unmodifiableList(all), rows);
+    }
+
+    /**
+     * projection 행 → 스냅샷
+     * @param addresses     판정 대상 지갑 (트랜잭션이 없는 지갑 포함)
+     * @param txRows        지갑별 (지갑, 트랜잭션) 쌍
+     * @param transferRows  그 트랜잭션들의 transfer (tx 마다 한 번, 같은 tx 안에서는 저장 순서)
+     */
+    public static DetectionSnapshot fromRows(int chainType, Collection<String> addresses,
+                                             List<WalletTxRow> txRows, List<TxTransferRow> transferRows) {
+        Map<String, PendingTx> byId = new HashMap<>();
+        Map<String, Set<String>> walletTxs = new LinkedHashMap<>();
+        for (String a : addresses) walletTxs.put(a, new LinkedHashSet<>());
+
+        for (WalletTxRow r : txRows) {
+            Set<String> txs = walletTxs.get(r.getWalletAddress());
+            if (txs == null) continue;
+            txs.add(r.getTxID());
+            byId.computeIfAbsent(r.getTxID(), id -> new PendingTx(r));
+        }
+        for (TxTransferRow r : transferRows) {
+            PendingTx tx = byId.get(r.getTxID());
+            if (tx == null) continue;
+            tx.transfers.add(new TransferSnapshot(r.getSender(), r.getReceiver(),
+                    r.getAmount() == null ? 0L : Amounts.toUnits(r.getAmount())));
+        }
+
+        Map<String, TxSnapshot> built = new HashMap<>(byId.size() * 2);
+        byId.forEach((id, tx) -> built.put(id, new TxSnapshot(id, tx.timestamp, Collections.unmodifiableList(tx.transfers))));
+
+        List<WalletSnapshot> wallets = new ArrayList<>(walletTxs.size());
+        walletTxs.forEach((address, ids) -> {
+            List<TxSnapshot> list = new ArrayList<>(ids.size());
+            for (String id : ids) list.add(built.get(id));
+            list.sort(BY_TIME);
+            wallets.add(new WalletSnapshot(address, chainType, Collections.unmodifiableList(list)));
+        });
+
+        List<TxSnapshot> all = new ArrayList<>(built.values());
+        all.sort(BY_TIME);
+        return new DetectionSnapshot(chainType, Collections.unmodifiableList(wallets),
+                Collections.unmodifiableList(all), txRows.size() + transferRows.size());
+    }
+
+    private static final class PendingTx {
+        final long timestamp;
+        final List<TransferSnapshot> transfers = new ArrayList<>();
+        PendingTx(WalletTxRow r) {
+            this.timestamp = r.getTimestamp() == null ? 0L : r.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+        }
+    }
+
+    private static TxSnapshot toSnapshot(Transaction tx) {
+        List<TransferSnapshot> transfers = new ArrayList<>(tx.getTransfers().size());
+        for (Transfer t : tx.getTransfers()) {
+            transfers.add(new TransferSnapshot(t.getSender(), t.getReceiver(), t.getAmountUnits()));
+        }
+        long ts = tx.getTimestamp() == null ? 0L : tx.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+        return new TxSnapshot(tx.getTxID(), ts, Collections.unmodifiableList(transfers));
+    }
+
+    public int getChainType() { return chainType; }
+    public List<WalletSnapshot> getWallets() { return wallets; }
+    public List<TxSnapshot> getTransactions() { return transactions; }
+    public Set<String> getAddresses() { return addresses; }
+    public boolean isEmpty() { return wallets.isEmpty(); }
+    public int getSourceRows() { return sourceRows; }
+
+    /** 송신자 → 보낸 transfer 의 시간순 이벤트 열 (상대 = 수신자), 전체 트랜잭션 기준 */
+    public synchronized Map<String, EventSeries> outgoing() {
+        if (outgoing == null) {
+            // transactions 가 이미 시간순이라 빌더는 정렬하지 않음
+            Map<String, EventSeries.Builder> builders = new HashMap<>();
+            for (TxSnapshot tx : transactions) {
+                for (TransferSnapshot t : tx.getTransfers()) {
+                    if (t.getSender() == null || t.getReceiver() == null) continue;
+                    builders.computeIfAbsent(t.getSender(), k -> new EventSeries.Builder())
+                            .add(tx.getTimestamp(), t.getAmountUnits(), t.getReceiver());
+                }
+            }
+            Map<String, EventSeries> built = new HashMap<>(builders.size() * 2);
+            builders.forEach((address, b) -> built.put(address, b.build()));
+            outgoing = Collections.unmodifiableMap(built);
+        }
+        return outgoing;
+    }
+
+    /** 주소 → 송신/수신으로 처음 등장한 시각 (전체 트랜잭션 기준) */
+    public synchronized Map<String, Long> firstSeen() {
+        if (firstSeen == null) {
+            Map<String, Long> seen = new HashMap<>();
+            for (TxSnapshot tx : transactions) {
+                for (TransferSnapshot t : tx.getTransfers()) {
+                    // 시간순이라 처음 넣은 값이 최솟값
+                    if (t.getSender() != null) seen.putIfAbsent(t.getSender(), tx.getTimestamp());
+                    if (t.getReceiver() != null) seen.putIfAbsent(t.getReceiver(), tx.getTimestamp());
+                }
+            }
+            firstSeen = Collections.unmodifiableMap(seen);
+        }
+        return firstSeen;
+    }
+}
@@ -0,0 +1,75 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.dto.TxTransferRow;
+import com.Django.TraceChain.dto.WalletTxRow;
+import com.Django.TraceChain.repository.TransactionRepository;
+import com.Django.TraceChain.repository.WalletRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/*
+ * 주소 목록 → 체인 스냅샷 (Wallet/Transaction/Transfer 엔티티를 만들지 않고 constructor projection 만 사용)
+ * - 1) 지갑별 (지갑, txID) 쌍 → 2) 그 txID 들의 transfer
+ *   한 번에 join 하면 tx 의 transfer 가 그 tx 에 속한 선택 지갑 수만큼 반복되므로 나눠서 읽음
+ *   (지갑 k 개가 공유하는 transfer t 개짜리 tx → k·t 행이 아니라 k + t 행)
+ * - 읽는 transfer 범위는 실행할 탐지기들의 requiredFeatures 합집합으로 정함
+ *   ALL_TRANSFERS: 중복 없는 txID 의 모든 transfer, SENDER_TRANSFERS 만: 대상 지갑이 보낸 transfer 만
+ *   (두 체인의 전체 탐지는 상대 주소를 보는 탐지기가 있어 ALL, 좁은 조회는 FixedAmount 만 sweep 할 때 등)
+ * - IN 목록은 detect.update-chunk-size 씩 나눠 조회
+ */
+@Service
+public class DetectionSnapshotLoader {
+
+    private final WalletRepository walletRepository;
+    private final TransactionRepository transactionRepository;
+
+    @Value("${detect.update-chunk-size:1000}")
+    private int chunkSize;
+
+    public DetectionSnapshotLoader(WalletRepository walletRepository, TransactionRepository transactionRepository) {
+        this.walletRepository = walletRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    /** chainType 을 지원하는 탐지기들이 읽는 데이터 */
+    public static Set<DetectionFeature> requiredFeatures(Collection<? extends MixingDetector> detectors, int chainType) {
+        Set<DetectionFeature> features = EnumSet.noneOf(DetectionFeature.class);
+        for (MixingDetector d : detectors) {
+            if (d.supports(chainType)) features.addAll(d.requiredFeatures());
+        }
+        return features;
+    }
+
+    public DetectionSnapshot load(int chainType, List<String> addresses, Set<DetectionFeature> features) {
+        boolean allTransfers = features.contains(DetectionFeature.ALL_TRANSFERS);
+        List<WalletTxRow> txRows = new ArrayList<>();
+        List<TxTransferRow> transferRows = new ArrayList<>();
+        for (List<String> chunk : chunks(addresses)) {
+            List<WalletTxRow> rows = walletRepository.findDetectionTxRows(chunk);
+            txRows.addAll(rows);
+            if (!allTransfers) {
+                // sender 가 이 청크의 지갑인 transfer 만 → 청크가 달라도 transfer 마다 한 번
+                for (List<String> ids : chunks(rows.stream().map(WalletTxRow::getTxID).distinct().toList())) {
+                    transferRows.addAll(transactionRepository.findDetectionSenderTransferRows(ids, chunk));
+                }
+            }
+        }
+
+        if (allTransfers) {
+            for (List<String> ids : chunks(txRows.stream().map(WalletTxRow::getTxID).distinct().toList())) {
+                transferRows.addAll(transactionRepository.findDetectionTransferRows(ids));
+            }
+        }
+        return DetectionSnapshot.fromRows(chainType, addresses, txRows, transferRows);
+    }
+
+    private List<List<String>> chunks(List<String> values) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += chunkSize) {
+            chunks.add(values.subList(from, Math.min(values.size(), from + chunkSize)));
+        }
+        return chunks;
+    }
+}
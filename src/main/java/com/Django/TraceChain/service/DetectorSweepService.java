@@ -0,0 +1,166 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.component.DetectorProperties;
+import com.Django.TraceChain.dto.SweepResultDto;
+import com.Django.TraceChain.dto.WalletVersionRow;
+import com.Django.TraceChain.model.PatternType;
+import com.Django.TraceChain.repository.WalletRepository;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * 탐지 파라미터 sweep
+ * - 격자(파라미터 경로 → 값 목록)의 모든 조합을 운영 설정 사본에 덮어써서 설정 목록 생성
+ *   (경로는 DetectorProperties 속성 경로, 예: fixedAmount.maxEntropy, relayer.threshold)
+ * - 체인 스냅샷은 한 번만 만들고, 탐지기마다 featureKey 가 같은 설정끼리 prepare 결과를 공유
+ *   → 임계값만 바꾸는 설정은 evaluate 비용만 추가됨
+ * - patterns 로 sweep 할 탐지기를 고르면 그 탐지기들의 requiredFeatures 만 읽음
+ *   (예: FixedAmount 만 → 지갑이 보낸 transfer 만 조회)
+ * - DB 에는 쓰지 않음 (설정별 탐지 수만 반환)
+ */
+@Service
+public class DetectorSweepService {
+
+    private final List<MixingDetector> detectors;
+    private final WalletRepository walletRepository;
+    private final DetectorProperties properties;
+    private final DetectionSnapshotLoader snapshotLoader;
+
+    @Value("${detect.sweep.max-settings:1000}")
+    private int maxSettings;
+
+    public DetectorSweepService(List<MixingDetector> detectors,
+                                WalletRepository walletRepository,
+                                DetectorProperties properties,
+                                DetectionSnapshotLoader snapshotLoader) {
+        this.detectors = detectors;
+        this.walletRepository = walletRepository;
+        this.properties = properties;
+        this.snapshotLoader = snapshotLoader;
+    }
+
+    /**
+     * @param patterns sweep 할 패턴 이름 (PatternType label), 비어 있으면 체인의 모든 탐지기
+     *                 알 수 없는 이름이면 IllegalArgumentException
+     */
+    @Transactional(readOnly = true)
+    public List<SweepResultDto> sweep(int chainType, Map<String, List<Object>> grid, Collection<String> patterns) {
+        List<MixingDetector> selected = select(chainType, patterns);
+        List<Map<String, Object>> combos = combinations(grid);
+        List<DetectorProperties> settings = new ArrayList<>(combos.size());
+        for (Map<String, Object> combo : combos) {
+            settings.add(apply(combo));
+        }
+
+        long t0 = System.nanoTime();
+        List<String> wallets = walletRepository.findVersionRowsByType(chainType).stream()
+                .map(WalletVersionRow::getAddress).toList();
+        DetectionSnapshot snapshot = snapshotLoader.load(chainType, wallets,
+                DetectionSnapshotLoader.requiredFeatures(selected, chainType));
+
+        long t1 = System.nanoTime();
+        List<Map<PatternType, Set<String>>> flags = new ArrayList<>(settings.size());
+        for (int i = 0; i < settings.size(); i++) flags.add(new ConcurrentHashMap<>());
+        int prepared = 0;
+        for (MixingDetector detector : selected) {
+            if (detector instanceof TunableDetector<?> tunable) {
+                prepared += sweepDetector(tunable, snapshot, settings, flags);
+            } else {
+                // sweep 을 지원하지 않는 탐지기는 운영 설정 결과를 모든 설정에 공통으로
+                Set<String> flagged = detector.detect(snapshot).getFlagged();
+                prepared++;
+                for (Map<PatternType, Set<String>> f : flags) f.put(detector.pattern(), flagged);
+            }
+        }
+        long t2 = System.nanoTime();
+
+        List<SweepResultDto> results = new ArrayList<>(settings.size());
+        for (int i = 0; i < settings.size(); i++) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            Set<String> any = new HashSet<>();
+            for (PatternType p : PatternType.values()) {
+                Set<String> flagged = flags.get(i).get(p);
+                if (flagged == null) continue;
+                counts.put(p.getLabel(), flagged.size());
+                any.addAll(flagged);
+            }
+            results.add(new SweepResultDto(combos.get(i), counts, any.size()));
+        }
+
+        System.out.printf("[SWEEP] %d wallets, %d rows, %d settings, %d feature passes: snapshot %d ms, evaluate %d ms%n",
+                wallets.size(), snapshot.getSourceRows(), settings.size(), prepared, (t1 - t0) / 1_000_000, (t2 - t1) / 1_000_000);
+        return results;
+    }
+
+    private List<MixingDetector> select(int chainType, Collection<String> patterns) {
+        Set<String> wanted = (patterns == null) ? Set.of() : new HashSet<>(patterns);
+        Set<String> known = new HashSet<>();
+        for (PatternType p : PatternType.values()) known.add(p.getLabel());
+        for (String name : wanted) {
+            if (!known.contains(name)) throw new IllegalArgumentException("Unknown pattern: " + name);
+        }
+        return detectors.stream()
+                .filter(d -> d.supports(chainType))
+                .filter(d -> wanted.isEmpty() || wanted.contains(d.pattern().getLabel()))
+                .toList();
+    }
+
+    // featureKey 로 설정을 묶어 묶음마다 prepare 한 번, 설정마다 evaluate (묶음/설정 모두 병렬)
+    private <F> int sweepDetector(TunableDetector<F> detector, DetectionSnapshot snapshot,
+                                  List<DetectorProperties> settings, List<Map<PatternType, Set<String>>> flags) {
+        Map<Object, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < settings.size(); i++) {
+            groups.computeIfAbsent(detector.featureKey(settings.get(i)), k -> new ArrayList<>()).add(i);
+        }
+        groups.values().parallelStream().forEach(indices -> {
+            F features = detector.prepare(snapshot, settings.get(indices.get(0)));
+            indices.parallelStream().forEach(i -> flags.get(i).put(detector.pattern(),
+                    detector.evaluate(snapshot, features, settings.get(i)).getFlagged()));
+        });
+        return groups.size();
+    }
+
+    // 격자의 모든 조합 (값이 없는 경로는 건너뜀, 빈 격자면 운영 설정 하나)
+    private List<Map<String, Object>> combinations(Map<String, List<Object>> grid) {
+        List<Map<String, Object>> combos = new ArrayList<>();
+        combos.add(new LinkedHashMap<>());
+        if (grid == null) return combos;
+
+        for (Map.Entry<String, List<Object>> e : grid.entrySet()) {
+            if (e.getValue() == null || e.getValue().isEmpty()) continue;
+            List<Map<String, Object>> next = new ArrayList<>(combos.size() * e.getValue().size());
+            for (Map<String, Object> combo : combos) {
+                for (Object value : e.getValue()) {
+                    Map<String, Object> c = new LinkedHashMap<>(combo);
+                    c.put(e.getKey(), value);
+                    next.add(c);
+                }
+            }
+            if (next.size() > maxSettings) {
+                throw new IllegalArgumentException("Sweep grid exceeds " + maxSettings + " settings");
+            }
+            combos = next;
+        }
+        return combos;
+    }
+
+    private DetectorProperties apply(Map<String, Object> overrides) {
+        DetectorProperties copy = properties.copy();
+        BeanWrapper wrapper = new BeanWrapperImpl(copy);
+        for (Map.Entry<String, Object> e : overrides.entrySet()) {
+            try {
+                wrapper.setPropertyValue(e.getKey(), e.getValue());
+            } catch (BeansException ex) {
+                throw new IllegalArgumentException("Invalid detector parameter: " + e.getKey(), ex);
+            }
+        }
+        return copy;
+    }
+}
@@ -1,5 +1,7 @@
 package com.Django.TraceChain.service;
 
+import com.Django.TraceChain.model.AddressSyncState;
+import com.Django.TraceChain.model.Amounts;
 import com.Django.TraceChain.model.Transaction;
 import com.Django.TraceChain.model.Transfer;
 import com.Django.TraceChain.model.Wallet;
@@ -11,23 +13,24 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.math.RoundingMode;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service("ethereumClient")
 public class EthereumClient implements ChainClient {
 
+    // txlist 한 번에 돌려주는 최대 건수 (page/offset 없이 호출할 때)
+    private static final int TXLIST_MAX_RESULTS = 10000;
+
     @Value("${etherscan.api-key}")
     private String apiKey;
 
@@ -36,12 +39,20 @@ public class EthereumClient implements ChainClient {
 
     private final WalletRepository walletRepository;
     private final TransactionRepository transactionRepository;
+    private final WriteBehindQueue writeBehind;
+    private final FrontierTracer frontierTracer;
+    private final SyncStateService syncState;
     private final RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public EthereumClient(WalletRepository walletRepository, TransactionRepository transactionRepository) {
+    public EthereumClient(WalletRepository walletRepository, TransactionRepository transactionRepository,
+                          WriteBehindQueue writeBehind, FrontierTracer frontierTracer,
+                          SyncStateService syncState) {
         this.walletRepository = walletRepository;
         this.transactionRepository = transactionRepository;
+        this.writeBehind = writeBehind;
+        this.frontierTracer = frontierTracer;
+        this.syncState = syncState;
     }
 
     @Override
@@ -49,13 +60,22 @@ public class EthereumClient implements ChainClient {
         return "ethereum".equalsIgnoreCase(chainType);
     }
 
-    private Wallet safeFindOrCreateWallet(String address) {
+    // depthMap 응답용 지갑 사본 (관리 엔티티를 변경하지 않음)
+    private Wallet walletView(String address) {
         try {
             return walletRepository.findById(address)
-                    .orElseGet(() -> walletRepository.save(new Wallet(address, 2, BigDecimal.ZERO)));
+                    .map(Wallet::detachedCopy)
+                    .orElseGet(() -> new Wallet(address, 2, BigDecimal.ZERO));
         } catch (Exception e) {
-            System.out.println("safeFindOrCreateWallet error: " + e.getMessage());
-            return null;
+            System.out.println("walletView error: " + e.getMessage());
+            return new Wallet(address, 2, BigDecimal.ZERO);
+        }
+    }
+
+    // 조회한 트랜잭션의 지갑 연결 저장 (write-behind, 지갑 행이 없으면 같이 생성됨)
+    private void linkAll(String address, Collection<Transaction> transactions) {
+        for (Transaction tx : transactions) {
+            writeBehind.enqueueLink(address, 2, tx.getTxID());
         }
     }
 
@@ -67,6 +87,8 @@ public class EthereumClient implements ChainClient {
             System.out.println("존재하는 지갑: " + address);
             return optionalWallet.get();
         }
+        Wallet pending = writeBehind.pendingWallet(address);
+        if (pending != null) return pending;
 
         try {
             String url = apiUrl + "?module=account&action=balance&address=" + address + "&tag=latest&apikey=" + apiKey;
@@ -74,17 +96,11 @@ public class EthereumClient implements ChainClient {
             JsonNode root = objectMapper.readTree(response.getBody());
             String result = root.path("result").asText();
 
-            BigDecimal balance = new BigDecimal(result).divide(BigDecimal.TEN.pow(18), 18, RoundingMode.DOWN);
+            BigDecimal balance = convertToEth(result);
 
-            Wallet wallet = safeFindOrCreateWallet(address);
-            if (wallet == null) {
-                System.out.println("Wallet 생성 실패");
-                return null;
-            }
-
-            wallet.setBalance(balance);
+            Wallet wallet = new Wallet(address, 2, balance);
             wallet.setNewlyFetched(true);
-            walletRepository.save(wallet);
+            writeBehind.enqueueWallet(address, 2, balance);
             return wallet;
 
         } catch (Exception e) {
@@ -94,20 +110,28 @@ public class EthereumClient implements ChainClient {
     }
 
     private BigDecimal convertToEth(String valueStr) {
+        return Amounts.fromWei(valueStr);
+    }
+
+    // 행 하나의 value 가 깨졌으면 그 트랜잭션만 건너뜀 (null), 페이지 전체는 계속 처리
+    private BigDecimal txValue(JsonNode txNode) {
         try {
-            BigDecimal value = new BigDecimal(valueStr);
-            return value.divide(BigDecimal.TEN.pow(18), 18, RoundingMode.DOWN);
-        } catch (Exception e) {
-            return BigDecimal.ZERO;
+            return convertToEth(txNode.path("value").asText());
+        } catch (NumberFormatException e) {
+            System.out.printf("[WARN] Skipping Ethereum tx %s: malformed value '%s'%n",
+                    txNode.path("hash").asText(), txNode.path("value").asText());
+            return null;
         }
     }
 
     /**
-     * JsonNode 에서 트랜잭션 객체와 transfer 생성 및 연관관계 세팅
+     * JsonNode 에서 트랜잭션 객체와 transfer 생성 (지갑 연결은 write-behind 링크로 저장)
+     * value 형식 오류면 null
      */
-    private Transaction createTransactionFromJsonNode(JsonNode txNode, Wallet wallet) {
+    private Transaction createTransactionFromJsonNode(JsonNode txNode) {
         String txHash = txNode.path("hash").asText();
-        BigDecimal value = convertToEth(txNode.path("value").asText());
+        BigDecimal value = txValue(txNode);
+        if (value == null) return null;
         long timestamp = txNode.path("timeStamp").asLong();
         LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochSecond(timestamp), ZoneOffset.UTC);
 
@@ -120,10 +144,6 @@ public class EthereumClient implements ChainClient {
                 value
         );
         tx.addTransfer(transfer);
-
-        tx.getWallets().add(wallet);
-        wallet.addTransaction(tx);
-
         return tx;
     }
 
@@ -136,13 +156,16 @@ public class EthereumClient implements ChainClient {
     @Transactional
     public List<Transaction> getTransactions(String address, int limit) {
     	int pageSize = limit > 0 ? limit : 10; // limit이 0 이하일 경우 기본값 10
-        List<Transaction> cached = transactionRepository.findByWalletAddress(address, PageRequest.of(0, pageSize)).getContent();
-        if (!cached.isEmpty()) {
-            return cached;
+        // sync-state 가 최신 pageSize 개를 덮으면 DB만으로 응답
+        AddressSyncState state = syncState.find(SyncStateService.ETHEREUM, address);
+        if (syncState.coversLatest(state, pageSize)) {
+            return transactionRepository.findByWalletAddress(address, PageRequest.of(0, pageSize)).getContent();
         }
 
         // DB에 충분한 데이터가 없으면 API 호출
         Map<String, Transaction> txMap = new LinkedHashMap<>();
+        LocalDateTime fetchedAt = LocalDateTime.now(ZoneOffset.UTC);
+        int skipped = 0;
         try {
             // API 호출 부분 기존과 동일
             StringBuilder urlBuilder = new StringBuilder(apiUrl)
@@ -162,18 +185,44 @@ public class EthereumClient implements ChainClient {
             JsonNode result = objectMapper.readTree(response.getBody()).path("result");
             if (!result.isArray()) return Collections.emptyList();
 
-            Wallet wallet = safeFindOrCreateWallet(address);
-
             for (JsonNode txNode : result) {
                 String txHash = txNode.path("hash").asText();
                 if (txMap.containsKey(txHash)) continue;
 
-                Transaction tx = createTransactionFromJsonNode(txNode, wallet);
+                Transaction tx = createTransactionFromJsonNode(txNode);
+                if (tx == null) {
+                    skipped++;
+                    continue;
+                }
+                writeBehind.enqueueTransaction(tx); // 이미 저장된 txID 는 writer 가 건너뜀
                 txMap.put(txHash, tx);
             }
 
-            transactionRepository.saveAll(txMap.values());
-            walletRepository.save(wallet);
+            linkAll(address, txMap.values());
+
+            // 받은 범위 기록 (잘렸는지는 중복 제거 전 응답 행 수로 판단: offset/상한에 걸리면 행 수 = cap)
+            // - 다 받았으면 전체 이력 [0, now]
+            // - desc 로 잘렸으면 가장 오래된 시각의 일부만 받았을 수 있으므로 [oldest + 1, now]
+            // - asc(limit <= 0) 로 잘렸으면 과거부터 받은 것이라 [0, newest - 1], head 와 무관
+            // 건너뛴 트랜잭션이 있으면 범위를 기록하지 않음 → 다음 요청이 다시 받아 봄
+            if (skipped > 0) {
+                System.out.printf("[WARN] %d Ethereum txs of %s skipped, sync range not recorded%n", skipped, address);
+                return new ArrayList<>(txMap.values());
+            }
+            int cap = limit > 0 ? limit : TXLIST_MAX_RESULTS;
+            boolean truncated = result.size() >= cap;
+            LongSummaryStatistics times = txMap.values().stream()
+                    .mapToLong(tx -> SyncStateService.epochSecond(tx.getTimestamp()))
+                    .summaryStatistics();
+            if (!truncated) {
+                syncState.record(SyncStateService.ETHEREUM, address, state, 0L,
+                        SyncStateService.epochSecond(fetchedAt), null, txMap.size(), fetchedAt);
+            } else if (limit > 0) {
+                syncState.record(SyncStateService.ETHEREUM, address, state, times.getMin() + 1,
+                        SyncStateService.epochSecond(fetchedAt), null, txMap.size(), fetchedAt);
+            } else if (times.getMax() > 0) {
+                syncState.record(SyncStateService.ETHEREUM, address, state, 0L, times.getMax() - 1, null, 0, fetchedAt);
+            }
 
         } catch (Exception e) {
             System.out.println("Ethereum getTransactions error: " + e.getMessage());
@@ -184,93 +233,38 @@ public class EthereumClient implements ChainClient {
 
 
     @Override
-    @Transactional
     public void traceAllTransactionsRecursive(String address, int depth, int maxDepth, Set<String> visited) {
-        if (depth > maxDepth || visited.contains(address)) return;
-        visited.add(address);
-
-        Wallet wallet = safeFindOrCreateWallet(address);
-        if (wallet == null) return;
-
-        List<Transaction> transactions = getTransactions(address, 500);
-        if (transactions.isEmpty()) return;
-
-        Set<String> existingTxIDs = wallet.getTransactions().stream()
-                .map(Transaction::getTxID).collect(Collectors.toSet());
-
-        for (Transaction tx : transactions) {
-            if (!existingTxIDs.contains(tx.getTxID())) {
-                wallet.addTransaction(tx);
-            }
-            if (!tx.getWallets().contains(wallet)) {
-                tx.getWallets().add(wallet);
-            }
-            tx.getTransfers().forEach(t -> t.setTransaction(tx));
-        }
-
-        transactionRepository.saveAll(transactions);
-        walletRepository.save(wallet);
-
-        Set<String> nextAddresses = new HashSet<>();
-        for (Transaction tx : transactions) {
-            for (Transfer transfer : tx.getTransfers()) {
-                if (transfer.getSender() != null && !visited.contains(transfer.getSender()))
-                    nextAddresses.add(transfer.getSender());
-                if (transfer.getReceiver() != null && !visited.contains(transfer.getReceiver()))
-                    nextAddresses.add(transfer.getReceiver());
-            }
-        }
-
-        for (String next : nextAddresses) {
-            traceAllTransactionsRecursive(next, depth + 1, maxDepth, visited);
-        }
+        // 저장은 getTransactions 에서 write-behind 로 처리, 추적은 메모리 결과로 계속
+        frontierTracer.trace(address, depth, maxDepth, visited,
+                (addr, d) -> counterparties(getTransactions(addr, 500)));
     }
 
     @Override
-    @Transactional
     public void traceLimitedTransactionsRecursive(String address, int depth, int maxDepth,
                                                   Map<Integer, List<Wallet>> depthMap,
                                                   Set<String> visited) {
-        if (depth > maxDepth || visited.contains(address)) return;
-        visited.add(address);
-
-        Wallet wallet = safeFindOrCreateWallet(address);
-        if (wallet == null) return;
-
-        List<Transaction> transactions = getTransactions(address, 10);
-        if (transactions.isEmpty()) return;
-
-        Set<String> existingTxIDs = wallet.getTransactions().stream()
-                .map(Transaction::getTxID).collect(Collectors.toSet());
-
-        for (Transaction tx : transactions) {
-            if (!existingTxIDs.contains(tx.getTxID())) {
-                wallet.addTransaction(tx);
-            }
-            if (!tx.getWallets().contains(wallet)) {
-                tx.getWallets().add(wallet);
-            }
-            tx.getTransfers().forEach(t -> t.setTransaction(tx));
-        }
-
-        transactionRepository.saveAll(transactions);
-        walletRepository.save(wallet);
-
-        depthMap.computeIfAbsent(depth, d -> new ArrayList<>()).add(wallet);
+        frontierTracer.trace(address, depth, maxDepth, visited, (addr, d) -> {
+            List<Transaction> transactions = getTransactions(addr, 10);
+            if (transactions.isEmpty()) return Collections.emptyList();
+
+            Set<String> next = counterparties(transactions);
+            Wallet view = walletView(addr);
+            view.getTransactions().addAll(transactions);
+            depthMap.computeIfAbsent(d, k -> new ArrayList<>()).add(view);
+            return next;
+        });
+    }
 
+    // 다음 깊이 후보 (transfers 를 단위 트랜잭션 안에서 읽어 두므로 clear 이후에도 응답 변환 가능)
+    private Set<String> counterparties(Collection<Transaction> transactions) {
         Set<String> nextAddresses = new HashSet<>();
         for (Transaction tx : transactions) {
             for (Transfer transfer : tx.getTransfers()) {
-                if (transfer.getSender() != null && !visited.contains(transfer.getSender()))
-                    nextAddresses.add(transfer.getSender());
-                if (transfer.getReceiver() != null && !visited.contains(transfer.getReceiver()))
-                    nextAddresses.add(transfer.getReceiver());
+                if (transfer.getSender() != null) nextAddresses.add(transfer.getSender());
+                if (transfer.getReceiver() != null) nextAddresses.add(transfer.getReceiver());
             }
         }
-
-        for (String next : nextAddresses) {
-            traceLimitedTransactionsRecursive(next, depth + 1, maxDepth, depthMap, visited);
-        }
+        return nextAddresses;
     }
 
     private long getBlockNumberByTimestamp(long timestamp) {
@@ -294,10 +288,27 @@ public class EthereumClient implements ChainClient {
     @Override
     @Transactional
     public List<Transaction> getTransactionsByTimeRange(String address, long startTimestamp, long endTimestamp, int limit) {
+        // sync-state 가 구간 전체를 덮으면 DB만으로 응답, 일부만 비면 그 구간만 API
+        AddressSyncState state = syncState.find(SyncStateService.ETHEREUM, address);
+        long[] missing = syncState.missingRange(state, startTimestamp, endTimestamp);
+        if (missing == null) {
+            return syncState.loadRange(address, startTimestamp, endTimestamp, Sort.Direction.ASC, limit);
+        }
+        boolean partial = missing[0] != startTimestamp || missing[1] != endTimestamp;
+
         Map<String, Transaction> txMap = new LinkedHashMap<>();
+        if (partial) {
+            for (Transaction tx : syncState.loadRange(address, startTimestamp, endTimestamp, Sort.Direction.ASC, limit)) {
+                txMap.put(tx.getTxID(), tx);
+            }
+        }
+
+        LocalDateTime fetchedAt = LocalDateTime.now(ZoneOffset.UTC);
+        long lastTimestamp = missing[0];
+        int skipped = 0;
         try {
-            long startBlock = getBlockNumberByTimestamp(startTimestamp);
-            long endBlock = getBlockNumberByTimestamp(endTimestamp);
+            long startBlock = getBlockNumberByTimestamp(missing[0]);
+            long endBlock = getBlockNumberByTimestamp(missing[1]);
 
             String url = apiUrl
                     + "?module=account"
@@ -315,29 +326,21 @@ public class EthereumClient implements ChainClient {
 
             if (!result.isArray()) return Collections.emptyList();
 
-            Wallet wallet = safeFindOrCreateWallet(address);
-
             for (JsonNode txNode : result) {
+                // 블록 경계라 구간 밖 행도 offset 을 차지 → 잘림 판정용 마지막 시각은 필터 전에 기록
+                long timestamp = txNode.path("timeStamp").asLong();
+                lastTimestamp = Math.max(lastTimestamp, timestamp);
+
                 String txHash = txNode.path("hash").asText();
                 if (txMap.containsKey(txHash)) continue;
+                if (timestamp < missing[0] || timestamp > missing[1]) continue;
 
-                BigDecimal value;
-                String valueStr = txNode.path("value").asText();
-                try {
-                    if (valueStr.startsWith("0x")) {
-                        value = new BigDecimal(new BigInteger(valueStr.substring(2), 16))
-                                .divide(BigDecimal.TEN.pow(18), 18, RoundingMode.DOWN);
-                    } else {
-                        value = new BigDecimal(valueStr).divide(BigDecimal.TEN.pow(18), 18, RoundingMode.DOWN);
-                    }
-                } catch (Exception ex) {
-                    System.out.println("value 변환 오류: " + valueStr);
-                    value = BigDecimal.ZERO;
+                BigDecimal value = txValue(txNode);
+                if (value == null) {
+                    skipped++;
+                    continue;
                 }
 
-                long timestamp = txNode.path("timeStamp").asLong();
-                if (timestamp < startTimestamp || timestamp > endTimestamp) continue;
-
                 LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochSecond(timestamp), ZoneOffset.UTC);
 
                 Transaction tx = transactionRepository.findById(txHash).orElse(null);
@@ -349,71 +352,49 @@ public class EthereumClient implements ChainClient {
                     Transfer t = new Transfer(tx, from, to, value);
                     tx.addTransfer(t);
 
-                    tx.getWallets().add(wallet);
-                    wallet.addTransaction(tx);
-
-                    transactionRepository.save(tx);
+                    writeBehind.enqueueTransaction(tx);
                 }
 
                 txMap.put(txHash, tx);
+                writeBehind.enqueueLink(address, 2, txHash);
             }
 
-            walletRepository.save(wallet);
+            // 오름차순이므로 응답이 offset(limit) 에 걸렸으면 마지막 시각 직전까지만 덮은 것으로 기록
+            if (skipped > 0) {
+                System.out.printf("[WARN] %d Ethereum txs of %s skipped, sync range not recorded%n", skipped, address);
+            } else if (endBlock > 0) {
+                long from = missing[0];
+                long to = result.size() < limit
+                        ? Math.min(missing[1], SyncStateService.epochSecond(fetchedAt))
+                        : Math.min(missing[1], lastTimestamp - 1);
+                if (from <= to) {
+                    syncState.record(SyncStateService.ETHEREUM, address, state, from, to, null, 0, fetchedAt);
+                }
+            }
 
         } catch (Exception e) {
             System.out.println("Ethereum getTransactionsByTimeRange error: " + e.getMessage());
             throw new RuntimeException("Ethereum getTransactionsByTimeRange failed", e);
         }
 
-        return new ArrayList<>(txMap.values());
+        List<Transaction> result = new ArrayList<>(txMap.values());
+        if (partial) {
+            result.sort(Comparator.comparing(Transaction::getTimestamp));
+            if (result.size() > limit) result = new ArrayList<>(result.subList(0, limit));
+        }
+        return result;
     }
 
-    @Transactional
     public void traceTransactionsByTimeRange(String address, int depth, int maxDepth,
                                              long start, long end, int limit, Set<String> visited) {
-        if (depth > maxDepth || visited.contains(address)) return;
-        visited.add(address);
-
-        List<Transaction> txList = getTransactionsByTimeRange(address, start, end, limit);
-
-        List<Transaction> filtered = txList.stream()
-                .filter(tx -> {
-                    long ts = tx.getTimestamp().toEpochSecond(ZoneOffset.UTC);
-                    return ts >= start && ts <= end;
-                })
-                .toList();
-
-        if (filtered.isEmpty()) return;
-
-        Wallet wallet = safeFindOrCreateWallet(address);
-        Set<String> existingTxIDs = wallet.getTransactions().stream()
-                .map(Transaction::getTxID).collect(Collectors.toSet());
-
-        for (Transaction tx : filtered) {
-            if (!existingTxIDs.contains(tx.getTxID())) {
-                wallet.addTransaction(tx);
-            }
-            if (!tx.getWallets().contains(wallet)) {
-                tx.getWallets().add(wallet);
-            }
-            tx.getTransfers().forEach(t -> t.setTransaction(tx));
-        }
-
-        transactionRepository.saveAll(filtered);
-        walletRepository.save(wallet);
-
-        Set<String> nextAddresses = new HashSet<>();
-        for (Transaction tx : filtered) {
-            for (Transfer tr : tx.getTransfers()) {
-                if (tr.getSender() != null && !visited.contains(tr.getSender()))
-                    nextAddresses.add(tr.getSender());
-                if (tr.getReceiver() != null && !visited.contains(tr.getReceiver()))
-                    nextAddresses.add(tr.getReceiver());
-            }
-        }
-
-        for (String next : nextAddresses) {
-            traceTransactionsByTimeRange(next, depth + 1, maxDepth, start, end, limit, visited);
-        }
+        frontierTracer.trace(address, depth, maxDepth, visited, (addr, d) -> {
+            List<Transaction> filtered = getTransactionsByTimeRange(addr, start, end, limit).stream()
+                    .filter(tx -> {
+                        long ts = tx.getTimestamp().toEpochSecond(ZoneOffset.UTC);
+                        return ts >= start && ts <= end;
+                    })
+                    .toList();
+            return counterparties(filtered);
+        });
     }
 }
@@ -1,105 +1,179 @@
 package com.Django.TraceChain.service;
 
-import com.Django.TraceChain.model.Transaction;
-import com.Django.TraceChain.model.Transfer;
-import com.Django.TraceChain.model.Wallet;
-import com.Django.TraceChain.repository.WalletRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.Django.TraceChain.analytics.WindowHistogram;
+import com.Django.TraceChain.component.DetectorProperties;
+import com.Django.TraceChain.model.Amounts;
+import com.Django.TraceChain.model.PatternType;
+import com.Django.TraceChain.service.DetectionSnapshot.TransferSnapshot;
+import com.Django.TraceChain.service.DetectionSnapshot.TxSnapshot;
+import com.Django.TraceChain.service.DetectionSnapshot.WalletSnapshot;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.time.Duration;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * 정액 반복 탐지 (파라미터: detect.fixed-amount.*)
+ * - 창 = 각 트랜잭션 i 에서 시작해 windowSec 안에 드는 [i, r)
+ * - 창 안 송신 금액을 정액 bin 으로 센 히스토그램의 최빈 개수(fmax) >= minRepeat 이고
+ *   정규화 엔트로피 <= maxEntropy 인 창이 하나라도 있으면 탐지
+ * prepare 는 지갑마다 "fmax 가 k 이상인 창들의 최소 엔트로피" 표를 만들어 두므로
+ * minRepeat / maxEntropy 판정은 지갑당 O(1)
+ */
 @Service
-public class FixedAmountDetector implements MixingDetector {
-
-    @Autowired
-    private WalletRepository walletRepository;
-
-    // 파라미터
-    private static final int WINDOW_SEC = 300;   // 5분
-    private static final double EPS = 0.02;      // ±2%
-    private static final int K = 3;              // 최소 반복
-    private static final double TAU_H = 0.45;    // 정규화 엔트로피 임계
-
-    // 정액 후보 (예시)
-    private static final List<BigDecimal> DENOMS = List.of(
-            new BigDecimal("0.1"),
-            new BigDecimal("1"),
-            new BigDecimal("10")
-    );
-
-    private double entropyNorm(Map<BigDecimal, Integer> hist) {
-        int total = hist.values().stream().mapToInt(i -> i).sum();
-        if (total == 0) return 1.0;
-        int m = (int) hist.values().stream().filter(v -> v > 0).count();
-        if (m <= 1) return 0.0;
-
-        double H = 0.0;
-        for (int c : hist.values()) {
-            if (c <= 0) continue;
-            double p = (double) c / total;
-            H += -p * Math.log(p);
-        }
-        return H / Math.log(m);
+public class FixedAmountDetector implements TunableDetector<Map<String, double[]>> {
+
+    private final DetectorProperties properties;
+
+    public FixedAmountDetector(DetectorProperties properties) {
+        this.properties = properties;
     }
 
-    @Transactional
     @Override
-    public void analyze(List<Wallet> wallets) {
-        for (Wallet wallet : wallets) {
-            String addr = wallet.getAddress();
-            List<Transaction> txs = wallet.getTransactions();
-            if (txs == null || txs.isEmpty()) {
-                wallet.setFixedAmountPattern(false);
-                walletRepository.save(wallet);
-                continue;
-            }
+    public PatternType pattern() {
+        return PatternType.FIXED_AMOUNT;
+    }
 
-            txs.sort(Comparator.comparing(Transaction::getTimestamp));
-            boolean detected = false;
-
-            for (int i = 0; i < txs.size(); i++) {
-                Map<BigDecimal, Integer> hist = new HashMap<>();
-                var start = txs.get(i).getTimestamp();
-
-                for (int j = i; j < txs.size(); j++) {
-                    var tx = txs.get(j);
-                    if (Duration.between(start, tx.getTimestamp()).getSeconds() > WINDOW_SEC) break;
-
-                    for (Transfer t : tx.getTransfers()) {
-                        // 이 지갑이 "보낸" 출력 기준으로 카운트 (원하면 수신도 포함 가능)
-                        if (!addr.equals(t.getSender())) continue;
-
-                        BigDecimal v = t.getAmount();
-                        for (BigDecimal d : DENOMS) {
-                            BigDecimal lo = d.multiply(BigDecimal.valueOf(1 - EPS));
-                            BigDecimal hi = d.multiply(BigDecimal.valueOf(1 + EPS));
-                            if (v.compareTo(lo) >= 0 && v.compareTo(hi) <= 0) {
-                                hist.merge(d, 1, Integer::sum);
-                            }
-                        }
-                    }
-                }
+    @Override
+    public boolean supports(int chainType) {
+        return true;
+    }
 
-                if (hist.isEmpty()) continue;
+    // 자기 트랜잭션의 시각과 자기가 보낸 금액만 사용
+    @Override
+    public Set<DetectionFeature> requiredFeatures() {
+        return EnumSet.of(DetectionFeature.SENDER_TRANSFERS);
+    }
 
-                int fmax = hist.values().stream().mapToInt(x -> x).max().orElse(0);
-                double Hn = entropyNorm(hist);
+    @Override
+    public PatternResult detect(DetectionSnapshot snapshot) {
+        return evaluate(snapshot, prepare(snapshot, properties), properties);
+    }
 
-                if (fmax >= K && Hn <= TAU_H) {
-                    detected = true;
-                    break;
+    @Override
+    public Object featureKey(DetectorProperties props) {
+        DetectorProperties.FixedAmount p = props.getFixedAmount();
+        return List.of(p.getWindowSec(), p.getEps(), p.getDenominations());
+    }
+
+    // 지갑 주소 → minEntropyAtLeast[k] (fmax >= k 인 창의 최소 정규화 엔트로피, 인덱스 0 은 미사용)
+    @Override
+    public Map<String, double[]> prepare(DetectionSnapshot snapshot, DetectorProperties props) {
+        Denominations denoms = new Denominations(props.getFixedAmount());
+        long windowSec = props.getFixedAmount().getWindowSec();
+
+        // 스레드별 재사용 히스토그램 (bin = 정액 인덱스)
+        ThreadLocal<WindowHistogram> histograms = ThreadLocal.withInitial(() -> new WindowHistogram(denoms.size()));
+        Map<String, double[]> features = new ConcurrentHashMap<>();
+        snapshot.getWallets().parallelStream().forEach(w -> {
+            double[] table = windowTable(w, denoms, windowSec, histograms.get());
+            if (table != null) features.put(w.getAddress(), table);
+        });
+        return features;
+    }
+
+    @Override
+    public PatternResult evaluate(DetectionSnapshot snapshot, Map<String, double[]> features, DetectorProperties props) {
+        int k = Math.max(1, props.getFixedAmount().getMinRepeat());
+        double tau = props.getFixedAmount().getMaxEntropy();
+
+        Set<String> flagged = new HashSet<>();
+        features.forEach((address, table) -> {
+            if (k < table.length && table[k] <= tau) flagged.add(address);
+        });
+        return new PatternResult(pattern(), snapshot.getAddresses(), flagged);
+    }
+
+    // ±eps 경계를 내부 단위(long)로 미리 계산. 정액이 오름차순이면 lo/hi 도 오름차순
+    // → 한 금액이 걸리는 정액은 연속 구간이라 이분 탐색으로 시작점을 찾음 (정액 개수와 무관하게 O(log D))
+    private static final class Denominations {
+        final long[] lo;
+        final long[] hi;
+
+        Denominations(DetectorProperties.FixedAmount p) {
+            double[] denoms = p.getDenominations().stream().filter(d -> d != null && d > 0)
+                    .mapToDouble(Double::doubleValue).sorted().distinct().toArray();
+            lo = new long[denoms.length];
+            hi = new long[denoms.length];
+            for (int d = 0; d < denoms.length; d++) {
+                lo[d] = Amounts.toUnits(denoms[d] * (1 - p.getEps()));
+                hi[d] = Amounts.toUnits(denoms[d] * (1 + p.getEps()));
+            }
+        }
+
+        int size() { return lo.length; }
+
+        // hi[d] >= v 인 첫 인덱스
+        int firstWithHiAtLeast(long v) {
+            int l = 0, h = hi.length;
+            while (l < h) {
+                int mid = (l + h) >>> 1;
+                if (hi[mid] < v) l = mid + 1;
+                else h = mid;
+            }
+            return l;
+        }
+    }
+
+    /*
+     * 송신 transfer 를 먼저 정액 bin 으로 한 번만 분류한 뒤, i/r 두 포인터만 전진시키며
+     * 들어오는 tx 의 bin 은 add, 나가는 tx 의 bin 은 remove → 지갑당 선형
+     * 정액에 걸리는 송신이 없으면 null
+     */
+    private double[] windowTable(WalletSnapshot wallet, Denominations denoms, long windowSec, WindowHistogram hist) {
+        String addr = wallet.getAddress();
+        List<TxSnapshot> txs = wallet.getTransactions(); // 시간순
+        if (txs.isEmpty() || denoms.size() == 0) return null;
+
+        // tx 별 bin 목록 (CSR: binStart[i] ~ binStart[i+1])
+        int n = txs.size();
+        int[] binStart = new int[n + 1];
+        int[] bins = new int[Math.max(4, n)];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            binStart[i] = size;
+            for (TransferSnapshot t : txs.get(i).getTransfers()) {
+                // 이 지갑이 "보낸" 출력 기준으로 카운트 (원하면 수신도 포함 가능)
+                if (!addr.equals(t.getSender())) continue;
+                long v = t.getAmountUnits();
+                for (int d = denoms.firstWithHiAtLeast(v); d < denoms.size() && denoms.lo[d] <= v; d++) {
+                    if (size == bins.length) bins = Arrays.copyOf(bins, size << 1);
+                    bins[size++] = d;
                 }
             }
+        }
+        binStart[n] = size;
+        if (size == 0) return null;
+
+        // best[f] = fmax 가 정확히 f 인 창의 최소 엔트로피 → 뒤에서부터 누적 최소
+        double[] best = new double[size + 1];
+        Arrays.fill(best, Double.POSITIVE_INFINITY);
+        int maxF = 0;
+
+        hist.clear();
+        try {
+            int r = 0;
+            for (int i = 0; i < n; i++) {
+                long start = txs.get(i).getTimestamp();
+                while (r < n && txs.get(r).getTimestamp() - start <= windowSec) {
+                    for (int k = binStart[r]; k < binStart[r + 1]; k++) hist.add(bins[k]);
+                    r++;
+                }
+
+                if (hist.total() > 0) {
+                    int f = hist.maxCount();
+                    best[f] = Math.min(best[f], hist.normalizedEntropy());
+                    if (f > maxF) maxF = f;
+                }
 
-            if (detected && !Boolean.TRUE.equals(wallet.getFixedAmountPattern())) {
-                wallet.setPatternCnt(wallet.getPatternCnt() + 1);
+                for (int k = binStart[i]; k < binStart[i + 1]; k++) hist.remove(bins[k]);
             }
-            wallet.setFixedAmountPattern(detected);
-            walletRepository.save(wallet);
+        } finally {
+            hist.clear();
         }
+
+        double[] table = Arrays.copyOf(best, maxF + 1);
+        for (int f = maxF - 1; f >= 1; f--) table[f] = Math.min(table[f], table[f + 1]);
+        return table;
     }
 }
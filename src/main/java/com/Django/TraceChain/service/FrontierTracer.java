@@ -0,0 +1,64 @@
+package com.Django.TraceChain.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/*
+ * 깊이별(frontier) BFS 추적 공통 루프
+ * - 추적 전체를 하나의 @Transactional 로 묶지 않고, frontier 를 unitSize 주소씩 나눠 짧은 트랜잭션으로 처리
+ * - 각 단위가 끝나면 EntityManager 를 clear → 영속성 컨텍스트 크기는 단위 크기에 비례 (추적 전체 크기와 무관)
+ * - 단위 사이에는 주소 문자열만 넘김 (엔티티는 들고 다니지 않음)
+ */
+@Component
+public class FrontierTracer {
+
+    /** 한 주소를 처리하고 다음 깊이로 이어갈 주소들을 반환 */
+    @FunctionalInterface
+    public interface Expander {
+        Collection<String> expand(String address, int depth);
+    }
+
+    private final TransactionTemplate unitOfWork;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${trace.unit-size:50}")
+    private int unitSize;
+
+    public FrontierTracer(PlatformTransactionManager transactionManager) {
+        this.unitOfWork = new TransactionTemplate(transactionManager);
+        this.unitOfWork.setReadOnly(true); // 쓰기는 write-behind 큐가 담당
+    }
+
+    public void trace(String root, int depth, int maxDepth, Set<String> visited, Expander expander) {
+        if (depth > maxDepth || visited.contains(root)) return;
+
+        List<String> frontier = List.of(root);
+        for (int d = depth; d <= maxDepth && !frontier.isEmpty(); d++) {
+            visited.addAll(frontier);
+
+            Set<String> next = new LinkedHashSet<>();
+            for (int from = 0; from < frontier.size(); from += unitSize) {
+                List<String> unit = frontier.subList(from, Math.min(frontier.size(), from + unitSize));
+                int level = d;
+                unitOfWork.executeWithoutResult(status -> {
+                    for (String address : unit) {
+                        next.addAll(expander.expand(address, level));
+                    }
+                });
+                entityManager.clear();
+            }
+
+            next.removeAll(visited);
+            next.remove(null);
+            frontier = new ArrayList<>(next);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.dto.*;
+import com.Django.TraceChain.repository.WalletRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Consumer;
+
+/*
+ * /api/graph 전용 조회 경로
+ * - 엔티티 대신 constructor projection(WalletRow, TransferRow)만 사용
+ * - address 기준 keyset 페이지 단위로 읽고, 페이지를 DTO로 내보낸 뒤 버림 → 요청당 메모리 = 페이지 크기
+ */
+@Service
+public class GraphService {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final WalletRepository walletRepository;
+
+    public GraphService(WalletRepository walletRepository) {
+        this.walletRepository = walletRepository;
+    }
+
+    /**
+     * 필터에 맞는 지갑을 after 이후부터 순서대로 sink에 전달
+     * @param chain        "bitcoin" / "ethereum" / null(전체)
+     * @param patterns     PatternUtils 이름 목록 (하나라도 true인 지갑만), 비어있으면 필터 없음
+     * @param updatedSince null 이면 필터 없음
+     * @param after        keyset 커서 (이전 응답의 마지막 address), null 이면 처음부터
+     * @param limit        최대 지갑 수, 0 이하면 끝까지
+     */
+    public void streamGraph(String chain, Collection<String> patterns, LocalDateTime updatedSince,
+                            String after, int pageSize, int limit, Consumer<WalletDto> sink) {
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        Integer type = toChainType(chain);
+        Set<String> p = (patterns == null) ? Set.of() : new HashSet<>(patterns);
+        String cursor = (after == null) ? "" : after;
+        int emitted = 0;
+
+        while (limit <= 0 || emitted < limit) {
+            int fetch = (limit <= 0) ? size : Math.min(size, limit - emitted);
+            List<WalletRow> page = walletRepository.findGraphPage(cursor, type, updatedSince,
+                    !p.isEmpty(),
+                    p.contains("FixedAmount"), p.contains("MultiIO"), p.contains("Looping"),
+                    p.contains("Relayer"), p.contains("PeelChain"),
+                    PageRequest.of(0, fetch));
+            if (page.isEmpty()) break;
+
+            Map<String, List<TransactionDto>> txByWallet = loadTransactions(page);
+            for (WalletRow row : page) {
+                List<String> flags = PatternUtils.extractPatterns(row.getFixedAmountPattern(),
+                        row.getMultiIOPattern(), row.getLoopingPattern(),
+                        row.getRelayerPattern(), row.getPeelChainPattern());
+                sink.accept(new WalletDto(row.getAddress(), row.getBalance(),
+                        txByWallet.getOrDefault(row.getAddress(), List.of()), flags));
+            }
+
+            emitted += page.size();
+            cursor = page.get(page.size() - 1).getAddress();
+            if (page.size() < fetch) break;
+        }
+    }
+
+    // 정렬된(address, timestamp, txID) 평탄화 행을 지갑별 TransactionDto 목록으로 묶음
+    private Map<String, List<TransactionDto>> loadTransactions(List<WalletRow> page) {
+        List<String> addresses = page.stream().map(WalletRow::getAddress).toList();
+        Map<String, List<TransactionDto>> result = new HashMap<>();
+
+        String curWallet = null, curTx = null;
+        TransferRow head = null;
+        List<TransferDto> transfers = null;
+        for (TransferRow r : walletRepository.findGraphTransfers(addresses)) {
+            if (!r.getWalletAddress().equals(curWallet) || !r.getTxID().equals(curTx)) {
+                if (head != null) addTransaction(result, head, transfers);
+                curWallet = r.getWalletAddress();
+                curTx = r.getTxID();
+                head = r;
+                transfers = new ArrayList<>();
+            }
+            if (r.getSender() != null) {
+                transfers.add(new TransferDto(r.getSender(), r.getReceiver(), r.getAmount()));
+            }
+        }
+        if (head != null) addTransaction(result, head, transfers);
+        return result;
+    }
+
+    private void addTransaction(Map<String, List<TransactionDto>> result, TransferRow head, List<TransferDto> transfers) {
+        result.computeIfAbsent(head.getWalletAddress(), k -> new ArrayList<>())
+                .add(new TransactionDto(head.getTxID(), head.getTxAmount(), head.getTimestamp(), transfers));
+    }
+
+    // "bitcoin" → 1, "ethereum" → 2, 빈 값 → null(전체)
+    public static Integer toChainType(String chain) {
+        if (chain == null || chain.isEmpty()) return null;
+        if ("bitcoin".equalsIgnoreCase(chain)) return 1;
+        if ("ethereum".equalsIgnoreCase(chain)) return 2;
+        throw new IllegalArgumentException("Unsupported chain type: " + chain);
+    }
+}
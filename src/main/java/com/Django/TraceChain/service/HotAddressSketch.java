@@ -0,0 +1,77 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.dto.HotAddressDto;
+
+import java.util.*;
+
+/*
+ * Space-Saving top-K 스케치 (고정 capacity 개의 카운터)
+ * - 추적 중인 주소면 +1, 아니면 카운터가 남았을 때 새로 추가, 가득 찼으면 최솟값 카운터를 넘겨받음
+ *   (count = min + 1, error = min) → 실제 빈도가 capacity 분의 1 이상인 주소는 반드시 남음
+ * - decay() 로 주기적으로 절반씩 줄여 최근 부하 위주로 유지
+ * - 추적 중인 주소는 O(1), 교체는 최솟값 카운터를 capacity 개 선형 탐색 (전체를 한 락으로 보호)
+ *   SearchLogRecorder.flush 스레드에서만 offer 하므로 요청 경로는 이 비용과 락을 기다리지 않음
+ */
+class HotAddressSketch {
+
+    private static final class Counter {
+        final String chain;
+        final String address;
+        long count;
+        long error;
+        Counter(String chain, String address, long count, long error) {
+            this.chain = chain; this.address = address; this.count = count; this.error = error;
+        }
+    }
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+
+    HotAddressSketch(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.counters = new HashMap<>(this.capacity * 2);
+    }
+
+    synchronized void offer(String chain, String address) {
+        String key = chain + ":" + address;
+        Counter c = counters.get(key);
+        if (c != null) {
+            c.count++;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new Counter(chain, address, 1, 0));
+            return;
+        }
+        // 최솟값 카운터 교체 (O(capacity), flush 한 번에 batch 크기만큼 반복될 수 있음)
+        String minKey = null;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<String, Counter> e : counters.entrySet()) {
+            if (e.getValue().count < min) {
+                min = e.getValue().count;
+                minKey = e.getKey();
+            }
+        }
+        counters.remove(minKey);
+        counters.put(key, new Counter(chain, address, min + 1, min));
+    }
+
+    synchronized void decay() {
+        counters.values().removeIf(c -> {
+            c.count >>= 1;
+            c.error >>= 1;
+            return c.count == 0;
+        });
+    }
+
+    synchronized List<HotAddressDto> top(int k) {
+        List<Counter> sorted = new ArrayList<>(counters.values());
+        sorted.sort((a, b) -> Long.compare(b.count, a.count));
+        List<HotAddressDto> result = new ArrayList<>(Math.min(k, sorted.size()));
+        for (Counter c : sorted) {
+            if (result.size() >= k) break;
+            result.add(new HotAddressDto(c.chain, c.address, c.count, c.error));
+        }
+        return result;
+    }
+}
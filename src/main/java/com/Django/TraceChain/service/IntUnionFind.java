@@ -0,0 +1,53 @@
+package com.Django.TraceChain.service;
+
+import java.util.Arrays;
+
+/*
+ * int 원소 union-find (AddressClusterService 에서 사용)
+ * - 경로 절반 압축(path halving) + 크기 기준 합치기 → 연산당 거의 상수
+ * - 원소 수를 모르고 스트리밍으로 받을 수 있게 add() 로 늘어남
+ */
+public final class IntUnionFind {
+
+    private int[] parent;
+    private int[] size;
+    private int n;
+
+    public IntUnionFind(int capacity) {
+        parent = new int[Math.max(16, capacity)];
+        size = new int[parent.length];
+    }
+
+    /** 새 원소 (자기 자신이 루트), 번호 반환 */
+    public int add() {
+        if (n == parent.length) {
+            parent = Arrays.copyOf(parent, n << 1);
+            size = Arrays.copyOf(size, n << 1);
+        }
+        parent[n] = n;
+        size[n] = 1;
+        return n++;
+    }
+
+    public int count() { return n; }
+
+    public int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    /** 합쳐졌으면 true (이미 같은 집합이면 false) */
+    public boolean union(int a, int b) {
+        int ra = find(a), rb = find(b);
+        if (ra == rb) return false;
+        if (size[ra] < size[rb]) { int t = ra; ra = rb; rb = t; }
+        parent[rb] = ra;
+        size[ra] += size[rb];
+        return true;
+    }
+
+    public int sizeOf(int x) { return size[find(x)]; }
+}
@@ -1,9 +1,37 @@
 package com.Django.TraceChain.service;
 
-import java.util.List;
+import com.Django.TraceChain.model.PatternType;
 
-import com.Django.TraceChain.model.Wallet;
+import java.util.EnumSet;
+import java.util.Set;
 
+/*
+ * 탐지기 SPI
+ * - detect 는 스냅샷만 읽는 순수 계산 (엔티티/DB 접근 없음, 여러 스레드에서 동시에 호출될 수 있음)
+ * - 결과 반영은 DetectService 가 한 번에 처리
+ */
 public interface MixingDetector {
-	void analyze(List<Wallet> wallets);
+
+	PatternType pattern();
+
+	/** 1 = Bitcoin, 2 = Ethereum */
+	boolean supports(int chainType);
+
+	PatternResult detect(DetectionSnapshot snapshot);
+
+	/**
+	 * 한 지갑의 트랜잭션이 바뀌었을 때 판정이 달라질 수 있는 지갑까지의 거리 (트랜잭션 공유 hop 수)
+	 * 0 = 지갑 자신의 이력만 보는 탐지기. 증분 탐지가 다시 판정할 범위를 정할 때 사용
+	 */
+	default int neighborhoodHops() {
+		return 0;
+	}
+
+	/**
+	 * detect 가 읽는 스냅샷 데이터. DetectionSnapshotLoader 는 실행할 탐지기들의 합집합만 조회
+	 * (SENDER_TRANSFERS 만 필요한 탐지기끼리 실행할 때 상대 지갑의 transfer 를 읽지 않음)
+	 */
+	default Set<DetectionFeature> requiredFeatures() {
+		return EnumSet.of(DetectionFeature.ALL_TRANSFERS);
+	}
 }
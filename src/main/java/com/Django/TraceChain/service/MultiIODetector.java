@@ -1,76 +1,108 @@
 package com.Django.TraceChain.service;
 
-import com.Django.TraceChain.model.Transaction;
-import com.Django.TraceChain.model.Transfer;
-import com.Django.TraceChain.model.Wallet;
-import com.Django.TraceChain.repository.WalletRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.Django.TraceChain.analytics.Stats;
+import com.Django.TraceChain.component.DetectorProperties;
+import com.Django.TraceChain.model.PatternType;
+import com.Django.TraceChain.service.DetectionSnapshot.TransferSnapshot;
+import com.Django.TraceChain.service.DetectionSnapshot.TxSnapshot;
+import com.Django.TraceChain.service.DetectionSnapshot.WalletSnapshot;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/*
+ * 다중 입/출력 + 출력 금액 균질성 (파라미터: detect.multi-io.*)
+ * prepare 는 트랜잭션마다 (입력 주소 수, 출력 주소 수, 출력 금액 CV) 만 뽑아 두고 evaluate 에서 임계 비교
+ */
 @Service
-public class MultiIODetector implements MixingDetector {
+public class MultiIODetector implements TunableDetector<Map<String, MultiIODetector.TxShapes>> {
 
-    @Autowired
-    private WalletRepository walletRepository;
+    private final DetectorProperties properties;
 
-    private double cv(List<BigDecimal> vals) {
-        if (vals == null || vals.size() <= 1) return 0.0;
-        double mean = vals.stream().mapToDouble(v -> v.doubleValue()).average().orElse(0.0);
-        if (mean == 0.0) return 1.0;
-        double var = 0.0;
-        for (BigDecimal v : vals) {
-            double d = v.doubleValue() - mean;
-            var += d * d;
+    // 지갑의 트랜잭션별 모양 (병렬 배열)
+    static final class TxShapes {
+        final int[] inputs;
+        final int[] outputs;
+        final double[] outputCv;
+        TxShapes(int[] inputs, int[] outputs, double[] outputCv) {
+            this.inputs = inputs; this.outputs = outputs; this.outputCv = outputCv;
         }
-        var /= (vals.size() - 1);
-        return Math.sqrt(var) / mean;
     }
 
-    @Transactional
+    public MultiIODetector(DetectorProperties properties) {
+        this.properties = properties;
+    }
+
     @Override
-    public void analyze(List<Wallet> wallets) {
-        for (Wallet wallet : wallets) {
-            boolean detected = false;
+    public PatternType pattern() {
+        return PatternType.MULTI_IO;
+    }
 
-            List<Transaction> txs = wallet.getTransactions();
-            if (txs == null || txs.isEmpty()) {
-                wallet.setMultiIOPattern(false);
-                walletRepository.save(wallet);
-                continue;
-            }
+    @Override
+    public boolean supports(int chainType) {
+        return true;
+    }
 
-            for (Transaction tx : txs) {
-                Set<String> ins = new HashSet<>();
-                Set<String> outs = new HashSet<>();
-                List<BigDecimal> outAmounts = new ArrayList<>();
+    @Override
+    public PatternResult detect(DetectionSnapshot snapshot) {
+        return evaluate(snapshot, prepare(snapshot, properties), properties);
+    }
 
-                for (Transfer t : tx.getTransfers()) {
-                    if (t.getSender() != null) ins.add(t.getSender());
-                    if (t.getReceiver() != null) {
-                        outs.add(t.getReceiver());
-                        outAmounts.add(t.getAmount());
-                    }
-                }
+    // 특징 추출에 쓰는 파라미터 없음
+    @Override
+    public Object featureKey(DetectorProperties props) {
+        return List.of();
+    }
 
-                // 다중 입/출력 + 출력 금액 균질성
-                if (ins.size() >= 3 && outs.size() >= 3) {
-                    double cvOut = cv(outAmounts);
-                    if (cvOut <= 0.30) { // 임계값 예시
-                        detected = true;
-                        break;
-                    }
+    // 지갑별 추출은 서로 독립 → 병렬
+    @Override
+    public Map<String, TxShapes> prepare(DetectionSnapshot snapshot, DetectorProperties props) {
+        Map<String, TxShapes> features = new ConcurrentHashMap<>();
+        snapshot.getWallets().parallelStream().forEach(w -> features.put(w.getAddress(), shapes(w)));
+        return features;
+    }
+
+    @Override
+    public PatternResult evaluate(DetectionSnapshot snapshot, Map<String, TxShapes> features, DetectorProperties props) {
+        DetectorProperties.MultiIo p = props.getMultiIo();
+        Set<String> flagged = new HashSet<>();
+        features.forEach((address, s) -> {
+            for (int i = 0; i < s.inputs.length; i++) {
+                if (s.inputs[i] >= p.getMinInputs() && s.outputs[i] >= p.getMinOutputs()
+                        && s.outputCv[i] <= p.getMaxOutputCv()) {
+                    flagged.add(address);
+                    break;
                 }
             }
+        });
+        return new PatternResult(pattern(), snapshot.getAddresses(), flagged);
+    }
+
+    private TxShapes shapes(WalletSnapshot wallet) {
+        List<TxSnapshot> txs = wallet.getTransactions();
+        int[] inputs = new int[txs.size()];
+        int[] outputs = new int[txs.size()];
+        double[] outputCv = new double[txs.size()];
 
-            if (detected && !Boolean.TRUE.equals(wallet.getMultiIOPattern())) {
-                wallet.setPatternCnt(wallet.getPatternCnt() + 1);
+        for (int i = 0; i < txs.size(); i++) {
+            TxSnapshot tx = txs.get(i);
+            Set<String> ins = new HashSet<>();
+            Set<String> outs = new HashSet<>();
+            long[] outAmounts = new long[tx.getTransfers().size()];
+            int nOut = 0;
+
+            for (TransferSnapshot t : tx.getTransfers()) {
+                if (t.getSender() != null) ins.add(t.getSender());
+                if (t.getReceiver() != null) {
+                    outs.add(t.getReceiver());
+                    outAmounts[nOut++] = t.getAmountUnits();
+                }
             }
-            wallet.setMultiIOPattern(detected);
-            walletRepository.save(wallet);
+            inputs[i] = ins.size();
+            outputs[i] = outs.size();
+            outputCv[i] = Stats.cv(outAmounts, nOut);
         }
+        return new TxShapes(inputs, outputs, outputCv);
     }
 }
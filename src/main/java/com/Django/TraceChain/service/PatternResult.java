@@ -0,0 +1,45 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.model.PatternType;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * 탐지기 한 번의 계산 결과 (불변)
+ * - evaluated: 이번에 판정한 주소 (플래그를 덮어쓸 대상), flagged: 그중 탐지된 주소
+ * - scores: 점수형 탐지기의 주소별 최고 점수 (없으면 빈 맵)
+ * - score(): 판정한 주소의 연속 점수 (점수가 없으면 탐지 여부로 1/0)
+ */
+public final class PatternResult {
+
+    private final PatternType pattern;
+    private final Set<String> evaluated;
+    private final Set<String> flagged;
+    private final Map<String, Double> scores;
+
+    public PatternResult(PatternType pattern, Set<String> evaluated, Set<String> flagged, Map<String, Double> scores) {
+        this.pattern = pattern;
+        this.evaluated = Collections.unmodifiableSet(evaluated);
+        this.flagged = Collections.unmodifiableSet(flagged);
+        this.scores = Collections.unmodifiableMap(scores);
+    }
+
+    public PatternResult(PatternType pattern, Set<String> evaluated, Set<String> flagged) {
+        this(pattern, evaluated, flagged, Map.of());
+    }
+
+    public PatternType getPattern() { return pattern; }
+    public Set<String> getEvaluated() { return evaluated; }
+    public Set<String> getFlagged() { return flagged; }
+    public Map<String, Double> getScores() { return scores; }
+
+    public boolean isFlagged(String address) { return flagged.contains(address); }
+
+    public double score(String address) {
+        Double s = scores.get(address);
+        if (s != null) return s;
+        return flagged.contains(address) ? 1.0 : 0.0;
+    }
+}
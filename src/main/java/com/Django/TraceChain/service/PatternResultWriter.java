@@ -0,0 +1,165 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.component.DetectorProperties;
+import com.Django.TraceChain.model.PatternType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+ * 탐지 결과 일괄 반영
+ * - 패턴 컬럼마다 true / false 로 나눠 bulk UPDATE (IN 목록은 chunkSize 씩), 값이 바뀌는 행만 갱신
+ * - 패턴 점수: 0 / 1 은 플래그와 같은 bulk UPDATE, 그 밖의 연속 점수(Relayer, PeelChain)는 JDBC batch
+ * - patternCnt / riskScore 는 마지막에 SQL 안에서 플래그 합, 점수 가중 합성으로 다시 계산 → 읽고-더하고-쓰는 경쟁 없음
+ *   (riskScore 식은 DetectorProperties.Risk 참고, 같은 트랜잭션의 bulk UPDATE 라 JDBC 로 바꾼 행도 Wallet 캐시에서 무효화됨)
+ * - bulk UPDATE 는 엔티티 콜백을 거치지 않으므로 updated_at 도 직접 설정
+ * - 바뀐 행이 하나라도 있으면 PatternResultsWrittenEvent 발행 → DetectionRunCoordinator 가 재사용하던 결과를 버림
+ */
+@Service
+public class PatternResultWriter {
+
+    // patternCnt = Σ (flag = true ? 1 : 0)
+    private static final String COUNT_EXPR = Arrays.stream(PatternType.values())
+            .map(p -> "(CASE WHEN w." + p.getProperty() + " = true THEN 1 ELSE 0 END)")
+            .collect(Collectors.joining(" + "));
+
+    private static final String RECOUNT_JPQL =
+            "UPDATE Wallet w SET w.patternCnt = " + COUNT_EXPR +
+            " WHERE w.address IN :addresses AND w.patternCnt <> " + COUNT_EXPR;
+
+    // riskScore = 1 - Π (1 - weight_p * COALESCE(score_p, 0)), 가중치는 :w0.. 파라미터
+    private static final String RISK_EXPR = "1 - " + Arrays.stream(PatternType.values())
+            .map(p -> "(1 - :w" + p.ordinal() + " * COALESCE(w." + p.getScoreProperty() + ", 0))")
+            .collect(Collectors.joining(" * "));
+
+    private static final String RESCORE_JPQL =
+            "UPDATE Wallet w SET w.riskScore = " + RISK_EXPR +
+            " WHERE w.address IN :addresses AND w.riskScore <> " + RISK_EXPR;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DetectorProperties props;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${detect.update-chunk-size:1000}")
+    private int chunkSize;
+
+    public PatternResultWriter(JdbcTemplate jdbcTemplate, DetectorProperties props,
+                               ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.props = props;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /** @return 실제로 바뀐 플래그 행 수 */
+    @Transactional
+    public int write(Collection<PatternResult> results) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        Set<String> evaluated = new LinkedHashSet<>();
+        int changed = 0;
+        int scoreRows = 0;
+
+        for (PatternResult r : results) {
+            List<String> positive = new ArrayList<>(r.getFlagged());
+            List<String> negative = new ArrayList<>();
+            for (String address : r.getEvaluated()) {
+                if (!r.isFlagged(address)) negative.add(address);
+            }
+            changed += updateFlag(r.getPattern(), positive, true, now);
+            changed += updateFlag(r.getPattern(), negative, false, now);
+            scoreRows += writeScores(r, now);
+            evaluated.addAll(r.getEvaluated());
+        }
+
+        List<String> addresses = new ArrayList<>(evaluated);
+        for (int from = 0; from < addresses.size(); from += chunkSize) {
+            List<String> chunk = addresses.subList(from, Math.min(addresses.size(), from + chunkSize));
+            scoreRows += entityManager.createQuery(RECOUNT_JPQL)
+                    .setParameter("addresses", chunk)
+                    .executeUpdate();
+            var rescore = entityManager.createQuery(RESCORE_JPQL).setParameter("addresses", chunk);
+            for (PatternType p : PatternType.values()) rescore.setParameter("w" + p.ordinal(), props.getRisk().weight(p));
+            scoreRows += rescore.executeUpdate();
+        }
+        if (changed + scoreRows > 0) {
+            eventPublisher.publishEvent(new PatternResultsWrittenEvent(changed + scoreRows));
+        }
+        return changed;
+    }
+
+    private int writeScores(PatternResult r, LocalDateTime now) {
+        List<String> zero = new ArrayList<>();
+        List<String> one = new ArrayList<>();
+        List<Object[]> continuous = new ArrayList<>();
+        for (String address : r.getEvaluated()) {
+            double score = r.score(address);
+            if (score == 0.0) zero.add(address);
+            else if (score == 1.0) one.add(address);
+            else continuous.add(new Object[]{score, address});
+        }
+        int rows = updateScore(r.getPattern(), zero, 0.0, now)
+                 + updateScore(r.getPattern(), one, 1.0, now);
+        if (continuous.isEmpty()) return rows;
+
+        String col = r.getPattern().getScoreColumn();
+        String sql = "UPDATE wallets SET " + col + " = ?, updated_at = ? " +
+                     "WHERE address = ? AND (" + col + " IS NULL OR " + col + " <> ?)";
+        int[][] counts = jdbcTemplate.batchUpdate(sql, continuous, chunkSize, (ps, row) -> {
+            ps.setDouble(1, (Double) row[0]);
+            ps.setObject(2, now);
+            ps.setString(3, (String) row[1]);
+            ps.setDouble(4, (Double) row[0]);
+        });
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                // 드라이버가 개수를 모르면 SUCCESS_NO_INFO(-2) → 바뀐 것으로 침
+                if (count != 0) rows++;
+            }
+        }
+        return rows;
+    }
+
+    private int updateScore(PatternType pattern, List<String> addresses, double value, LocalDateTime now) {
+        if (addresses.isEmpty()) return 0;
+        String col = "w." + pattern.getScoreProperty();
+        String jpql = "UPDATE Wallet w SET " + col + " = :value, w.updatedAt = :now " +
+                      "WHERE w.address IN :addresses AND (" + col + " IS NULL OR " + col + " <> :value)";
+        int rows = 0;
+        for (int from = 0; from < addresses.size(); from += chunkSize) {
+            rows += entityManager.createQuery(jpql)
+                    .setParameter("value", value)
+                    .setParameter("now", now)
+                    .setParameter("addresses", addresses.subList(from, Math.min(addresses.size(), from + chunkSize)))
+                    .executeUpdate();
+        }
+        return rows;
+    }
+
+    private int updateFlag(PatternType pattern, List<String> addresses, boolean value, LocalDateTime now) {
+        if (addresses.isEmpty()) return 0;
+        String col = "w." + pattern.getProperty();
+        String jpql = "UPDATE Wallet w SET " + col + " = :value, w.updatedAt = :now " +
+                      "WHERE w.address IN :addresses AND (" + col + " IS NULL OR " + col + " <> :value)";
+
+        int rows = 0;
+        for (int from = 0; from < addresses.size(); from += chunkSize) {
+            rows += entityManager.createQuery(jpql)
+                    .setParameter("value", value)
+                    .setParameter("now", now)
+                    .setParameter("addresses", addresses.subList(from, Math.min(addresses.size(), from + chunkSize)))
+                    .executeUpdate();
+        }
+        return rows;
+    }
+}
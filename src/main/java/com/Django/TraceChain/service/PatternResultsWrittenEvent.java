@@ -0,0 +1,16 @@
+package com.Django.TraceChain.service;
+
+/*
+ * PatternResultWriter 가 패턴 플래그 / 점수 / 집계 행을 실제로 바꿨을 때 발행 (같은 트랜잭션 안에서 동기 전달)
+ * - rows: 바뀐 행 수 (플래그, 점수, patternCnt / riskScore 갱신 합)
+ */
+public final class PatternResultsWrittenEvent {
+
+    private final int rows;
+
+    public PatternResultsWrittenEvent(int rows) {
+        this.rows = rows;
+    }
+
+    public int getRows() { return rows; }
+}
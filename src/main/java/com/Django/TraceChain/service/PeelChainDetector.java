@@ -1,180 +1,225 @@
 package com.Django.TraceChain.service;
 
-import com.Django.TraceChain.model.Transaction;
-import com.Django.TraceChain.model.Transfer;
-import com.Django.TraceChain.model.Wallet;
-import com.Django.TraceChain.repository.WalletRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.Django.TraceChain.analytics.Stats;
+import com.Django.TraceChain.component.DetectorProperties;
+import com.Django.TraceChain.model.PatternType;
+import com.Django.TraceChain.service.DetectionSnapshot.TransferSnapshot;
+import com.Django.TraceChain.service.DetectionSnapshot.TxSnapshot;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * 고정밀 Peel Chain 탐지기 (UTXO 완전모델 없이 근사)
- * - 지갑 기준 "송금 트랜잭션" 중에서 2개의 수신자(2-out)로 분배
+ * - "송금 단계" = 한 송신자가 한 트랜잭션에서 2개의 수신자(2-out)로 분배
  * - 한 출력은 '소액'(전체 송금 대비 비율 작음), 다른 한 출력은 '큰 변화(change)'로 간주
- * - 이런 단계가 연쇄로 이어지고(연속 길이), 큰 변화 값이 대체로 감소(또는 비증가)
- * - 단계 간 시간 간격이 너무 벌어지지 않음
+ * - 큰 출력을 받은 주소가 다음에 보내는 단계로 연결 → 매 단계 새 change 주소로 옮겨가는 체인도 따라감
+ *   (change 를 자기 자신에게 돌리는 주소 재사용 체인도 같은 규칙으로 연결됨)
+ * - 큰 변화 값이 대체로 감소(또는 비증가), 단계 간 시간 간격이 너무 벌어지지 않음
  *
- * 점수:
- *   s_peel = 0.5*min(chainLen/Lmax,1) + 0.25*(1 - CV_small) + 0.25*decayRate
- *   (임계 0.70 권장)
+ * 연결은 "수신 주소 → 그 주소의 시간순 송금 단계" 색인에서 이분 탐색으로 다음 단계 하나만 고르므로
+ * 단계들이 숲(forest)을 이룸
+ *
+ * 점수: 단계마다 그 단계부터 최대 Lmax 단계까지의 창(window)으로 계산
+ *   s_peel = 0.5*min(windowLen/Lmax,1) + 0.25*(1 - CV_small) + 0.25*decayRate
+ *   (임계 0.70 권장, 창에 포함된 송신 지갑 모두에 창 점수 중 최댓값 부여, 파라미터: detect.peel-chain.*)
+ *   창이 Lmax 단계로 끊기므로 한 지갑의 점수는 체인 앞뒤 Lmax-1 단계 안의 단계로만 결정됨
+ *   → neighborhoodHops 가 실제 영향 범위 (체인이 아무리 길어도 먼 단계의 변화가 전파되지 않음)
+ *
+ * prepare 는 단계 추출/연결까지 (smallRatio, maxGapSec 에 의존),
+ * evaluate 는 minLength / maxLength / threshold 로 창 점수 계산과 전파만 수행 (단계당 O(Lmax))
  */
 @Service
-public class PeelChainDetector implements MixingDetector {
-
-    @Autowired
-    private WalletRepository walletRepository;
+public class PeelChainDetector implements TunableDetector<PeelChainDetector.Chains> {
 
-    private static final int    L_MIN = 4;           // 최소 연쇄 길이
-    private static final int    L_MAX = 8;           // 점수 정규화용 상한
-    private static final double SMALL_RATIO = 0.20;  // '소액' 비율 임계 (20%)
-    private static final long   GAP_MAX_SEC = 24 * 3600; // 단계 간 최대 간격 24h
-    private static final double THRESHOLD = 0.70;    // 최종 판정 임계
+    private final DetectorProperties properties;
 
     static final class Stage {
-        final String txid;
-        final double small;   // 소액 출력
-        final double large;   // 변화로 간주
+        final String sender;
+        final String changeTo; // 큰 출력을 받은 주소
+        final double small;    // 소액 출력
+        final double large;    // 변화로 간주
         final long   tsSec;
-        Stage(String id, double s, double l, long t) {
-            this.txid = id; this.small = s; this.large = l; this.tsSec = t;
+        Stage(String sender, String changeTo, double s, double l, long t) {
+            this.sender = sender; this.changeTo = changeTo; this.small = s; this.large = l; this.tsSec = t;
+        }
+    }
+
+    // 연결된 단계 숲 (인덱스 = 시간순 단계 번호, next = -1 이면 체인 끝)
+    static final class Chains {
+        final List<Stage> stages;
+        final int[] next;
+        Chains(List<Stage> stages) {
+            this.stages = stages;
+            this.next = new int[stages.size()];
         }
     }
 
-    @Transactional
+    public PeelChainDetector(DetectorProperties properties) {
+        this.properties = properties;
+    }
+
     @Override
-    public void analyze(List<Wallet> wallets) {
-        if (wallets == null || wallets.isEmpty()) return;
-
-        for (Wallet w : wallets) {
-            List<Transaction> txs = w.getTransactions();
-            if (txs == null || txs.isEmpty()) {
-                w.setPeelChainPattern(false);
-                walletRepository.save(w);
-                continue;
-            }
+    public PatternType pattern() {
+        return PatternType.PEEL_CHAIN;
+    }
 
-            // 시간순 정렬
-            txs.sort(Comparator.comparing(Transaction::getTimestamp));
+    @Override
+    public boolean supports(int chainType) {
+        return chainType == 1;
+    }
 
-            // 이 지갑이 '보낸' 트랜잭션들을 추출
-            List<Transaction> outTxs = txs.stream()
-                    .filter(tx -> tx.getTransfers().stream().anyMatch(t -> w.getAddress().equals(t.getSender())))
-                    .collect(Collectors.toList());
+    // 창 점수는 창 안 송신자에게만 부여 → 한 지갑은 앞뒤 window-1 단계(= 트랜잭션 공유 hop) 안의 단계에만 의존
+    @Override
+    public int neighborhoodHops() {
+        return window(properties.getPeelChain()) - 1;
+    }
 
-            // 각 트랜잭션에서 2-out + 소액 조건을 만족하는 단계만 뽑기
-            List<Stage> stages = new ArrayList<>();
-            for (Transaction tx : outTxs) {
-                List<Transfer> outs = tx.getTransfers().stream()
-                        .filter(t -> w.getAddress().equals(t.getSender()) && t.getReceiver() != null)
-                        .collect(Collectors.toList());
-                // 2개의 수신자만 고려 (1-in/2-out 근사)
-                Set<String> uniqReceivers = outs.stream().map(Transfer::getReceiver).collect(Collectors.toSet());
-                if (uniqReceivers.size() != 2) continue;
+    @Override
+    public PatternResult detect(DetectionSnapshot snapshot) {
+        return evaluate(snapshot, prepare(snapshot, properties), properties);
+    }
 
-                double total = outs.stream()
-                        .map(Transfer::getAmount)
-                        .filter(Objects::nonNull)
-                        .mapToDouble(BigDecimal::doubleValue).sum();
-                if (total <= 0.0) continue;
+    @Override
+    public Object featureKey(DetectorProperties props) {
+        return List.of(props.getPeelChain().getSmallRatio(), props.getPeelChain().getMaxGapSec());
+    }
 
-                // 소액/대액 분리
-                List<Double> amounts = outs.stream()
-                        .map(Transfer::getAmount)
-                        .filter(Objects::nonNull)
-                        .map(BigDecimal::doubleValue)
-                        .sorted()
-                        .toList();
-                if (amounts.size() < 2) continue;
-
-                double small = amounts.get(0);
-                double large = amounts.get(amounts.size() - 1);
-                double ratio = small / total;
-
-                if (ratio <= SMALL_RATIO) {
-                    long ts = tx.getTimestamp().toEpochSecond(java.time.ZoneOffset.UTC);
-                    stages.add(new Stage(tx.getTxID(), small, large, ts));
-                }
-            }
+    @Override
+    public Chains prepare(DetectionSnapshot snapshot, DetectorProperties props) {
+        DetectorProperties.PeelChain p = props.getPeelChain();
+        List<Stage> stages = extractStages(snapshot, p.getSmallRatio()); // 시간순
+        int n = stages.size();
+        Chains c = new Chains(stages);
+
+        // 1) 송신자별 단계 색인 (시간순 인덱스 목록)
+        Map<String, List<Integer>> bySender = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            bySender.computeIfAbsent(stages.get(i).sender, k -> new ArrayList<>()).add(i);
+        }
 
-            // 시간 간격 제약으로 연쇄 연결
-            List<Stage> chain = new ArrayList<>();
-            List<Stage> bestChain = new ArrayList<>();
-            for (Stage s : stages) {
-                if (chain.isEmpty()) {
-                    chain.add(s);
-                    continue;
-                }
-                Stage prev = chain.get(chain.size() - 1);
-                if ((s.tsSec - prev.tsSec) <= GAP_MAX_SEC) {
-                    chain.add(s);
-                } else {
-                    if (chain.size() > bestChain.size()) bestChain = new ArrayList<>(chain);
-                    chain.clear();
-                    chain.add(s);
-                }
+        // 2) 다음 단계: change 주소가 이후 maxGapSec 안에 처음 보내는 단계 (엄격히 늦은 시각 → 순환 없음)
+        for (int i = 0; i < n; i++) {
+            Stage s = stages.get(i);
+            c.next[i] = -1;
+            List<Integer> cand = bySender.get(s.changeTo);
+            if (cand == null) continue;
+            int j = firstAfter(cand, stages, s.tsSec);
+            if (j < cand.size() && stages.get(cand.get(j)).tsSec - s.tsSec <= p.getMaxGapSec()) {
+                c.next[i] = cand.get(j);
             }
-            if (chain.size() > bestChain.size()) bestChain = chain;
-            chain = bestChain;
-
-            boolean detected = false;
-            double score = 0.0;
+        }
+        return c;
+    }
 
-            if (chain.size() >= L_MIN) {
-                // (a) 연속 길이 정규화
-                double fLen = Math.min(1.0, chain.size() / (double) L_MAX) * 0.5;
+    // 단계마다 그 단계에서 시작하는 창(최대 window 단계) 점수 계산 → 창 안 단계에 최댓값 부여
+    @Override
+    public PatternResult evaluate(DetectionSnapshot snapshot, Chains c, DetectorProperties props) {
+        DetectorProperties.PeelChain p = props.getPeelChain();
+        Set<String> wallets = snapshot.getAddresses();
+        int n = c.stages.size();
+        int window = window(p);
+
+        double[] best = new double[n];
+        int[] members = new int[window];
+        for (int i = 0; i < n; i++) {
+            int len = 0, nonIncreasing = 0;
+            double sumSmall = 0.0, sumSqSmall = 0.0;
+            for (int j = i; j >= 0 && len < window; j = c.next[j]) {
+                Stage s = c.stages.get(j);
+                if (len > 0 && s.large <= c.stages.get(members[len - 1]).large) nonIncreasing++;
+                sumSmall += s.small;
+                sumSqSmall += s.small * s.small;
+                members[len++] = j;
+            }
+            double score = score(len, sumSmall, sumSqSmall, nonIncreasing, p);
+            if (score <= 0.0) continue;
+            for (int k = 0; k < len; k++) best[members[k]] = Math.max(best[members[k]], score);
+        }
 
-                // (b) 소액 안정성: CV(small) 낮을수록 좋음
-                double cvSmall = cv(chain.stream().map(st -> st.small).toList());
-                double fSmall = (1.0 - clamp01(cvSmall)) * 0.25;
+        Map<String, Double> scores = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            String sender = c.stages.get(i).sender;
+            if (best[i] > 0.0 && wallets.contains(sender)) scores.merge(sender, best[i], Math::max);
+        }
 
-                // (c) 감쇠율: large 값이 비증가/완만감소일수록 점수↑
-                double fDecay = decayFactor(chain) * 0.25;
+        Set<String> flagged = new HashSet<>();
+        scores.forEach((addr, score) -> {
+            if (score >= p.getThreshold()) flagged.add(addr);
+        });
+        return new PatternResult(pattern(), wallets, flagged, scores);
+    }
 
-                score = fLen + fSmall + fDecay;
-                detected = (score >= THRESHOLD);
+    // 트랜잭션별로 송신자마다 2-out + 소액 조건을 만족하는 단계만 뽑기
+    private List<Stage> extractStages(DetectionSnapshot snapshot, double smallRatio) {
+        List<Stage> stages = new ArrayList<>();
+        for (TxSnapshot tx : snapshot.getTransactions()) {
+            Map<String, List<TransferSnapshot>> outsBySender = new LinkedHashMap<>();
+            for (TransferSnapshot t : tx.getTransfers()) {
+                if (t.getSender() == null || t.getReceiver() == null) continue;
+                outsBySender.computeIfAbsent(t.getSender(), k -> new ArrayList<>()).add(t);
             }
 
-            if (detected && !Boolean.TRUE.equals(w.getPeelChainPattern())) {
-                w.setPatternCnt(w.getPatternCnt() + 1);
+            for (Map.Entry<String, List<TransferSnapshot>> e : outsBySender.entrySet()) {
+                List<TransferSnapshot> outs = e.getValue();
+                // 2개의 수신자만 고려 (1-in/2-out 근사)
+                Set<String> uniqReceivers = outs.stream().map(TransferSnapshot::getReceiver).collect(Collectors.toSet());
+                if (uniqReceivers.size() != 2 || outs.size() < 2) continue;
+
+                // 내부 단위(long)로 합계 / 최소 / 최대
+                long total = 0L, smallUnits = Long.MAX_VALUE, largeUnits = Long.MIN_VALUE;
+                String changeTo = null;
+                for (TransferSnapshot t : outs) {
+                    long v = t.getAmountUnits();
+                    total += v;
+                    if (v < smallUnits) smallUnits = v;
+                    if (v > largeUnits) {
+                        largeUnits = v;
+                        changeTo = t.getReceiver();
+                    }
+                }
+                if (total <= 0L) continue;
+
+                // 소액/대액 분리
+                double ratio = (double) smallUnits / total;
+                if (ratio <= smallRatio) {
+                    stages.add(new Stage(e.getKey(), changeTo, smallUnits, largeUnits, tx.getTimestamp()));
+                }
             }
-            w.setPeelChainPattern(detected);
-            walletRepository.save(w);
         }
+        return stages;
     }
 
-    private double cv(List<Double> vals) {
-        if (vals == null || vals.size() <= 1) return 0.0;
-        double mean = vals.stream().mapToDouble(x -> x).average().orElse(0.0);
-        if (mean == 0.0) return 1.0;
-        double var = 0.0;
-        for (double v : vals) {
-            double d = v - mean;
-            var += d * d;
-        }
-        var /= (vals.size() - 1);
-        return Math.sqrt(var) / mean;
+    // 창 크기 = maxLength (minLength 보다 작게 설정되면 minLength)
+    private static int window(DetectorProperties.PeelChain p) {
+        return Math.max(2, Math.max(p.getMaxLength(), p.getMinLength()));
     }
 
-    private double decayFactor(List<Stage> chain) {
-        if (chain.size() <= 1) return 0.5; // 정보 부족 → 중간값
-        int nonIncreasing = 0;
-        for (int i = 1; i < chain.size(); i++) {
-            if (chain.get(i).large <= chain.get(i - 1).large) nonIncreasing++;
+    // cand(시간순) 중 tsSec 보다 늦은 첫 위치
+    private int firstAfter(List<Integer> cand, List<Stage> stages, long tsSec) {
+        int lo = 0, hi = cand.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (stages.get(cand.get(mid)).tsSec <= tsSec) lo = mid + 1;
+            else hi = mid;
         }
-        double ratio = nonIncreasing / (double) (chain.size() - 1);
-        // 비증가 비율을 그대로 사용 (완벽 비증가=1, 절반만 비증가=0.5)
-        return clamp01(ratio);
+        return lo;
     }
 
-    private double clamp01(double x) {
-        if (x < 0.0) return 0.0;
-        if (x > 1.0) return 1.0;
-        return x;
+    // 창 통계로 점수 (minLength 미만이면 0)
+    private double score(int len, double sumSmall, double sumSqSmall, int nonIncreasing, DetectorProperties.PeelChain p) {
+        if (len < p.getMinLength() || len < 2) return 0.0;
+
+        // (a) 연속 길이 정규화
+        double fLen = Math.min(1.0, len / (double) p.getMaxLength()) * 0.5;
+
+        // (b) 소액 안정성: CV(small) 낮을수록 좋음
+        double fSmall = (1.0 - Stats.clamp01(Stats.cv(len, sumSmall, sumSqSmall))) * 0.25;
+
+        // (c) 감쇠율: large 값이 비증가/완만감소일수록 점수↑ (비증가 비율을 그대로 사용)
+        double fDecay = Stats.clamp01(nonIncreasing / (double) (len - 1)) * 0.25;
+
+        return fLen + fSmall + fDecay;
     }
 }
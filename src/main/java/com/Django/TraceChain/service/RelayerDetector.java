@@ -1,176 +1,188 @@
 package com.Django.TraceChain.service;
 
-import com.Django.TraceChain.model.Transaction;
-import com.Django.TraceChain.model.Transfer;
-import com.Django.TraceChain.model.Wallet;
-import com.Django.TraceChain.repository.WalletRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.Django.TraceChain.analytics.EventSeries;
+import com.Django.TraceChain.analytics.MonotonicWindow;
+import com.Django.TraceChain.analytics.RunningStats;
+import com.Django.TraceChain.analytics.Stats;
+import com.Django.TraceChain.component.DetectorProperties;
+import com.Django.TraceChain.model.PatternType;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 고정밀 Relayer 탐지기
- * - 시간창(5분) 내 동일 발신자(sender)가 다수 수신자에게 연속 출금
+ * - 시간창(windowSec, 기본 5분) 내 동일 발신자(sender)가 다수 수신자에게 연속 출금
  * - 금액 '정액'(denom) 일관성(±2%)
  * - 출금 간 인터벌의 변동계수(CV) 낮음 → 자동화 의심
  * - 수신자 과거 이력 없음(무-history) → 새 엔티티로 지급
  *
  * 점수:
  *   s_rel = min(1, 0.4*1[Nr>=3] + 0.3*1[denomConsistent] + 0.2*(1 - cvInterval) + 0.1*1[allReceiversNoHistory])
- *   (임계 0.70 권장)
+ *   (임계 0.70 권장, 파라미터: detect.relayer.*)
+ *
+ * prepare 는 창마다 (개수, 금액 min/max, 인터벌 합/제곱합, 수신자 fresh 여부) 만 남기고
+ * evaluate 는 minCount / epsDenom / threshold 로 점수만 다시 계산
  */
 @Service
-public class RelayerDetector implements MixingDetector {
-
-    @Autowired
-    private WalletRepository walletRepository;
-
-    private static final int WINDOW_SEC = 300;     // 5분
-    private static final int MIN_COUNT = 3;        // 최소 군집 크기
-    private static final double EPS_DENOM = 0.02;  // ±2% 정액 허용
-    private static final double THRESHOLD = 0.70;  // 최종 판정 임계
-
-    static final class T {
-        final String sender;
-        final String receiver;
-        final double amount;          // BigDecimal -> double로 계산 편의
-        final LocalDateTime ts;
-        final String txid;
-        T(String s, String r, double a, LocalDateTime t, String id) {
-            this.sender = s; this.receiver = r; this.amount = a; this.ts = t; this.txid = id;
+public class RelayerDetector implements TunableDetector<Map<String, RelayerDetector.Windows>> {
+
+    private final DetectorProperties properties;
+
+    // 후보 송신자의 창별 통계 (병렬 배열, 창 = 시작 인덱스마다 하나)
+    static final class Windows {
+        final int[] count;
+        final long[] min;
+        final long[] max;
+        final double[] sumGap;
+        final double[] sumGapSq;
+        final boolean[] allFresh;
+        Windows(int n) {
+            count = new int[n];
+            min = new long[n];
+            max = new long[n];
+            sumGap = new double[n];
+            sumGapSq = new double[n];
+            allFresh = new boolean[n];
         }
     }
 
-    @Transactional
+    public RelayerDetector(DetectorProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public PatternType pattern() {
+        return PatternType.RELAYER;
+    }
+
+    @Override
+    public boolean supports(int chainType) {
+        return chainType == 2;
+    }
+
+    // 수신자의 이력(최초 등장 시각)이 바뀌면 그 수신자에게 보낸 송신자의 판정이 바뀜
+    @Override
+    public int neighborhoodHops() {
+        return 1;
+    }
+
+    @Override
+    public PatternResult detect(DetectionSnapshot snapshot) {
+        return evaluate(snapshot, prepare(snapshot, properties), properties);
+    }
+
+    @Override
+    public Object featureKey(DetectorProperties props) {
+        return props.getRelayer().getWindowSec();
+    }
+
     @Override
-    public void analyze(List<Wallet> wallets) {
-        if (wallets == null || wallets.isEmpty()) return;
-
-        // 전체 트랜잭션에서 Transfer 평탄화 (지갑 로컬 DB 기준)
-        List<T> all = new ArrayList<>();
-        for (Wallet w : wallets) {
-            List<Transaction> txs = w.getTransactions();
-            if (txs == null) continue;
-            for (Transaction tx : txs) {
-                LocalDateTime ts = tx.getTimestamp();
-                for (Transfer tr : tx.getTransfers()) {
-                    if (tr.getSender() == null || tr.getReceiver() == null) continue;
-                    all.add(new T(tr.getSender(), tr.getReceiver(),
-                            tr.getAmount() == null ? 0.0 : tr.getAmount().doubleValue(),
-                            ts, tx.getTxID()));
-                }
+    public Map<String, Windows> prepare(DetectionSnapshot snapshot, DetectorProperties props) {
+        Set<String> wallets = snapshot.getAddresses();
+        long windowSec = props.getRelayer().getWindowSec();
+
+        // 송신자별 시간순 이벤트 열 / 주소별 최초 등장 시각은 스냅샷이 한 번 만들어 공유 (무-history 판정 O(1))
+        Map<String, EventSeries> outgoing = snapshot.outgoing();
+        Map<String, Long> firstSeen = snapshot.firstSeen();
+
+        // 후보(판정 대상 지갑 중 송신 이력이 있는 주소)별 창 통계는 서로 독립 → 병렬
+        Map<String, Windows> features = new ConcurrentHashMap<>();
+        wallets.parallelStream().forEach(address -> {
+            EventSeries series = outgoing.get(address);
+            if (series != null) features.put(address, windows(series, firstSeen, windowSec));
+        });
+        return features;
+    }
+
+    @Override
+    public PatternResult evaluate(DetectionSnapshot snapshot, Map<String, Windows> features, DetectorProperties props) {
+        DetectorProperties.Relayer p = props.getRelayer();
+        Map<String, Double> scores = new HashMap<>();
+        features.forEach((candidate, w) -> {
+            double best = 0.0;
+            for (int i = 0; i < w.count.length; i++) {
+                if (w.count[i] < p.getMinCount()) continue;
+                best = Math.max(best, scoreWindow(w.count[i], w.min[i], w.max[i], w.count[i] - 1,
+                        w.sumGap[i], w.sumGapSq[i], w.allFresh[i], p));
             }
+            if (best > 0.0) scores.put(candidate, best);
+        });
+
+        Set<String> flagged = new HashSet<>();
+        scores.forEach((addr, score) -> {
+            if (score >= p.getThreshold()) flagged.add(addr);
+        });
+        return new PatternResult(pattern(), snapshot.getAddresses(), flagged, scores);
+    }
+
+    /*
+     * 시작점 left 마다 [left, right) 가 windowSec 안에 드는 최대 창 (two-pointer, 양쪽 모두 단조 증가)
+     * 창 안의 통계는 한 칸 이동마다 O(1) 로 갱신:
+     * - 금액 min/max, 수신자 최초 등장 시각 min → 단조 deque
+     * - 인접 인터벌 합/제곱합 → 오른쪽 확장 시 더하고 왼쪽 이동 시 뺌
+     */
+    private Windows windows(EventSeries events, Map<String, Long> firstSeen, long windowSec) {
+        int n = events.size();
+        long[] recvFirstSeen = new long[n];
+        for (int i = 0; i < n; i++) {
+            recvFirstSeen[i] = firstSeen.getOrDefault(events.counterparty(i), events.time(i));
         }
-        if (all.isEmpty()) return;
-
-        // sender별 시간 정렬
-        Map<String, List<T>> bySender = all.stream()
-                .collect(Collectors.groupingBy(t -> t.sender));
-        bySender.values().forEach(list -> list.sort(Comparator.comparing(t -> t.ts)));
-
-        // 모든 지갑은 초기 false로
-        wallets.forEach(w -> w.setRelayerPattern(false));
-
-        for (Map.Entry<String, List<T>> e : bySender.entrySet()) {
-            String candidate = e.getKey(); // 잠재적 relayer
-            List<T> txs = e.getValue();
-            if (txs.size() < MIN_COUNT) continue;
-
-            // 슬라이딩 윈도우 군집
-            int left = 0;
-            while (left < txs.size()) {
-                int right = left;
-                LocalDateTime base = txs.get(left).ts;
-                List<T> group = new ArrayList<>();
-                while (right < txs.size() &&
-                        Duration.between(base, txs.get(right).ts).getSeconds() <= WINDOW_SEC) {
-                    group.add(txs.get(right));
-                    right++;
-                }
-
-                // 군집 평가
-                double score = scoreGroup(candidate, group, all, base);
-                if (score >= THRESHOLD) {
-                    // relayer 지갑 객체 찾아 표시
-                    for (Wallet w : wallets) {
-                        if (candidate.equals(w.getAddress())) {
-                            if (!Boolean.TRUE.equals(w.getRelayerPattern())) {
-                                w.setPatternCnt(w.getPatternCnt() + 1);
-                            }
-                            w.setRelayerPattern(true);
-                            walletRepository.save(w);
-                        }
-                    }
-                }
-
-                // 다음 윈도우
-                left = Math.max(left + 1, right == left ? left + 1 : right);
+
+        Windows out = new Windows(n);
+        MonotonicWindow maxAmount = MonotonicWindow.max(n);
+        MonotonicWindow minAmount = MonotonicWindow.min(n);
+        MonotonicWindow minSeen = MonotonicWindow.min(n);
+        RunningStats gaps = new RunningStats();   // 창 안의 인접 인터벌 (시간순 → 음수 없음)
+
+        int right = 0;
+        for (int left = 0; left < n; left++) {
+            if (right < left) right = left;
+            long base = events.time(left);
+            while (right < n && events.time(right) - base <= windowSec) {
+                maxAmount.push(right, events.amount(right));
+                minAmount.push(right, events.amount(right));
+                minSeen.push(right, recvFirstSeen[right]);
+                if (right > left) gaps.add(events.time(right) - events.time(right - 1));
+                right++;
             }
+
+            out.count[left] = right - left;
+            out.max[left] = maxAmount.peek();
+            out.min[left] = minAmount.peek();
+            out.sumGap[left] = gaps.sum();
+            out.sumGapSq[left] = gaps.sumSq();
+            out.allFresh[left] = minSeen.peek() >= base;
+
+            // left 제거
+            maxAmount.evict(left);
+            minAmount.evict(left);
+            minSeen.evict(left);
+            if (left + 1 < right) gaps.remove(events.time(left + 1) - events.time(left));
         }
+        return out;
     }
 
-    private double scoreGroup(String sender, List<T> group, List<T> all, LocalDateTime base) {
-        if (group == null || group.size() < MIN_COUNT) return 0.0;
-
+    private double scoreWindow(int count, long min, long max, int gaps, double sumGap, double sumGapSq,
+                               boolean allFresh, DetectorProperties.Relayer p) {
         // 1) 수량 Nr
-        int Nr = group.size();
-        double fCount = (Nr >= MIN_COUNT) ? 1.0 : 0.0;
+        double fCount = (count >= p.getMinCount()) ? 1.0 : 0.0;
 
         // 2) 정액 일관성 (max/min ≤ 1+ε)
-        double max = group.stream().mapToDouble(t -> t.amount).max().orElse(0.0);
-        double min = group.stream().mapToDouble(t -> t.amount).min().orElse(0.0);
-        boolean denomConsistent = (min > 0.0) && (max / min <= (1.0 + EPS_DENOM));
+        boolean denomConsistent = (min > 0) && ((double) max / min <= (1.0 + p.getEpsDenom()));
         double fDenom = denomConsistent ? 1.0 : 0.0;
 
-        // 3) 인터벌 CV (낮을수록 좋음 → 1 - CV)
-        double cvInt = cvOfIntervals(group.stream().map(t -> t.ts).sorted().toList());
-        double fInterval = clamp01(1.0 - cvInt); // CV 0이면 1점, CV 1이면 0점 (대략)
+        // 3) 인터벌 CV (낮을수록 좋음 → 1 - CV, 인터벌 1개 이하면 CV=0 취급)
+        double cvInt = Stats.cv(gaps, sumGap, sumGapSq);
+        double fInterval = Stats.clamp01(1.0 - cvInt); // CV 0이면 1점, CV 1이면 0점 (대략)
 
-        // 4) 수신자 무-히스토리: base 이전에 어떤 입출력 기록도 없는 fresh 주소인지
+        // 4) 수신자 무-history: 창 시작 이전에 어떤 입출력 기록도 없는 fresh 주소인지
         //    (이 구현은 "DB에 들어온 범위 내에서" 과거 기록이 없음을 뜻함. 실제 '무-deposit' 근사치)
-        Set<String> receivers = group.stream().map(t -> t.receiver).collect(Collectors.toSet());
-        boolean allFresh = receivers.stream().allMatch(r -> noHistoryBefore(r, base, all));
         double fNoHist = allFresh ? 1.0 : 0.0;
 
         // s_rel
         double s = 0.4 * fCount + 0.3 * fDenom + 0.2 * fInterval + 0.1 * fNoHist;
         return Math.min(1.0, s);
     }
-
-    private boolean noHistoryBefore(String addr, LocalDateTime base, List<T> universe) {
-        for (T t : universe) {
-            if (t.ts.isBefore(base) && (addr.equals(t.sender) || addr.equals(t.receiver))) {
-                return false;
-            }
-        }
-        return true;
-    }
-
-    private double cvOfIntervals(List<LocalDateTime> times) {
-        if (times.size() <= 2) return 0.0; // 인터벌 1개 이하면 CV=0 취급
-        List<Long> deltas = new ArrayList<>();
-        for (int i = 1; i < times.size(); i++) {
-            deltas.add(Duration.between(times.get(i - 1), times.get(i)).getSeconds());
-        }
-        double mean = deltas.stream().mapToDouble(x -> x).average().orElse(0.0);
-        if (mean == 0.0) return 1.0;
-        double var = 0.0;
-        for (long d : deltas) {
-            double diff = d - mean;
-            var += diff * diff;
-        }
-        var /= (deltas.size() - 1);
-        return Math.sqrt(var) / mean;
-    }
-
-    private double clamp01(double x) {
-        if (x < 0.0) return 0.0;
-        if (x > 1.0) return 1.0;
-        return x;
-    }
 }
@@ -0,0 +1,132 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.dto.HotAddressDto;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * 검색/추적 요청 기록
+ * - 요청 스레드는 고정 크기 링 버퍼에 넣기만 함 (DB 쓰기 없음, 가득 차면 가장 오래된 항목을 덮어씀)
+ * - 스케줄러가 주기적으로 버퍼를 비워 search_logs 에 JDBC batch insert
+ * - 같은 flush 에서 꺼낸 항목으로 hot-address 스케치(Space-Saving)도 갱신 → /api/hot-addresses
+ *   (요청 스레드는 스케치 락을 잡지 않음, 스케치는 최대 flush 주기만큼 늦고 버퍼가 넘쳐 버려진 항목은 세지 않음)
+ */
+@Service
+public class SearchLogRecorder {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO search_logs (chain, operation, address, searched_at) VALUES (?, ?, ?, ?)";
+
+    private static final class Entry {
+        final String chain;
+        final String operation;
+        final String address;
+        final LocalDateTime searchedAt;
+        Entry(String chain, String operation, String address, LocalDateTime searchedAt) {
+            this.chain = chain; this.operation = operation; this.address = address; this.searchedAt = searchedAt;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Entry[] ring;
+    private final HotAddressSketch hotAddresses;
+    private final AtomicLong dropped = new AtomicLong();
+    private int head;  // 다음에 쓸 위치
+    private int size;
+
+    public SearchLogRecorder(JdbcTemplate jdbcTemplate,
+                             @Value("${searchlog.buffer-size:4096}") int bufferSize,
+                             @Value("${searchlog.hot-capacity:200}") int hotCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ring = new Entry[Math.max(16, bufferSize)];
+        this.hotAddresses = new HotAddressSketch(hotCapacity);
+    }
+
+    /**
+     * 요청 경로에서 호출 (링 버퍼에 한 칸 쓰기만, DB 접근과 스케치 갱신 없음)
+     * 체인은 ChainClient.supports 와 같은 이름(bitcoin / ethereum, 대소문자 무시)만 기록 → 워밍업이 그대로 재조회 가능
+     */
+    public void record(String chain, String operation, String address) {
+        if (address == null || address.isEmpty()) return;
+        String c = chainName(chain);
+        if (c == null) return;
+        Entry entry = new Entry(c, operation, address, LocalDateTime.now(ZoneOffset.UTC));
+        synchronized (ring) {
+            ring[head] = entry;
+            head = (head + 1) % ring.length;
+            if (size < ring.length) size++;
+            else dropped.incrementAndGet();
+        }
+    }
+
+    // GraphService.toChainType 과 같은 판정, 지원하지 않는 체인(빈 값 포함)은 null
+    static String chainName(String chain) {
+        Integer type;
+        try {
+            type = GraphService.toChainType(chain);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (type == null) return null;
+        return type == 1 ? "bitcoin" : "ethereum";
+    }
+
+    public List<HotAddressDto> hotAddresses(int k) {
+        return hotAddresses.top(Math.max(1, k));
+    }
+
+    @Scheduled(fixedDelayString = "${searchlog.flush-interval-ms:5000}")
+    public void flush() {
+        List<Entry> batch;
+        synchronized (ring) {
+            if (size == 0) return;
+            batch = new ArrayList<>(size);
+            int start = (head - size + ring.length) % ring.length;
+            for (int i = 0; i < size; i++) {
+                int idx = (start + i) % ring.length;
+                batch.add(ring[idx]);
+                ring[idx] = null;
+            }
+            size = 0;
+        }
+
+        for (Entry e : batch) hotAddresses.offer(e.chain, e.address);
+
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, 500, (ps, e) -> {
+                ps.setString(1, e.chain);
+                ps.setString(2, e.operation);
+                ps.setString(3, e.address);
+                ps.setTimestamp(4, Timestamp.valueOf(e.searchedAt));
+            });
+        } catch (Exception ex) {
+            System.out.printf("[WARN] Failed to flush %d search logs: %s%n", batch.size(), ex.getMessage());
+        }
+
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            System.out.printf("[WARN] Search log buffer overflowed, %d entries dropped%n", lost);
+        }
+    }
+
+    // 오래된 조회 비중을 줄여 최근 부하 위주의 top-K 유지
+    @Scheduled(fixedDelayString = "${searchlog.hot-decay-ms:600000}")
+    public void decayHotAddresses() {
+        hotAddresses.decay();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,81 @@
+package com.Django.TraceChain.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * 스트리밍 탐지 모드 (detect.streaming.enabled=true)
+ * - write-behind 커밋마다 TransactionsPersistedEvent 를 받아 debounce 후 증분 탐지 실행
+ * - 증분 탐지는 알림으로 받은 지갑 중 txVersion 이 바뀐 지갑에서 시작해 그 체인 탐지기 반경 안 이웃만 다시 판정
+ *   → 비용이 새 데이터 양에 비례 (알림 밖에서 바뀐 지갑은 /api/detect 증분 탐지가 처리)
+ * - 단일 스레드라 실행이 겹치지 않고, 실행 중 들어온 알림은 다음 한 번으로 합쳐짐
+ * - DetectionRunCoordinator.exclusive 로 실행 → API 요청이나 배치 작업의 탐지와 겹쳐 쓰지 않고, 쓴 결과는 캐시된 실행 결과를 무효화
+ */
+@Service
+public class StreamingDetectionService {
+
+    private final DetectService detectService;
+    private final DetectionRunCoordinator runCoordinator;
+
+    @Value("${detect.streaming.enabled:false}")
+    private boolean enabled;
+
+    // 커밋이 몰릴 때 여러 배치를 한 번의 탐지로 묶는 대기 시간
+    @Value("${detect.streaming.debounce-ms:2000}")
+    private long debounceMs;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "streaming-detect");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public StreamingDetectionService(DetectService detectService, DetectionRunCoordinator runCoordinator) {
+        this.detectService = detectService;
+        this.runCoordinator = runCoordinator;
+    }
+
+    // writer 스레드에서 호출되므로 기록과 예약만 하고 바로 반환
+    @EventListener
+    public void onTransactionsPersisted(TransactionsPersistedEvent event) {
+        if (!enabled || event.getWallets().isEmpty()) return;
+        pending.addAll(event.getWallets());
+        if (scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::detectPending, debounceMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void detectPending() {
+        scheduled.set(false);
+        List<String> seeds = new ArrayList<>(pending);
+        pending.removeAll(seeds);
+        int notified = seeds.size();
+
+        long started = System.currentTimeMillis();
+        try {
+            int evaluated = runCoordinator.exclusive(() -> detectService.runChangedDetectors(seeds));
+            System.out.printf("[STREAM] %d wallets ingested, %d re-evaluated in %d ms%n",
+                    notified, evaluated, System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            System.out.printf("[WARN] Streaming detection failed: %s%n", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
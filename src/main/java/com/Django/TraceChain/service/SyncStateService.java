@@ -0,0 +1,130 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.model.AddressSyncState;
+import com.Django.TraceChain.model.Transaction;
+import com.Django.TraceChain.repository.AddressSyncStateRepository;
+import com.Django.TraceChain.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/*
+ * 주소별 동기화 상태로 "DB만으로 응답 가능한가"를 판단
+ * - 커밋된 상태만 읽음 (상태 갱신은 write-behind writer 가 링크 저장 뒤 같은 트랜잭션에서 반영)
+ *   → 아직 저장되지 않은 데이터를 덮었다고 주장하는 일은 없음
+ * - 겹치거나 맞닿은 구간은 합치고, 떨어진 구간이면 새 구간으로 교체 (보수적: 놓치면 다시 가져올 뿐)
+ */
+@Service
+public class SyncStateService {
+
+    public static final String BITCOIN = "bitcoin";
+    public static final String ETHEREUM = "ethereum";
+
+    private final AddressSyncStateRepository syncStateRepository;
+    private final TransactionRepository transactionRepository;
+    private final WriteBehindQueue writeBehind;
+
+    // head 까지 덮은 상태를 최신으로 간주하는 시간 (이후 새 트랜잭션 가능성)
+    @Value("${sync.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    public SyncStateService(AddressSyncStateRepository syncStateRepository,
+                            TransactionRepository transactionRepository,
+                            WriteBehindQueue writeBehind) {
+        this.syncStateRepository = syncStateRepository;
+        this.transactionRepository = transactionRepository;
+        this.writeBehind = writeBehind;
+    }
+
+    /** 커밋된 상태 (없으면 null) */
+    public AddressSyncState find(String chain, String address) {
+        return syncStateRepository.findByChainAndAddress(chain, address).orElse(null);
+    }
+
+    public boolean isFresh(AddressSyncState s) {
+        return s != null && s.getFetchedAt() != null
+                && s.getFetchedAt().isAfter(LocalDateTime.now(ZoneOffset.UTC).minusSeconds(maxAgeSeconds));
+    }
+
+    /** 최신 limit 개를 DB만으로 응답할 수 있는지 */
+    public boolean coversLatest(AddressSyncState s, int limit) {
+        return s != null && s.reachesHead() && isFresh(s)
+                && (s.isComplete() || s.getFetchedCount() >= limit);
+    }
+
+    /** head 부터 가져오던 것을 cursor 이후부터 이어받을 수 있는지 */
+    public boolean canResume(AddressSyncState s) {
+        return s != null && s.reachesHead() && isFresh(s) && !s.isComplete() && s.getCursor() != null;
+    }
+
+    /**
+     * [start, end] 중 DB에 없는 구간 하나
+     * @return null 이면 전부 DB에 있음, 아니면 {from, to} (한쪽만 비면 그 부분만, 그 외엔 요청 구간 전체)
+     */
+    public long[] missingRange(AddressSyncState s, long start, long end) {
+        if (s == null || s.getCoveredFrom() == null || s.getCoveredTo() == null) return new long[]{start, end};
+
+        long from = s.getCoveredFrom();
+        long to = (s.reachesHead() && isFresh(s)) ? Long.MAX_VALUE : s.getCoveredTo();
+        boolean lowCovered = from <= start;
+        boolean highCovered = to >= end;
+
+        if (lowCovered && highCovered) return null;
+        if (lowCovered && start <= to) return new long[]{to + 1, end};       // 최신 쪽만 빔
+        if (highCovered && end >= from) return new long[]{start, from - 1};  // 과거 쪽만 빔
+        return new long[]{start, end};
+    }
+
+    /** [start, end] 구간의 DB 트랜잭션 (정렬 방향 지정, 최대 limit 개) */
+    public List<Transaction> loadRange(String address, long start, long end, Sort.Direction direction, int limit) {
+        long upper = Math.min(end, epochSecond(LocalDateTime.now(ZoneOffset.UTC)) + 86_400L);
+        return transactionRepository.findByWalletAddressAndTimeRange(address, toTime(Math.max(0L, start)), toTime(upper),
+                PageRequest.of(0, Math.max(1, limit), Sort.by(direction, "timestamp")));
+    }
+
+    /**
+     * 새로 가져온 구간 기록
+     * @param from      이 시각 이후(포함)의 트랜잭션은 모두 DB에 연결됨 (0 = 처음부터)
+     * @param to        이 시각 이전(포함)까지, head 까지 가져왔다면 fetchedAt 의 epoch 초
+     * @param cursor    from 쪽 경계의 txid (없으면 null)
+     * @param headCount head 부터 연속으로 가져온 개수 (head 와 무관한 구간이면 0)
+     */
+    public void record(String chain, String address, AddressSyncState prior,
+                       long from, long to, String cursor, int headCount, LocalDateTime fetchedAt) {
+        AddressSyncState next = new AddressSyncState(chain, address);
+        next.setCoveredFrom(from);
+        next.setCoveredTo(to);
+        next.setCursor(cursor);
+        next.setFetchedCount(headCount);
+        next.setFetchedAt(fetchedAt);
+
+        if (prior != null && prior.getCoveredFrom() != null && prior.getCoveredTo() != null
+                && from <= prior.getCoveredTo() + 1 && prior.getCoveredFrom() <= to + 1) {
+            if (prior.getCoveredFrom() < from) {
+                next.setCoveredFrom(prior.getCoveredFrom());
+                next.setCursor(prior.getCursor());
+            }
+            if (prior.getCoveredTo() > to) {
+                next.setCoveredTo(prior.getCoveredTo());
+                next.setFetchedAt(prior.getFetchedAt());
+            }
+            next.setFetchedCount(Math.max(headCount, prior.getFetchedCount()));
+        }
+        next.setComplete(next.getCoveredFrom() == 0L);
+        writeBehind.enqueueSyncState(next);
+    }
+
+    public static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime toTime(long epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,167 @@
+package com.Django.TraceChain.service;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/*
+ * 위험도(taint) 전파 엔진 (TaintPropagationService 에서 사용)
+ * - 주소를 int 로 색인한 CSR 배열: 역방향(수신 노드별 들어오는 간선) 으로 점수를 당겨오고,
+ *   정방향(송신 노드별 나가는 수신자) 으로 다음 반복에서 다시 계산할 노드를 고름
+ * - haircut 모델: score[r] = max(seed[r], decay * Σ score[s] * amount / inTotal[r])
+ *   (r 이 받은 전체 금액 중 오염된 송신자에게서 온 비율만큼, 홉마다 decay 를 곱해 감쇠)
+ * - 시간 순서: 송신자가 오염된 시각(since) 이후의 간선만 전달 (오염 전에 보낸 돈은 깨끗함)
+ *   탐지된 지갑(seed) 은 처음부터 오염된 것으로 봄
+ * - Jacobi 반복: 직전 반복에서 점수/시각이 바뀐 노드(frontier) 의 수신자만 병렬로 다시 계산하고
+ *   바뀐 값이 epsilon 이하가 되거나 maxIterations 에 닿으면 종료
+ */
+public final class TaintPropagationEngine {
+
+    private final String[] names;
+    private final int n;
+
+    // 역방향 CSR: inStart[r] ~ inStart[r+1]
+    private final int[] inStart;
+    private final int[] inSrc;
+    private final double[] inAmount;
+    private final long[] inTime;
+    private final double[] inTotal; // r 이 받은 전체 금액
+
+    // 정방향 CSR (수신자만, 중복 포함)
+    private final int[] outStart;
+    private final int[] outDst;
+
+    public static final class Result {
+        private final double[] score;
+        private final int iterations;
+        private final boolean converged;
+
+        Result(double[] score, int iterations, boolean converged) {
+            this.score = score;
+            this.iterations = iterations;
+            this.converged = converged;
+        }
+
+        public double[] getScore() { return score; }
+        public int getIterations() { return iterations; }
+        public boolean isConverged() { return converged; }
+    }
+
+    private TaintPropagationEngine(String[] names, int[] src, int[] dst, double[] amount, long[] time, int m) {
+        this.names = names;
+        this.n = names.length;
+        this.inStart = new int[n + 1];
+        this.inSrc = new int[m];
+        this.inAmount = new double[m];
+        this.inTime = new long[m];
+        this.inTotal = new double[n];
+        this.outStart = new int[n + 1];
+        this.outDst = new int[m];
+
+        for (int e = 0; e < m; e++) {
+            inStart[dst[e] + 1]++;
+            outStart[src[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            inStart[v + 1] += inStart[v];
+            outStart[v + 1] += outStart[v];
+        }
+        int[] inPos = Arrays.copyOf(inStart, n);
+        int[] outPos = Arrays.copyOf(outStart, n);
+        for (int e = 0; e < m; e++) {
+            int p = inPos[dst[e]]++;
+            inSrc[p] = src[e];
+            inAmount[p] = amount[e];
+            inTime[p] = time[e];
+            inTotal[dst[e]] += amount[e];
+            outDst[outPos[src[e]]++] = dst[e];
+        }
+    }
+
+    /** 간선 배열 앞 m 개로 생성 (주소 색인은 names 기준, 자기 자신에게 보낸 간선은 호출 측에서 제외) */
+    public static TaintPropagationEngine build(String[] names, int[] src, int[] dst, double[] amount, long[] time, int m) {
+        return new TaintPropagationEngine(names, src, dst, amount, time, m);
+    }
+
+    public int nodeCount() { return n; }
+
+    public int edgeCount() { return inSrc.length; }
+
+    public String name(int v) { return names[v]; }
+
+    public Result propagate(double[] seed, double decay, double minScore, double epsilon, int maxIterations) {
+        double[] score = new double[n];
+        long[] since = new long[n];    // 오염된 가장 이른 시각 (Long.MAX_VALUE = 오염 안 됨)
+        Arrays.fill(since, Long.MAX_VALUE);
+
+        int[] frontier = new int[n];
+        int frontierSize = 0;
+        for (int v = 0; v < n; v++) {
+            if (seed[v] > 0) {
+                score[v] = seed[v];
+                since[v] = Long.MIN_VALUE;
+                frontier[frontierSize++] = v;
+            }
+        }
+
+        int[] stamp = new int[n];      // 반복 번호로 후보 중복 제거 (배열 초기화 없이 재사용)
+        int[] candidates = new int[n];
+        double[] nextScore = new double[n];
+        long[] nextSince = new long[n];
+
+        int iterations = 0;
+        while (frontierSize > 0 && iterations < maxIterations) {
+            iterations++;
+
+            // 1) frontier 의 수신자 = 이번에 다시 계산할 노드 (seed 는 항상 자기 seed 이상이라 제외하지 않음)
+            int count = 0;
+            for (int i = 0; i < frontierSize; i++) {
+                int s = frontier[i];
+                for (int e = outStart[s]; e < outStart[s + 1]; e++) {
+                    int r = outDst[e];
+                    if (stamp[r] != iterations) {
+                        stamp[r] = iterations;
+                        candidates[count++] = r;
+                    }
+                }
+            }
+
+            // 2) 직전 반복 값만 읽어서 후보별 새 값 계산 (Jacobi → 후보끼리 독립, 병렬)
+            final int size = count;
+            IntStream.range(0, size).parallel().forEach(i -> {
+                int r = candidates[i];
+                double sum = 0.0;
+                long first = Long.MAX_VALUE;
+                for (int e = inStart[r]; e < inStart[r + 1]; e++) {
+                    int s = inSrc[e];
+                    if (score[s] <= 0 || inTime[e] < since[s]) continue;
+                    sum += score[s] * inAmount[e];
+                    if (inTime[e] < first) first = inTime[e];
+                }
+                double propagated = inTotal[r] > 0 ? Math.min(1.0, decay * sum / inTotal[r]) : 0.0;
+                if (propagated < minScore) {
+                    propagated = 0.0;
+                    first = Long.MAX_VALUE;
+                }
+                if (seed[r] > 0) {
+                    nextScore[i] = Math.max(seed[r], propagated);
+                    nextSince[i] = Long.MIN_VALUE;
+                } else {
+                    nextScore[i] = propagated;
+                    nextSince[i] = first;
+                }
+            });
+
+            // 3) 반영 + 다음 frontier (바뀐 노드만)
+            frontierSize = 0;
+            for (int i = 0; i < size; i++) {
+                int r = candidates[i];
+                if (Math.abs(nextScore[i] - score[r]) > epsilon || nextSince[i] != since[r]) {
+                    frontier[frontierSize++] = r;
+                }
+                score[r] = nextScore[i];
+                since[r] = nextSince[i];
+            }
+        }
+        return new Result(score, iterations, frontierSize == 0);
+    }
+}
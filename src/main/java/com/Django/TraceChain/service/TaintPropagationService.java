@@ -0,0 +1,189 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.dto.TaintSummaryDto;
+import com.Django.TraceChain.model.Wallet;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * 탐지 결과(패턴 수)를 출발점으로 transfers 그래프를 따라 위험도 전파 → wallets.taint_score
+ * - 그래프는 엔티티를 거치지 않고 JDBC 로 (sender, receiver, amount, timestamp) 만 스트리밍해서 원시 배열로 구성
+ * - seed = min(1, patternCnt / taint.seed-saturation)
+ * - 전파 모델/반복은 TaintPropagationEngine 참고
+ * - 저장은 한 트랜잭션: 점수가 바뀐 행만 JDBC batch (새로 0 이 된 지갑 포함, updated_at = now UTC), 커밋 뒤 wallets 2차 캐시 영역 제거
+ *   같은 그래프로 다시 돌리면 아무 행도 바뀌지 않음 → updatedSince 폴링이 매번 전체 오염 지갑을 받지 않음
+ * - 동시에 한 번만 실행 (이미 실행 중이면 IllegalStateException)
+ */
+@Service
+public class TaintPropagationService {
+
+    private static final String EDGE_SQL =
+            "SELECT tr.sender, tr.receiver, tr.amount, t.timestamp FROM transfers tr " +
+            "JOIN transactions t ON t.transaction_id = tr.transaction_id";
+    private static final String SEED_SQL = "SELECT address, pattern_cnt FROM wallets WHERE pattern_cnt > 0";
+    private static final String TAINTED_SQL = "SELECT address FROM wallets WHERE taint_score <> 0";
+    private static final String UPDATE_SQL =
+            "UPDATE wallets SET taint_score = ?, updated_at = ? WHERE address = ? AND taint_score <> ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${taint.decay:0.9}")
+    private double decay;               // 홉마다 곱하는 감쇠
+
+    @Value("${taint.seed-saturation:2}")
+    private int seedSaturation;         // 이 개수 이상의 패턴이면 seed = 1
+
+    @Value("${taint.min-score:0.001}")
+    private double minScore;            // 이보다 작은 전파 점수는 0 (그래프 끝까지 퍼지는 것 방지)
+
+    @Value("${taint.epsilon:0.000001}")
+    private double epsilon;             // 수렴 판정
+
+    @Value("${taint.max-iterations:50}")
+    private int maxIterations;
+
+    @Value("${taint.batch-size:1000}")
+    private int batchSize;
+
+    public TaintPropagationService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        // MySQL 드라이버는 fetchSize = Integer.MIN_VALUE 일 때만 결과를 메모리에 전부 올리지 않고 행 단위로 읽음
+        this.streamingJdbcTemplate = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public TaintSummaryDto propagate() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Taint propagation is already running");
+        }
+        try {
+            return run();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private TaintSummaryDto run() {
+        long t0 = System.nanoTime();
+        EdgeLoader loader = new EdgeLoader();
+        streamingJdbcTemplate.query(EDGE_SQL, rs -> {
+            String sender = rs.getString(1);
+            String receiver = rs.getString(2);
+            if (sender == null || receiver == null || sender.equals(receiver)) return;
+            BigDecimal amount = rs.getBigDecimal(3);
+            Timestamp ts = rs.getTimestamp(4);
+            if (amount == null || amount.signum() <= 0 || ts == null) return;
+            loader.add(sender, receiver, amount.doubleValue(), ts.toLocalDateTime().toEpochSecond(ZoneOffset.UTC));
+        });
+
+        // 간선이 없는 탐지 지갑도 seed 로는 남김 (자기 점수는 저장)
+        Map<String, Double> seeds = new HashMap<>();
+        int saturation = Math.max(1, seedSaturation);
+        jdbcTemplate.query(SEED_SQL, rs -> {
+            seeds.put(rs.getString(1), Math.min(1.0, rs.getInt(2) / (double) saturation));
+        });
+        for (String address : seeds.keySet()) loader.index(address);
+
+        TaintPropagationEngine engine = loader.build();
+        double[] seed = new double[engine.nodeCount()];
+        seeds.forEach((address, s) -> seed[loader.ids.get(address)] = s);
+
+        long t1 = System.nanoTime();
+        TaintPropagationEngine.Result result = engine.propagate(seed, decay, minScore, epsilon, maxIterations);
+        long t2 = System.nanoTime();
+
+        double[] score = result.getScore();
+        List<Object[]> rows = new ArrayList<>();
+        for (int v = 0; v < score.length; v++) {
+            if (score[v] > 0) rows.add(new Object[]{score[v], engine.name(v)});
+        }
+        // 이전 실행에서 오염됐지만 이번에는 0 인 지갑
+        Set<String> tainted = new HashSet<>(rows.size() * 2);
+        for (Object[] row : rows) tainted.add((String) row[1]);
+        streamingJdbcTemplate.query(TAINTED_SQL, rs -> {
+            String address = rs.getString(1);
+            if (!tainted.contains(address)) rows.add(new Object[]{0.0, address});
+        });
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, rows, batchSize, (ps, row) -> {
+                ps.setDouble(1, (Double) row[0]);
+                ps.setObject(2, now);
+                ps.setString(3, (String) row[1]);
+                ps.setDouble(4, (Double) row[0]);
+            });
+        });
+        // JDBC 로 바꾼 컬럼이라 캐시된 Wallet 은 옛 점수를 들고 있음
+        entityManager.getEntityManagerFactory().getCache().evict(Wallet.class);
+        long t3 = System.nanoTime();
+
+        if (!result.isConverged()) {
+            System.out.printf("[WARN] Taint propagation stopped at %d iterations before converging%n", result.getIterations());
+        }
+        System.out.printf("[TAINT] %d nodes, %d edges, %d seeds → %d tainted in %d iterations: load %d ms, propagate %d ms, save %d ms%n",
+                engine.nodeCount(), engine.edgeCount(), seeds.size(), tainted.size(), result.getIterations(),
+                (t1 - t0) / 1_000_000, (t2 - t1) / 1_000_000, (t3 - t2) / 1_000_000);
+
+        return new TaintSummaryDto(engine.nodeCount(), engine.edgeCount(), seeds.size(), result.getIterations(),
+                result.isConverged(), tainted.size(), (t3 - t0) / 1_000_000);
+    }
+
+    // 주소 → int 색인 + 늘어나는 간선 배열
+    private static final class EdgeLoader {
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> names = new ArrayList<>();
+        int[] src = new int[1024];
+        int[] dst = new int[1024];
+        double[] amount = new double[1024];
+        long[] time = new long[1024];
+        int m;
+
+        int index(String address) {
+            Integer id = ids.get(address);
+            if (id == null) {
+                id = names.size();
+                ids.put(address, id);
+                names.add(address);
+            }
+            return id;
+        }
+
+        void add(String sender, String receiver, double value, long epochSecond) {
+            if (m == src.length) {
+                int cap = m << 1;
+                src = Arrays.copyOf(src, cap);
+                dst = Arrays.copyOf(dst, cap);
+                amount = Arrays.copyOf(amount, cap);
+                time = Arrays.copyOf(time, cap);
+            }
+            src[m] = index(sender);
+            dst[m] = index(receiver);
+            amount[m] = value;
+            time[m] = epochSecond;
+            m++;
+        }
+
+        TaintPropagationEngine build() {
+            return TaintPropagationEngine.build(names.toArray(new String[0]), src, dst, amount, time, m);
+        }
+    }
+}
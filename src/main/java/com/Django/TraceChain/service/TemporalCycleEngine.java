@@ -0,0 +1,245 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.service.DetectionSnapshot.TransferSnapshot;
+import com.Django.TraceChain.service.DetectionSnapshot.TxSnapshot;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/*
+ * 시간 순서 사이클 탐색 엔진 (AbstractLoopingDetector 의 체인별 하위 클래스 공용)
+ * - 주소를 int 로 색인한 CSR 인접 배열 (정방향: 출발 노드별 시간순, 역방향: 도착 노드별)
+ * - 사이클 = 시작 노드에서 나가 시각이 엄격히 증가하는 간선으로 minLen~maxLen 개를 거쳐 되돌아옴 (노드 중복 없음)
+ *   시각이 증가하므로 사이클마다 시작 노드는 "가장 이른 간선의 출발점" 하나뿐 → 모든 노드를 시작점으로 한 번씩 보면 전부 찾음
+ * - 시작점별 가지치기: 역방향으로 maxLen 홉 안에 시작점에 닿는 노드만, 남은 홉 수(dist)와
+ *   그 노드를 늦어도 언제 떠나야 시작점에 닿는지(late) 상한으로 제한
+ * - DFS 는 재귀/컬렉션 복사 없이 고정 크기 스택 배열 + epoch 스탬프 배열(스레드별 재사용)로 수행
+ * - 찾은 사이클의 모든 노드를 표시 (시작 지갑만이 아니라 참여 지갑 전부)
+ */
+public final class TemporalCycleEngine {
+
+    private final String[] names;
+    private final int n;
+
+    // 정방향 CSR: outStart[v] ~ outStart[v+1], 간선은 시각 오름차순
+    private final int[] outStart;
+    private final int[] outDst;
+    private final long[] outTime;
+
+    // 역방향 CSR
+    private final int[] inStart;
+    private final int[] inSrc;
+    private final long[] inTime;
+    private final long[] lastIn;   // 노드로 들어오는 가장 늦은 간선 시각
+
+    private final int minLen;
+    private final int maxLen;
+
+    private TemporalCycleEngine(String[] names, int[] src, int[] dst, long[] time, int m, int minLen, int maxLen) {
+        this.names = names;
+        this.n = names.length;
+        this.minLen = minLen;
+        this.maxLen = maxLen;
+
+        // 간선은 시각 오름차순으로 들어오므로 안정 counting sort 만으로 노드별 시간순 유지
+        this.outStart = new int[n + 1];
+        this.outDst = new int[m];
+        this.outTime = new long[m];
+        this.inStart = new int[n + 1];
+        this.inSrc = new int[m];
+        this.inTime = new long[m];
+        this.lastIn = new long[n];
+        Arrays.fill(lastIn, Long.MIN_VALUE);
+
+        for (int e = 0; e < m; e++) {
+            outStart[src[e] + 1]++;
+            inStart[dst[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            outStart[v + 1] += outStart[v];
+            inStart[v + 1] += inStart[v];
+        }
+        int[] outPos = Arrays.copyOf(outStart, n);
+        int[] inPos = Arrays.copyOf(inStart, n);
+        for (int e = 0; e < m; e++) {
+            int o = outPos[src[e]]++;
+            outDst[o] = dst[e];
+            outTime[o] = time[e];
+            int i = inPos[dst[e]]++;
+            inSrc[i] = src[e];
+            inTime[i] = time[e];
+            if (time[e] > lastIn[dst[e]]) lastIn[dst[e]] = time[e];
+        }
+    }
+
+    /** 스냅샷의 (중복 없는, 시간순) 트랜잭션으로 그래프 구성 */
+    public static TemporalCycleEngine build(DetectionSnapshot snapshot, int minLen, int maxLen) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        int cap = 1024, m = 0;
+        int[] src = new int[cap], dst = new int[cap];
+        long[] time = new long[cap];
+
+        Set<Long> seenInTx = new HashSet<>();
+        for (TxSnapshot tx : snapshot.getTransactions()) {
+            seenInTx.clear();
+            for (TransferSnapshot t : tx.getTransfers()) {
+                String s = t.getSender(), r = t.getReceiver();
+                if (s == null || r == null || s.equals(r)) continue;
+                int si = ids.computeIfAbsent(s, k -> { names.add(k); return names.size() - 1; });
+                int ri = ids.computeIfAbsent(r, k -> { names.add(k); return names.size() - 1; });
+                if (!seenInTx.add(((long) si << 32) | (ri & 0xffffffffL))) continue; // 같은 tx 안의 중복 간선
+
+                if (m == cap) {
+                    cap <<= 1;
+                    src = Arrays.copyOf(src, cap);
+                    dst = Arrays.copyOf(dst, cap);
+                    time = Arrays.copyOf(time, cap);
+                }
+                src[m] = si;
+                dst[m] = ri;
+                time[m] = tx.getTimestamp();
+                m++;
+            }
+        }
+        return new TemporalCycleEngine(names.toArray(new String[0]), src, dst, time, m, minLen, maxLen);
+    }
+
+    public int nodeCount() { return n; }
+    public int edgeCount() { return outDst.length; }
+
+    /** 길이 minLen~maxLen 의 시간 순서 사이클에 한 번이라도 포함된 주소 */
+    public Set<String> findCycleParticipants() {
+        boolean[] onCycle = new boolean[n];
+        ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(Workspace::new);
+
+        // 시작점별 탐색은 서로 독립 (onCycle 은 true 쓰기만 하므로 경쟁 무해, 스트림 종료가 가시성 보장)
+        IntStream.range(0, n).parallel()
+                .filter(s -> outStart[s + 1] > outStart[s] && inStart[s + 1] > inStart[s])
+                .forEach(s -> workspaces.get().search(s, onCycle));
+
+        Set<String> result = new HashSet<>();
+        for (int v = 0; v < n; v++) {
+            if (onCycle[v]) result.add(names[v]);
+        }
+        return result;
+    }
+
+    // 스레드별 재사용 작업 공간 (시작점마다 epoch 만 올려서 초기화 비용 없음)
+    private final class Workspace {
+        final int[] stamp = new int[n];      // == epoch 이면 이번 시작점의 역방향 범위 안
+        final int[] dist = new int[n];       // 시작점까지 최소 홉 수
+        final long[] late = new long[n];     // 이 노드를 떠나 시작점에 닿을 수 있는 가장 늦은 출발 시각
+        final int[] onStack = new int[n];    // == epoch 이면 현재 DFS 경로 위
+        final int[] queued = new int[n];     // 역방향 BFS 층별 중복 방지
+        int[] frontier = new int[16];
+        int[] next = new int[16];
+
+        final int[] stackNode = new int[maxLen + 1];
+        final int[] stackPos = new int[maxLen + 1];
+        final long[] stackTime = new long[maxLen + 1];
+        int epoch;
+        int layer;
+
+        void search(int s, boolean[] onCycle) {
+            epoch++;
+            if (!reverseBound(s)) return;
+
+            long deadline = lastIn[s]; // 이보다 늦게 출발하면 돌아올 간선이 없음
+            int depth = 0;
+            stackNode[0] = s;
+            stackPos[0] = outStart[s];
+            stackTime[0] = Long.MIN_VALUE;
+            onStack[s] = epoch;
+
+            while (depth >= 0) {
+                int v = stackNode[depth];
+                int pos = stackPos[depth];
+                if (pos >= outStart[v + 1] || outTime[pos] > deadline) {
+                    onStack[v] = 0;
+                    depth--;
+                    continue;
+                }
+                stackPos[depth] = pos + 1;
+
+                int u = outDst[pos];
+                long t = outTime[pos];
+                int nextDepth = depth + 1;
+
+                if (u == s) {
+                    if (nextDepth >= minLen) {
+                        for (int i = 0; i <= depth; i++) onCycle[stackNode[i]] = true;
+                    }
+                    continue;
+                }
+                if (nextDepth >= maxLen) continue;                       // 돌아올 간선 자리가 없음
+                if (stamp[u] != epoch) continue;                         // maxLen 홉 안에 시작점에 못 닿음
+                if (nextDepth + dist[u] > maxLen) continue;
+                if (t >= late[u]) continue;                              // u 에서 더 늦게 떠날 간선이 없음
+                if (onStack[u] == epoch) continue;                       // 단순 경로만
+
+                depth = nextDepth;
+                stackNode[depth] = u;
+                stackTime[depth] = t;
+                stackPos[depth] = firstAfter(u, t);
+                onStack[u] = epoch;
+            }
+        }
+
+        // 역방향 층별 완화: 시작점으로 (maxLen - 1) 홉 안에 시간 순서로 닿는 노드의 dist / late 상한
+        // 홉 수를 섞어 최댓값을 취하므로 실제보다 느슨한 상한 → 유효한 사이클을 잘라내지 않음
+        boolean reverseBound(int s) {
+            stamp[s] = epoch;
+            dist[s] = 0;
+            late[s] = Long.MAX_VALUE;
+            int fSize = 1;
+            frontier[0] = s;
+            boolean reached = false;
+
+            for (int h = 1; h < maxLen && fSize > 0; h++) {
+                layer++;
+                int nSize = 0;
+                for (int f = 0; f < fSize; f++) {
+                    int v = frontier[f];
+                    for (int i = inStart[v]; i < inStart[v + 1]; i++) {
+                        int w = inSrc[i];
+                        long t = inTime[i];
+                        if (w == s) continue;
+                        if (v != s && t >= late[v]) continue;
+                        if (stamp[w] != epoch) {
+                            stamp[w] = epoch;
+                            dist[w] = h;
+                            late[w] = t;
+                        } else if (t > late[w]) {
+                            late[w] = t;
+                        } else {
+                            continue;
+                        }
+                        reached = true;
+                        if (queued[w] != layer) {
+                            queued[w] = layer;
+                            if (nSize == next.length) next = Arrays.copyOf(next, nSize << 1);
+                            next[nSize++] = w;
+                        }
+                    }
+                }
+                int[] tmp = frontier;
+                frontier = next;
+                next = tmp;
+                fSize = nSize;
+            }
+            return reached;
+        }
+
+        // v 의 출발 간선 중 시각이 t 보다 큰 첫 위치 (간선이 시간순이므로 이분 탐색)
+        int firstAfter(int v, long t) {
+            int lo = outStart[v], hi = outStart[v + 1];
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (outTime[mid] <= t) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+    }
+}
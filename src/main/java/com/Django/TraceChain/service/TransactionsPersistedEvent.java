@@ -0,0 +1,25 @@
+package com.Django.TraceChain.service;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/*
+ * write-behind 배치 커밋 후 발행
+ * - wallets: 새 트랜잭션 연결이 실제로 추가된 지갑 주소
+ * - transactionIds: 이번 배치에서 처음 저장된 트랜잭션 txID
+ * 지갑 생성/잔액 갱신만 있던 배치는 두 집합 모두 비어 있음 (무언가 커밋됐다는 알림만)
+ */
+public final class TransactionsPersistedEvent {
+
+    private final Set<String> wallets;
+    private final Set<String> transactionIds;
+
+    public TransactionsPersistedEvent(Set<String> wallets, Set<String> transactionIds) {
+        this.wallets = Collections.unmodifiableSet(new LinkedHashSet<>(wallets));
+        this.transactionIds = Collections.unmodifiableSet(new LinkedHashSet<>(transactionIds));
+    }
+
+    public Set<String> getWallets() { return wallets; }
+    public Set<String> getTransactionIds() { return transactionIds; }
+}
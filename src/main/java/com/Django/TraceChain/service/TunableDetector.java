@@ -0,0 +1,19 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.component.DetectorProperties;
+
+/*
+ * 파라미터 sweep 을 지원하는 탐지기
+ * - prepare : 스냅샷에서 임계값과 무관한 특징 추출 (비싼 부분, featureKey 가 같은 설정끼리 공유)
+ * - evaluate: 추출된 특징에 임계값만 적용 (싼 부분, 설정마다 실행)
+ * - detect(snapshot) 는 운영 설정으로 prepare → evaluate
+ */
+public interface TunableDetector<F> extends MixingDetector {
+
+	/** prepare 결과에 영향을 주는 파라미터 값 (equals 로 비교) */
+	Object featureKey(DetectorProperties props);
+
+	F prepare(DetectionSnapshot snapshot, DetectorProperties props);
+
+	PatternResult evaluate(DetectionSnapshot snapshot, F features, DetectorProperties props);
+}
@@ -19,13 +19,16 @@ public class WalletService {
     private final AccessToken accessToken;
     private final List<ChainClient> chainClients;
     private final WalletRepository walletRepository;
+    private final WriteBehindQueue writeBehind;
 
     public WalletService(AccessToken accessToken,
                          List<ChainClient> chainClients,
-                         WalletRepository walletRepository) {
+                         WalletRepository walletRepository,
+                         WriteBehindQueue writeBehind) {
         this.accessToken = accessToken;
         this.chainClients = chainClients;
         this.walletRepository = walletRepository;
+        this.writeBehind = writeBehind;
     }
 
     public ChainClient getClient(String chainType) {
@@ -62,6 +65,12 @@ public class WalletService {
     }
 
 
+    // write-behind 큐에 쌓인 데이터가 DB에 반영될 때까지 대기 (응답 전에 내구성이 필요할 때)
+    // 반영이 보장되지 않으면 WriteBehindFlushException
+    public void awaitPersisted() {
+        writeBehind.flush();
+    }
+
     public ChainClient resolveClient(String chainType) {
         return getClient(chainType);
     }
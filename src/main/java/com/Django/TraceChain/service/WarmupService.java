@@ -0,0 +1,226 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.dto.HotAddressDto;
+import com.Django.TraceChain.model.Transaction;
+import com.Django.TraceChain.model.Transfer;
+import com.Django.TraceChain.repository.SearchLogRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * 인기 주소 warm-up
+ * - 기동 직후(ApplicationReadyEvent)와 주기적으로, watchlist + 최근 조회 상위 주소와 1-hop 이웃을 미리 동기화
+ * - 동기화는 클라이언트의 getTransactions 그대로 사용 → sync-state 로 이미 덮인 주소는 DB만 읽고, 아니면 빈 부분만 가져옴
+ * - 낮은 우선순위 단일 스레드 + 초당 주소 동기화 수 제한으로 사용자 요청의 upstream 예산을 침범하지 않음
+ *   제한 단위는 클라이언트 호출(findAddress, getTransactions)이지 HTTP 요청이 아님
+ *   → 이미 덮인 주소는 HTTP 0회, 빈 구간이 길면 getTransactions 한 번이 여러 페이지를 요청할 수 있음 (tx-limit 으로 상한)
+ * - 주소마다 별도 트랜잭션(REQUIRES_NEW)에서 동기화 → 한 주소의 실패가 FrontierTracer 의 단위 트랜잭션을
+ *   rollback-only 로 만들어 warm-up 전체가 UnexpectedRollbackException 으로 끝나는 일이 없음
+ */
+@Service
+public class WarmupService {
+
+    private final WalletService walletService;
+    private final SearchLogRepository searchLogRepository;
+    private final SearchLogRecorder searchLogRecorder;
+    private final FrontierTracer frontierTracer;
+    private final TransactionTemplate perAddress;
+
+    // "chain:address" 목록 (예: bitcoin:bc1q..., ethereum:0xabc...)
+    @Value("${warmup.watchlist:}")
+    private List<String> watchlist;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.top-n:20}")
+    private int topN;
+
+    @Value("${warmup.lookback-hours:24}")
+    private long lookbackHours;
+
+    @Value("${warmup.tx-limit:50}")
+    private int txLimit;
+
+    @Value("${warmup.neighbors-per-address:10}")
+    private int neighborsPerAddress;
+
+    // warm-up 이 쓰는 초당 클라이언트 호출 상한 (사용자 요청 몫은 남겨둠, HTTP 요청 수와의 관계는 위 설명 참고)
+    @Value("${warmup.requests-per-second:2}")
+    private double requestsPerSecond;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "cache-warmup");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private long nextRequestAt;
+
+    public WarmupService(WalletService walletService,
+                         SearchLogRepository searchLogRepository,
+                         SearchLogRecorder searchLogRecorder,
+                         FrontierTracer frontierTracer,
+                         PlatformTransactionManager transactionManager) {
+        this.walletService = walletService;
+        this.searchLogRepository = searchLogRepository;
+        this.searchLogRecorder = searchLogRecorder;
+        this.frontierTracer = frontierTracer;
+        this.perAddress = new TransactionTemplate(transactionManager);
+        this.perAddress.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.perAddress.setReadOnly(true); // 쓰기는 write-behind 큐가 담당
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        submit("startup");
+    }
+
+    @Scheduled(initialDelayString = "${warmup.interval-ms:900000}", fixedDelayString = "${warmup.interval-ms:900000}")
+    public void warmUpPeriodically() {
+        submit("scheduled");
+    }
+
+    private void submit(String reason) {
+        if (!enabled) return;
+        if (!running.compareAndSet(false, true)) return; // 이전 warm-up 이 아직 진행 중
+        executor.submit(() -> {
+            try {
+                warmUp(reason);
+            } catch (Exception e) {
+                System.out.printf("[WARN] Warm-up (%s) failed: %s%n", reason, e.getMessage());
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    private void warmUp(String reason) {
+        long started = System.currentTimeMillis();
+        List<String[]> targets = selectTargets();
+        Set<String> visited = new HashSet<>();
+
+        for (String[] target : targets) {
+            if (Thread.currentThread().isInterrupted()) break;
+            String chain = target[0];
+            String root = target[1];
+            ChainClient client;
+            try {
+                client = walletService.getClient(chain);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+
+            // 깊이 0: 대상 주소, 깊이 1: 이웃 (단위 트랜잭션은 FrontierTracer 가 관리)
+            frontierTracer.trace(root, 0, 1, visited, (address, depth) -> syncAddress(client, address, depth == 0));
+        }
+        System.out.printf("[WARMUP] %s: %d targets, %d addresses synced in %d ms%n",
+                reason, targets.size(), visited.size(), System.currentTimeMillis() - started);
+    }
+
+    // 동기화하고 (withNeighbors 면) 이웃 주소 반환, 트랜잭션 엔티티는 안쪽 트랜잭션 밖으로 내보내지 않음
+    private List<String> syncAddress(ChainClient client, String address, boolean withNeighbors) {
+        try {
+            pace();
+            // 실패로 rollback-only 가 된 안쪽 트랜잭션은 여기서 예외로 끝나고 바깥 단위 트랜잭션은 영향 없음
+            List<String> neighbors = perAddress.execute(status -> {
+                client.findAddress(address);
+                try {
+                    pace();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return List.of();
+                }
+                List<Transaction> txs = client.getTransactions(address, txLimit);
+                return withNeighbors ? neighbors(txs, address) : List.<String>of();
+            });
+            return neighbors == null ? List.of() : neighbors;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        } catch (Exception e) {
+            System.out.printf("[WARN] Warm-up sync failed for %s: %s%n", address, e.getMessage());
+            return List.of();
+        }
+    }
+
+    // 거래 상대 중 자주 등장하는 순으로 neighborsPerAddress 개
+    private List<String> neighbors(List<Transaction> txs, String self) {
+        Map<String, Integer> freq = new HashMap<>();
+        for (Transaction tx : txs) {
+            for (Transfer t : tx.getTransfers()) {
+                if (t.getSender() != null && !t.getSender().equals(self)) freq.merge(t.getSender(), 1, Integer::sum);
+                if (t.getReceiver() != null && !t.getReceiver().equals(self)) freq.merge(t.getReceiver(), 1, Integer::sum);
+            }
+        }
+        return freq.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(neighborsPerAddress)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    // watchlist 전부 + 저장된 조회 이력 상위 → 메모리 hot 주소 스케치 순으로 topN 개
+    private List<String[]> selectTargets() {
+        Map<String, String[]> targets = new LinkedHashMap<>();
+        if (watchlist != null) {
+            for (String entry : watchlist) {
+                int sep = entry.indexOf(':');
+                if (sep <= 0 || sep == entry.length() - 1) continue;
+                String chain = entry.substring(0, sep).trim().toLowerCase();
+                String address = entry.substring(sep + 1).trim();
+                targets.putIfAbsent(chain + ":" + address, new String[]{chain, address});
+            }
+        }
+
+        List<HotAddressDto> ranked = new ArrayList<>();
+        try {
+            LocalDateTime since = LocalDateTime.now(ZoneOffset.UTC).minusHours(lookbackHours);
+            ranked.addAll(searchLogRepository.findTopAddresses(since, PageRequest.of(0, Math.max(1, topN))));
+        } catch (Exception e) {
+            System.out.printf("[WARN] Warm-up could not read search history: %s%n", e.getMessage());
+        }
+        ranked.addAll(searchLogRecorder.hotAddresses(topN));
+
+        for (HotAddressDto h : ranked) {
+            if (targets.size() >= topN + watchlistSize()) break;
+            if (h.getChain() == null || h.getChain().isEmpty()) continue;
+            targets.putIfAbsent(h.getChain() + ":" + h.getAddress(), new String[]{h.getChain(), h.getAddress()});
+        }
+        return new ArrayList<>(targets.values());
+    }
+
+    private int watchlistSize() {
+        return watchlist == null ? 0 : watchlist.size();
+    }
+
+    // 클라이언트 호출 사이를 초당 requestsPerSecond 회 간격으로 유지
+    private void pace() throws InterruptedException {
+        if (requestsPerSecond <= 0) return;
+        long interval = (long) (1000 / requestsPerSecond);
+        long now = System.currentTimeMillis();
+        if (nextRequestAt > now) Thread.sleep(nextRequestAt - now);
+        nextRequestAt = Math.max(now, nextRequestAt) + interval;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
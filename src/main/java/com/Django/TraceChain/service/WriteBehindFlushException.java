@@ -0,0 +1,17 @@
+package com.Django.TraceChain.service;
+
+/*
+ * write-behind flush barrier 실패
+ * - barrier 전에 넣은 항목 중 커밋되지 못하고 버려진 것이 있거나, 제한 시간 안에 barrier 까지 처리되지 않았을 때
+ * durable 응답은 이 예외를 5xx 로 돌려줘야 함 (반영되지 않은 데이터를 성공으로 응답하지 않도록)
+ */
+public class WriteBehindFlushException extends RuntimeException {
+
+    public WriteBehindFlushException(String message) {
+        super(message);
+    }
+
+    public WriteBehindFlushException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
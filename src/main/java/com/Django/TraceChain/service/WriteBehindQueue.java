@@ -0,0 +1,478 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.model.AddressSyncState;
+import com.Django.TraceChain.model.Transaction;
+import com.Django.TraceChain.model.Transfer;
+import com.Django.TraceChain.model.Wallet;
+import com.Django.TraceChain.repository.AddressSyncStateRepository;
+import com.Django.TraceChain.repository.TransactionRepository;
+import com.Django.TraceChain.repository.WalletRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.*;
+
+/*
+ * Write-behind 저장 단계
+ * - 클라이언트는 API에서 가져온 지갑/트랜잭션/지갑-트랜잭션 연결을 큐에 넣고 바로 추적을 계속함 (메모리 결과 사용)
+ * - 단일 writer 스레드가 큐를 비우면서 주소를 가로질러 같은 행을 합치고(coalesce), 크기/시간 기준으로 한 트랜잭션에 flush
+ * - 주소 동기화 상태(AddressSyncState)는 링크 뒤에 같은 트랜잭션으로 저장 → 상태가 데이터보다 앞서지 않음
+ * - 지갑은 새 주소만 엔티티로 저장, 이미 있는 주소는 잔액 컬럼만 UPDATE
+ *   (탐지 결과/위험도 컬럼은 PatternResultWriter, TaintPropagationService 가 SQL 로 쓰므로 건드리지 않음)
+ * - 새 연결이 실제로 들어간 지갑은 txVersion 을 올려 증분 탐지가 다시 판정하게 함
+ *   커밋 뒤에는 TransactionsPersistedEvent 로 알림 (스트리밍 탐지, 주소 클러스터링이 구독)
+ * - flush() 는 호출 시점까지 넣은 데이터가 DB에 반영될 때까지 기다리는 barrier
+ *   직전 barrier 이후 버려진 항목이 있거나 제한 시간을 넘기면 WriteBehindFlushException
+ */
+@Service
+public class WriteBehindQueue {
+
+    // wallet_transaction 은 유니크 제약이 없어서 존재하지 않을 때만 삽입
+    private static final String INSERT_LINK_SQL =
+            "INSERT INTO wallet_transaction (wallet_address, transaction_id) " +
+            "SELECT ?, ? FROM DUAL WHERE NOT EXISTS " +
+            "(SELECT 1 FROM wallet_transaction WHERE wallet_address = ? AND transaction_id = ?)";
+
+    // 이미 있는 지갑은 잔액만 갱신 (엔티티 전체를 다시 쓰면 탐지/위험도 컬럼을 캐시의 옛 값으로 덮을 수 있음)
+    // 값이 같으면 0행 → updated_at 도 그대로
+    private static final String UPDATE_BALANCE_SQL =
+            "UPDATE wallets SET balance = ?, updated_at = ? WHERE address = ? AND balance <> ?";
+
+    private static final String WALLET_TRANSACTIONS_ROLE = Wallet.class.getName() + ".transactions";
+
+    private final WalletRepository walletRepository;
+    private final TransactionRepository transactionRepository;
+    private final AddressSyncStateRepository syncStateRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${writebehind.capacity:10000}")
+    private int capacity;
+
+    @Value("${writebehind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${writebehind.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${writebehind.barrier-timeout-ms:30000}")
+    private long barrierTimeoutMs;
+
+    private BlockingQueue<Object> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    // 아직 flush 되지 않은 지갑 (findAddress 가 API를 다시 부르지 않도록)
+    private final Map<String, PendingWallet> pendingWallets = new ConcurrentHashMap<>();
+
+    // 직전 barrier 이후 커밋되지 못한 항목/배치 (writer 스레드만 접근, 다음 barrier 가 실패로 보고하고 비움)
+    private final List<String> failures = new ArrayList<>();
+
+    public WriteBehindQueue(WalletRepository walletRepository,
+                            TransactionRepository transactionRepository,
+                            AddressSyncStateRepository syncStateRepository,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            ApplicationEventPublisher eventPublisher) {
+        this.walletRepository = walletRepository;
+        this.transactionRepository = transactionRepository;
+        this.syncStateRepository = syncStateRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    // ===== 큐 항목 =====
+
+    static final class PendingWallet {
+        final String address;
+        final int type;
+        final BigDecimal balance; // null 이면 이미 있는 지갑의 잔액은 건드리지 않음
+        PendingWallet(String address, int type, BigDecimal balance) {
+            this.address = address; this.type = type; this.balance = balance;
+        }
+    }
+
+    static final class PendingTransfer {
+        final String sender;
+        final String receiver;
+        final BigDecimal amount;
+        final boolean input;
+        PendingTransfer(String sender, String receiver, BigDecimal amount, boolean input) {
+            this.sender = sender; this.receiver = receiver; this.amount = amount; this.input = input;
+        }
+    }
+
+    static final class PendingTransaction {
+        final String txID;
+        final BigDecimal amount;
+        final LocalDateTime timestamp;
+        final List<PendingTransfer> transfers;
+        PendingTransaction(Transaction tx) {
+            this.txID = tx.getTxID();
+            this.amount = tx.getAmount();
+            this.timestamp = tx.getTimestamp();
+            List<PendingTransfer> list = new ArrayList<>(tx.getTransfers().size());
+            for (Transfer t : tx.getTransfers()) {
+                list.add(new PendingTransfer(t.getSender(), t.getReceiver(), t.getAmount(), t.isInput()));
+            }
+            this.transfers = list;
+        }
+        Transaction toEntity() {
+            Transaction tx = new Transaction(txID, amount, timestamp);
+            for (PendingTransfer t : transfers) {
+                tx.addTransfer(new Transfer(tx, t.sender, t.receiver, t.amount, t.input));
+            }
+            return tx;
+        }
+    }
+
+    static final class PendingLink {
+        final String address;
+        final int type; // 지갑 행이 없으면 이 타입으로 빈 지갑 생성
+        final String txID;
+        PendingLink(String address, int type, String txID) {
+            this.address = address; this.type = type; this.txID = txID;
+        }
+    }
+
+    static final class FlushBarrier {
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+    }
+
+    // 주소를 가로질러 합쳐진 한 번의 flush 단위
+    static final class Batch {
+        final Map<String, PendingWallet> wallets = new LinkedHashMap<>();
+        final Map<String, PendingTransaction> transactions = new LinkedHashMap<>();
+        final Map<String, Integer> linkWalletTypes = new LinkedHashMap<>();
+        final Set<List<String>> links = new LinkedHashSet<>();
+        final Map<String, AddressSyncState> syncStates = new LinkedHashMap<>();
+        int size;
+
+        void add(Object item) {
+            if (item instanceof PendingWallet w) {
+                wallets.merge(w.address, w, (a, b) -> b.balance != null ? b : a);
+            } else if (item instanceof PendingTransaction t) {
+                transactions.putIfAbsent(t.txID, t);
+            } else if (item instanceof PendingLink l) {
+                linkWalletTypes.putIfAbsent(l.address, l.type);
+                links.add(List.of(l.address, l.txID));
+            } else if (item instanceof AddressSyncState s) {
+                syncStates.put(s.getChain() + ":" + s.getAddress(), s); // 나중 상태가 이김
+            }
+            size++;
+        }
+
+        boolean isEmpty() { return size == 0; }
+    }
+
+    // ===== 생산자 API =====
+
+    /** 지갑 저장 (없으면 생성, balance 가 있으면 갱신) */
+    public void enqueueWallet(String address, int type, BigDecimal balance) {
+        PendingWallet w = new PendingWallet(address, type, balance);
+        pendingWallets.put(address, w);
+        put(w);
+    }
+
+    /** 새로 파싱한 트랜잭션 저장 (이미 DB에 있으면 flush 시 건너뜀) */
+    public void enqueueTransaction(Transaction tx) {
+        put(new PendingTransaction(tx));
+    }
+
+    /** 지갑-트랜잭션 연결 저장 */
+    public void enqueueLink(String address, int type, String txID) {
+        put(new PendingLink(address, type, txID));
+    }
+
+    /** 주소 동기화 상태 저장 (id 없는 값 객체, 같은 주소의 기존 행을 덮어씀) */
+    public void enqueueSyncState(AddressSyncState state) {
+        put(state);
+    }
+
+    /** flush 전인 지갑을 엔티티 사본으로 반환 (없으면 null) */
+    public Wallet pendingWallet(String address) {
+        PendingWallet w = pendingWallets.get(address);
+        if (w == null) return null;
+        return new Wallet(w.address, w.type, w.balance != null ? w.balance : BigDecimal.ZERO);
+    }
+
+    /**
+     * 지금까지 넣은 항목이 모두 커밋될 때까지 대기
+     * 버려진 항목이 있었거나 barrierTimeoutMs 안에 끝나지 않으면 WriteBehindFlushException (반영 보장 없음)
+     */
+    public void flush() {
+        FlushBarrier barrier = new FlushBarrier();
+        put(barrier);
+        try {
+            barrier.done.get(barrierTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new WriteBehindFlushException("Write-behind flush barrier timed out after " + barrierTimeoutMs + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WriteBehindFlushException("Interrupted while waiting for write-behind flush", e);
+        } catch (ExecutionException e) {
+            throw (WriteBehindFlushException) e.getCause();
+        }
+    }
+
+    private void put(Object item) {
+        try {
+            queue.put(item); // 큐가 가득 차면 생산자를 잠시 막아 메모리 상한 유지
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while enqueueing write-behind item", e);
+        }
+    }
+
+    // ===== writer 스레드 =====
+
+    @PostConstruct
+    void start() {
+        queue = new LinkedBlockingQueue<>(capacity);
+        running = true;
+        writer = new Thread(this::drainLoop, "write-behind-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        try {
+            flush();
+        } catch (WriteBehindFlushException e) {
+            System.out.printf("[WARN] Write-behind flush on shutdown failed: %s%n", e.getMessage());
+        }
+        running = false;
+        writer.interrupt();
+        writer.join(barrierTimeoutMs);
+    }
+
+    private void drainLoop() {
+        Batch batch = new Batch();
+        long batchStarted = 0L;
+        while (running || !queue.isEmpty()) {
+            try {
+                long wait = batch.isEmpty() ? flushIntervalMs
+                        : Math.max(1L, batchStarted + flushIntervalMs - System.currentTimeMillis());
+                Object item = queue.poll(wait, TimeUnit.MILLISECONDS);
+
+                if (item instanceof FlushBarrier barrier) {
+                    flushSafely(batch);
+                    batch = new Batch();
+                    completeBarrier(barrier);
+                    continue;
+                }
+                if (item != null) {
+                    if (batch.isEmpty()) batchStarted = System.currentTimeMillis();
+                    batch.add(item);
+                }
+                boolean full = batch.size >= batchSize;
+                boolean expired = !batch.isEmpty() && System.currentTimeMillis() - batchStarted >= flushIntervalMs;
+                if (full || expired) {
+                    flushSafely(batch);
+                    batch = new Batch();
+                }
+            } catch (InterruptedException e) {
+                if (!running) break;
+            } catch (Exception e) {
+                System.out.printf("[ERROR] Write-behind writer loop: %s%n", e.getMessage());
+                failures.add("writer loop: " + e.getMessage());
+            }
+        }
+        flushSafely(batch);
+    }
+
+    // 직전 barrier 이후 버려진 것이 있으면 실패로 완료
+    // 실패는 그 뒤 처음 처리되는 barrier 하나에만 전달 (barrier 사이 구간 단위)
+    private void completeBarrier(FlushBarrier barrier) {
+        if (failures.isEmpty()) {
+            barrier.done.complete(null);
+            return;
+        }
+        barrier.done.completeExceptionally(new WriteBehindFlushException(
+                "Write-behind dropped " + failures.size() + " item(s), first: " + failures.get(0)));
+        failures.clear();
+    }
+
+    private void flushSafely(Batch batch) {
+        if (batch.isEmpty()) return;
+        try {
+            flushBatch(batch);
+        } catch (Exception e) {
+            // 한 행 때문에 전체가 버려지지 않도록 항목별로 재시도
+            System.out.printf("[WARN] Write-behind batch of %d failed (%s), retrying per item%n",
+                    batch.size, e.getMessage());
+            List<Object> items = new ArrayList<>();
+            items.addAll(batch.wallets.values());
+            items.addAll(batch.transactions.values());
+            for (List<String> link : batch.links) {
+                items.add(new PendingLink(link.get(0), batch.linkWalletTypes.get(link.get(0)), link.get(1)));
+            }
+            items.addAll(batch.syncStates.values());
+            for (Object item : items) {
+                Batch single = new Batch();
+                single.add(item);
+                try {
+                    flushBatch(single);
+                } catch (Exception ex) {
+                    System.out.printf("[ERROR] Write-behind dropped item: %s%n", ex.getMessage());
+                    failures.add(describe(item) + ": " + ex.getMessage());
+                }
+            }
+        } finally {
+            for (PendingWallet w : batch.wallets.values()) {
+                pendingWallets.remove(w.address, w);
+            }
+        }
+    }
+
+    private static String describe(Object item) {
+        if (item instanceof PendingWallet w) return "wallet " + w.address;
+        if (item instanceof PendingTransaction t) return "transaction " + t.txID;
+        if (item instanceof PendingLink l) return "link " + l.address + "/" + l.txID;
+        if (item instanceof AddressSyncState s) return "sync state " + s.getChain() + ":" + s.getAddress();
+        return String.valueOf(item);
+    }
+
+    private void flushBatch(Batch batch) {
+        Set<String> linkedWallets = new LinkedHashSet<>();
+        Set<String> insertedTransactions = new LinkedHashSet<>();
+        Set<String> rebalanced = new LinkedHashSet<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            // 1) 지갑: 있는 주소만 한 번에 조회 → 없으면 생성, 있으면 잔액만 UPDATE
+            Set<String> addresses = new HashSet<>(batch.wallets.keySet());
+            addresses.addAll(batch.linkWalletTypes.keySet());
+            Set<String> existing = new HashSet<>(walletRepository.findExistingAddresses(addresses));
+            List<PendingWallet> balances = new ArrayList<>();
+            for (PendingWallet pw : batch.wallets.values()) {
+                if (existing.add(pw.address)) {
+                    entityManager.persist(new Wallet(pw.address, pw.type, pw.balance != null ? pw.balance : BigDecimal.ZERO));
+                } else if (pw.balance != null) {
+                    balances.add(pw);
+                }
+            }
+            for (Map.Entry<String, Integer> e : batch.linkWalletTypes.entrySet()) {
+                if (existing.add(e.getKey())) {
+                    entityManager.persist(new Wallet(e.getKey(), e.getValue(), BigDecimal.ZERO));
+                }
+            }
+            if (!balances.isEmpty()) {
+                LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+                int[][] updated = jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, balances, batchSize, (ps, pw) -> {
+                    ps.setBigDecimal(1, pw.balance);
+                    ps.setObject(2, now);
+                    ps.setString(3, pw.address);
+                    ps.setBigDecimal(4, pw.balance);
+                });
+                int i = 0;
+                for (int[] chunk : updated) {
+                    for (int rows : chunk) {
+                        if (rows != 0) rebalanced.add(balances.get(i).address); // SUCCESS_NO_INFO 도 바뀐 것으로
+                        i++;
+                    }
+                }
+            }
+
+            // 2) 트랜잭션: 이미 있는 txID 는 건너뜀
+            if (!batch.transactions.isEmpty()) {
+                Set<String> known = new HashSet<>(
+                        transactionRepository.findExistingIds(batch.transactions.keySet()));
+                for (PendingTransaction pt : batch.transactions.values()) {
+                    if (!known.contains(pt.txID)) {
+                        entityManager.persist(pt.toEntity());
+                        insertedTransactions.add(pt.txID);
+                    }
+                }
+            }
+            entityManager.flush();
+
+            // 3) 지갑-트랜잭션 연결: JDBC batch (이미 있던 연결은 0행)
+            if (!batch.links.isEmpty()) {
+                List<List<String>> links = new ArrayList<>(batch.links);
+                int[][] inserted = jdbcTemplate.batchUpdate(INSERT_LINK_SQL, links, batchSize, (ps, link) -> {
+                    ps.setString(1, link.get(0));
+                    ps.setString(2, link.get(1));
+                    ps.setString(3, link.get(0));
+                    ps.setString(4, link.get(1));
+                });
+                int i = 0;
+                for (int[] chunk : inserted) {
+                    for (int rows : chunk) {
+                        // SUCCESS_NO_INFO(-2) 는 알 수 없으므로 바뀐 것으로 취급
+                        if (rows != 0) linkedWallets.add(links.get(i).get(0));
+                        i++;
+                    }
+                }
+            }
+
+            // 4) 동기화 상태: 데이터와 같은 트랜잭션에서 upsert
+            for (AddressSyncState s : batch.syncStates.values()) {
+                AddressSyncState row = syncStateRepository.findByChainAndAddress(s.getChain(), s.getAddress())
+                        .orElse(null);
+                if (row == null) {
+                    row = new AddressSyncState(s.getChain(), s.getAddress());
+                    entityManager.persist(row);
+                }
+                row.setComplete(s.isComplete());
+                row.setFetchedCount(s.getFetchedCount());
+                row.setCoveredFrom(s.getCoveredFrom());
+                row.setCoveredTo(s.getCoveredTo());
+                row.setCursor(s.getCursor());
+                row.setFetchedAt(s.getFetchedAt());
+            }
+            entityManager.flush();
+
+            // 5) 연결이 늘어난 지갑의 txVersion 증가 (bulk UPDATE 라 wallets 2차 캐시 영역도 무효화됨)
+            //    엔티티 콜백을 거치지 않으므로 updated_at 도 직접 설정 (updatedSince 폴링이 새 연결을 보게)
+            List<String> bumped = new ArrayList<>(linkedWallets);
+            LocalDateTime bumpedAt = LocalDateTime.now(ZoneOffset.UTC);
+            for (int from = 0; from < bumped.size(); from += batchSize) {
+                entityManager.createQuery("UPDATE Wallet w SET w.txVersion = w.txVersion + 1, w.updatedAt = :now " +
+                                "WHERE w.address IN :addresses")
+                        .setParameter("now", bumpedAt)
+                        .setParameter("addresses", bumped.subList(from, Math.min(bumped.size(), from + batchSize)))
+                        .executeUpdate();
+            }
+            entityManager.clear();
+        });
+
+        // JDBC 로 바뀐 지갑 행/컬렉션은 2차 캐시에서 제거
+        if (!batch.linkWalletTypes.isEmpty() || !rebalanced.isEmpty()) {
+            org.hibernate.Cache cache = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+            for (String address : rebalanced) {
+                cache.evictEntityData(Wallet.class, address);
+            }
+            for (String address : batch.linkWalletTypes.keySet()) {
+                cache.evictCollectionData(WALLET_TRANSACTIONS_ROLE, address);
+            }
+        }
+
+        // 커밋된 뒤에만 알림 (리스너는 writer 스레드에서 불리므로 오래 걸리는 일은 넘겨서 처리해야 함)
+        // 지갑 생성/잔액만 바뀐 배치도 알림 (두 집합이 비어 있음, 데이터 버전용)
+        if (!batch.wallets.isEmpty() || !linkedWallets.isEmpty() || !insertedTransactions.isEmpty()) {
+            try {
+                eventPublisher.publishEvent(new TransactionsPersistedEvent(linkedWallets, insertedTransactions));
+            } catch (Exception e) {
+                System.out.printf("[WARN] Transactions-persisted listener failed: %s%n", e.getMessage());
+            }
+        }
+    }
+}
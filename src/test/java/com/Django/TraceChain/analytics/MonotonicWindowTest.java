@@ -0,0 +1,60 @@
+package com.Django.TraceChain.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MonotonicWindowTest {
+
+    private static long scan(long[] values, int from, int to, boolean max) {
+        long best = values[from];
+        for (int i = from + 1; i < to; i++) best = max ? Math.max(best, values[i]) : Math.min(best, values[i]);
+        return best;
+    }
+
+    // 가변 폭 two-pointer 창에서 peek 이 매번 창을 다시 훑은 값과 같음
+    @Test
+    void twoPointerWindowMatchesScan() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            int n = 1 + random.nextInt(200);
+            long[] values = new long[n];
+            for (int i = 0; i < n; i++) values[i] = random.nextInt(10); // 중복 값 많게
+
+            MonotonicWindow max = MonotonicWindow.max(n);
+            MonotonicWindow min = MonotonicWindow.min(n);
+            int left = 0;
+            for (int right = 0; right < n; right++) {
+                max.push(right, values[right]);
+                min.push(right, values[right]);
+                while (right - left + 1 > 1 && random.nextInt(3) == 0) {
+                    max.evict(left);
+                    min.evict(left);
+                    left++;
+                }
+                assertThat(max.peek()).isEqualTo(scan(values, left, right + 1, true));
+                assertThat(min.peek()).isEqualTo(scan(values, left, right + 1, false));
+            }
+        }
+    }
+
+    @Test
+    void evictingEverythingEmptiesAndClearReuses() {
+        MonotonicWindow w = MonotonicWindow.max(3);
+        w.push(0, 5);
+        w.push(1, 3);
+        w.push(2, 4);
+        assertThat(w.peek()).isEqualTo(5);
+        w.evict(0);
+        assertThat(w.peek()).isEqualTo(4);
+        w.evict(1);
+        w.evict(2);
+        assertThat(w.isEmpty()).isTrue();
+
+        w.clear(10);
+        for (int i = 0; i < 10; i++) w.push(i, i);
+        assertThat(w.peek()).isEqualTo(9);
+    }
+}
@@ -0,0 +1,68 @@
+package com.Django.TraceChain.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RunningStatsTest {
+
+    @Test
+    void smallSamples() {
+        RunningStats s = new RunningStats();
+        assertThat(s.mean()).isZero();
+        assertThat(s.variance()).isZero();
+        assertThat(s.cv()).isZero();
+        s.add(4);
+        assertThat(s.cv()).isZero();
+        s.add(8);
+        assertThat(s.mean()).isEqualTo(6.0);
+        assertThat(s.variance()).isEqualTo(8.0);
+        assertThat(s.cv()).isCloseTo(Math.sqrt(8.0) / 6.0, within(1e-12));
+    }
+
+    @Test
+    void zeroMeanHasMaximalCv() {
+        RunningStats s = new RunningStats();
+        s.add(-3);
+        s.add(3);
+        assertThat(s.cv()).isEqualTo(1.0);
+    }
+
+    // 정수 값(간격 초)은 합/제곱합이 2^53 안이면 add/remove 를 오래 반복해도 배열로 다시 계산한 값과 같음
+    @Test
+    void slidingWindowMatchesArrayStats() {
+        Random random = new Random(3);
+        int width = 50;
+        long[] values = new long[20_000];
+        for (int i = 0; i < values.length; i++) values[i] = random.nextInt(86_400);
+
+        RunningStats s = new RunningStats();
+        long[] window = new long[width];
+        for (int i = 0; i < values.length; i++) {
+            s.add(values[i]);
+            if (i >= width) s.remove(values[i - width]);
+            if (i + 1 < width) continue;
+
+            System.arraycopy(values, i + 1 - width, window, 0, width);
+            assertThat(s.count()).isEqualTo(width);
+            long sum = 0;
+            for (long v : window) sum += v;
+            assertThat(s.sum()).isEqualTo((double) sum);
+            assertThat(s.cv()).isCloseTo(Stats.cv(window, width), within(1e-12));
+        }
+    }
+
+    @Test
+    void clearResets() {
+        RunningStats s = new RunningStats();
+        s.add(1);
+        s.add(2);
+        s.clear();
+        assertThat(s.count()).isZero();
+        assertThat(s.sum()).isZero();
+        assertThat(s.sumSq()).isZero();
+    }
+}
@@ -0,0 +1,88 @@
+package com.Django.TraceChain.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class WindowHistogramTest {
+
+    // 매번 bin 개수에서 다시 계산한 값
+    private static void assertMatchesRecount(WindowHistogram h, int[] counts) {
+        int total = 0, distinct = 0, max = 0;
+        double entropy = 0.0;
+        for (int c : counts) {
+            total += c;
+            if (c > 0) distinct++;
+            max = Math.max(max, c);
+        }
+        for (int c : counts) {
+            if (c > 0) entropy -= (c / (double) total) * Math.log(c / (double) total);
+        }
+        assertThat(h.total()).isEqualTo(total);
+        assertThat(h.distinct()).isEqualTo(distinct);
+        assertThat(h.maxCount()).isEqualTo(max);
+        double expected = total == 0 ? 1.0 : distinct <= 1 ? 0.0 : entropy / Math.log(distinct);
+        assertThat(h.normalizedEntropy()).isCloseTo(expected, within(1e-9));
+    }
+
+    @Test
+    void emptyAndSingleBin() {
+        WindowHistogram h = new WindowHistogram(4);
+        assertThat(h.normalizedEntropy()).isEqualTo(1.0);
+        h.add(2);
+        h.add(2);
+        assertThat(h.normalizedEntropy()).isEqualTo(0.0);
+        assertThat(h.maxCount()).isEqualTo(2);
+    }
+
+    @Test
+    void uniformBinsHaveFullEntropy() {
+        WindowHistogram h = new WindowHistogram(8);
+        for (int b = 0; b < 8; b++) {
+            h.add(b);
+            h.add(b);
+        }
+        assertThat(h.normalizedEntropy()).isCloseTo(1.0, within(1e-12));
+        assertThat(h.distinct()).isEqualTo(8);
+    }
+
+    @Test
+    void slidingWindowMatchesRecount() {
+        Random random = new Random(7);
+        int bins = 12;
+        WindowHistogram h = new WindowHistogram(bins);
+        int[] counts = new int[bins];
+        Deque<Integer> window = new ArrayDeque<>();
+        for (int step = 0; step < 20_000; step++) {
+            // 한쪽 bin 으로 몰리게 해서 최빈 개수가 커졌다 줄어드는 경우를 포함
+            boolean grow = window.isEmpty() || random.nextInt(100) < 55;
+            if (grow) {
+                int bin = random.nextInt(4) == 0 ? random.nextInt(bins) : random.nextInt(3);
+                h.add(bin);
+                counts[bin]++;
+                window.addLast(bin);
+            } else {
+                int bin = window.pollFirst();
+                h.remove(bin);
+                counts[bin]--;
+            }
+            assertMatchesRecount(h, counts);
+        }
+    }
+
+    @Test
+    void clearResetsForReuse() {
+        WindowHistogram h = new WindowHistogram(3);
+        for (int i = 0; i < 40; i++) h.add(i % 2); // countOfCounts 가 늘어난 뒤
+        h.clear();
+        assertMatchesRecount(h, new int[3]);
+        h.add(1);
+        h.add(2);
+        assertMatchesRecount(h, new int[]{0, 1, 1});
+    }
+}
@@ -0,0 +1,69 @@
+package com.Django.TraceChain.api;
+
+import com.Django.TraceChain.dto.DetectionJobDto;
+import com.Django.TraceChain.dto.DetectionSummaryDto;
+import com.Django.TraceChain.repository.WalletRepository;
+import com.Django.TraceChain.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class DetectEndpointTest {
+
+    private DetectService detectService;
+    private DetectionJobService detectionJobService;
+    private RestApiController controller;
+
+    @BeforeEach
+    void setUp() {
+        detectService = mock(DetectService.class);
+        detectionJobService = mock(DetectionJobService.class);
+        DetectionRunCoordinator coordinator = new DetectionRunCoordinator();
+        ReflectionTestUtils.setField(coordinator, "maxCachedRuns", 32);
+        controller = new RestApiController(mock(WalletService.class), detectService,
+                mock(GraphService.class), new ObjectMapper(), mock(SearchLogRecorder.class),
+                mock(DetectorSweepService.class), mock(TaintPropagationService.class), mock(WalletRepository.class),
+                mock(AddressClusterService.class), detectionJobService, coordinator);
+    }
+
+    @Test
+    void busyJobIsConflict() {
+        when(detectionJobService.runAndWait()).thenThrow(new DetectionBusyException("Detection job 1 is already running"));
+        when(detectionJobService.start()).thenThrow(new DetectionBusyException("Detection job 1 is already running"));
+
+        assertThat(controller.detectAllPatterns(true).getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(controller.startDetectionJob().getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void detectorFailureIsNotReportedAsBusy() {
+        when(detectService.runChangedDetectors()).thenThrow(new IllegalStateException("Detector failed: boom"));
+
+        assertThatThrownBy(() -> controller.detectAllPatterns(false))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Detector failed");
+    }
+
+    @Test
+    void failedFullJobPropagatesAndIsNotReused() {
+        when(detectionJobService.runAndWait())
+                .thenThrow(new IllegalStateException("Detection job 1 failed: boom"))
+                .thenReturn(new DetectionJobDto(2, "COMPLETED", 3, 3, 1, 1, 3, LocalDateTime.now(), 5, null));
+
+        assertThatThrownBy(() -> controller.detectAllPatterns(true)).hasMessageContaining("failed");
+
+        ResponseEntity<DetectionSummaryDto> retry = controller.detectAllPatterns(true);
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(retry.getBody().getEvaluated()).isEqualTo(3);
+        verify(detectionJobService, times(2)).runAndWait();
+    }
+}
@@ -0,0 +1,97 @@
+package com.Django.TraceChain.api;
+
+import com.Django.TraceChain.dto.RiskScoreDto;
+import com.Django.TraceChain.repository.WalletRepository;
+import com.Django.TraceChain.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class RiskTopPagingTest {
+
+    private static final Comparator<RiskScoreDto> ORDER = Comparator
+            .comparingDouble(RiskScoreDto::getRiskScore).reversed()
+            .thenComparing(RiskScoreDto::getAddress, Comparator.reverseOrder());
+
+    private final List<RiskScoreDto> table = new ArrayList<>();
+    private WalletRepository walletRepository;
+    private RestApiController controller;
+
+    // findTopRisk / findTopRiskAfter 를 JPQL 과 같은 조건/정렬로 흉내
+    @BeforeEach
+    void setUp() {
+        // 같은 점수가 페이지 경계에 걸치도록 점수 4단계에 주소를 몰아 넣음, 0 점은 제외 대상
+        for (int i = 0; i < 40; i++) {
+            table.add(new RiskScoreDto(String.format("addr%02d", i), 1, (i % 5) * 0.25, i % 5));
+        }
+        walletRepository = mock(WalletRepository.class);
+        when(walletRepository.findTopRisk(any(Pageable.class))).thenAnswer(inv ->
+                page(table.stream().filter(r -> r.getRiskScore() > 0).toList(), inv.getArgument(0)));
+        when(walletRepository.findTopRiskAfter(anyDouble(), anyString(), any(Pageable.class))).thenAnswer(inv -> {
+            double afterScore = inv.getArgument(0);
+            String afterAddress = inv.getArgument(1);
+            return page(table.stream().filter(r -> r.getRiskScore() > 0 && r.getRiskScore() <= afterScore
+                    && (r.getRiskScore() < afterScore || r.getAddress().compareTo(afterAddress) < 0)).toList(),
+                    inv.getArgument(2));
+        });
+        controller = new RestApiController(mock(WalletService.class), mock(DetectService.class),
+                mock(GraphService.class), new ObjectMapper(), mock(SearchLogRecorder.class),
+                mock(DetectorSweepService.class), mock(TaintPropagationService.class), walletRepository,
+                mock(AddressClusterService.class), mock(DetectionJobService.class),
+                mock(DetectionRunCoordinator.class));
+    }
+
+    private static List<RiskScoreDto> page(List<RiskScoreDto> rows, Pageable pageable) {
+        return rows.stream().sorted(ORDER).limit(pageable.getPageSize()).toList();
+    }
+
+    // 직전 페이지 마지막 (riskScore, address) 를 커서로 끝까지 이어 읽음
+    private List<RiskScoreDto> readAll(int limit) {
+        List<RiskScoreDto> all = new ArrayList<>();
+        List<RiskScoreDto> page = controller.topRisk(limit, null, null).getBody();
+        while (page != null && !page.isEmpty()) {
+            all.addAll(page);
+            RiskScoreDto last = page.get(page.size() - 1);
+            page = controller.topRisk(limit, last.getRiskScore(), last.getAddress()).getBody();
+        }
+        return all;
+    }
+
+    @Test
+    void cursorWalksAllScoredWalletsOnceAcrossTies() {
+        List<RiskScoreDto> expected = table.stream().filter(r -> r.getRiskScore() > 0).sorted(ORDER).toList();
+
+        for (int limit : new int[]{1, 3, 8, 32, 50}) {
+            List<String> addresses = readAll(limit).stream().map(RiskScoreDto::getAddress).toList();
+            assertThat(addresses).as("limit %d", limit)
+                    .isEqualTo(expected.stream().map(RiskScoreDto::getAddress).toList());
+        }
+    }
+
+    @Test
+    void partialCursorFallsBackToFirstPage() {
+        controller.topRisk(10, 0.5, null);
+        controller.topRisk(10, null, "addr10");
+
+        verify(walletRepository, times(2)).findTopRisk(any(Pageable.class));
+        verify(walletRepository, never()).findTopRiskAfter(anyDouble(), any(), any(Pageable.class));
+    }
+
+    @Test
+    void limitIsClamped() {
+        controller.topRisk(0, null, null);
+        controller.topRisk(5000, 0.5, "addr10");
+
+        verify(walletRepository).findTopRisk(argThat(p -> p.getPageSize() == 1));
+        verify(walletRepository).findTopRiskAfter(eq(0.5), eq("addr10"), argThat(p -> p.getPageSize() == 1000));
+    }
+}
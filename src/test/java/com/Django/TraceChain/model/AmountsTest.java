@@ -0,0 +1,62 @@
+package com.Django.TraceChain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AmountsTest {
+
+    @Test
+    void satoshiKeepsBitcoinScale() {
+        assertThat(Amounts.fromSatoshi(150_000_000L)).isEqualByComparingTo("1.5");
+        assertThat(Amounts.fromSatoshi(1L).scale()).isEqualTo(Amounts.BTC_SCALE);
+        assertThat(Amounts.toUnits(Amounts.fromSatoshi(123_456_789L))).isEqualTo(123_456_789L);
+    }
+
+    @Test
+    void weiParsesDecimalAndHex() {
+        assertThat(Amounts.fromWei("1000000000000000000")).isEqualByComparingTo("1");
+        assertThat(Amounts.fromWei("0xde0b6b3a7640000")).isEqualByComparingTo("1");
+        assertThat(Amounts.fromWei("0XDE0B6B3A7640000")).isEqualByComparingTo("1");
+        assertThat(Amounts.fromWei(" 0 ")).isEqualByComparingTo("0");
+        assertThat(Amounts.fromWei(BigInteger.ONE).scale()).isEqualTo(Amounts.ETH_SCALE);
+    }
+
+    @Test
+    void malformedWeiIsRejectedNotZero() {
+        for (String bad : new String[]{null, "", "  ", "0x", "Error! Invalid address format", "1.5", "-1", "0xzz"}) {
+            assertThatThrownBy(() -> Amounts.fromWei(bad)).as("%s", bad).isInstanceOf(NumberFormatException.class);
+        }
+    }
+
+    @Test
+    void toUnitsTruncatesBelowOneHundredMillionth() {
+        // 10 gwei (1e10 wei) 미만은 내부 단위에서 절삭
+        assertThat(Amounts.toUnits(Amounts.fromWei("10000000000"))).isEqualTo(1L);
+        assertThat(Amounts.toUnits(Amounts.fromWei("19999999999"))).isEqualTo(1L);
+        assertThat(Amounts.toUnits(Amounts.fromWei("9999999999"))).isEqualTo(0L);
+        assertThat(Amounts.toUnits(new BigDecimal("0.123456789"))).isEqualTo(12_345_678L);
+        assertThat(Amounts.toUnits(new BigDecimal("-0.123456789"))).isEqualTo(-12_345_678L);
+        assertThat(Amounts.toUnits(new BigDecimal("2"))).isEqualTo(200_000_000L);
+        assertThat(Amounts.toUnits((BigDecimal) null)).isZero();
+    }
+
+    @Test
+    void toUnitsFastPathMatchesRescale() {
+        BigDecimal atScale = new BigDecimal("12345.67890123");
+        assertThat(atScale.scale()).isEqualTo(Amounts.UNIT_SCALE);
+        assertThat(Amounts.toUnits(atScale)).isEqualTo(1_234_567_890_123L);
+        assertThat(Amounts.toUnits(new BigDecimal("12345.678901230000"))).isEqualTo(1_234_567_890_123L);
+    }
+
+    @Test
+    void doubleConstantsRoundToNearestUnit() {
+        assertThat(Amounts.toUnits(0.1)).isEqualTo(10_000_000L);
+        assertThat(Amounts.toUnits(0.3)).isEqualTo(30_000_000L); // 0.3 * 1e8 = 29999999.999...
+        assertThat(Amounts.fromUnits(Amounts.toUnits(0.1))).isEqualByComparingTo("0.1");
+    }
+}
@@ -0,0 +1,89 @@
+package com.Django.TraceChain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AddressClusterServiceTest {
+
+    private record Tx(String id, List<String> inputs) {}
+
+    private static List<Tx> randomTxs(Random random, int count, int addresses) {
+        List<Tx> txs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int k = 1 + random.nextInt(random.nextInt(5) == 0 ? 6 : 3);
+            List<String> inputs = new ArrayList<>();
+            for (int j = 0; j < k; j++) inputs.add("addr" + random.nextInt(addresses)); // 같은 주소 중복 입력 포함
+            txs.add(new Tx(String.format("tx%05d", i), inputs));
+        }
+        return txs;
+    }
+
+    // rebuild: 입력 행을 txID 순으로 흘려 넣은 결과 (address → clusterId)
+    private static Map<String, String> rebuild(List<Tx> txs) {
+        AddressClusterService.InputUnion union = new AddressClusterService.InputUnion();
+        txs.stream().sorted(Comparator.comparing(Tx::id)).forEach(tx -> {
+            for (String input : tx.inputs()) union.accept(tx.id(), input);
+        });
+        Map<String, String> table = new HashMap<>();
+        for (String[] row : AddressClusterService.assignments(union.uf, union.names, Map.of())) table.put(row[0], row[1]);
+        return table;
+    }
+
+    // apply() 와 같은 순서: 입력 2개 이상인 tx → 관련 주소의 클러스터 전체를 current 로 읽고 merge 결과를 upsert
+    private static void applyIncrement(Map<String, String> table, List<Tx> batch) {
+        List<List<String>> inputs = new ArrayList<>();
+        for (Tx tx : batch) {
+            if (new HashSet<>(tx.inputs()).size() >= 2) inputs.add(tx.inputs());
+        }
+        if (inputs.isEmpty()) return;
+        Set<String> clusterIds = new HashSet<>();
+        for (List<String> list : inputs) {
+            for (String a : list) {
+                String c = table.get(a);
+                if (c != null) clusterIds.add(c);
+            }
+        }
+        Map<String, String> current = new HashMap<>();
+        table.forEach((address, clusterId) -> {
+            if (clusterIds.contains(clusterId)) current.put(address, clusterId);
+        });
+        for (String[] row : AddressClusterService.merge(current, inputs)) table.put(row[0], row[1]);
+    }
+
+    @Test
+    void incrementalBatchesMatchRebuild() {
+        Random random = new Random(17);
+        for (int round = 0; round < 50; round++) {
+            List<Tx> txs = randomTxs(random, 20 + random.nextInt(200), 10 + random.nextInt(150));
+            Map<String, String> table = new HashMap<>();
+            for (int from = 0; from < txs.size(); ) {
+                int size = 1 + random.nextInt(15);
+                applyIncrement(table, txs.subList(from, Math.min(txs.size(), from + size)));
+                from += size;
+            }
+            assertThat(table).as("round %d", round).isEqualTo(rebuild(txs));
+        }
+    }
+
+    @Test
+    void clusterIdIsSmallestMemberAndSingletonsAreOmitted() {
+        List<Tx> txs = List.of(
+                new Tx("t1", List.of("c", "b")),
+                new Tx("t2", List.of("d")),
+                new Tx("t3", List.of("e", "e")),
+                new Tx("t4", List.of("b", "a")));
+        assertThat(rebuild(txs)).containsExactlyInAnyOrderEntriesOf(Map.of("a", "a", "b", "a", "c", "a"));
+    }
+
+    @Test
+    void mergeOnlyReturnsChangedRows() {
+        Map<String, String> current = Map.of("b", "b", "c", "b", "x", "x", "y", "x");
+        List<String[]> rows = AddressClusterService.merge(current, List.of(List.of("c", "y"), List.of("a", "z")));
+        Map<String, String> changed = new HashMap<>();
+        for (String[] row : rows) changed.put(row[0], row[1]);
+        assertThat(changed).containsExactlyInAnyOrderEntriesOf(Map.of("x", "b", "y", "b", "a", "a", "z", "a"));
+    }
+}
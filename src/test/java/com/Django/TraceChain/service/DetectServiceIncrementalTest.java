@@ -0,0 +1,205 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.component.DetectorProperties;
+import com.Django.TraceChain.dto.WalletVersionRow;
+import com.Django.TraceChain.model.PatternType;
+import com.Django.TraceChain.repository.WalletRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DetectServiceIncrementalTest {
+
+    private static final int STAGES = 13;
+
+    private final DetectorProperties props = new DetectorProperties();
+    private final PeelChainDetector peelChain = new PeelChainDetector(props);
+    private final FixedAmountDetector fixedAmount = new FixedAmountDetector(props);
+
+    // 체인별 그래프 (Bitcoin: peel chain, Ethereum: 정액 반복 송신)와 지갑별 txVersion
+    private final Map<Integer, SnapshotFixture> graphs = new HashMap<>();
+    private final Map<String, Long> versions = new HashMap<>();
+    private final List<List<String>> neighborRequests = new ArrayList<>();
+
+    private WalletRepository walletRepository;
+    private DetectionSnapshotLoader snapshotLoader;
+    private PatternResultWriter resultWriter;
+    private DetectService service;
+
+    // a0 → a1 → ... → a13, 단계마다 소액은 s_k 로, 나머지(change)는 다음 주소로 (PeelChainDetectorTest 와 같은 형태)
+    private static SnapshotFixture chain() {
+        SnapshotFixture f = new SnapshotFixture();
+        for (int k = 0; k < STAGES; k++) {
+            String small = String.valueOf(0.01 * (1 + k % 3));
+            String large = String.valueOf(10.0 - k * 0.5);
+            f.tx("c" + k, 1_000 + k * 600L, "a" + k, "s" + k, small, "a" + k, "a" + (k + 1), large);
+        }
+        return f;
+    }
+
+    private int typeOf(String address) {
+        return graphs.get(2).addresses().contains(address) ? 2 : 1;
+    }
+
+    private WalletVersionRow row(String address) {
+        return new WalletVersionRow(address, typeOf(address), versions.getOrDefault(address, 1L));
+    }
+
+    @BeforeEach
+    void setUp() {
+        graphs.put(1, chain());
+        graphs.put(2, new SnapshotFixture()
+                .tx("e0", 1_000, "e1", "x1", "1")
+                .tx("e1", 1_060, "e1", "x2", "1")
+                .tx("e2", 1_120, "e1", "x3", "1"));
+
+        // 저장소 조회는 fixture 그래프로 흉내 (이웃 = 같은 tx 를 공유하는 지갑, 연결 수 = 지갑별 tx 수)
+        walletRepository = mock(WalletRepository.class);
+        when(walletRepository.findNeighborAddresses(anyCollection())).thenAnswer(inv -> {
+            List<String> chunk = new ArrayList<>(inv.<Collection<String>>getArgument(0));
+            neighborRequests.add(chunk);
+            Set<String> neighbors = new LinkedHashSet<>();
+            for (SnapshotFixture f : graphs.values()) {
+                for (SnapshotFixture.Tx tx : f.txs()) {
+                    if (chunk.stream().anyMatch(tx.wallets()::contains)) neighbors.addAll(tx.wallets());
+                }
+            }
+            return new ArrayList<>(neighbors);
+        });
+        when(walletRepository.countLinks(anyCollection())).thenAnswer(inv -> {
+            Collection<String> chunk = inv.getArgument(0);
+            return graphs.values().stream().mapToLong(f -> f.txRows(chunk).size()).sum();
+        });
+        when(walletRepository.findVersionRows(anyCollection())).thenAnswer(inv ->
+                inv.<Collection<String>>getArgument(0).stream().map(this::row).toList());
+        when(walletRepository.findChangedVersionRows(anyCollection())).thenAnswer(inv ->
+                inv.<Collection<String>>getArgument(0).stream().map(this::row).toList());
+
+        snapshotLoader = mock(DetectionSnapshotLoader.class);
+        when(snapshotLoader.load(anyInt(), anyList(), anySet())).thenAnswer(inv ->
+                graphs.get(inv.<Integer>getArgument(0)).snapshot(inv.getArgument(0), inv.getArgument(1)));
+        resultWriter = mock(PatternResultWriter.class);
+
+        service = new DetectService(List.of(peelChain, fixedAmount), resultWriter, walletRepository,
+                snapshotLoader, props, 2);
+        ReflectionTestUtils.setField(service, "chunkSize", 3); // 확장/조회가 여러 청크로 나뉘게
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PatternResult> written() {
+        ArgumentCaptor<Collection<PatternResult>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(resultWriter).write(captor.capture());
+        return new ArrayList<>(captor.getValue());
+    }
+
+    private Set<String> loaded(int chainType) {
+        ArgumentCaptor<List<String>> captor = ArgumentCaptor.captor();
+        verify(snapshotLoader).load(eq(chainType), captor.capture(), anySet());
+        return new HashSet<>(captor.getValue());
+    }
+
+    @Test
+    void changedWalletIsReevaluatedWithinRadiusAndOthersKeepStoredResults() {
+        SnapshotFixture before = graphs.get(1);
+        Map<PatternType, PatternResult> stored = Map.of(
+                PatternType.PEEL_CHAIN, peelChain.detect(before.snapshot(1)),
+                PatternType.FIXED_AMOUNT, fixedAmount.detect(before.snapshot(1)));
+
+        // 체인 앞에 새 단계 → p, sp, a0 의 txVersion 이 올라감
+        SnapshotFixture after = before.copy().tx("c-1", 400, "p", "sp", "0.5", "p", "a0", "20");
+        graphs.put(1, after);
+        List<String> changed = List.of("p", "sp", "a0");
+        changed.forEach(a -> versions.put(a, 7L));
+        versions.put("e1", 4L);
+        List<WalletVersionRow> changedRows = new ArrayList<>(changed.stream().map(this::row).toList());
+        changedRows.add(row("e1"));
+        when(walletRepository.findChangedVersionRows()).thenReturn(changedRows);
+
+        int evaluated = service.runChangedDetectors();
+
+        // 스냅샷은 체인별 최대 반경의 2배까지, Ethereum 은 반경 0 이라 변경 지갑만
+        int radius = peelChain.neighborhoodHops();
+        assertThat(radius).isPositive();
+        assertThat(service.neighborhoodHops(2)).isZero();
+        Map<String, Integer> context = after.hops(changed, 2 * radius);
+        assertThat(loaded(1)).isEqualTo(context.keySet());
+        assertThat(loaded(2)).containsExactly("e1");
+        assertThat(neighborRequests).noneMatch(chunk -> chunk.contains("e1"));
+
+        Set<String> withinRadius = after.hops(changed, radius).keySet();
+        List<PatternResult> results = written();
+        for (PatternResult result : results.stream().filter(r -> r.getEvaluated().stream().noneMatch("e1"::equals)).toList()) {
+            MixingDetector detector = result.getPattern() == PatternType.PEEL_CHAIN ? peelChain : fixedAmount;
+            PatternResult full = detector.detect(after.snapshot(1));
+            Set<String> expectedScope = new HashSet<>(after.hops(changed, detector.neighborhoodHops()).keySet());
+            assertThat(result.getEvaluated()).as("%s scope", result.getPattern()).isEqualTo(expectedScope);
+            assertThat(withinRadius).containsAll(result.getEvaluated());
+
+            // 반경 안은 전체 실행과 같은 판정, 반경 밖은 저장된 결과가 그대로 전체 실행과 같음
+            PatternResult old = stored.get(result.getPattern());
+            for (String address : after.addresses()) {
+                boolean reevaluated = result.getEvaluated().contains(address);
+                PatternResult source = reevaluated ? result : old;
+                assertThat(source.isFlagged(address)).as("%s flag of %s", result.getPattern(), address)
+                        .isEqualTo(full.isFlagged(address));
+                assertThat(source.score(address)).as("%s score of %s", result.getPattern(), address)
+                        .isEqualTo(full.score(address));
+            }
+        }
+        assertThat(results).filteredOn(r -> r.getEvaluated().contains("e1")).singleElement()
+                .satisfies(r -> assertThat(r.getEvaluated()).containsExactly("e1"));
+        assertThat(evaluated).isEqualTo(withinRadius.size() + 1);
+
+        // 탐지 완료 표시는 변경 지갑에만, 스냅샷 전에 읽은 txVersion 으로
+        verify(walletRepository).markDetected(argThat(a -> new HashSet<>(a).equals(new HashSet<>(changed))), eq(7L));
+        verify(walletRepository).markDetected(List.of("e1"), 4L);
+        verify(walletRepository, times(2)).markDetected(anyCollection(), anyLong());
+    }
+
+    @Test
+    void nothingChangedSkipsDetection() {
+        when(walletRepository.findChangedVersionRows()).thenReturn(List.of());
+
+        assertThat(service.runChangedDetectors()).isZero();
+
+        verifyNoInteractions(snapshotLoader, resultWriter);
+        verify(walletRepository, never()).markDetected(anyCollection(), anyLong());
+    }
+
+    @Test
+    void haloStopsBeforeHopThatExceedsLinkCap() {
+        // a5 의 1 hop (a4, s4, s5, a6) = 연결 6개, 2 hop 까지면 12개 → 상한 8 이면 1 hop 에서 멈춤
+        int evaluated = service.runBatch(List.of("a5"), false, 8);
+
+        assertThat(loaded(1)).containsExactlyInAnyOrder("a5", "a4", "s4", "s5", "a6");
+        assertThat(evaluated).isEqualTo(1);
+        // 잘린 halo 로 판정한 결과는 배치 지갑에만, 탐지 완료로 표시하지 않음
+        assertThat(written()).allSatisfy(r -> assertThat(r.getEvaluated()).containsOnly("a5"));
+        verify(walletRepository, never()).markDetected(anyCollection(), anyLong());
+    }
+
+    @Test
+    void haloWithinLinkCapCoversRadiusAndMarksBatch() {
+        versions.put("a5", 3L);
+        int radius = service.maxNeighborhoodHops();
+
+        service.runBatch(List.of("a5"), false, 1_000);
+
+        assertThat(loaded(1)).isEqualTo(graphs.get(1).hops(List.of("a5"), radius).keySet());
+        assertThat(written()).allSatisfy(r -> assertThat(r.getEvaluated()).containsOnly("a5"));
+        verify(walletRepository).markDetected(List.of("a5"), 3L);
+    }
+}
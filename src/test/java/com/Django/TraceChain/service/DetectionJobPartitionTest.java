@@ -0,0 +1,129 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.service.DetectionJobService.Batch;
+import com.Django.TraceChain.service.DetectionJobService.LinkUnion;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DetectionJobPartitionTest {
+
+    // LINK_SQL 과 같은 (txID 순) 행 목록
+    private static LinkUnion union(List<String[]> rows, Collection<String> isolated) {
+        LinkUnion union = new LinkUnion();
+        rows.stream().sorted(Comparator.comparing(r -> r[0])).forEach(r -> union.accept(r[0], r[1]));
+        isolated.forEach(union::intern);
+        return union;
+    }
+
+    // 검증용 연결 요소 (지갑 → 같은 요소 지갑 집합), 행 목록에서 독립적으로 계산
+    private static Map<String, Set<String>> components(List<String[]> rows, Collection<String> isolated) {
+        Map<String, Set<String>> byTx = new HashMap<>();
+        for (String[] r : rows) byTx.computeIfAbsent(r[0], k -> new HashSet<>()).add(r[1]);
+        Map<String, Set<String>> comp = new HashMap<>();
+        isolated.forEach(a -> comp.put(a, new HashSet<>(Set.of(a))));
+        for (Set<String> wallets : byTx.values()) {
+            Set<String> merged = new HashSet<>();
+            for (String w : wallets) merged.addAll(comp.getOrDefault(w, Set.of(w)));
+            for (String w : merged) comp.put(w, merged);
+        }
+        return comp;
+    }
+
+    private static Map<String, Integer> linkCounts(List<String[]> rows) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String[] r : rows) counts.merge(r[1], 1, Integer::sum);
+        return counts;
+    }
+
+    private static List<String[]> randomRows(Random random, int wallets, int txs) {
+        List<String[]> rows = new ArrayList<>();
+        for (int t = 0; t < txs; t++) {
+            // 대부분 작은 tx, 가끔 큰 tx 로 큰 연결 요소를 만듦
+            int width = random.nextInt(10) == 0 ? 5 + random.nextInt(10) : 1 + random.nextInt(2);
+            Set<String> picked = new HashSet<>();
+            for (int i = 0; i < width; i++) picked.add("w" + random.nextInt(wallets));
+            for (String w : picked) rows.add(new String[]{String.format("tx%05d", t), w});
+        }
+        return rows;
+    }
+
+    private static void assertPartition(List<String[]> rows, Set<String> isolated, int maxWallets, int maxLinks) {
+        List<Batch> batches = DetectionJobService.pack(union(rows, isolated), maxWallets, maxLinks);
+        Map<String, Set<String>> comp = components(rows, isolated);
+        Map<String, Integer> links = linkCounts(rows);
+
+        // 모든 지갑이 정확히 한 번
+        List<String> all = batches.stream().flatMap(b -> b.addresses().stream()).toList();
+        assertThat(all).doesNotHaveDuplicates();
+        assertThat(new HashSet<>(all)).isEqualTo(comp.keySet());
+
+        for (Batch batch : batches) {
+            List<String> addresses = batch.addresses();
+            long batchLinks = addresses.stream().mapToLong(a -> links.getOrDefault(a, 0)).sum();
+            assertThat(addresses).isNotEmpty().hasSizeLessThanOrEqualTo(maxWallets);
+            // 연결 수가 상한보다 큰 지갑 하나짜리 조각만 예외
+            if (addresses.size() > 1) assertThat(batchLinks).isLessThanOrEqualTo(maxLinks);
+
+            Set<String> members = new HashSet<>(addresses);
+            if (batch.closed()) {
+                // 닫힌 배치 = 연결 요소를 통째로
+                for (String a : addresses) assertThat(members).containsAll(comp.get(a));
+            } else {
+                // 열린 배치는 상한보다 큰 요소의 조각만
+                Set<String> c = comp.get(addresses.get(0));
+                long compLinks = c.stream().mapToLong(a -> links.getOrDefault(a, 0)).sum();
+                assertThat(c).containsAll(members);
+                assertThat(c.size() > maxWallets || compLinks > maxLinks).isTrue();
+            }
+        }
+    }
+
+    @Test
+    void closedBatchesHoldWholeComponentsWithinCaps() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            List<String[]> rows = randomRows(random, 300, 200);
+            Set<String> isolated = new HashSet<>();
+            for (int i = 0; i < 30; i++) isolated.add("idle" + i);
+            assertPartition(rows, isolated, 5 + random.nextInt(40), 10 + random.nextInt(80));
+        }
+    }
+
+    @Test
+    void oversizedComponentIsCutIntoOpenBatches() {
+        // 지갑 12개가 tx 로 한 줄로 이어진 요소 + 작은 요소 두 개
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            rows.add(new String[]{"chain" + i, "c" + i});
+            rows.add(new String[]{"chain" + i, "c" + (i + 1)});
+        }
+        rows.add(new String[]{"pair", "p0"});
+        rows.add(new String[]{"pair", "p1"});
+        Set<String> isolated = Set.of("solo");
+
+        List<Batch> batches = DetectionJobService.pack(union(rows, isolated), 5, 100);
+
+        assertThat(batches.stream().filter(b -> !b.closed()).mapToInt(b -> b.addresses().size()).sum()).isEqualTo(12);
+        assertThat(batches.stream().filter(Batch::closed).flatMap(b -> b.addresses().stream()))
+                .containsExactlyInAnyOrder("p0", "p1", "solo");
+        assertPartition(rows, isolated, 5, 100);
+    }
+
+    @Test
+    void linkCapAloneSplitsBatches() {
+        // 지갑 수 상한은 넉넉하고, 지갑마다 연결 3개인 독립 요소 10개
+        List<String[]> rows = new ArrayList<>();
+        for (int w = 0; w < 10; w++) {
+            for (int t = 0; t < 3; t++) rows.add(new String[]{"t" + w + "_" + t, "w" + w});
+        }
+
+        List<Batch> batches = DetectionJobService.pack(union(rows, Set.of()), 1000, 7);
+
+        assertThat(batches).allMatch(Batch::closed);
+        assertThat(batches).allMatch(b -> b.addresses().size() == 2);
+        assertPartition(rows, Set.of(), 1000, 7);
+    }
+}
@@ -0,0 +1,114 @@
+package com.Django.TraceChain.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DetectionRunCoordinatorTest {
+
+    private DetectionRunCoordinator coordinator;
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        coordinator = new DetectionRunCoordinator();
+        ReflectionTestUtils.setField(coordinator, "maxCachedRuns", 32);
+    }
+
+    private int countRun() {
+        return executions.incrementAndGet();
+    }
+
+    // 실행이 쓴 결과는 그 실행 자신의 결과 버전 변화로 취급
+    private int writingRun() {
+        coordinator.onPatternResultsWritten(new PatternResultsWrittenEvent(3));
+        return executions.incrementAndGet();
+    }
+
+    @Test
+    void reusesFinishedRunUntilNewData() {
+        assertThat(coordinator.run("all", this::countRun)).isEqualTo(1);
+        assertThat(coordinator.run("all", this::countRun)).isEqualTo(1);
+
+        coordinator.onTransactionsPersisted(new TransactionsPersistedEvent(Set.of("a"), Set.of("t")));
+        assertThat(coordinator.run("all", this::countRun)).isEqualTo(2);
+    }
+
+    @Test
+    void ownWritesKeepResultReusable() {
+        assertThat(coordinator.run("all", this::writingRun)).isEqualTo(1);
+        assertThat(coordinator.run("all", this::writingRun)).isEqualTo(1);
+    }
+
+    @Test
+    void writesFromOtherScopesOrExclusiveTasksInvalidate() {
+        assertThat(coordinator.run("all", this::countRun)).isEqualTo(1);
+
+        coordinator.run(DetectionRunCoordinator.selectedScope(List.of("a")), this::writingRun);
+        assertThat(coordinator.run("all", this::countRun)).isEqualTo(3);
+
+        coordinator.exclusive(this::writingRun);
+        assertThat(coordinator.run("all", this::countRun)).isEqualTo(5);
+    }
+
+    @Test
+    void failedRunIsNotCached() {
+        try {
+            coordinator.run("all", () -> { throw new IllegalStateException("busy"); });
+        } catch (IllegalStateException ignored) {
+        }
+        assertThat(coordinator.run("all", this::countRun)).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentRequestJoinsInFlightRunEvenAfterItWrote() throws Exception {
+        CountDownLatch wrote = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = pool.submit(() -> coordinator.run("all", () -> {
+                int n = writingRun();
+                wrote.countDown();
+                await(release);
+                return n;
+            }));
+            assertThat(wrote.await(5, TimeUnit.SECONDS)).isTrue();
+
+            Future<Integer> second = pool.submit(() -> coordinator.run("all", this::countRun));
+            Thread.sleep(50);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(executions.get()).isEqualTo(1);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void exclusiveIsReentrantInsideRun() {
+        int result = coordinator.run("all:full", () -> coordinator.exclusive(this::writingRun));
+        assertThat(result).isEqualTo(1);
+        assertThat(coordinator.run("all:full", this::countRun)).isEqualTo(1);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.component.DetectorProperties;
+import com.Django.TraceChain.repository.TransactionRepository;
+import com.Django.TraceChain.repository.WalletRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class DetectionSnapshotLoaderTest {
+
+    private static final Set<DetectionFeature> ALL = EnumSet.of(DetectionFeature.ALL_TRANSFERS);
+    private static final Set<DetectionFeature> SENDER = EnumSet.of(DetectionFeature.SENDER_TRANSFERS);
+
+    // 입력 4개가 한 tx 에 모이는 Bitcoin 형태 + 그 출력을 다시 쓰는 tx + a 의 정액 반복 송신
+    private final SnapshotFixture fixture = new SnapshotFixture()
+            .tx("t1", 1_000, "a", "m", "1", "b", "m", "1", "c", "m", "1", "d", "m", "1", "m", "n", "3.9")
+            .tx("t2", 2_000, "n", "a", "1", "n", "e", "2.8")
+            .tx("t3", 2_060, "a", "x", "1", "q", "a", "5")
+            .tx("t4", 2_120, "a", "y", "1")
+            .tx("t5", 2_180, "a", "z", "1.01");
+
+    private final List<Collection<String>> txIdRequests = new ArrayList<>();
+    private final List<Collection<String>> senderRequests = new ArrayList<>();
+    private DetectionSnapshotLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        WalletRepository walletRepository = mock(WalletRepository.class);
+        when(walletRepository.findDetectionTxRows(anyCollection())).thenAnswer(inv ->
+                fixture.txRows(inv.getArgument(0)));
+        TransactionRepository transactionRepository = mock(TransactionRepository.class);
+        when(transactionRepository.findDetectionTransferRows(anyCollection())).thenAnswer(inv -> {
+            Collection<String> txIDs = new ArrayList<>(inv.<Collection<String>>getArgument(0));
+            txIdRequests.add(txIDs);
+            return fixture.transferRows(txIDs);
+        });
+        when(transactionRepository.findDetectionSenderTransferRows(anyCollection(), anyCollection())).thenAnswer(inv -> {
+            Collection<String> senders = new ArrayList<>(inv.<Collection<String>>getArgument(1));
+            senderRequests.add(senders);
+            return fixture.transferRows(inv.getArgument(0)).stream()
+                    .filter(r -> senders.contains(r.getSender())).toList();
+        });
+        loader = new DetectionSnapshotLoader(walletRepository, transactionRepository);
+        ReflectionTestUtils.setField(loader, "chunkSize", 2); // 지갑 청크마다 같은 tx 가 다시 나오게
+    }
+
+    @Test
+    void readsEachTransferOnceRegardlessOfSharingWallets() {
+        List<String> addresses = new ArrayList<>(fixture.addresses());
+
+        DetectionSnapshot snapshot = loader.load(1, addresses, ALL);
+
+        assertThat(txIdRequests).flatExtracting(ids -> ids).containsExactlyInAnyOrder("t1", "t2", "t3", "t4", "t5");
+        int transfers = fixture.txs().stream().mapToInt(tx -> tx.transfers().size()).sum();
+        assertThat(snapshot.getSourceRows()).isEqualTo(fixture.txRows(addresses).size() + transfers);
+        assertThat(snapshot.getTransactions()).hasSize(5);
+        assertThat(snapshot.getTransactions().get(0).getTransfers()).hasSize(5);
+    }
+
+    @Test
+    void matchesFixtureSnapshot() {
+        List<String> addresses = List.of("e", "a", "idle", "m");
+
+        DetectionSnapshot loaded = loader.load(1, addresses, ALL);
+        DetectionSnapshot expected = fixture.snapshot(1, addresses);
+
+        assertThat(loaded.getAddresses()).containsExactlyElementsOf(expected.getAddresses());
+        for (int i = 0; i < addresses.size(); i++) {
+            assertThat(loaded.getWallets().get(i).getTransactions())
+                    .extracting(DetectionSnapshot.TxSnapshot::getTxID)
+                    .containsExactlyElementsOf(expected.getWallets().get(i).getTransactions().stream()
+                            .map(DetectionSnapshot.TxSnapshot::getTxID).toList());
+        }
+    }
+
+    @Test
+    void featuresFollowSelectedDetectors() {
+        DetectorProperties props = new DetectorProperties();
+        FixedAmountDetector fixedAmount = new FixedAmountDetector(props);
+
+        assertThat(DetectionSnapshotLoader.requiredFeatures(List.of(fixedAmount), 1)).isEqualTo(SENDER);
+        assertThat(DetectionSnapshotLoader.requiredFeatures(List.of(fixedAmount, new MultiIODetector(props)), 1))
+                .contains(DetectionFeature.ALL_TRANSFERS);
+    }
+
+    @Test
+    void senderOnlyLoadReadsOwnSendsAndKeepsFixedAmountResult() {
+        List<String> addresses = new ArrayList<>(fixture.addresses());
+        FixedAmountDetector detector = new FixedAmountDetector(new DetectorProperties());
+
+        DetectionSnapshot narrow = loader.load(1, addresses, SENDER);
+
+        assertThat(txIdRequests).isEmpty();
+        assertThat(senderRequests).allSatisfy(senders -> assertThat(senders).hasSizeLessThanOrEqualTo(2));
+        // 모든 지갑이 대상이라 transfer 는 전부지만 각각 한 번 (sender 가 속한 청크에서만)
+        int transfers = fixture.txs().stream().mapToInt(tx -> tx.transfers().size()).sum();
+        assertThat(narrow.getSourceRows()).isEqualTo(fixture.txRows(addresses).size() + transfers);
+        // 지갑 트랜잭션 목록(시각)은 전체 조회와 같음
+        DetectionSnapshot full = fixture.snapshot(1, addresses);
+        for (int i = 0; i < addresses.size(); i++) {
+            assertThat(narrow.getWallets().get(i).getTransactions()).extracting(DetectionSnapshot.TxSnapshot::getTxID)
+                    .containsExactlyElementsOf(full.getWallets().get(i).getTransactions().stream()
+                            .map(DetectionSnapshot.TxSnapshot::getTxID).toList());
+        }
+        assertThat(detector.detect(narrow).getFlagged())
+                .isEqualTo(detector.detect(full).getFlagged())
+                .containsExactly("a");
+    }
+
+    @Test
+    void senderOnlyLoadSkipsCounterpartySends() {
+        List<String> addresses = List.of("a");
+
+        DetectionSnapshot narrow = loader.load(1, addresses, SENDER);
+
+        // a 의 트랜잭션 t1..t5 중 a 가 보낸 transfer 만 (t1 의 b/c/d/m 입력, t2 의 n, t3 의 q 송신은 읽지 않음)
+        assertThat(narrow.getTransactions()).flatExtracting(DetectionSnapshot.TxSnapshot::getTransfers)
+                .extracting(DetectionSnapshot.TransferSnapshot::getSender)
+                .containsOnly("a")
+                .hasSize(4);
+        assertThat(narrow.getSourceRows()).isEqualTo(5 + 4);
+    }
+}
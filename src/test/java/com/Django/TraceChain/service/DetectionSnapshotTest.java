@@ -0,0 +1,113 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.analytics.EventSeries;
+import com.Django.TraceChain.model.Transaction;
+import com.Django.TraceChain.model.Transfer;
+import com.Django.TraceChain.model.Wallet;
+import com.Django.TraceChain.service.DetectionSnapshot.TransferSnapshot;
+import com.Django.TraceChain.service.DetectionSnapshot.TxSnapshot;
+import com.Django.TraceChain.service.DetectionSnapshot.WalletSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DetectionSnapshotTest {
+
+    // 입력/출력 여러 개, 같은 시각의 tx, 1e-8 단위 금액, 0 금액
+    private static SnapshotFixture fixture() {
+        return new SnapshotFixture()
+                .tx("t1", 1_000, "a", "b", "0.5", "a", "c", "1.25")
+                .tx("t2", 1_060, "b", "d", "0.49999999", "c", "d", "1.2")
+                .tx("t3", 1_060, "d", "a", "1.6")
+                .tx("t4", 2_000, "x", "a", "3", "y", "a", "3", "z", "e", "0.00000001")
+                .tx("t5", 3_000, "e", "b", "0");
+    }
+
+    // DB 에서 읽은 엔티티와 같은 모양 (지갑 ↔ 트랜잭션 양방향, transfer 는 저장 순서)
+    private static List<Wallet> entities(SnapshotFixture f, int type, Collection<String> addresses) {
+        Map<String, Wallet> wallets = new HashMap<>();
+        for (String a : addresses) wallets.put(a, new Wallet(a, type, BigDecimal.ZERO));
+        for (SnapshotFixture.Tx tx : f.txs()) {
+            Transaction t = new Transaction(tx.txID(), BigDecimal.ZERO,
+                    LocalDateTime.ofEpochSecond(tx.tsSec(), 0, ZoneOffset.UTC));
+            for (SnapshotFixture.Transfer tr : tx.transfers()) {
+                t.addTransfer(new Transfer(t, tr.sender(), tr.receiver(), tr.amount()));
+            }
+            for (String a : tx.wallets()) {
+                Wallet w = wallets.get(a);
+                if (w != null) w.addTransaction(t);
+            }
+        }
+        return addresses.stream().map(wallets::get).toList();
+    }
+
+    private static String describe(TxSnapshot tx) {
+        StringBuilder sb = new StringBuilder(tx.getTxID()).append('@').append(tx.getTimestamp()).append('[');
+        for (TransferSnapshot t : tx.getTransfers()) {
+            sb.append(t.getSender()).append('>').append(t.getReceiver()).append(':').append(t.getAmountUnits()).append(' ');
+        }
+        return sb.append(']').toString();
+    }
+
+    private static List<String> describe(DetectionSnapshot s) {
+        List<String> lines = new ArrayList<>();
+        lines.add("chain " + s.getChainType() + " addresses " + s.getAddresses());
+        for (WalletSnapshot w : s.getWallets()) {
+            lines.add(w.getAddress() + " " + w.getType() + " " + w.getTransactions().stream().map(DetectionSnapshotTest::describe).toList());
+        }
+        for (TxSnapshot tx : s.getTransactions()) lines.add(describe(tx));
+        return lines;
+    }
+
+    @Test
+    void fromRowsMatchesEntitySnapshot() {
+        SnapshotFixture f = fixture();
+        List<String> addresses = new ArrayList<>(f.addresses());
+
+        DetectionSnapshot rows = f.snapshot(1, addresses);
+        DetectionSnapshot entities = DetectionSnapshot.of(1, entities(f, 1, addresses));
+
+        assertThat(describe(rows)).containsExactlyElementsOf(describe(entities));
+        // transfer 는 tx 를 공유하는 지갑 수와 무관하게 한 번씩만 읽음 (나머지는 지갑-tx 쌍)
+        assertThat(rows.getSourceRows()).isEqualTo(f.txRows(addresses).size() + entities.getSourceRows());
+    }
+
+    @Test
+    void fromRowsMatchesEntitySnapshotForSubsetAndIdleWallet() {
+        SnapshotFixture f = fixture();
+        // 트랜잭션이 없는 지갑과, 일부 지갑만 판정 대상일 때 (상대 지갑 행은 없어도 tx 의 모든 transfer 유지)
+        List<String> addresses = List.of("e", "idle", "a");
+
+        DetectionSnapshot rows = f.snapshot(2, addresses);
+        DetectionSnapshot entities = DetectionSnapshot.of(2, entities(f, 2, addresses));
+
+        assertThat(describe(rows)).containsExactlyElementsOf(describe(entities));
+        assertThat(rows.getWallets().get(1).getTransactions()).isEmpty();
+        assertThat(rows.getTransactions()).extracting(TxSnapshot::getTxID).containsExactly("t1", "t3", "t4", "t5");
+    }
+
+    @Test
+    void derivedIndexesMatch() {
+        SnapshotFixture f = fixture();
+        List<String> addresses = new ArrayList<>(f.addresses());
+
+        DetectionSnapshot rows = f.snapshot(1, addresses);
+        DetectionSnapshot entities = DetectionSnapshot.of(1, entities(f, 1, addresses));
+
+        assertThat(rows.outgoing().keySet()).isEqualTo(entities.outgoing().keySet());
+        rows.outgoing().forEach((sender, series) -> {
+            EventSeries other = entities.outgoing().get(sender);
+            assertThat(series.size()).isEqualTo(other.size());
+            for (int i = 0; i < series.size(); i++) {
+                assertThat(series.time(i)).isEqualTo(other.time(i));
+                assertThat(series.amount(i)).isEqualTo(other.amount(i));
+                assertThat(series.counterparty(i)).isEqualTo(other.counterparty(i));
+            }
+        });
+    }
+}
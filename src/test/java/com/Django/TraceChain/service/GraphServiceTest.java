@@ -0,0 +1,88 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.dto.WalletDto;
+import com.Django.TraceChain.dto.WalletRow;
+import com.Django.TraceChain.repository.WalletRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GraphServiceTest {
+
+    private final List<WalletRow> table = new ArrayList<>();
+    private final List<Integer> requestedSizes = new ArrayList<>();
+    private WalletRepository walletRepository;
+    private GraphService service;
+
+    // findGraphPage 를 "address > :after ORDER BY address LIMIT n" 으로 흉내 (필터 없음)
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 57; i++) {
+            table.add(new WalletRow(String.format("addr%03d", i), 1, BigDecimal.ONE, false, false, false, false, false));
+        }
+        walletRepository = mock(WalletRepository.class);
+        when(walletRepository.findGraphPage(anyString(), any(), any(), anyBoolean(), anyBoolean(), anyBoolean(),
+                anyBoolean(), anyBoolean(), anyBoolean(), any(Pageable.class))).thenAnswer(inv -> {
+            String after = inv.getArgument(0);
+            Pageable page = inv.getArgument(9);
+            requestedSizes.add(page.getPageSize());
+            return table.stream().filter(r -> r.getAddress().compareTo(after) > 0)
+                    .limit(page.getPageSize()).toList();
+        });
+        when(walletRepository.findGraphTransfers(anyCollection())).thenReturn(List.of());
+        service = new GraphService(walletRepository);
+    }
+
+    private List<String> stream(String after, int pageSize, int limit) {
+        List<String> out = new ArrayList<>();
+        service.streamGraph(null, null, null, after, pageSize, limit, (WalletDto w) -> out.add(w.getAddress()));
+        return out;
+    }
+
+    private List<String> addresses(int from, int to) {
+        return table.subList(from, to).stream().map(WalletRow::getAddress).toList();
+    }
+
+    @Test
+    void everyWalletOnceInOrderForAnyPageSize() {
+        for (int pageSize : new int[]{1, 7, 19, 57, 100}) {
+            assertThat(stream(null, pageSize, 0)).as("pageSize %d", pageSize).isEqualTo(addresses(0, 57));
+        }
+    }
+
+    @Test
+    void limitStopsAcrossPageBoundary() {
+        assertThat(stream(null, 10, 25)).isEqualTo(addresses(0, 25));
+        // 마지막 페이지는 남은 개수만 요청
+        assertThat(requestedSizes).containsExactly(10, 10, 5);
+    }
+
+    @Test
+    void resumesAfterCursorWithoutOverlap() {
+        List<String> first = stream(null, 8, 20);
+        List<String> rest = stream(first.get(first.size() - 1), 8, 0);
+
+        assertThat(rest).doesNotContainAnyElementsOf(first);
+        List<String> all = new ArrayList<>(first);
+        all.addAll(rest);
+        assertThat(all).isEqualTo(addresses(0, 57));
+    }
+
+    @Test
+    void pageSizeIsClampedAndShortPageEndsStream() {
+        stream(null, 5000, 0);
+        assertThat(requestedSizes).containsExactly(GraphService.MAX_PAGE_SIZE);
+
+        requestedSizes.clear();
+        stream(null, 0, 3);
+        assertThat(requestedSizes).containsExactly(1, 1, 1);
+    }
+}
@@ -0,0 +1,56 @@
+package com.Django.TraceChain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntUnionFindTest {
+
+    @Test
+    void matchesNaiveLabelsWhileGrowing() {
+        Random random = new Random(5);
+        IntUnionFind uf = new IntUnionFind(1); // 최소 용량에서 시작해 add() 로 여러 번 늘어남
+        int[] label = new int[3_000];
+        int n = 0;
+        for (int step = 0; step < 20_000; step++) {
+            if (n < 2 || (n < label.length && random.nextInt(4) == 0)) {
+                assertThat(uf.add()).isEqualTo(n);
+                label[n] = n;
+                n++;
+                continue;
+            }
+            int a = random.nextInt(n), b = random.nextInt(n);
+            boolean separate = label[a] != label[b];
+            assertThat(uf.union(a, b)).isEqualTo(separate);
+            if (separate) {
+                int from = label[b], to = label[a];
+                for (int v = 0; v < n; v++) if (label[v] == from) label[v] = to;
+            }
+            if (step % 97 == 0) {
+                for (int v = 0; v < Math.min(n, 40); v++) { // 검사 비용 제한: 앞쪽 원소 기준으로 전체와 비교
+                    int size = 0;
+                    for (int u = 0; u < n; u++) {
+                        if (label[u] == label[v]) size++;
+                        assertThat(uf.find(u) == uf.find(v)).isEqualTo(label[u] == label[v]);
+                    }
+                    assertThat(uf.sizeOf(v)).isEqualTo(size);
+                }
+            }
+        }
+        assertThat(uf.count()).isEqualTo(n);
+    }
+
+    @Test
+    void unionOfSameSetIsNoOp() {
+        IntUnionFind uf = new IntUnionFind(4);
+        for (int i = 0; i < 4; i++) uf.add();
+        assertThat(uf.union(0, 1)).isTrue();
+        assertThat(uf.union(1, 0)).isFalse();
+        assertThat(uf.union(2, 3)).isTrue();
+        assertThat(uf.union(0, 3)).isTrue();
+        assertThat(uf.sizeOf(2)).isEqualTo(4);
+        assertThat(uf.find(1)).isEqualTo(uf.find(2));
+    }
+}
@@ -0,0 +1,71 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.component.DetectorProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PeelChainDetectorTest {
+
+    private static final int STAGES = 13; // maxLength(8) 보다 긴 체인
+
+    private final DetectorProperties props = new DetectorProperties();
+    private final PeelChainDetector detector = new PeelChainDetector(props);
+
+    // a0 → a1 → ... → a13, 단계마다 소액은 s_k 로, 나머지(change)는 다음 주소로
+    private static SnapshotFixture chain() {
+        SnapshotFixture f = new SnapshotFixture();
+        for (int k = 0; k < STAGES; k++) {
+            String small = String.valueOf(0.01 * (1 + k % 3));
+            String large = String.valueOf(10.0 - k * 0.5);
+            f.tx("c" + k, 1_000 + k * 600L, "a" + k, "s" + k, small, "a" + k, "a" + (k + 1), large);
+        }
+        return f;
+    }
+
+    @Test
+    void incrementalRunMatchesFullRunOnLongChain() {
+        SnapshotFixture before = chain();
+        PatternResult stored = detector.detect(before.snapshot(1));
+        assertThat(stored.getFlagged()).contains("a0", "a" + (STAGES - 1));
+
+        // 체인 앞에 새 단계 (소액이 커서 앞쪽 창의 CV 가 바뀜)
+        SnapshotFixture after = before.copy().tx("c-1", 400, "p", "sp", "0.5", "p", "a0", "20");
+        PatternResult full = detector.detect(after.snapshot(1));
+
+        // DetectService.runChangedDetectors 와 같은 방식: 새 tx 에 연결된 지갑에서 2R 까지 읽고 R 안만 반영
+        int radius = detector.neighborhoodHops();
+        List<String> changed = List.of("p", "sp", "a0");
+        Map<String, Integer> hops = after.hops(changed, 2 * radius);
+        PatternResult incremental = detector.detect(after.snapshot(1, hops.keySet()));
+
+        boolean anyChanged = false;
+        for (String address : after.addresses()) {
+            Integer h = hops.get(address);
+            boolean reevaluated = h != null && h <= radius;
+            double expected = full.score(address);
+            double actual = reevaluated ? incremental.score(address) : stored.score(address);
+            assertThat(actual).as("score of %s (hops %s)", address, h).isEqualTo(expected);
+            assertThat(reevaluated ? incremental.isFlagged(address) : stored.isFlagged(address))
+                    .as("flag of %s", address).isEqualTo(full.isFlagged(address));
+            if (reevaluated && stored.score(address) != full.score(address)) anyChanged = true;
+        }
+        assertThat(anyChanged).isTrue();
+    }
+
+    @Test
+    void haloOfNeighborhoodHopsReproducesFullResultForCutPiece() {
+        SnapshotFixture f = chain();
+        PatternResult full = detector.detect(f.snapshot(1));
+
+        // DetectService.runBatch(closed = false): 체인 중간 지갑 하나에 반경만큼 주변 지갑을 붙여 판정
+        for (int k = 0; k <= STAGES; k++) {
+            String core = "a" + k;
+            Map<String, Integer> hops = f.hops(List.of(core), detector.neighborhoodHops());
+            PatternResult piece = detector.detect(f.snapshot(1, hops.keySet()));
+            assertThat(piece.score(core)).as("score of %s", core).isEqualTo(full.score(core));
+        }
+    }
+}
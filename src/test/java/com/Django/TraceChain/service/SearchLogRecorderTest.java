@@ -0,0 +1,29 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.dto.HotAddressDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SearchLogRecorderTest {
+
+    @Test
+    void recordsOnlyChainsTheClientsResolve() {
+        SearchLogRecorder recorder = new SearchLogRecorder(mock(JdbcTemplate.class), 64, 10);
+
+        recorder.record("Bitcoin", "search", "addr1");
+        recorder.record("bitcoin", "trace", "addr1");
+        recorder.record("ETHEREUM", "search", "0xabc");
+        recorder.record(null, "search", "addr2");
+        recorder.record("", "search", "addr2");
+        recorder.record("btc", "search", "addr2");
+        recorder.flush();
+
+        assertThat(recorder.hotAddresses(10))
+                .extracting(h -> h.getChain() + ":" + h.getAddress() + "=" + h.getCount())
+                .containsExactlyInAnyOrder("bitcoin:addr1=2", "ethereum:0xabc=1");
+        assertThat(recorder.hotAddresses(10)).extracting(HotAddressDto::getChain).doesNotContain("");
+    }
+}
@@ -0,0 +1,116 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.dto.TxTransferRow;
+import com.Django.TraceChain.dto.WalletTxRow;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/*
+ * 탐지기 테스트용 메모리 그래프
+ * - tx(...) 로 트랜잭션과 transfer 를 쌓고, snapshot(addresses) 로 DetectionSnapshotLoader 가 읽는 것과 같은 행을 만들어
+ *   DetectionSnapshot.fromRows 로 스냅샷 생성 (지갑 = 그 tx 의 sender/receiver 에 등장하는 주소)
+ * - hops(...) 는 DetectService.expand 와 같은 기준 (같은 트랜잭션을 공유하면 1 hop)
+ */
+final class SnapshotFixture {
+
+    record Transfer(String sender, String receiver, BigDecimal amount) {}
+
+    record Tx(String txID, long tsSec, List<Transfer> transfers) {
+        Set<String> wallets() {
+            Set<String> w = new LinkedHashSet<>();
+            for (Transfer t : transfers) {
+                w.add(t.sender());
+                w.add(t.receiver());
+            }
+            return w;
+        }
+    }
+
+    private final List<Tx> txs = new ArrayList<>();
+
+    SnapshotFixture copy() {
+        SnapshotFixture c = new SnapshotFixture();
+        c.txs.addAll(txs);
+        return c;
+    }
+
+    /** parts = sender, receiver, amount(코인) 반복 */
+    SnapshotFixture tx(String txID, long tsSec, Object... parts) {
+        List<Transfer> transfers = new ArrayList<>();
+        for (int i = 0; i < parts.length; i += 3) {
+            transfers.add(new Transfer((String) parts[i], (String) parts[i + 1], new BigDecimal(parts[i + 2].toString())));
+        }
+        txs.add(new Tx(txID, tsSec, transfers));
+        return this;
+    }
+
+    List<Tx> txs() {
+        return Collections.unmodifiableList(txs);
+    }
+
+    Set<String> addresses() {
+        Set<String> all = new TreeSet<>();
+        for (Tx tx : txs) all.addAll(tx.wallets());
+        return all;
+    }
+
+    // findDetectionTxRows 와 같은 (지갑, tx) 쌍
+    List<WalletTxRow> txRows(Collection<String> addresses) {
+        Set<String> wanted = new HashSet<>(addresses);
+        List<WalletTxRow> rows = new ArrayList<>();
+        for (Tx tx : txs) {
+            LocalDateTime ts = LocalDateTime.ofEpochSecond(tx.tsSec(), 0, ZoneOffset.UTC);
+            for (String wallet : tx.wallets()) {
+                if (wanted.contains(wallet)) rows.add(new WalletTxRow(wallet, tx.txID(), ts));
+            }
+        }
+        return rows;
+    }
+
+    // findDetectionTransferRows 와 같은 tx 별 transfer (transfer 당 한 행)
+    List<TxTransferRow> transferRows(Collection<String> txIDs) {
+        Set<String> wanted = new HashSet<>(txIDs);
+        List<TxTransferRow> rows = new ArrayList<>();
+        for (Tx tx : txs) {
+            if (!wanted.contains(tx.txID())) continue;
+            for (Transfer t : tx.transfers()) {
+                rows.add(new TxTransferRow(tx.txID(), t.sender(), t.receiver(), t.amount()));
+            }
+        }
+        return rows;
+    }
+
+    DetectionSnapshot snapshot(int chainType, Collection<String> addresses) {
+        List<WalletTxRow> txRows = txRows(addresses);
+        return DetectionSnapshot.fromRows(chainType, addresses, txRows,
+                transferRows(txRows.stream().map(WalletTxRow::getTxID).distinct().toList()));
+    }
+
+    DetectionSnapshot snapshot(int chainType) {
+        return snapshot(chainType, addresses());
+    }
+
+    Map<String, Integer> hops(Collection<String> seeds, int maxHops) {
+        Map<String, Set<String>> neighbors = new HashMap<>();
+        for (Tx tx : txs) {
+            for (String a : tx.wallets()) neighbors.computeIfAbsent(a, k -> new HashSet<>()).addAll(tx.wallets());
+        }
+        Map<String, Integer> hops = new HashMap<>();
+        Deque<String> queue = new ArrayDeque<>();
+        for (String s : seeds) {
+            if (hops.putIfAbsent(s, 0) == null) queue.add(s);
+        }
+        while (!queue.isEmpty()) {
+            String a = queue.poll();
+            int h = hops.get(a);
+            if (h == maxHops) continue;
+            for (String b : neighbors.getOrDefault(a, Set.of())) {
+                if (hops.putIfAbsent(b, h + 1) == null) queue.add(b);
+            }
+        }
+        return hops;
+    }
+}
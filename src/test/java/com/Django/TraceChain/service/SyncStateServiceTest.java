@@ -0,0 +1,142 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.model.AddressSyncState;
+import com.Django.TraceChain.repository.AddressSyncStateRepository;
+import com.Django.TraceChain.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class SyncStateServiceTest {
+
+    private WriteBehindQueue writeBehind;
+    private SyncStateService service;
+    private final LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC).withNano(0);
+    private final long nowSec = SyncStateService.epochSecond(now);
+
+    @BeforeEach
+    void setUp() {
+        writeBehind = mock(WriteBehindQueue.class);
+        service = new SyncStateService(mock(AddressSyncStateRepository.class), mock(TransactionRepository.class), writeBehind);
+        ReflectionTestUtils.setField(service, "maxAgeSeconds", 300L);
+    }
+
+    private static AddressSyncState state(long from, long to, LocalDateTime fetchedAt) {
+        AddressSyncState s = new AddressSyncState(SyncStateService.BITCOIN, "addr");
+        s.setCoveredFrom(from);
+        s.setCoveredTo(to);
+        s.setFetchedAt(fetchedAt);
+        s.setCursor("cursor-" + from);
+        return s;
+    }
+
+    private AddressSyncState recorded() {
+        ArgumentCaptor<AddressSyncState> captor = ArgumentCaptor.forClass(AddressSyncState.class);
+        verify(writeBehind).enqueueSyncState(captor.capture());
+        return captor.getValue();
+    }
+
+    // ===== missingRange =====
+
+    @Test
+    void missingRangeWithoutStateIsWholeRequest() {
+        assertThat(service.missingRange(null, 100, 200)).containsExactly(100, 200);
+        assertThat(service.missingRange(new AddressSyncState(SyncStateService.BITCOIN, "addr"), 100, 200))
+                .containsExactly(100, 200);
+    }
+
+    @Test
+    void missingRangeInsideCoverageIsNull() {
+        AddressSyncState s = state(100, 500, now.minusDays(1));
+        assertThat(service.missingRange(s, 100, 500)).isNull();
+        assertThat(service.missingRange(s, 200, 300)).isNull();
+    }
+
+    @Test
+    void missingRangeReturnsOnlyUncoveredSide() {
+        AddressSyncState s = state(100, 500, now.minusDays(1));
+        assertThat(service.missingRange(s, 300, 800)).containsExactly(501, 800); // 최신 쪽만 빔
+        assertThat(service.missingRange(s, 50, 300)).containsExactly(50, 99);    // 과거 쪽만 빔
+        assertThat(service.missingRange(s, 50, 800)).containsExactly(50, 800);   // 양쪽 → 전체
+        assertThat(service.missingRange(s, 600, 800)).containsExactly(600, 800); // 떨어진 구간
+        assertThat(service.missingRange(s, 501, 800)).containsExactly(501, 800); // 맞닿은 경계
+    }
+
+    @Test
+    void freshHeadCoverageExtendsToFuture() {
+        AddressSyncState fresh = state(100, nowSec, now);
+        assertThat(service.missingRange(fresh, 200, nowSec + 3_600)).isNull();
+
+        AddressSyncState stale = state(100, nowSec - 3_600, now.minusHours(1));
+        assertThat(service.missingRange(stale, 200, nowSec)).containsExactly(nowSec - 3_599, nowSec);
+    }
+
+    // ===== record =====
+
+    @Test
+    void recordWithoutPriorKeepsNewRange() {
+        service.record(SyncStateService.BITCOIN, "addr", null, 100, 200, "c", 5, now);
+        AddressSyncState s = recorded();
+        assertThat(s.getCoveredFrom()).isEqualTo(100);
+        assertThat(s.getCoveredTo()).isEqualTo(200);
+        assertThat(s.getCursor()).isEqualTo("c");
+        assertThat(s.getFetchedCount()).isEqualTo(5);
+        assertThat(s.isComplete()).isFalse();
+    }
+
+    @Test
+    void recordMergesOverlappingRangeAndKeepsOuterBoundaries() {
+        AddressSyncState prior = state(50, 150, now.minusHours(1));
+        prior.setFetchedCount(7);
+        service.record(SyncStateService.BITCOIN, "addr", prior, 100, 200, "new", 3, now);
+        AddressSyncState s = recorded();
+        assertThat(s.getCoveredFrom()).isEqualTo(50);
+        assertThat(s.getCursor()).isEqualTo("cursor-50"); // from 쪽 경계는 prior 의 것
+        assertThat(s.getCoveredTo()).isEqualTo(200);
+        assertThat(s.getFetchedAt()).isEqualTo(now);       // to 쪽 경계는 새 것
+        assertThat(s.getFetchedCount()).isEqualTo(7);
+    }
+
+    @Test
+    void recordMergesAdjacentRangeBelowPrior() {
+        // 이어받기: 새 구간 [0, coveredFrom - 1] 이 prior [coveredFrom, head] 와 맞닿음
+        AddressSyncState prior = state(100, nowSec, now);
+        service.record(SyncStateService.BITCOIN, "addr", prior, 0, 99, null, 20, now.plusSeconds(5));
+        AddressSyncState s = recorded();
+        assertThat(s.getCoveredFrom()).isZero();
+        assertThat(s.getCoveredTo()).isEqualTo(nowSec);
+        assertThat(s.getFetchedAt()).isEqualTo(now);
+        assertThat(s.isComplete()).isTrue();
+        assertThat(s.reachesHead()).isTrue();
+    }
+
+    @Test
+    void recordReplacesDisjointRange() {
+        AddressSyncState prior = state(100, 200, now.minusHours(1));
+        service.record(SyncStateService.BITCOIN, "addr", prior, 202, 300, "c", 0, now);
+        AddressSyncState s = recorded();
+        assertThat(s.getCoveredFrom()).isEqualTo(202);
+        assertThat(s.getCoveredTo()).isEqualTo(300);
+        assertThat(s.getCursor()).isEqualTo("c");
+    }
+
+    @Test
+    void recordOfInnerRangeKeepsPrior() {
+        AddressSyncState prior = state(100, 500, now.minusHours(1));
+        prior.setFetchedCount(4);
+        service.record(SyncStateService.BITCOIN, "addr", prior, 200, 300, "c", 0, now);
+        AddressSyncState s = recorded();
+        assertThat(s.getCoveredFrom()).isEqualTo(100);
+        assertThat(s.getCoveredTo()).isEqualTo(500);
+        assertThat(s.getCursor()).isEqualTo("cursor-100");
+        assertThat(s.getFetchedAt()).isEqualTo(prior.getFetchedAt());
+        assertThat(s.getFetchedCount()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,158 @@
+package com.Django.TraceChain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TaintPropagationEngineTest {
+
+    // 간선 목록 → 엔진 (노드 이름은 "n0".."n{count-1}")
+    private static final class Graph {
+        final int count;
+        final List<int[]> ends = new ArrayList<>();
+        final List<Double> amounts = new ArrayList<>();
+        final List<Long> times = new ArrayList<>();
+
+        Graph(int count) { this.count = count; }
+
+        Graph edge(int s, int r, double amount, long time) {
+            ends.add(new int[]{s, r});
+            amounts.add(amount);
+            times.add(time);
+            return this;
+        }
+
+        TaintPropagationEngine build() {
+            int m = ends.size();
+            String[] names = new String[count];
+            for (int v = 0; v < count; v++) names[v] = "n" + v;
+            int[] src = new int[m], dst = new int[m];
+            double[] amount = new double[m];
+            long[] time = new long[m];
+            for (int e = 0; e < m; e++) {
+                src[e] = ends.get(e)[0];
+                dst[e] = ends.get(e)[1];
+                amount[e] = amounts.get(e);
+                time[e] = times.get(e);
+            }
+            return TaintPropagationEngine.build(names, src, dst, amount, time, m);
+        }
+
+        // frontier 없이 매 반복 모든 노드를 다시 계산하는 기준 구현 (같은 haircut / 시간 규칙)
+        double[] reference(double[] seed, double decay, double minScore, int iterations) {
+            double[] score = new double[count];
+            long[] since = new long[count];
+            Arrays.fill(since, Long.MAX_VALUE);
+            for (int v = 0; v < count; v++) {
+                if (seed[v] > 0) {
+                    score[v] = seed[v];
+                    since[v] = Long.MIN_VALUE;
+                }
+            }
+            double[] inTotal = new double[count];
+            for (int e = 0; e < ends.size(); e++) inTotal[ends.get(e)[1]] += amounts.get(e);
+            for (int it = 0; it < iterations; it++) {
+                double[] sum = new double[count];
+                long[] first = new long[count];
+                Arrays.fill(first, Long.MAX_VALUE);
+                for (int e = 0; e < ends.size(); e++) {
+                    int s = ends.get(e)[0], r = ends.get(e)[1];
+                    if (score[s] <= 0 || times.get(e) < since[s]) continue;
+                    sum[r] += score[s] * amounts.get(e);
+                    first[r] = Math.min(first[r], times.get(e));
+                }
+                double[] nextScore = new double[count];
+                long[] nextSince = new long[count];
+                for (int r = 0; r < count; r++) {
+                    double p = inTotal[r] > 0 ? Math.min(1.0, decay * sum[r] / inTotal[r]) : 0.0;
+                    long f = first[r];
+                    if (p < minScore) {
+                        p = 0.0;
+                        f = Long.MAX_VALUE;
+                    }
+                    nextScore[r] = seed[r] > 0 ? Math.max(seed[r], p) : p;
+                    nextSince[r] = seed[r] > 0 ? Long.MIN_VALUE : f;
+                }
+                score = nextScore;
+                since = nextSince;
+            }
+            return score;
+        }
+    }
+
+    private static double[] seeds(int count, int... tainted) {
+        double[] seed = new double[count];
+        for (int v : tainted) seed[v] = 1.0;
+        return seed;
+    }
+
+    @Test
+    void decaysPerHopAlongAChain() {
+        Graph g = new Graph(4).edge(0, 1, 2.0, 10).edge(1, 2, 1.0, 20).edge(2, 3, 5.0, 30);
+        TaintPropagationEngine.Result r = g.build().propagate(seeds(4, 0), 0.5, 0.0, 1e-12, 100);
+        assertThat(r.isConverged()).isTrue();
+        assertThat(r.getScore()).containsExactly(new double[]{1.0, 0.5, 0.25, 0.125}, within(1e-12));
+    }
+
+    @Test
+    void haircutByShareOfReceivedAmount() {
+        // n2 는 오염된 n0 에게서 1, 깨끗한 n1 에게서 3 을 받음
+        Graph g = new Graph(3).edge(0, 2, 1.0, 10).edge(1, 2, 3.0, 10);
+        double[] score = g.build().propagate(seeds(3, 0), 0.8, 0.0, 1e-12, 100).getScore();
+        assertThat(score[2]).isCloseTo(0.8 * 0.25, within(1e-12));
+        assertThat(score[1]).isZero();
+    }
+
+    @Test
+    void fundsSentBeforeTaintStayClean() {
+        // n1 은 t=20 에 오염, 그 전에 n2 로 보낸 돈은 깨끗하고 그 뒤 n3 으로 보낸 돈만 전파
+        Graph g = new Graph(4).edge(0, 1, 1.0, 20).edge(1, 2, 1.0, 10).edge(1, 3, 1.0, 30);
+        double[] score = g.build().propagate(seeds(4, 0), 0.5, 0.0, 1e-12, 100).getScore();
+        assertThat(score[2]).isZero();
+        assertThat(score[3]).isCloseTo(0.25, within(1e-12));
+    }
+
+    @Test
+    void scoresBelowMinimumAreDropped() {
+        Graph g = new Graph(3).edge(0, 1, 1.0, 10).edge(1, 2, 1.0, 20);
+        double[] score = g.build().propagate(seeds(3, 0), 0.3, 0.1, 1e-12, 100).getScore();
+        assertThat(score[1]).isCloseTo(0.3, within(1e-12));
+        assertThat(score[2]).isZero(); // 0.09 < 0.1
+    }
+
+    @Test
+    void stopsAtMaxIterationsWithoutConverging() {
+        Graph g = new Graph(4).edge(0, 1, 1.0, 10).edge(1, 2, 1.0, 20).edge(2, 3, 1.0, 30);
+        TaintPropagationEngine.Result r = g.build().propagate(seeds(4, 0), 0.5, 0.0, 1e-12, 2);
+        assertThat(r.isConverged()).isFalse();
+        assertThat(r.getIterations()).isEqualTo(2);
+        assertThat(r.getScore()[3]).isZero();
+    }
+
+    // 사이클/재오염이 있는 랜덤 그래프에서 frontier 반복이 전체 재계산의 고정점과 같음
+    @Test
+    void frontierIterationConvergesToFullRecomputation() {
+        Random random = new Random(23);
+        for (int round = 0; round < 100; round++) {
+            int count = 5 + random.nextInt(40);
+            Graph g = new Graph(count);
+            int edges = count + random.nextInt(count * 4);
+            for (int e = 0; e < edges; e++) {
+                int s = random.nextInt(count), r = random.nextInt(count);
+                if (s == r) continue;
+                g.edge(s, r, 0.1 + random.nextInt(100), random.nextInt(50));
+            }
+            double[] seed = new double[count];
+            for (int v = 0; v < count; v++) if (random.nextInt(6) == 0) seed[v] = 0.2 + 0.8 * random.nextDouble();
+            double decay = 0.3 + 0.6 * random.nextDouble();
+
+            TaintPropagationEngine.Result r = g.build().propagate(seed, decay, 0.0, 1e-13, 10_000);
+            assertThat(r.isConverged()).as("round %d", round).isTrue();
+            double[] expected = g.reference(seed, decay, 0.0, r.getIterations() + 200);
+            assertThat(r.getScore()).as("round %d", round).containsExactly(expected, within(1e-9));
+        }
+    }
+}
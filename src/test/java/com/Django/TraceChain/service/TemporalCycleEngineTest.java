@@ -0,0 +1,125 @@
+package com.Django.TraceChain.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TemporalCycleEngineTest {
+
+    private record Edge(int src, int dst, long time) {}
+
+    // 엔진과 같은 간선 규칙: tx 안에서 (sender, receiver) 중복 / 자기 자신 간선 제외, 시각 = tx 시각
+    private static List<Edge> edges(SnapshotFixture f, Map<String, Integer> ids) {
+        List<Edge> edges = new ArrayList<>();
+        for (SnapshotFixture.Tx tx : f.txs()) {
+            Set<List<Integer>> seen = new HashSet<>();
+            for (SnapshotFixture.Transfer t : tx.transfers()) {
+                if (t.sender().equals(t.receiver())) continue;
+                int s = ids.computeIfAbsent(t.sender(), k -> ids.size());
+                int r = ids.computeIfAbsent(t.receiver(), k -> ids.size());
+                if (seen.add(List.of(s, r))) edges.add(new Edge(s, r, tx.tsSec()));
+            }
+        }
+        return edges;
+    }
+
+    // 가지치기 없는 전수 DFS: 모든 시작점에서 시각이 엄격히 증가하는 단순 경로로 minLen~maxLen 간선 만에 돌아오는 사이클
+    private static Set<String> bruteForce(SnapshotFixture f, int minLen, int maxLen) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<Edge> edges = edges(f, ids);
+        String[] names = new String[ids.size()];
+        ids.forEach((name, id) -> names[id] = name);
+
+        boolean[] onCycle = new boolean[names.length];
+        for (int s = 0; s < names.length; s++) {
+            Deque<Integer> path = new ArrayDeque<>();
+            path.add(s);
+            dfs(s, s, Long.MIN_VALUE, path, edges, minLen, maxLen, onCycle);
+        }
+        Set<String> result = new HashSet<>();
+        for (int v = 0; v < names.length; v++) {
+            if (onCycle[v]) result.add(names[v]);
+        }
+        return result;
+    }
+
+    private static void dfs(int start, int v, long after, Deque<Integer> path, List<Edge> edges,
+                            int minLen, int maxLen, boolean[] onCycle) {
+        for (Edge e : edges) {
+            if (e.src() != v || e.time() <= after) continue;
+            if (e.dst() == start) {
+                if (path.size() >= minLen) for (int u : path) onCycle[u] = true;
+                continue;
+            }
+            if (path.size() >= maxLen || path.contains(e.dst())) continue;
+            path.addLast(e.dst());
+            dfs(start, e.dst(), e.time(), path, edges, minLen, maxLen, onCycle);
+            path.removeLast();
+        }
+    }
+
+    private static Set<String> engine(SnapshotFixture f, int minLen, int maxLen) {
+        return TemporalCycleEngine.build(f.snapshot(1), minLen, maxLen).findCycleParticipants();
+    }
+
+    @Test
+    void matchesBruteForceOnRandomTemporalGraphs() {
+        Random random = new Random(42);
+        int withCycles = 0;
+        for (int graph = 0; graph < 400; graph++) {
+            int nodes = 4 + random.nextInt(7);
+            int txs = 8 + random.nextInt(30);
+            int timeRange = 3 + random.nextInt(25); // 좁으면 같은 시각 간선이 많아짐
+            SnapshotFixture f = new SnapshotFixture();
+            for (int i = 0; i < txs; i++) {
+                int transfers = 1 + random.nextInt(3);
+                Object[] parts = new Object[transfers * 3];
+                for (int j = 0; j < transfers; j++) {
+                    parts[j * 3] = "n" + random.nextInt(nodes);
+                    parts[j * 3 + 1] = "n" + random.nextInt(nodes);
+                    parts[j * 3 + 2] = "1";
+                }
+                f.tx("t" + i, random.nextInt(timeRange), parts);
+            }
+
+            int minLen = 2 + random.nextInt(2);
+            int maxLen = minLen + random.nextInt(4);
+            Set<String> expected = bruteForce(f, minLen, maxLen);
+            assertThat(engine(f, minLen, maxLen))
+                    .as("graph %d, cycle length %d~%d", graph, minLen, maxLen)
+                    .isEqualTo(expected);
+            if (!expected.isEmpty()) withCycles++;
+        }
+        // 비교가 빈 집합끼리만 이뤄지지 않았는지
+        assertThat(withCycles).isGreaterThan(100);
+    }
+
+    @Test
+    void sameTimestampEdgesDoNotChain() {
+        SnapshotFixture f = new SnapshotFixture()
+                .tx("t1", 10, "a", "b", "1")
+                .tx("t2", 20, "b", "c", "1")
+                .tx("t3", 20, "c", "a", "1");
+        assertThat(engine(f, 3, 5)).isEmpty();
+
+        f.tx("t4", 30, "c", "a", "1");
+        assertThat(engine(f, 3, 5)).containsExactlyInAnyOrder("a", "b", "c");
+    }
+
+    // 늦게 떠나야 돌아올 수 있는 경로: late 상한이 다른 홉 수의 경로 때문에 너무 빡빡하면 놓침
+    @Test
+    void keepsCyclesThatNeedTheLatestDeparture() {
+        SnapshotFixture f = new SnapshotFixture()
+                .tx("t1", 1, "s", "a", "1")
+                .tx("t2", 2, "a", "b", "1")
+                .tx("t3", 3, "b", "s", "1")   // s→a→b→s (3)
+                .tx("t4", 4, "a", "c", "1")
+                .tx("t5", 5, "c", "d", "1")
+                .tx("t6", 6, "d", "s", "1");  // s→a→c→d→s (4)
+        assertThat(engine(f, 3, 4)).containsExactlyInAnyOrder("s", "a", "b", "c", "d");
+        assertThat(engine(f, 3, 3)).containsExactlyInAnyOrder("s", "a", "b");
+        assertThat(engine(f, 4, 4)).containsExactlyInAnyOrder("s", "a", "c", "d");
+    }
+}
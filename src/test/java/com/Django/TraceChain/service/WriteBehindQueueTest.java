@@ -0,0 +1,215 @@
+package com.Django.TraceChain.service;
+
+import com.Django.TraceChain.model.Transaction;
+import com.Django.TraceChain.model.Wallet;
+import com.Django.TraceChain.repository.AddressSyncStateRepository;
+import com.Django.TraceChain.repository.TransactionRepository;
+import com.Django.TraceChain.repository.WalletRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class WriteBehindQueueTest {
+
+    private final Set<String> stored = new HashSet<>();
+    private final Map<String, List<List<Object>>> jdbcRows = new HashMap<>();
+    private Function<String, Integer> linkResult = link -> 1;
+
+    private WalletRepository walletRepository;
+    private PlatformTransactionManager transactionManager;
+    private EntityManager entityManager;
+    private Query bumpQuery;
+    private Cache cache;
+    private ApplicationEventPublisher eventPublisher;
+    private WriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        walletRepository = mock(WalletRepository.class);
+        when(walletRepository.findExistingAddresses(anyCollection())).thenAnswer(inv ->
+                inv.<Collection<String>>getArgument(0).stream().filter(stored::contains).toList());
+        TransactionRepository transactionRepository = mock(TransactionRepository.class);
+        when(transactionRepository.findExistingIds(anyCollection())).thenReturn(List.of());
+
+        // batchUpdate 는 SQL 별로 (첫 번째 값, 두 번째 값 ...) 행을 기록, 링크는 linkResult 로 삽입 행 수 결정
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenAnswer(inv -> {
+            String sql = inv.getArgument(0);
+            Collection<?> args = inv.getArgument(1);
+            int[] counts = new int[args.size()];
+            int i = 0;
+            for (Object arg : args) {
+                List<Object> row = new ArrayList<>();
+                if (arg instanceof List<?> link) {
+                    row.addAll(link);
+                    counts[i++] = linkResult.apply(link.get(0) + "/" + link.get(1));
+                } else {
+                    WriteBehindQueue.PendingWallet w = (WriteBehindQueue.PendingWallet) arg;
+                    row.add(w.address);
+                    row.add(w.balance);
+                    counts[i++] = 1;
+                }
+                jdbcRows.computeIfAbsent(sql.startsWith("UPDATE") ? "balance" : "link", k -> new ArrayList<>()).add(row);
+            }
+            return new int[][]{counts};
+        });
+
+        transactionManager = mock(PlatformTransactionManager.class);
+        entityManager = mock(EntityManager.class);
+        bumpQuery = mock(Query.class);
+        when(entityManager.createQuery(anyString())).thenReturn(bumpQuery);
+        when(bumpQuery.setParameter(anyString(), any())).thenReturn(bumpQuery);
+        EntityManagerFactory emf = mock(EntityManagerFactory.class);
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        cache = mock(Cache.class);
+        when(entityManager.getEntityManagerFactory()).thenReturn(emf);
+        when(emf.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+        when(sessionFactory.getCache()).thenReturn(cache);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+
+        queue = new WriteBehindQueue(walletRepository, transactionRepository, mock(AddressSyncStateRepository.class),
+                jdbcTemplate, transactionManager, eventPublisher);
+        ReflectionTestUtils.setField(queue, "entityManager", entityManager);
+        ReflectionTestUtils.setField(queue, "capacity", 1000);
+        ReflectionTestUtils.setField(queue, "batchSize", 500);
+        ReflectionTestUtils.setField(queue, "flushIntervalMs", 60_000L); // barrier 로만 flush
+        ReflectionTestUtils.setField(queue, "barrierTimeoutMs", 5_000L);
+        ReflectionTestUtils.invokeMethod(queue, "start");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(queue, "stop");
+    }
+
+    private static Transaction tx(String txID) {
+        return new Transaction(txID, BigDecimal.ONE, LocalDateTime.of(2024, 1, 1, 0, 0));
+    }
+
+    private List<Object> persisted() {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(entityManager, atLeast(0)).persist(captor.capture());
+        return captor.getAllValues();
+    }
+
+    @Test
+    void coalescesItemsIntoOneCommitAtBarrier() {
+        stored.add("a");
+        queue.enqueueWallet("a", 1, new BigDecimal("1"));
+        queue.enqueueWallet("a", 1, null);
+        queue.enqueueWallet("a", 1, new BigDecimal("5"));
+        queue.enqueueWallet("b", 1, new BigDecimal("2"));
+        queue.enqueueTransaction(tx("t1"));
+        queue.enqueueTransaction(tx("t1"));
+        queue.enqueueLink("a", 1, "t1");
+        queue.enqueueLink("a", 1, "t1");
+        queue.enqueueLink("c", 1, "t1");
+        assertThat(queue.pendingWallet("a").getBalance()).isEqualByComparingTo("5");
+        verifyNoInteractions(transactionManager); // barrier 전에는 쓰지 않음
+
+        queue.flush();
+
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any());
+        // 있던 지갑은 마지막 잔액으로 한 번만 컬럼 UPDATE, 엔티티로는 새 지갑과 새 트랜잭션만 저장
+        assertThat(jdbcRows.get("balance")).containsExactly(List.of("a", new BigDecimal("5")));
+        assertThat(persisted()).extracting(o -> o instanceof Wallet w ? "wallet " + w.getAddress()
+                        : "tx " + ((Transaction) o).getTxID())
+                .containsExactly("wallet b", "wallet c", "tx t1");
+        assertThat(jdbcRows.get("link")).containsExactly(List.of("a", "t1"), List.of("c", "t1"));
+        verify(cache).evictEntityData(Wallet.class, "a");
+        assertThat(queue.pendingWallet("a")).isNull();
+    }
+
+    @Test
+    void bumpsTxVersionOnlyForWalletsWithNewLinks() {
+        stored.addAll(List.of("a", "c"));
+        linkResult = link -> link.startsWith("a/") ? 1 : 0; // c 의 연결은 이미 있음
+        queue.enqueueTransaction(tx("t1"));
+        queue.enqueueLink("a", 1, "t1");
+        queue.enqueueLink("c", 1, "t1");
+
+        queue.flush();
+
+        verify(entityManager).createQuery(startsWith("UPDATE Wallet w SET w.txVersion = w.txVersion + 1"));
+        verify(bumpQuery).setParameter("addresses", List.of("a"));
+        verify(bumpQuery).executeUpdate();
+        ArgumentCaptor<TransactionsPersistedEvent> event = ArgumentCaptor.forClass(TransactionsPersistedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getWallets()).containsExactly("a");
+        assertThat(event.getValue().getTransactionIds()).containsExactly("t1");
+        // 두 지갑 모두 JDBC 로 컬렉션을 건드렸으므로 캐시에서 제거
+        verify(cache).evictCollectionData(Wallet.class.getName() + ".transactions", "a");
+        verify(cache).evictCollectionData(Wallet.class.getName() + ".transactions", "c");
+    }
+
+    @Test
+    void retriesPerItemAndFailsBarrierOnlyForDroppedItems() {
+        doThrow(new IllegalStateException("constraint"))
+                .when(entityManager).persist(argThat(o -> o instanceof Transaction t && t.getTxID().equals("bad")));
+        queue.enqueueTransaction(tx("good"));
+        queue.enqueueTransaction(tx("bad"));
+        queue.enqueueWallet("b", 1, BigDecimal.ONE);
+
+        assertThatThrownBy(queue::flush)
+                .isInstanceOf(WriteBehindFlushException.class)
+                .hasMessageContaining("dropped 1 item(s)")
+                .hasMessageContaining("transaction bad");
+
+        // 배치 한 번 실패 → 항목 3개를 각각 다시 시도, 실패한 것만 버려짐
+        verify(transactionManager, times(4)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        ArgumentCaptor<TransactionsPersistedEvent> event = ArgumentCaptor.forClass(TransactionsPersistedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(event.capture());
+        assertThat(event.getAllValues()).flatExtracting(TransactionsPersistedEvent::getTransactionIds)
+                .containsExactly("good");
+
+        // 실패는 한 barrier 에만 보고됨
+        queue.flush();
+    }
+
+    @Test
+    void barrierTimesOutWhileWriterIsStuck() throws InterruptedException {
+        ReflectionTestUtils.setField(queue, "barrierTimeoutMs", 200L);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(transactionManager.getTransaction(any())).thenAnswer(inv -> {
+            entered.countDown();
+            release.await();
+            return null;
+        });
+        queue.enqueueWallet("b", 1, BigDecimal.ONE);
+
+        assertThatThrownBy(queue::flush)
+                .isInstanceOf(WriteBehindFlushException.class)
+                .hasMessageContaining("timed out");
+        assertThat(entered.await(1, TimeUnit.SECONDS)).isTrue();
+
+        release.countDown();
+        ReflectionTestUtils.setField(queue, "barrierTimeoutMs", 5_000L);
+        queue.flush();
+        verify(transactionManager).commit(any());
+    }
+}